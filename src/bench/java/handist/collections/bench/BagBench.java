@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import handist.collections.Bag;
+
+/**
+ * Benchmarks of the removal of elements from a {@link Bag}. The bag is
+ * refilled before each invocation, the measured time therefore includes
+ * draining the whole bag.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(1)
+public class BagBench {
+
+	@Param({ "10000", "100000" })
+	public int elements;
+
+	/** Number of lists the elements are spread over */
+	@Param({ "1", "16", "256" })
+	public int lists;
+
+	Bag<Integer> bag;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		bag = new Bag<>();
+		for (int b = 0; b < lists; b++) {
+			List<Integer> l = new ArrayList<>();
+			for (int i = b; i < elements; i += lists) {
+				l.add(i);
+			}
+			bag.addBag(l);
+		}
+	}
+
+	@Benchmark
+	public long remove() {
+		long sum = 0;
+		Integer i;
+		while ((i = bag.remove()) != null) {
+			sum += i;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long removeN() {
+		long sum = 0;
+		List<Integer> l;
+		while ((l = bag.removeN(100)) != null) {
+			sum += l.size();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+
+/**
+ * Benchmarks of the element-wise operations of {@link Chunk}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkBench {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int elements;
+
+	Chunk<Long> chunk;
+	LongRange half;
+
+	@Setup
+	public void setup() {
+		chunk = new Chunk<>(new LongRange(0, elements));
+		for (long l = 0; l < elements; l++) {
+			chunk.set(l, l);
+		}
+		half = new LongRange(elements / 4, elements / 4 + elements / 2);
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		chunk.forEach((Long l) -> bh.consume(l));
+	}
+
+	@Benchmark
+	public void forEachWithIndex(Blackhole bh) {
+		chunk.forEach((long i, Long l) -> bh.consume(l));
+	}
+
+	@Benchmark
+	public void forEachSubRange(Blackhole bh) {
+		chunk.forEach(half, (Long l) -> bh.consume(l));
+	}
+
+	@Benchmark
+	public long get() {
+		long sum = 0;
+		for (long i = 0; i < elements; i++) {
+			sum += chunk.get(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long iterator() {
+		long sum = 0;
+		for (Long l : chunk) {
+			sum += l;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import handist.collections.Chunk;
+import handist.collections.ChunkedList;
+import handist.collections.LongRange;
+
+/**
+ * Ways of splitting a range of indices into chunks used by the benchmarks.
+ * Each layout covers the range [0, elements) without gaps.
+ */
+public enum ChunkLayout {
+	/** A single chunk holding every element */
+	SINGLE,
+	/** 64 chunks of identical size */
+	UNIFORM,
+	/** Chunks of 1000 elements */
+	SMALL,
+	/** One chunk holding half of the elements, the rest split into 63 chunks */
+	SKEWED;
+
+	/**
+	 * Returns the bounds of the chunks for the given number of elements. The
+	 * returned array contains the lower bound of each chunk followed by the
+	 * total number of elements.
+	 *
+	 * @param elements total number of elements
+	 * @return bounds of the chunks
+	 */
+	public long[] bounds(long elements) {
+		long[] b;
+		switch (this) {
+		case SINGLE:
+			return new long[] { 0, elements };
+		case UNIFORM:
+			b = new long[65];
+			for (int i = 0; i <= 64; i++) {
+				b[i] = elements * i / 64;
+			}
+			return b;
+		case SMALL:
+			int n = (int) ((elements + 999) / 1000);
+			b = new long[n + 1];
+			for (int i = 0; i < n; i++) {
+				b[i] = i * 1000l;
+			}
+			b[n] = elements;
+			return b;
+		case SKEWED:
+		default:
+			b = new long[65];
+			long half = elements / 2;
+			b[1] = half;
+			for (int i = 2; i <= 64; i++) {
+				b[i] = half + (elements - half) * (i - 1) / 63;
+			}
+			return b;
+		}
+	}
+
+	/**
+	 * Builds a {@link ChunkedList} of the given number of {@link Long}s split
+	 * according to this layout. Element {@code i} is {@code Long.valueOf(i)}.
+	 *
+	 * @param elements total number of elements
+	 * @return a new {@link ChunkedList}
+	 */
+	public ChunkedList<Long> build(long elements) {
+		ChunkedList<Long> list = new ChunkedList<>();
+		long[] b = bounds(elements);
+		for (int i = 0; i + 1 < b.length; i++) {
+			if (b[i] == b[i + 1]) {
+				continue;
+			}
+			Chunk<Long> c = new Chunk<>(new LongRange(b[i], b[i + 1]));
+			for (long l = b[i]; l < b[i + 1]; l++) {
+				c.set(l, l);
+			}
+			list.addChunk(c);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import handist.collections.ChunkedList;
+
+/**
+ * Benchmarks of {@link ChunkedList} accessors and of its parallel
+ * {@code forEach} overloads for various chunk layouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkedListBench {
+
+	/** Number of random accesses performed by {@link #randomGet()} */
+	static final int ACCESSES = 10000;
+
+	@Param({ "100000", "1000000" })
+	public long elements;
+
+	@Param({ "SINGLE", "UNIFORM", "SMALL", "SKEWED" })
+	public ChunkLayout layout;
+
+	/**
+	 * Thread pool used by the parallel benchmarks only, so that the
+	 * sequential ones are not repeated for every number of threads.
+	 */
+	@State(Scope.Benchmark)
+	public static class Parallel {
+
+		@Param({ "1", "2", "4", "8" })
+		public int threads;
+
+		ExecutorService pool;
+
+		@Setup
+		public void setup() {
+			pool = Executors.newFixedThreadPool(threads);
+		}
+
+		@TearDown
+		public void tearDown() {
+			pool.shutdown();
+		}
+	}
+
+	ChunkedList<Long> list;
+	long[] indices;
+
+	@Setup
+	public void setup() {
+		list = layout.build(elements);
+		Random r = new Random(42);
+		indices = new long[ACCESSES];
+		for (int i = 0; i < ACCESSES; i++) {
+			indices[i] = (long) (r.nextDouble() * elements);
+		}
+	}
+
+	@Benchmark
+	public long randomGet() {
+		long sum = 0;
+		for (long i : indices) {
+			sum += list.get(i);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public List<ChunkedList<Long>> separate(Parallel p) {
+		return list.separate(p.threads);
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		list.forEach((Long l) -> bh.consume(l));
+	}
+
+	@Benchmark
+	public long parallelForEach(Parallel p) {
+		LongAdder sum = new LongAdder();
+		list.forEach(p.pool, p.threads, (Long l) -> sum.add(l));
+		return sum.sum();
+	}
+
+	@Benchmark
+	public long parallelForEachWithIndex(Parallel p) {
+		LongAdder sum = new LongAdder();
+		list.forEach(p.pool, p.threads, (long i, Long l) -> sum.add(i));
+		return sum.sum();
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import handist.collections.Chunk;
+import handist.collections.ColumnarChunk;
+import handist.collections.LongRange;
+import handist.collections.RecordLayout;
+
+/**
+ * Benchmarks of loops over small records held by a {@link Chunk} and by a
+ * {@link ColumnarChunk}, the latter being accessed through its cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarChunkBench {
+
+	public static class Particle {
+		long id;
+		double x, y, z;
+		double vx, vy, vz;
+	}
+
+	@Param({ "100000", "1000000" })
+	public int elements;
+
+	Chunk<Particle> chunk;
+	ColumnarChunk<Particle> columnar;
+	int x, vx;
+
+	@Setup
+	public void setup() {
+		chunk = new Chunk<>(new LongRange(0, elements));
+		for (long i = 0; i < elements; i++) {
+			Particle p = new Particle();
+			p.id = i;
+			p.x = i;
+			p.vx = 1.0 / (i + 1);
+			chunk.set(i, p);
+		}
+		// Shuffle the particles on the heap as a long-running program would
+		for (int i = 0; i < elements; i += 2) {
+			Particle p = chunk.get(i);
+			Particle copy = new Particle();
+			copy.id = p.id;
+			copy.x = p.x;
+			copy.vx = p.vx;
+			chunk.set(i, copy);
+		}
+		RecordLayout<Particle> layout = RecordLayout.of(Particle.class);
+		columnar = new ColumnarChunk<>(chunk, layout);
+		x = layout.column("x");
+		vx = layout.column("vx");
+	}
+
+	@Benchmark
+	public Chunk<Particle> chunkAdvance() {
+		chunk.forEach((Particle p) -> p.x += p.vx);
+		return chunk;
+	}
+
+	@Benchmark
+	public ColumnarChunk<Particle> columnarAdvance() {
+		columnar.forEachRecord(c -> c.setDouble(x, c.getDouble(x) + c.getDouble(vx)));
+		return columnar;
+	}
+
+	@Benchmark
+	public double chunkSum() {
+		double sum = 0;
+		for (long i = 0; i < elements; i++) {
+			sum += chunk.get(i).x;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double columnarSum() {
+		double sum = 0;
+		for (double v : (double[]) columnar.column(x)) {
+			sum += v;
+		}
+		return sum;
+	}
+}
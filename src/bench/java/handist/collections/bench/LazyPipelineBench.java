@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import handist.collections.ChunkedList;
+import handist.collections.LazyChunkedList;
+
+/**
+ * Benchmarks of a three-stage transform (map, map, filter then sum) written
+ * with the eager operations of {@link ChunkedList}, which materialize a list
+ * for each stage, and with the fused pipeline of {@link LazyChunkedList}. The
+ * allocation rates can be compared by running JMH with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyPipelineBench {
+
+	@Param({ "100000", "1000000" })
+	public long elements;
+
+	@Param({ "UNIFORM", "SMALL" })
+	public ChunkLayout layout;
+
+	@Param({ "4" })
+	public int threads;
+
+	ChunkedList<Long> list;
+	ExecutorService pool;
+
+	@Setup
+	public void setup() {
+		list = layout.build(elements);
+		pool = Executors.newFixedThreadPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public long eager() {
+		LongAdder sum = new LongAdder();
+		list.map((Long l) -> l * 3).map((Long l) -> l + 1).forEach((Long l) -> {
+			if (l % 2 == 0) {
+				sum.add(l);
+			}
+		});
+		return sum.sum();
+	}
+
+	@Benchmark
+	public long lazy() {
+		return list.lazy().map((Long l) -> l * 3).map((Long l) -> l + 1).filter((Long l) -> l % 2 == 0)
+				.reduce(0l, Long::sum);
+	}
+
+	@Benchmark
+	public long eagerParallel() {
+		LongAdder sum = new LongAdder();
+		list.map(pool, threads, (Long l) -> l * 3).map(pool, threads, (Long l) -> l + 1)
+				.forEach(pool, threads, (Long l) -> {
+					if (l % 2 == 0) {
+						sum.add(l);
+					}
+				});
+		return sum.sum();
+	}
+
+	@Benchmark
+	public long lazyParallel() {
+		return list.lazy().map((Long l) -> l * 3).map((Long l) -> l + 1).filter((Long l) -> l % 2 == 0)
+				.reduce(pool, 0l, Long::sum);
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import handist.collections.LongRange;
+import handist.collections.LongRangeSet;
+
+/**
+ * Benchmarks of the operations on many ranges held by a {@link LongRangeSet}
+ * and by a {@link TreeMap} of {@link LongRange}s, as the ranges of the chunks
+ * of a {@link handist.collections.ChunkedList} are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongRangeSetBench {
+
+	@Param({ "1000000" })
+	public int ranges;
+
+	/** Ranges of 3 indices every 4 indices, and the same shifted by 2 */
+	List<LongRange> a, b;
+	LongRangeSet setA, setB;
+	TreeMap<Long, Long> mapA, mapB;
+
+	@Setup
+	public void setup() {
+		a = new ArrayList<>(ranges);
+		b = new ArrayList<>(ranges);
+		mapA = new TreeMap<>();
+		mapB = new TreeMap<>();
+		for (long k = 0; k < ranges; k++) {
+			a.add(new LongRange(4 * k, 4 * k + 3));
+			b.add(new LongRange(4 * k + 2, 4 * k + 5));
+			mapA.put(4 * k, 4 * k + 3);
+			mapB.put(4 * k + 2, 4 * k + 5);
+		}
+		setA = LongRangeSet.of(a);
+		setB = LongRangeSet.of(b);
+	}
+
+	@Benchmark
+	public LongRangeSet setBuild() {
+		return LongRangeSet.of(a);
+	}
+
+	@Benchmark
+	public long setContains() {
+		long found = 0;
+		for (long i = 0; i < 4L * ranges; i += 7) {
+			if (setA.contains(i)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public long treeMapContains() {
+		long found = 0;
+		for (long i = 0; i < 4L * ranges; i += 7) {
+			Map.Entry<Long, Long> e = mapA.floorEntry(i);
+			if (e != null && i < e.getValue()) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public LongRangeSet setIntersection() {
+		return setA.intersection(setB);
+	}
+
+	@Benchmark
+	public List<LongRange> treeMapIntersection() {
+		List<LongRange> result = new ArrayList<>();
+		for (Map.Entry<Long, Long> e : mapA.entrySet()) {
+			// Ranges of B overlapping the range of A
+			Long start = mapB.floorKey(e.getKey());
+			Map<Long, Long> candidates = start == null ? mapB.headMap(e.getValue())
+					: mapB.subMap(start, e.getValue());
+			for (Map.Entry<Long, Long> o : candidates.entrySet()) {
+				long from = Math.max(e.getKey(), o.getKey());
+				long to = Math.min(e.getValue(), o.getValue());
+				if (from < to) {
+					result.add(new LongRange(from, to));
+				}
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public LongRangeSet setUnion() {
+		return setA.union(setB);
+	}
+
+	@Benchmark
+	public LongRangeSet[] setSplit() {
+		return setA.split(64);
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import handist.collections.CompactLongMultiMap;
+
+/**
+ * Measures the heap retained by a multimap of long values stored as a
+ * {@code HashMap<Long, List<Long>>}, the layout used by
+ * {@link handist.collections.dist.DistMapList}, and by a frozen
+ * {@link CompactLongMultiMap}, the layout used by
+ * {@link handist.collections.dist.DistLongMapList}. The time needed to build
+ * each map is reported as well.
+ * <p>
+ * The program takes two optional arguments: the number of keys (default
+ * 1000000) and the average number of values per key (default 16). Values are
+ * appended in random key order, as when loading the edges of a graph.
+ * Running it with a fixed heap ({@code -Xms} equal to {@code -Xmx}) gives more
+ * stable figures.
+ */
+public class MultiMapFootprint {
+
+	public static void main(String[] args) {
+		final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final int perKey = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		final long values = (long) keys * perKey;
+
+		final long base = usedHeap();
+		long start = System.nanoTime();
+		HashMap<Long, List<Long>> lists = new HashMap<>();
+		Random random = new Random(42);
+		for (long i = 0; i < values; i++) {
+			lists.computeIfAbsent((long) random.nextInt(keys), k -> new ArrayList<>()).add(i);
+		}
+		final long listsTime = System.nanoTime() - start;
+		final long listsHeap = usedHeap() - base;
+		final int listsKeys = lists.size();
+		lists = null;
+
+		final long base2 = usedHeap();
+		start = System.nanoTime();
+		CompactLongMultiMap<Long> compact = new CompactLongMultiMap<>();
+		random = new Random(42);
+		for (long i = 0; i < values; i++) {
+			compact.put1((long) random.nextInt(keys), i);
+		}
+		compact.freeze();
+		final long compactTime = System.nanoTime() - start;
+		final long compactHeap = usedHeap() - base2;
+
+		System.out.println("[MultiMapFootprint] keys:" + listsKeys + " values:" + values);
+		System.out.println("layout,buildMillis,retainedBytes,bytesPerValue");
+		print("HashMap<Long,List<Long>>", listsTime, listsHeap, values);
+		print("CompactLongMultiMap", compactTime, compactHeap, compact.longSize());
+		System.out.println("[MultiMapFootprint] memory reduction: "
+				+ String.format("%.1f", (double) listsHeap / Math.max(1, compactHeap)) + "x");
+	}
+
+	static void print(String layout, long nanos, long bytes, long values) {
+		System.out.println(layout + "," + nanos / 1000000 + "," + bytes + ","
+				+ String.format("%.1f", (double) bytes / values));
+	}
+
+	/** Heap in use after garbage collection */
+	static long usedHeap() {
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
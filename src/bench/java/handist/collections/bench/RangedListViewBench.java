@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.RangedList;
+import handist.collections.RangedListView;
+
+/**
+ * Benchmarks of the iteration over a {@link RangedListView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangedListViewBench {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int elements;
+
+	RangedList<Long> view;
+
+	@Setup
+	public void setup() {
+		Chunk<Long> chunk = new Chunk<>(new LongRange(0, 2l * elements));
+		for (long l = 0; l < 2l * elements; l++) {
+			chunk.set(l, l);
+		}
+		view = new RangedListView<>(chunk, new LongRange(elements / 2, elements / 2 + elements));
+	}
+
+	@Benchmark
+	public long iterator() {
+		long sum = 0;
+		for (Long l : view) {
+			sum += l;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		view.forEach((Long l) -> bh.consume(l));
+	}
+
+	@Benchmark
+	public long get() {
+		long sum = 0;
+		LongRange r = view.getRange();
+		for (long i = r.from; i < r.to; i++) {
+			sum += view.get(i);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist.bench;
+
+import handist.collections.dist.TeamedPlaceGroup;
+import handist.collections.mpi.MPILauncher;
+
+/**
+ * Entry point of the multi-rank benchmarks. Registers the
+ * {@link TeamedPlaceGroup} plugin and hands the arguments over to the
+ * {@link MPILauncher}, the first argument being the benchmark class to run.
+ * <p>
+ * With MPJ-Express in multicore mode, the benchmarks are launched as follows:
+ * <pre>
+ * mpjrun.sh -np 4 -dev multicore -cp &lt;classpath&gt; \
+ *     handist.collections.dist.bench.BenchLauncher \
+ *     handist.collections.dist.bench.DistBenchmarks out=dist-bench.csv
+ * </pre>
+ */
+public class BenchLauncher {
+
+    public static void main(String[] args) throws Exception {
+        // Call TeamedPlaceGroup setup method to add its plugin to the MPILauncher
+        TeamedPlaceGroup.setup();
+        MPILauncher.main(args);
+    }
+}
@@ -0,0 +1,665 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import apgas.Place;
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.dist.CollectiveRelocator;
+import handist.collections.dist.DistCol;
+import handist.collections.dist.DistColLoader;
+import handist.collections.dist.DistJoin;
+import handist.collections.dist.DistMap;
+import handist.collections.dist.DistSort;
+import handist.collections.dist.Distribution;
+import handist.collections.dist.MoveManagerLocal;
+import handist.collections.dist.NodeHierarchy;
+import handist.collections.dist.PayloadCompression;
+import handist.collections.dist.RelocationMetrics;
+import handist.collections.dist.TeamedPlaceGroup;
+
+/**
+ * Benchmarks of the distributed operations of the library: relocation of
+ * chunks with {@link MoveManagerLocal#sync()}, relocation of chunks followed
+ * by a computation on the entries of an unrelated map (benchmark
+ * {@code relocateCompute}, compared with benchmark
+ * {@code relocateComputeAsync} where the computation overlaps with
+ * {@link MoveManagerLocal#syncAsync()}), relocation according to a
+ * {@link Distribution} (benchmark {@code distribution}, compared with the
+ * index-by-index rule of benchmark {@code distributionPerIndex}),
+ * relocation of the entries of a {@link DistMap} computed on one thread
+ * (benchmark {@code mapRelocate}) or in parallel (benchmark
+ * {@code mapRelocateParallel}), the shuffles of {@link DistMap#groupBy}
+ * and {@link DistMap#aggregateByKey} over one key for every 100 entries, the
+ * sort of {@link DistSort} on
+ * elements with random contents, the parallel loading of a text file of
+ * {@code elements} lines of {@code payload} bytes with
+ * {@link DistColLoader} (benchmark {@code load}, the file is written by rank
+ * 0 in the directory given by the {@code java.io.tmpdir} property, which
+ * must be shared by all ranks), {@link DistCol#updateDist()},
+ * {@link DistCol#teamedBalance(MoveManagerLocal)} and the collective
+ * operations of {@link CollectiveRelocator}.
+ * <p>
+ * This class is launched through {@link BenchLauncher}. Its arguments are of
+ * the form {@code key=value}, lists being separated by commas:
+ * <ul>
+ * <li>{@code bench}: benchmarks to run among {@value #ALL_BENCHMARKS}
+ * (default: all)
+ * <li>{@code elements}: total number of elements (default 100000)
+ * <li>{@code payload}: size in bytes of each element (default 16,1024)
+ * <li>{@code skew}: initial distribution of the elements, among
+ * {@link Skew} values (default: all)
+ * <li>{@code chunk}: number of elements in each chunk (default 1000)
+ * <li>{@code threads}: number of threads used by the parallel benchmarks
+ * (default: number of available processors)
+ * <li>{@code warmup}, {@code repeat}: number of untimed and timed runs
+ * (default 2 and 5)
+ * <li>{@code codec}: codec compressing the buffers of the collective
+ * operations, among none, lz and deflate (default none)
+ * <li>{@code adaptive}: whether the compression is adaptive, see
+ * {@link PayloadCompression} (default false)
+ * <li>{@code hierarchy}: whether the collective operations are hierarchical,
+ * see {@link NodeHierarchy}; {@code hierarchy=false,true} runs every
+ * benchmark with the flat and the hierarchical operations (default true).
+ * On a single host, the system property
+ * {@value NodeHierarchy#RANKS_PER_NODE_PROPERTY} simulates nodes of that many
+ * consecutive ranks
+ * <li>{@code out}: file in which the results are written, in JSON format if
+ * its name ends with ".json", in CSV format otherwise (default
+ * dist-bench.csv)
+ * </ul>
+ * One row is produced for each timed run. The time is that of the slowest
+ * place, the bytes are the sum over all places of the bytes sent as reported
+ * by {@link RelocationMetrics} and the peak heap is the
+ * maximum over all places. Note that with MPJ-Express in multicore mode, all
+ * the ranks share the same JVM: the peak heap then covers every rank.
+ */
+public class DistBenchmarks {
+
+    static final String ALL_BENCHMARKS = "relocate,relocateCompute,relocateComputeAsync,distribution,distributionPerIndex,mapRelocate,mapRelocateParallel,groupBy,aggregateByKey,sort,load,updateDist,teamedBalance,allgatherSer,gatherSer,bcastSer";
+
+    /**
+     * Initial distribution of the elements over the places.
+     */
+    public enum Skew {
+        /** Every place holds the same number of elements */
+        UNIFORM,
+        /** Place of rank i holds a share of the elements proportional to i+1 */
+        LINEAR,
+        /** Every element is held by the place of rank 0 */
+        SINGLE;
+
+        long[] counts(long elements, int places) {
+            final long[] counts = new long[places];
+            switch (this) {
+            case UNIFORM:
+                for (int i = 0; i < places; i++) {
+                    counts[i] = elements * (i + 1) / places - elements * i / places;
+                }
+                break;
+            case LINEAR:
+                final long total = (long) places * (places + 1) / 2;
+                long assigned = 0;
+                for (int i = 0; i < places; i++) {
+                    final long cumulative = elements * ((long) (i + 1) * (i + 2) / 2) / total;
+                    counts[i] = cumulative - assigned;
+                    assigned = cumulative;
+                }
+                break;
+            case SINGLE:
+            default:
+                counts[0] = elements;
+            }
+            return counts;
+        }
+    }
+
+    static final class Options implements Serializable {
+        private static final long serialVersionUID = 2964711434856098513L;
+        List<String> benchmarks = Arrays.asList(ALL_BENCHMARKS.split(","));
+        long elements = 100000;
+        int[] payloads = { 16, 1024 };
+        Skew[] skews = Skew.values();
+        int chunkSize = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int warmup = 2;
+        int repeat = 5;
+        String codec = "none";
+        boolean adaptive = false;
+        boolean[] hierarchies = { true };
+        String out = "dist-bench.csv";
+
+        Options(String[] args) {
+            for (final String arg : args) {
+                final int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("[DistBenchmarks] arguments should be key=value: " + arg);
+                }
+                final String key = arg.substring(0, eq);
+                final String[] values = arg.substring(eq + 1).split(",");
+                switch (key) {
+                case "bench":
+                    benchmarks = Arrays.asList(values);
+                    break;
+                case "elements":
+                    elements = Long.parseLong(values[0]);
+                    break;
+                case "payload":
+                    payloads = Arrays.stream(values).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "skew":
+                    skews = Arrays.stream(values).map(Skew::valueOf).toArray(Skew[]::new);
+                    break;
+                case "chunk":
+                    chunkSize = Integer.parseInt(values[0]);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(values[0]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(values[0]);
+                    break;
+                case "repeat":
+                    repeat = Integer.parseInt(values[0]);
+                    break;
+                case "codec":
+                    codec = values[0];
+                    break;
+                case "adaptive":
+                    adaptive = Boolean.parseBoolean(values[0]);
+                    break;
+                case "hierarchy":
+                    hierarchies = new boolean[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        hierarchies[i] = Boolean.parseBoolean(values[i]);
+                    }
+                    break;
+                case "out":
+                    out = values[0];
+                    break;
+                default:
+                    throw new IllegalArgumentException("[DistBenchmarks] unknown argument: " + key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measurement taken at one place for one run.
+     */
+    static final class Sample implements Serializable {
+        private static final long serialVersionUID = -4330526612284938441L;
+        final int rank;
+        final long nanos;
+        final long bytes;
+        final long peakHeap;
+
+        Sample(int rank, long nanos, long bytes, long peakHeap) {
+            this.rank = rank;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.peakHeap = peakHeap;
+        }
+    }
+
+    /** Samples gathered at rank 0 for the run in progress */
+    static final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+
+    public static void main(String[] args) throws Exception {
+        final Options opts = new Options(args);
+        final TeamedPlaceGroup pg = TeamedPlaceGroup.getWorld();
+        pg.broadcastFlat(() -> {
+            switch (opts.codec) {
+            case "lz":
+                PayloadCompression.setCodec(PayloadCompression.LZ);
+                break;
+            case "deflate":
+                PayloadCompression.setCodec(PayloadCompression.DEFLATE);
+                break;
+            case "none":
+                PayloadCompression.setCodec(null);
+                break;
+            default:
+                throw new IllegalArgumentException("[DistBenchmarks] unknown codec: " + opts.codec);
+            }
+            PayloadCompression.setAdaptive(opts.adaptive);
+        });
+        final List<String[]> rows = new ArrayList<>();
+
+        for (final String bench : opts.benchmarks) {
+            for (final boolean hierarchy : opts.hierarchies) {
+                pg.broadcastFlat(() -> {
+                    if (hierarchy) {
+                        NodeHierarchy.enable();
+                    } else {
+                        NodeHierarchy.disable();
+                    }
+                });
+                for (final int payload : opts.payloads) {
+                    for (final Skew skew : opts.skews) {
+                        for (int it = -opts.warmup; it < opts.repeat; it++) {
+                            samples.clear();
+                            final DistCol<byte[]> col = new DistCol<>(pg);
+                            final DistMap<Long, byte[]> map = new DistMap<>(pg);
+                            pg.broadcastFlat(() -> {
+                                final Sample s = runAtPlace(bench, pg, col, map, opts, payload, skew);
+                                CollectiveRelocator.gatherSer(pg, pg.get(0), (out) -> {
+                                    out.writeObject(s);
+                                }, (in, p) -> {
+                                    samples.add((Sample) in.readObject());
+                                });
+                                if (pg.myrank() == 0) {
+                                    samples.add(s);
+                                }
+                            });
+                            col.destroy();
+                            map.destroy();
+                            if (it >= 0) {
+                                rows.add(summarize(bench, pg.size(), opts.elements, payload, skew, it,
+                                        hierarchy));
+                                System.out.println(
+                                        "[DistBenchmarks] " + String.join(",", rows.get(rows.size() - 1)));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        write(opts.out, rows);
+    }
+
+    /**
+     * Runs the specified benchmark at the current place. Must be called at
+     * every place of the group.
+     */
+    static Sample runAtPlace(String bench, TeamedPlaceGroup pg, DistCol<byte[]> col, DistMap<Long, byte[]> map,
+            Options opts, int payload, Skew skew) throws Exception {
+        final long[] counts = skew.counts(opts.elements, pg.size());
+        final int rank = pg.myrank();
+        final long start;
+        long sentBefore = 0;
+        RelocationMetrics.enable();
+
+        switch (bench) {
+        case "relocate": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            col.updateDist();
+            final List<LongRange> ranges = new ArrayList<>(col.ranges());
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            for (final LongRange r : ranges) {
+                col.moveAtSync(r, pg.get((rank + 1) % pg.size()), mm);
+            }
+            mm.sync();
+            break;
+        }
+        case "relocateCompute":
+        case "relocateComputeAsync": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            populate(map, pg, counts, payload);
+            col.updateDist();
+            final List<LongRange> ranges = new ArrayList<>(col.ranges());
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            for (final LongRange r : ranges) {
+                col.moveAtSync(r, pg.get((rank + 1) % pg.size()), mm);
+            }
+            if (bench.equals("relocateCompute")) {
+                mm.sync();
+                sink = checksum(map);
+            } else {
+                final CompletableFuture<Void> transfer = mm.syncAsync();
+                sink = checksum(map);
+                transfer.get();
+            }
+            break;
+        }
+        case "distribution":
+        case "distributionPerIndex": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            col.updateDist();
+            // Blocks of a quarter of a chunk dealt cyclically over the places
+            final long block = Math.max(1, opts.chunkSize / 4);
+            final int size = pg.size();
+            final Distribution<Long> dist = (Long index) -> pg.get((int) ((index / block) % size));
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            if (bench.equals("distribution")) {
+                col.moveAtSync(dist, mm);
+            } else {
+                // One single-index range per element, as the rule-based relocation does
+                for (final LongRange r : new ArrayList<>(col.ranges())) {
+                    for (final Long index : r) {
+                        col.moveAtSync(new LongRange(index, index + 1), dist.place(index), mm);
+                    }
+                }
+            }
+            mm.sync();
+            break;
+        }
+        case "mapRelocate":
+        case "mapRelocateParallel": {
+            populate(map, pg, counts, payload);
+            final int size = pg.size();
+            final Function<Long, Place> rule = (Long key) -> pg.get((int) (((key * 0x9E3779B97F4A7C15L) >>> 33) % size));
+            final ExecutorService pool = Executors.newFixedThreadPool(opts.threads);
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            if (bench.equals("mapRelocate")) {
+                map.relocate(rule, mm);
+            } else {
+                map.relocate(pool, opts.threads, rule, mm);
+            }
+            pool.shutdown();
+            break;
+        }
+        case "groupBy":
+        case "aggregateByKey": {
+            populate(map, pg, counts, payload);
+            final long keys = Math.max(1, opts.elements / 100);
+            final Distribution<Long> dist = DistJoin.hashDistribution(pg);
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            if (bench.equals("groupBy")) {
+                map.groupBy((Long key, byte[] value) -> key % keys, (Long key, byte[] value) -> value, dist)
+                        .destroy();
+            } else {
+                map.aggregateByKey((Long key, byte[] value) -> key % keys, (Long key, byte[] value) -> value,
+                        DistBenchmarks::xorBytes, dist).destroy();
+            }
+            break;
+        }
+        case "sort": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            final Random random = new Random(rank);
+            col.forEach((byte[] b) -> random.nextBytes(b));
+            col.updateDist();
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            DistSort.sort(col, DistBenchmarks::compareBytes).destroy();
+            break;
+        }
+        case "load": {
+            final File file = new File(System.getProperty("java.io.tmpdir"), "handist-dist-bench.txt");
+            if (rank == 0) {
+                final byte[] line = new byte[payload];
+                Arrays.fill(line, (byte) 'x');
+                line[payload - 1] = '\n';
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    for (long i = 0; i < opts.elements; i++) {
+                        out.write(line);
+                    }
+                }
+            }
+            final ExecutorService pool = Executors.newFixedThreadPool(opts.threads);
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            DistColLoader.loadDelimited(col, file.getPath(), (byte) '\n',
+                    (ByteBuffer buffer, int offset, int length) -> new byte[length], pool, opts.threads);
+            pool.shutdown();
+            break;
+        }
+        case "updateDist": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            col.updateDist();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            for (final LongRange r : new ArrayList<>(col.ranges())) {
+                col.moveAtSync(r, pg.get((rank + 1) % pg.size()), mm);
+            }
+            mm.sync();
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            col.updateDist();
+            break;
+        }
+        case "teamedBalance": {
+            populate(col, pg, counts, opts.chunkSize, payload);
+            col.updateDist();
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            col.teamedBalance(mm);
+            mm.sync();
+            break;
+        }
+        case "allgatherSer": {
+            final byte[] message = new byte[(int) (counts[rank] * payload)];
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            CollectiveRelocator.allgatherSer(pg, (out) -> {
+                out.writeObject(message);
+            }, (in, p) -> {
+                in.readObject();
+            });
+            break;
+        }
+        case "gatherSer": {
+            final byte[] message = new byte[(int) (counts[rank] * payload)];
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            CollectiveRelocator.gatherSer(pg, pg.get(0), (out) -> {
+                out.writeObject(message);
+            }, (in, p) -> {
+                in.readObject();
+            });
+            break;
+        }
+        case "bcastSer": {
+            final byte[] message = rank == 0 ? new byte[(int) (counts[0] * payload)] : null;
+            resetPeakHeap();
+            sentBefore = pg.metrics().getBytesSent();
+            pg.barrier();
+            start = System.nanoTime();
+            CollectiveRelocator.bcastSer(pg, pg.get(0), (out) -> {
+                out.writeObject(message);
+            }, (in) -> {
+                in.readObject();
+            });
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("[DistBenchmarks] unknown benchmark: " + bench);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long bytes = pg.metrics().getBytesSent() - sentBefore;
+        return new Sample(rank, elapsed, bytes, peakHeap());
+    }
+
+    /**
+     * Adds to the local handle of the collection the chunks the current place
+     * holds according to the given counts. The indices are contiguous across
+     * places in rank order.
+     */
+    static void populate(DistCol<byte[]> col, TeamedPlaceGroup pg, long[] counts, int chunkSize, int payload)
+            throws Exception {
+        long from = 0;
+        for (int i = 0; i < pg.myrank(); i++) {
+            from += counts[i];
+        }
+        final long to = from + counts[pg.myrank()];
+        for (long begin = from; begin < to; begin += chunkSize) {
+            final long end = Math.min(to, begin + chunkSize);
+            final Chunk<byte[]> c = new Chunk<>(new LongRange(begin, end));
+            for (long i = begin; i < end; i++) {
+                c.set(i, new byte[payload]);
+            }
+            col.addChunk(c);
+        }
+    }
+
+    /**
+     * Puts in the local handle of the map the entries the current place holds
+     * according to the given counts. The keys are contiguous across places in
+     * rank order.
+     */
+    static void populate(DistMap<Long, byte[]> map, TeamedPlaceGroup pg, long[] counts, int payload) {
+        long from = 0;
+        for (int i = 0; i < pg.myrank(); i++) {
+            from += counts[i];
+        }
+        final long to = from + counts[pg.myrank()];
+        for (long key = from; key < to; key++) {
+            map.put(key, new byte[payload]);
+        }
+    }
+
+    /** Result of the computations, kept so that they are not optimized away */
+    static volatile long sink;
+
+    /**
+     * Computation of the relocateCompute benchmarks: a few passes over the
+     * bytes of the local entries of the map.
+     */
+    static long checksum(DistMap<Long, byte[]> map) {
+        final long[] sum = new long[1];
+        for (int pass = 0; pass < 8; pass++) {
+            map.forEach((Long key, byte[] value) -> {
+                for (final byte b : value) {
+                    sum[0] = sum[0] * 31 + b;
+                }
+            });
+        }
+        return sum[0];
+    }
+
+    /** Lexicographic order of byte arrays used by the sort benchmark */
+    static int compareBytes(byte[] a, byte[] b) {
+        final int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return Byte.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /** Combiner of the aggregateByKey benchmark, xor of two byte arrays */
+    static byte[] xorBytes(byte[] a, byte[] b) {
+        final byte[] result = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            result[i] ^= b[i];
+        }
+        return result;
+    }
+
+    static void resetPeakHeap() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    static long peakHeap() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    static final String[] COLUMNS = { "benchmark", "ranks", "elements", "payload", "skew", "iteration", "maxTimeMs",
+            "meanTimeMs", "bytes", "peakHeapBytes", "hierarchy" };
+
+    static String[] summarize(String bench, int ranks, long elements, int payload, Skew skew, int iteration,
+            boolean hierarchy) {
+        long max = 0;
+        long sum = 0;
+        long bytes = 0;
+        long heap = 0;
+        synchronized (samples) {
+            for (final Sample s : samples) {
+                max = Math.max(max, s.nanos);
+                sum += s.nanos;
+                bytes += s.bytes;
+                heap = Math.max(heap, s.peakHeap);
+            }
+        }
+        return new String[] { bench, Integer.toString(ranks), Long.toString(elements), Integer.toString(payload),
+                skew.name(), Integer.toString(iteration), Double.toString(max / 1e6),
+                Double.toString(sum / 1e6 / ranks), Long.toString(bytes), Long.toString(heap),
+                Boolean.toString(hierarchy) };
+    }
+
+    static void write(String file, List<String[]> rows) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            if (file.endsWith(".json")) {
+                out.println("[");
+                for (int r = 0; r < rows.size(); r++) {
+                    final String[] row = rows.get(r);
+                    final StringBuilder b = new StringBuilder("  {");
+                    for (int c = 0; c < COLUMNS.length; c++) {
+                        b.append(c == 0 ? "" : ", ").append('"').append(COLUMNS[c]).append("\": ");
+                        final boolean text = c == 0 || c == 4;
+                        b.append(text ? "\"" + row[c] + "\"" : row[c]);
+                    }
+                    b.append(r + 1 < rows.size() ? "}," : "}");
+                    out.println(b);
+                }
+                out.println("]");
+            } else {
+                out.println(String.join(",", COLUMNS));
+                for (final String[] row : rows) {
+                    out.println(String.join(",", row));
+                }
+            }
+        }
+    }
+}
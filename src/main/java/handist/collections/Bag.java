@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -182,6 +183,26 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable, Multi
     }
 
 
+    /**
+     * Applies the given action to the elements of this bag with one task per
+     * internal list and returns without waiting for the tasks.
+     *
+     * @param pool   the executor running the tasks
+     * @param action the action to apply to the elements
+     * @return a future completed with this bag once the action has been
+     *         applied to every element
+     */
+    public CompletableFuture<Bag<T>> asyncForEach(ExecutorService pool, final Consumer<? super T> action) {
+        ArrayList<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Collection<T> bag : bags) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                bag.forEach(action);
+            }, pool));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .thenApply((Void v) -> this);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ChunkSpiller} keeps the number of elements held on the heap by one
+ * or several {@link ChunkedList}s under a fixed budget. When the budget is
+ * exceeded, the least recently accessed chunks are written to memory-mapped
+ * files in the spill directory and released from the heap. They are read back
+ * transparently the next time one of their elements is accessed.
+ * <p>
+ * The budget is expressed as a number of elements rather than a number of
+ * bytes as the heap footprint of arbitrary objects cannot be measured cheaply.
+ * A {@link ChunkSpiller} is local to a JVM: in a distributed setting, each
+ * place should create its own instance.
+ * <p>
+ * Only {@link Chunk}s are spilled. {@link RangedListView}s added to a spilling
+ * {@link ChunkedList} are kept as is since they only refer to another chunk.
+ */
+public class ChunkSpiller implements Closeable {
+
+	private final Path directory;
+	private final boolean ownsDirectory;
+	private final long maxResidentElements;
+
+	/** Logical clock used to order accesses to the managed chunks */
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicLong fileCounter = new AtomicLong();
+
+	/* Fields below are guarded by this */
+	private final Set<SpillableChunk<?>> resident = new HashSet<>();
+	private long residentElements = 0;
+	private long spillCount = 0;
+	private long loadCount = 0;
+
+	/**
+	 * Builds a {@link ChunkSpiller} which spills chunks to a fresh temporary
+	 * directory. The directory is removed when {@link #close()} is called.
+	 *
+	 * @param maxResidentElements maximum number of elements kept on the heap
+	 * @throws IOException if the temporary directory could not be created
+	 */
+	public ChunkSpiller(long maxResidentElements) throws IOException {
+		this(Files.createTempDirectory("handist-spill"), maxResidentElements, true);
+	}
+
+	/**
+	 * Builds a {@link ChunkSpiller} which spills chunks to files created in the
+	 * specified directory.
+	 *
+	 * @param directory directory in which the spill files are created
+	 * @param maxResidentElements maximum number of elements kept on the heap
+	 */
+	public ChunkSpiller(Path directory, long maxResidentElements) {
+		this(directory, maxResidentElements, false);
+	}
+
+	private ChunkSpiller(Path directory, long maxResidentElements, boolean ownsDirectory) {
+		if (maxResidentElements <= 0) {
+			throw new IllegalArgumentException("[ChunkSpiller] the element budget should be strictly positive, was "
+					+ maxResidentElements);
+		}
+		this.directory = directory;
+		this.maxResidentElements = maxResidentElements;
+		this.ownsDirectory = ownsDirectory;
+	}
+
+	/**
+	 * Removes every spill file and the spill directory if it was created by
+	 * this instance. Chunks that are spilled at the time this method is called
+	 * can no longer be accessed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			resident.clear();
+			residentElements = 0;
+		}
+		if (ownsDirectory) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for (Path p : files) {
+					Files.deleteIfExists(p);
+				}
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * Returns the maximum number of elements this instance keeps on the heap.
+	 *
+	 * @return the element budget of this instance
+	 */
+	public long maxResidentElements() {
+		return maxResidentElements;
+	}
+
+	/**
+	 * Returns the number of elements currently held on the heap by the chunks
+	 * managed by this instance.
+	 *
+	 * @return number of resident elements
+	 */
+	public synchronized long residentElements() {
+		return residentElements;
+	}
+
+	/**
+	 * Returns the number of times a chunk was written to disk.
+	 *
+	 * @return number of spills performed so far
+	 */
+	public synchronized long spillCount() {
+		return spillCount;
+	}
+
+	/**
+	 * Returns the number of times a spilled chunk was read back from disk.
+	 *
+	 * @return number of loads performed so far
+	 */
+	public synchronized long loadCount() {
+		return loadCount;
+	}
+
+	/**
+	 * Wraps the given {@link RangedList} into a {@link SpillableChunk} if it is
+	 * a {@link Chunk}. Other {@link RangedList} implementations are returned
+	 * as is.
+	 */
+	<T> RangedList<T> manage(RangedList<T> c) {
+		if (c instanceof SpillableChunk || !(c instanceof Chunk)) {
+			return c;
+		}
+		SpillableChunk<T> s = new SpillableChunk<>(this, (Chunk<T>) c);
+		noteLoaded(s, false);
+		return s;
+	}
+
+	long tick() {
+		return clock.incrementAndGet();
+	}
+
+	Path newSpillFile() {
+		return directory.resolve("chunk-" + fileCounter.incrementAndGet() + ".bin");
+	}
+
+	/**
+	 * Records that the given chunk is now held on the heap and evicts other
+	 * chunks if the budget is exceeded. Must not be called while holding the
+	 * lock of a chunk.
+	 */
+	void noteLoaded(SpillableChunk<?> chunk, boolean fromDisk) {
+		List<SpillableChunk<?>> victims = new ArrayList<>();
+		synchronized (this) {
+			if (resident.add(chunk)) {
+				residentElements += chunk.longSize();
+			}
+			if (fromDisk) {
+				loadCount++;
+			}
+			// Select the least recently used chunks until the budget is met
+			long excess = residentElements - maxResidentElements;
+			while (excess > 0) {
+				SpillableChunk<?> lru = null;
+				for (SpillableChunk<?> c : resident) {
+					if (c != chunk && !victims.contains(c) && !c.isPinned()
+							&& (lru == null || c.lastAccess() < lru.lastAccess())) {
+						lru = c;
+					}
+				}
+				if (lru == null) {
+					break;
+				}
+				victims.add(lru);
+				excess -= lru.longSize();
+			}
+		}
+		for (SpillableChunk<?> victim : victims) {
+			victim.spill();
+		}
+	}
+
+	/**
+	 * Records that the given chunk was written to disk. Called by the chunk
+	 * while it holds its own lock.
+	 */
+	synchronized void noteSpilled(SpillableChunk<?> chunk) {
+		if (resident.remove(chunk)) {
+			residentElements -= chunk.longSize();
+		}
+		spillCount++;
+	}
+
+	/**
+	 * Stops tracking the given chunk, typically because it was removed from
+	 * its {@link ChunkedList}.
+	 */
+	synchronized void forget(SpillableChunk<?> chunk) {
+		if (resident.remove(chunk)) {
+			residentElements -= chunk.longSize();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "[ChunkSpiller " + directory + " resident:" + residentElements() + "/" + maxResidentElements + "]";
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import handist.collections.function.LongTBiConsumer;
+
+/**
+ * Result of an asynchronous operation on the chunks of a {@link ChunkedList}.
+ * <p>
+ * The operation is made of one task per chunk. This future completes with the
+ * {@link ChunkedList} once the tasks of all chunks have completed, and
+ * completes exceptionally if any of them throws an exception. Further stages
+ * can be chained with {@link #thenForEach(Consumer)} and
+ * {@link #thenMap(Function)}: the task of the next stage on a chunk starts as
+ * soon as the previous stage on the same chunk has completed, without
+ * waiting for the other chunks.
+ * <p>
+ * The chunks of the {@link ChunkedList} must not be added or removed while
+ * the operation is in progress.
+ *
+ * @param <T> type of the elements of the chunks
+ */
+public class ChunkedFuture<T> extends CompletableFuture<ChunkedList<T>> {
+
+	/** List on which the operation is performed */
+	private final ChunkedList<T> list;
+	/** Executor running the tasks */
+	private final ExecutorService pool;
+	/** Completion of the operation on each chunk, in the order of the ranges */
+	private final List<CompletableFuture<RangedList<T>>> chunks;
+
+	ChunkedFuture(ChunkedList<T> list, ExecutorService pool, List<CompletableFuture<RangedList<T>>> chunks) {
+		this.list = list;
+		this.pool = pool;
+		this.chunks = chunks;
+		CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[chunks.size()]))
+				.whenComplete((Void v, Throwable e) -> {
+					if (e == null) {
+						complete(list);
+					} else {
+						completeExceptionally(e);
+					}
+				});
+	}
+
+	/**
+	 * Returns the futures completed when the operation is completed on each
+	 * chunk, in the order of the ranges of the chunks.
+	 *
+	 * @return an unmodifiable list of the futures of the chunks
+	 */
+	public List<CompletableFuture<RangedList<T>>> chunkFutures() {
+		return Collections.unmodifiableList(chunks);
+	}
+
+	/**
+	 * Applies the given action to the elements of each chunk once the
+	 * current operation on the chunk has completed.
+	 *
+	 * @param action the action to apply to the elements
+	 * @return the future of the new stage
+	 */
+	public ChunkedFuture<T> thenForEach(Consumer<? super T> action) {
+		final List<CompletableFuture<RangedList<T>>> next = new ArrayList<>(chunks.size());
+		for (final CompletableFuture<RangedList<T>> f : chunks) {
+			next.add(f.thenApplyAsync((RangedList<T> c) -> {
+				Tracer.begin("ChunkedList.forEach");
+				try {
+					c.forEach(action);
+				} finally {
+					Tracer.end("ChunkedList.forEach");
+				}
+				return c;
+			}, pool));
+		}
+		return new ChunkedFuture<>(list, pool, next);
+	}
+
+	/**
+	 * Applies the given action to the index and value of the elements of each
+	 * chunk once the current operation on the chunk has completed.
+	 *
+	 * @param action the action to apply to the elements
+	 * @return the future of the new stage
+	 */
+	public ChunkedFuture<T> thenForEach(LongTBiConsumer<? super T> action) {
+		final List<CompletableFuture<RangedList<T>>> next = new ArrayList<>(chunks.size());
+		for (final CompletableFuture<RangedList<T>> f : chunks) {
+			next.add(f.thenApplyAsync((RangedList<T> c) -> {
+				Tracer.begin("ChunkedList.forEach");
+				try {
+					c.forEach(c.getRange(), action);
+				} finally {
+					Tracer.end("ChunkedList.forEach");
+				}
+				return c;
+			}, pool));
+		}
+		return new ChunkedFuture<>(list, pool, next);
+	}
+
+	/**
+	 * Maps the elements of each chunk into a new {@link ChunkedList} once the
+	 * current operation on the chunk has completed. The chunks of the new list
+	 * are allocated when this method is called and filled by the tasks of the
+	 * new stage.
+	 *
+	 * @param <S>  type of the elements of the new list
+	 * @param func the mapping function
+	 * @return the future of the new stage, which completes with the new list
+	 */
+	public <S> ChunkedFuture<S> thenMap(Function<? super T, ? extends S> func) {
+		final ChunkedList<S> result = new ChunkedList<>();
+		final List<CompletableFuture<RangedList<S>>> next = new ArrayList<>(chunks.size());
+		final List<LongRange> ranges = new ArrayList<>(list.ranges());
+		for (int i = 0; i < chunks.size(); i++) {
+			final RangedList<S> to = new Chunk<>(ranges.get(i));
+			result.addChunk(to);
+			next.add(chunks.get(i).thenApplyAsync((RangedList<T> from) -> {
+				Tracer.begin("ChunkedList.map");
+				try {
+					to.setupFrom(from, func);
+				} finally {
+					Tracer.end("ChunkedList.map");
+				}
+				return to;
+			}, pool));
+		}
+		return new ChunkedFuture<>(result, pool, next);
+	}
+}
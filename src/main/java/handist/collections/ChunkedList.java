@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -79,15 +80,47 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 
 	private long size = 0;
 
+	/** Spiller managing the chunks of this instance, {@code null} if disabled */
+	private ChunkSpiller spiller = null;
+
 	public ChunkedList() {
 		//chunks = new TreeMap<>(Comparator.comparingLong(r -> r.from));
 		chunks = new TreeMap<LongRange, RangedList<T>>();
 	}
 
+	/**
+	 * Builds a {@link ChunkedList} whose chunks are managed by the provided
+	 * {@link ChunkSpiller}. Chunks added to this instance may be written to
+	 * disk when the element budget of the spiller is exceeded.
+	 *
+	 * @param spiller the spiller managing the chunks of this instance
+	 */
+	public ChunkedList(ChunkSpiller spiller) {
+		this();
+		this.spiller = spiller;
+	}
+
 	public ChunkedList(TreeMap<LongRange, RangedList<T>> chunks) {
 		this.chunks = chunks;
 	}
 
+	/**
+	 * Hands the chunks of this instance over to the provided
+	 * {@link ChunkSpiller}. Chunks already contained in this instance as well
+	 * as chunks added afterwards are managed by the spiller.
+	 *
+	 * @param spiller the spiller managing the chunks of this instance
+	 */
+	public void spillWith(ChunkSpiller spiller) {
+		if (this.spiller != null && this.spiller != spiller) {
+			throw new IllegalStateException("[ChunkedList] chunks are already managed by " + this.spiller);
+		}
+		this.spiller = spiller;
+		for (Map.Entry<LongRange, RangedList<T>> e : chunks.entrySet()) {
+			e.setValue(spiller.manage(e.getValue()));
+		}
+	}
+
 	@Override
 	public boolean add(T element) {
 		throw new UnsupportedOperationException();
@@ -106,46 +139,91 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 					+ "overlaps " + intersection + " which is already present in"
 					+ " this ChunkedList");
 		}
+		if (spiller != null) {
+			c = spiller.manage(c);
+		}
 		chunks.put(desired, c);
 		size += c.longSize();
 	}
 
-	public Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, Consumer<? super T> action) {
-		List<Future<?>> futures = forEachParallelBody(pool, nthreads, (ChunkedList<T> sub) -> {
+	/**
+	 * Returns a {@link ChunkedFuture} whose chunks are all available, from
+	 * which asynchronous stages on the chunks of this list can be chained.
+	 *
+	 * @param pool the executor running the tasks of the chained stages
+	 * @return an already completed {@link ChunkedFuture} on this list
+	 */
+	public ChunkedFuture<T> asyncChunks(ExecutorService pool) {
+		final List<CompletableFuture<RangedList<T>>> futures = new ArrayList<>(chunks.size());
+		for (RangedList<T> c : chunks.values()) {
+			futures.add(CompletableFuture.completedFuture(c));
+		}
+		return new ChunkedFuture<>(this, pool, futures);
+	}
+
+	/**
+	 * Applies the given action to the elements of this list with one task per
+	 * chunk and returns without waiting for the tasks.
+	 *
+	 * @param pool   the executor running the tasks
+	 * @param action the action to apply to the elements
+	 * @return a future completed once the action has been applied to every
+	 *         element
+	 */
+	public ChunkedFuture<T> asyncForEach(ExecutorService pool, Consumer<? super T> action) {
+		return asyncChunks(pool).thenForEach(action);
+	}
+
+	/**
+	 * Applies the given action to the index and value of the elements of this
+	 * list with one task per chunk and returns without waiting for the tasks.
+	 *
+	 * @param pool   the executor running the tasks
+	 * @param action the action to apply to the elements
+	 * @return a future completed once the action has been applied to every
+	 *         element
+	 */
+	public ChunkedFuture<T> asyncForEach(ExecutorService pool, LongTBiConsumer<? super T> action) {
+		return asyncChunks(pool).thenForEach(action);
+	}
+
+	/**
+	 * Maps the elements of this list into a new list with one task per chunk
+	 * and returns without waiting for the tasks.
+	 *
+	 * @param <S>  type of the elements of the new list
+	 * @param pool the executor running the tasks
+	 * @param func the mapping function
+	 * @return a future completed with the new list once every element has
+	 *         been mapped
+	 */
+	public <S> ChunkedFuture<S> asyncMap(ExecutorService pool, Function<? super T, ? extends S> func) {
+		return asyncChunks(pool).thenMap(func);
+	}
+
+	public CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, Consumer<? super T> action) {
+		return forEachAsyncBody(pool, nthreads, (ChunkedList<T> sub) -> {
 			sub.forEach(action);
-		});
-		return new FutureN.ReturnGivenResult<ChunkedList<T>>(futures,  this);
+		}).thenApply((Void v) -> this);
 	}
 
-	public <U> Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, BiConsumer<? super T, Consumer<U>> action,
+	public <U> CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, BiConsumer<? super T, Consumer<U>> action,
 			final MultiReceiver<U> toStore) {
-		List<Future<?>> futures = forEachParallelBody(pool, nthreads, (ChunkedList<T> sub) -> {
+		return forEachAsyncBody(pool, nthreads, (ChunkedList<T> sub) -> {
 			sub.forEach(action,toStore.getReceiver());
-		});
-		return new FutureN.ReturnGivenResult<ChunkedList<T>>(futures, this);
+		}).thenApply((Void v) -> this);
 	}
 
-	public Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, LongTBiConsumer<? super T> action) {
-		List<Future<?>> futures = forEachParallelBody(pool, nthreads, (ChunkedList<T> sub) -> {
+	public CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, LongTBiConsumer<? super T> action) {
+		return forEachAsyncBody(pool, nthreads, (ChunkedList<T> sub) -> {
 			sub.forEach(action);
-		});
-		return new FutureN.ReturnGivenResult<ChunkedList<T>>(futures, this);
+		}).thenApply((Void v) -> this);
 	}
 
-	public <S> Future<ChunkedList<S>> asyncMap(ExecutorService pool, int nthreads,
+	public <S> CompletableFuture<ChunkedList<S>> asyncMap(ExecutorService pool, int nthreads,
 			Function<? super T, ? extends S> func) {
 		final ChunkedList<S> result = new ChunkedList<>();
-		final List<Future<?>> futures = mapParallelBody(pool, nthreads, func, result);
-
-		for (Future<?> f : futures) {
-			try {
-				f.get();
-			} catch (InterruptedException | ExecutionException e) {
-				e.printStackTrace();
-				throw new RuntimeException("[ChunkedList] exception raised by worker threads.");
-			}
-		}
-		return new FutureN.ReturnGivenResult<ChunkedList<S>>(futures, result);
+		return mapParallelBody(pool, nthreads, func, result).thenApply((Void v) -> result);
 	}
 
 	/**
@@ -186,7 +264,7 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 	protected Object clone() {
 		TreeMap<LongRange, RangedList<T>> newChunks = new TreeMap<>();
 		for (RangedList<T> c : chunks.values()) {
-			newChunks.put(c.getRange(), ((Chunk<T>) c).clone());
+			newChunks.put(c.getRange(), c.cloneRange(c.getRange()));
 		}
 		return new ChunkedList<T>(newChunks);
 	}
@@ -222,6 +300,10 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 	 * 	this instance, {@code false} otherwise
 	 */
 	public boolean containsChunk(RangedList<T> c) {
+		if (spiller != null) {
+			// Chunks are wrapped when they are added, compare them by range
+			return chunks.containsKey(c.getRange());
+		}
 		return chunks.containsValue(c);
 	}
 
@@ -318,12 +400,33 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 		List<Future<?>> futures = new ArrayList<>();
 		for (ChunkedList<T> sub: separated) {
 			futures.add(pool.submit(() -> {
-				run.accept(sub);
+				Tracer.begin("ChunkedList.forEach");
+				try {
+					run.accept(sub);
+				} finally {
+					Tracer.end("ChunkedList.forEach");
+				}
 			}));
 		}
 		return futures;
 	}
 
+	private CompletableFuture<Void> forEachAsyncBody(ExecutorService pool, int nthreads, Consumer<ChunkedList<T>> run) {
+		List<ChunkedList<T>> separated = this.separate(nthreads);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (ChunkedList<T> sub: separated) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				Tracer.begin("ChunkedList.forEach");
+				try {
+					run.accept(sub);
+				} finally {
+					Tracer.end("ChunkedList.forEach");
+				}
+			}, pool));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+
 	public T get(long i) {
 		LongRange r = new LongRange(i);
 		Map.Entry<LongRange, RangedList<T>> entry = chunks.floorEntry(r);
@@ -350,16 +453,24 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 		return size;
 	}
 
+	/**
+	 * Returns a lazy pipeline over the elements of this list. The operations
+	 * chained on the pipeline are fused into a single pass over each chunk
+	 * when a terminal operation is called, see {@link LazyChunkedList}.
+	 *
+	 * @return a lazy pipeline over the elements of this list
+	 */
+	public LazyChunkedList<T> lazy() {
+		return new LazyChunkedList<>(this);
+	}
+
 	public <S> ChunkedList<S> map(ExecutorService pool, int nthreads, Function<? super T, ? extends S> func) {
 		ChunkedList<S> result = new ChunkedList<>();
-		List<Future<?>> futures = mapParallelBody(pool, nthreads, func, result);
-		for (Future<?> f : futures) {
-			try {
-				f.get();
-			} catch (InterruptedException | ExecutionException e) {
-				e.printStackTrace();
-				throw new RuntimeException("[ChunkedList] exception raised by worker threads.");
-			}
+		try {
+			mapParallelBody(pool, nthreads, func, result).get();
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+			throw new RuntimeException("[ChunkedList] exception raised by worker threads.");
 		}
 		return result;
 	}
@@ -373,24 +484,28 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 		return result;
 	}
 
-	private <S> List<Future<?>> mapParallelBody(ExecutorService pool, int nthreads,
+	private <S> CompletableFuture<Void> mapParallelBody(ExecutorService pool, int nthreads,
 			Function<? super T, ? extends S> func, ChunkedList<S> result) {
 		forEachChunk((RangedList<T> c) -> {
 			result.addChunk(new Chunk<S>(c.getRange()));
 		});
 		List<ChunkedList<T>> separatedIn = this.separate(nthreads);
 		List<ChunkedList<S>> separatedOut = result.separate(nthreads);
-		List<Future<?>> futures = new ArrayList<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
 		for (int i = 0; i < nthreads; i++) {
 			final int i0 = i;
-			futures.add(pool.submit(() -> {
+			futures.add(CompletableFuture.runAsync(() -> {
 				ChunkedList<T> from = separatedIn.get(i0);
 				ChunkedList<S> to = separatedOut.get(i0);
-				from.mapTo(to, func);
-				return null;
-			}));
+				Tracer.begin("ChunkedList.map");
+				try {
+					from.mapTo(to, func);
+				} finally {
+					Tracer.end("ChunkedList.map");
+				}
+			}, pool));
 		}
-		return futures;
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
 	}
 
 	private <S> void mapTo(ChunkedList<S> to, Function<? super T, ? extends S> func) {
@@ -432,6 +547,9 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 		if (removed != null) {
 			size -=removed.longSize();
 		}
+		if (removed instanceof SpillableChunk) {
+			return ((SpillableChunk<T>) removed).detach();
+		}
 		return removed;
 	}
 
@@ -440,6 +558,16 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Returns the indices of the elements of this list as a
+	 * {@link LongRangeSet}, the ranges of adjacent chunks being merged.
+	 *
+	 * @return the set of the indices held by this list
+	 */
+	public LongRangeSet rangeSet() {
+		return LongRangeSet.of(chunks.keySet());
+	}
+
 	/**
 	 * Seperates the contents of the ChunkedList in <em>n</em> parts.
 	 * This can be used to apply a forEach method in parallel using 'n' threads
@@ -451,38 +579,26 @@ public class ChunkedList<T> extends AbstractCollection<T> {
 	 * 	elements
 	 */
 	public List<ChunkedList<T>> separate(int n) {
-		long totalNum = size();
-		long rem = totalNum % n;
-		long quo = totalNum / n;
 		List<ChunkedList<T>> result = new ArrayList<ChunkedList<T>>(n);
-		RangedList<T> c = chunks.firstEntry().getValue();
-		long used = 0;
-
-		for (int i = 0; i < n; i++) {
+		for (LongRangeSet part : rangeSet().split(n)) {
 			ChunkedList<T> r = new ChunkedList<>();
 			result.add(r);
-			long rest = quo + ((i < rem) ? 1 : 0);
-			while (rest > 0) {
-				LongRange range = c.getRange();
-				if (c.longSize() - used < rest) { // not enough
-					long from = range.from + used;
-					if (from != range.to) {
-						r.addChunk(c.subList(from, range.to));	
+			for (LongRange range : part) {
+				// Chunks overlapping the range, from the one containing its start
+				LongRange from = chunks.floorKey(new LongRange(range.from));
+				if (from == null || !from.contains(range.from)) {
+					from = chunks.ceilingKey(new LongRange(range.from));
+				}
+				for (RangedList<T> c : chunks.tailMap(from, true).values()) {
+					LongRange cRange = c.getRange();
+					if (cRange.from >= range.to) {
+						break;
 					}
-					rest -= c.longSize() - used;
-					used = 0;
-					// TODO should use iterator??
-					c = chunks.higherEntry(range).getValue();
-				} else {
-					long from = range.from + used;
-					long to = from + rest;
-					if (from != to) {
-						r.addChunk(c.subList(from, to));	
+					if (cRange.to <= range.from) {
+						continue;
 					}
-					used += rest;
-					rest = 0;
+					r.addChunk(c.subList(Math.max(cRange.from, range.from), Math.min(cRange.to, range.to)));
 				}
-
 			}
 		}
 		return result;
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link RangedList} of records storing each field of its elements in a
+ * separate primitive array, or column, as described by a
+ * {@link RecordLayout}. Compared with a {@link Chunk}, the values of a field
+ * are contiguous in memory and the records do not carry an object header
+ * each.
+ * <p>
+ * The methods inherited from {@link RangedList} materialize a record for each
+ * element they return, and decompose the records they are given. Loops which
+ * only need some of the fields should rather use
+ * {@link #forEachRecord(Consumer)}, which moves a {@link Cursor} over the
+ * elements and only touches the columns it reads or writes. A column can also
+ * be obtained directly with {@link #column(int)}.
+ * <p>
+ * A columnar chunk is serialized as its primitive arrays. Ranges of it sent to
+ * other places, for instance during the relocation of a distributed
+ * collection, remain columnar chunks. Null elements cannot be stored.
+ *
+ * @param <T> type of the records contained in this chunk
+ */
+public class ColumnarChunk<T> extends AbstractCollection<T> implements RangedList<T>, Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 3320592405003961617L;
+
+	/**
+	 * Flyweight giving access to the fields of one element of the chunk
+	 * without materializing it. The cursor is moved by
+	 * {@link ColumnarChunk#forEachRecord(LongRange, Consumer)} and must not be
+	 * retained by the action.
+	 */
+	public final class Cursor {
+		private int offset;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Returns the index of the element the cursor is on.
+		 *
+		 * @return the index of the current element
+		 */
+		public long index() {
+			return range.from + offset;
+		}
+
+		public boolean getBoolean(int column) {
+			return ((boolean[]) columns[column])[offset];
+		}
+
+		public byte getByte(int column) {
+			return ((byte[]) columns[column])[offset];
+		}
+
+		public char getChar(int column) {
+			return ((char[]) columns[column])[offset];
+		}
+
+		public double getDouble(int column) {
+			return ((double[]) columns[column])[offset];
+		}
+
+		public float getFloat(int column) {
+			return ((float[]) columns[column])[offset];
+		}
+
+		public int getInt(int column) {
+			return ((int[]) columns[column])[offset];
+		}
+
+		public long getLong(int column) {
+			return ((long[]) columns[column])[offset];
+		}
+
+		public short getShort(int column) {
+			return ((short[]) columns[column])[offset];
+		}
+
+		public void setBoolean(int column, boolean v) {
+			((boolean[]) columns[column])[offset] = v;
+		}
+
+		public void setByte(int column, byte v) {
+			((byte[]) columns[column])[offset] = v;
+		}
+
+		public void setChar(int column, char v) {
+			((char[]) columns[column])[offset] = v;
+		}
+
+		public void setDouble(int column, double v) {
+			((double[]) columns[column])[offset] = v;
+		}
+
+		public void setFloat(int column, float v) {
+			((float[]) columns[column])[offset] = v;
+		}
+
+		public void setInt(int column, int v) {
+			((int[]) columns[column])[offset] = v;
+		}
+
+		public void setLong(int column, long v) {
+			((long[]) columns[column])[offset] = v;
+		}
+
+		public void setShort(int column, short v) {
+			((short[]) columns[column])[offset] = v;
+		}
+	}
+
+	private final LongRange range;
+	private final RecordLayout<T> layout;
+	/** One primitive array per column of the layout */
+	private final Object[] columns;
+
+	/**
+	 * Creates a columnar chunk over the given range. The fields of its
+	 * elements are initialized with the default values of their types.
+	 *
+	 * @param range  the range of indices of the chunk
+	 * @param layout the layout of the records
+	 */
+	public ColumnarChunk(LongRange range, RecordLayout<T> layout) {
+		if (range.size() > Integer.MAX_VALUE) {
+			throw new RuntimeException("[ColumnarChunk] number of elements cannot exceed Integer.MAX_VALUE.");
+		}
+		this.range = range;
+		this.layout = layout;
+		this.columns = layout.newColumns((int) range.size());
+	}
+
+	/**
+	 * Creates a columnar chunk holding the fields of the elements of the given
+	 * list.
+	 *
+	 * @param from   the list whose elements are copied
+	 * @param layout the layout of the records
+	 */
+	public ColumnarChunk(RangedList<? extends T> from, RecordLayout<T> layout) {
+		this(from.getRange(), layout);
+		from.forEach((long i, T t) -> layout.write(t, columns, offset(i)));
+	}
+
+	private ColumnarChunk(LongRange range, RecordLayout<T> layout, Object[] columns) {
+		this.range = range;
+		this.layout = layout;
+		this.columns = columns;
+	}
+
+	private int offset(long index) {
+		if (!range.contains(index)) {
+			throw new IndexOutOfBoundsException("[ColumnarChunk] " + index + " is out of " + range);
+		}
+		return (int) (index - range.from);
+	}
+
+	/**
+	 * Returns the layout of the records of this chunk.
+	 *
+	 * @return the layout of the records
+	 */
+	public RecordLayout<T> layout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the primitive array holding the given column. The value of the
+	 * element at index {@code i} is at position {@code i - getRange().from}
+	 * of the array. Modifications of the array are reflected in the chunk.
+	 *
+	 * @param column index of the column in the layout
+	 * @return the array of the column, whose type is the array type of
+	 *         {@link RecordLayout#columnType(int)}
+	 */
+	public Object column(int column) {
+		return columns[column];
+	}
+
+	/**
+	 * Performs the given action on a cursor moved over each element of this
+	 * chunk in order.
+	 *
+	 * @param action the action to perform
+	 */
+	public void forEachRecord(Consumer<? super Cursor> action) {
+		forEachRecord(range, action);
+	}
+
+	/**
+	 * Performs the given action on a cursor moved over each element of the
+	 * given range in order.
+	 *
+	 * @param range  the range of elements on which to perform the action
+	 * @param action the action to perform
+	 */
+	public void forEachRecord(LongRange range, Consumer<? super Cursor> action) {
+		rangeCheck(range);
+		Cursor cursor = new Cursor();
+		int end = (int) (range.to - this.range.from);
+		for (cursor.offset = (int) (range.from - this.range.from); cursor.offset < end; cursor.offset++) {
+			action.accept(cursor);
+		}
+	}
+
+	@Override
+	public LongRange getRange() {
+		return range;
+	}
+
+	@Override
+	public long longSize() {
+		return range.size();
+	}
+
+	@Override
+	public int size() {
+		return (int) range.size();
+	}
+
+	@Override
+	public T get(long index) {
+		return layout.read(columns, offset(index));
+	}
+
+	@Override
+	public T set(long index, T value) {
+		int offset = offset(index);
+		T previous = layout.read(columns, offset);
+		layout.write(value, columns, offset);
+		return previous;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null || !layout.recordType().isInstance(o)) {
+			return false;
+		}
+		for (int offset = 0; offset < size(); offset++) {
+			if (o.equals(layout.read(columns, offset))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public ColumnarChunk<T> cloneRange(LongRange newRange) {
+		rangeCheck(newRange);
+		if (newRange.size() == 0) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		int from = (int) (newRange.from - range.from);
+		int size = (int) newRange.size();
+		Object[] copy = layout.newColumns(size);
+		for (int c = 0; c < columns.length; c++) {
+			System.arraycopy(columns[c], from, copy[c], 0, size);
+		}
+		return new ColumnarChunk<>(newRange, layout, copy);
+	}
+
+	@Override
+	public Chunk<T> toChunk(LongRange newRange) {
+		Object[] elements = toArray(newRange);
+		if (elements.length == 0) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		return new Chunk<>(newRange, elements);
+	}
+
+	@Override
+	public Object[] toArray() {
+		return toArray(range);
+	}
+
+	@Override
+	public Object[] toArray(LongRange newRange) {
+		rangeCheck(newRange);
+		Object[] elements = new Object[(int) newRange.size()];
+		int from = (int) (newRange.from - range.from);
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = layout.read(columns, from + i);
+		}
+		return elements;
+	}
+
+	@Override
+	public RangedList<T> subList(long begin, long end) {
+		if (begin > end) {
+			throw new IllegalArgumentException("Cannot obtain a sublist from " + begin + " to " + end);
+		}
+		if (begin < range.from || range.to < end) {
+			throw new IllegalArgumentException();
+		}
+		if (begin == range.from && end == range.to) {
+			return this;
+		}
+		return new RangedListView<T>(this, new LongRange(begin, end));
+	}
+
+	@Override
+	public <S> void setupFrom(RangedList<S> from, Function<? super S, ? extends T> func) {
+		rangeCheck(from.getRange());
+		from.forEach((long i, S s) -> layout.write(func.apply(s), columns, (int) (i - range.from)));
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return iteratorFrom(range.from);
+	}
+
+	@Override
+	public Iterator<T> iteratorFrom(long i) {
+		return new Iterator<T>() {
+			private long index = i;
+
+			@Override
+			public boolean hasNext() {
+				return index < range.to;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return get(index++);
+			}
+		};
+	}
+
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		forEach(range, action);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + range + "]:" + layout;
+	}
+}
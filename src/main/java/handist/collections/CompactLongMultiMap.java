@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Multimap from keys to primitive long values with a compact memory layout.
+ * <p>
+ * The map has two states. While it is being built, values are appended to a
+ * single array along with the slot of their key, which makes
+ * {@link #put1(Object, long)} cheap and avoids allocating one list per key.
+ * Calling {@link #freeze()} sorts the values by key into the compressed
+ * sparse row (CSR) layout: the values of each key are contiguous in one
+ * {@code long[]} array and are delimited by an array of offsets. Operations
+ * accessing the values of a specific key freeze the map first, while
+ * appending to a frozen map brings it back to the build state.
+ * <p>
+ * A map can hold at most {@link Integer#MAX_VALUE} values. This class is not
+ * thread-safe.
+ *
+ * @param <K> type of the keys
+ */
+public class CompactLongMultiMap<K> implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -2204843513066839458L;
+
+	/** Slot of each key in {@link #keys} and {@link #offsets} */
+	private HashMap<K, Integer> slots = new HashMap<>();
+	/** Key of each slot, {@code null} for the slots of removed keys */
+	private ArrayList<K> keys = new ArrayList<>();
+	/** Stored values, ordered by slot when the map is frozen */
+	private long[] values = new long[16];
+	/** Slot of each value of {@link #values}, {@code null} when frozen */
+	private int[] valueSlots = new int[16];
+	/**
+	 * Values of slot s are between offsets[s] and offsets[s+1] in
+	 * {@link #values}, {@code null} when the map is not frozen
+	 */
+	private int[] offsets = null;
+	/** Number of used entries of {@link #values} */
+	private int used = 0;
+	/** Number of values of the keys currently in the map */
+	private long size = 0;
+
+	/**
+	 * Appends a value to the values of the given key.
+	 *
+	 * @param key   the key
+	 * @param value the value added to the values of {@code key}
+	 */
+	public void put1(K key, long value) {
+		if (offsets != null) {
+			thaw();
+		}
+		final int slot = slotOf(key);
+		if (used == values.length) {
+			grow(used + 1);
+		}
+		values[used] = value;
+		valueSlots[used] = slot;
+		used++;
+		size++;
+	}
+
+	/**
+	 * Appends the given values to the values of the given key.
+	 *
+	 * @param key  the key
+	 * @param vals the values added to the values of {@code key}
+	 */
+	public void putAll(K key, long[] vals) {
+		if (offsets != null) {
+			thaw();
+		}
+		final int slot = slotOf(key);
+		if (used + vals.length > values.length) {
+			grow(used + vals.length);
+		}
+		System.arraycopy(vals, 0, values, used, vals.length);
+		Arrays.fill(valueSlots, used, used + vals.length, slot);
+		used += vals.length;
+		size += vals.length;
+	}
+
+	private int slotOf(K key) {
+		Integer slot = slots.get(key);
+		if (slot == null) {
+			slot = keys.size();
+			keys.add(key);
+			slots.put(key, slot);
+		}
+		return slot;
+	}
+
+	private void grow(int minCapacity) {
+		if (minCapacity < 0) {
+			throw new OutOfMemoryError("[CompactLongMultiMap] too many values");
+		}
+		final int capacity = Math.min(Integer.MAX_VALUE - 8,
+				Math.max(minCapacity, values.length + (values.length >> 1)));
+		values = Arrays.copyOf(values, capacity);
+		valueSlots = Arrays.copyOf(valueSlots, capacity);
+	}
+
+	/**
+	 * Converts the frozen layout back into the build layout.
+	 */
+	private void thaw() {
+		valueSlots = new int[Math.max(16, used)];
+		for (int s = 0; s < keys.size(); s++) {
+			Arrays.fill(valueSlots, offsets[s], offsets[s + 1], s);
+		}
+		if (values.length < valueSlots.length) {
+			values = Arrays.copyOf(values, valueSlots.length);
+		}
+		offsets = null;
+	}
+
+	/**
+	 * Sorts the values by key into the compressed sparse row layout and
+	 * releases the memory used while building. The slots of the keys removed
+	 * before are reclaimed. Calling this method on a frozen map has no effect:
+	 * the keys removed from a frozen map only leave an empty slot, reclaimed
+	 * when the map is frozen again after values are appended.
+	 */
+	public void freeze() {
+		if (offsets != null) {
+			return;
+		}
+		// Assign new consecutive slots to the keys still in the map
+		final int[] newSlot = new int[keys.size()];
+		final ArrayList<K> newKeys = new ArrayList<>(slots.size());
+		for (int s = 0; s < keys.size(); s++) {
+			final K key = keys.get(s);
+			if (key == null) {
+				newSlot[s] = -1;
+			} else {
+				newSlot[s] = newKeys.size();
+				newKeys.add(key);
+			}
+		}
+		final int[] newOffsets = new int[newKeys.size() + 1];
+		for (int i = 0; i < used; i++) {
+			final int s = newSlot[valueSlots[i]];
+			if (s >= 0) {
+				newOffsets[s + 1]++;
+			}
+		}
+		for (int s = 0; s < newKeys.size(); s++) {
+			newOffsets[s + 1] += newOffsets[s];
+		}
+		final int[] position = Arrays.copyOf(newOffsets, newKeys.size());
+		final long[] newValues = new long[(int) size];
+		for (int i = 0; i < used; i++) {
+			final int s = newSlot[valueSlots[i]];
+			if (s >= 0) {
+				newValues[position[s]++] = values[i];
+			}
+		}
+		if (newKeys.size() != keys.size()) {
+			slots = new HashMap<>();
+			for (int s = 0; s < newKeys.size(); s++) {
+				slots.put(newKeys.get(s), s);
+			}
+		}
+		keys = newKeys;
+		values = newValues;
+		valueSlots = null;
+		offsets = newOffsets;
+		used = (int) size;
+	}
+
+	/**
+	 * Indicates whether this map is in the compressed sparse row layout.
+	 *
+	 * @return {@code true} if this map is frozen
+	 */
+	public boolean isFrozen() {
+		return offsets != null;
+	}
+
+	/**
+	 * Returns a copy of the values of the given key. The map is frozen if it
+	 * was not.
+	 *
+	 * @param key the key
+	 * @return the values of the key, or {@code null} if the key is not in this
+	 *         map
+	 */
+	public long[] get(K key) {
+		final Integer slot = slots.get(key);
+		if (slot == null) {
+			return null;
+		}
+		freeze();
+		final int s = slots.get(key);
+		return Arrays.copyOfRange(values, offsets[s], offsets[s + 1]);
+	}
+
+	/**
+	 * Removes the given key and returns its values. The map is frozen if it
+	 * was not. Removing a key from a frozen map only clears its slot, the
+	 * space used by its values is reclaimed when the map is frozen again after
+	 * values are appended.
+	 *
+	 * @param key the key
+	 * @return the values of the key, or {@code null} if the key is not in this
+	 *         map
+	 */
+	public long[] remove(K key) {
+		if (!slots.containsKey(key)) {
+			return null;
+		}
+		freeze();
+		return removeFrozen(key);
+	}
+
+	/**
+	 * Removes the given keys and returns their values. The map is frozen once
+	 * if it was not, each key then being removed in constant time as with
+	 * {@link #remove(Object)}.
+	 *
+	 * @param keys the keys to remove
+	 * @return the values of each key in the iteration order of {@code keys},
+	 *         {@code null} for the keys which are not in this map
+	 */
+	public List<long[]> removeAll(Collection<? extends K> keys) {
+		final List<long[]> result = new ArrayList<>(keys.size());
+		if (!keys.isEmpty()) {
+			freeze();
+		}
+		for (final K key : keys) {
+			result.add(slots.containsKey(key) ? removeFrozen(key) : null);
+		}
+		return result;
+	}
+
+	private long[] removeFrozen(K key) {
+		final int s = slots.remove(key);
+		keys.set(s, null);
+		final long[] result = Arrays.copyOfRange(values, offsets[s], offsets[s + 1]);
+		size -= result.length;
+		return result;
+	}
+
+	/**
+	 * Applies the given action to every pair of key and value of this map.
+	 *
+	 * @param action the action to apply
+	 */
+	public void forEach1(ObjLongConsumer<? super K> action) {
+		if (offsets == null) {
+			for (int i = 0; i < used; i++) {
+				final K key = keys.get(valueSlots[i]);
+				if (key != null) {
+					action.accept(key, values[i]);
+				}
+			}
+		} else {
+			for (int s = 0; s < keys.size(); s++) {
+				final K key = keys.get(s);
+				if (key != null) {
+					for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+						action.accept(key, values[i]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Indicates whether the given key has values in this map.
+	 *
+	 * @param key the key
+	 * @return {@code true} if this map contains the key
+	 */
+	public boolean containsKey(K key) {
+		return slots.containsKey(key);
+	}
+
+	/**
+	 * Returns the keys of this map.
+	 *
+	 * @return an unmodifiable view of the keys of this map
+	 */
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(slots.keySet());
+	}
+
+	/**
+	 * Returns the number of keys of this map.
+	 *
+	 * @return the number of keys
+	 */
+	public int size() {
+		return slots.size();
+	}
+
+	/**
+	 * Returns the number of values of this map.
+	 *
+	 * @return the number of values, all keys included
+	 */
+	public long longSize() {
+		return size;
+	}
+
+	/**
+	 * Removes every key and value of this map.
+	 */
+	public void clear() {
+		slots = new HashMap<>();
+		keys = new ArrayList<>();
+		values = new long[16];
+		valueSlots = new int[16];
+		offsets = null;
+		used = 0;
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder("[CompactLongMultiMap");
+		b.append(offsets == null ? " building" : " frozen").append(" keys:").append(size()).append(" values:")
+				.append(size).append(']');
+		return b.toString();
+	}
+}
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import handist.collections.function.LongTBiConsumer;
+
+/**
+ * Lazy pipeline of operations over the chunks of a {@link ChunkedList},
+ * obtained with {@link ChunkedList#lazy()}.
+ * <p>
+ * The intermediate operations {@link #map(Function)} and
+ * {@link #filter(Predicate)} only record the operation and return a new
+ * pipeline. The recorded operations are fused and applied element by element
+ * in a single pass over each chunk when a terminal operation such as
+ * {@link #forEach(Consumer)}, {@link #reduce(Object, BinaryOperator)} or
+ * {@link #toChunkedList()} is called: no intermediate {@link ChunkedList} is
+ * allocated. Each terminal operation has a variant processing the chunks in
+ * parallel with one task per chunk.
+ * <p>
+ * Each element keeps the index it has in the source list. Since a filter
+ * leaves holes in the ranges of the chunks, {@link #toChunkedList()} is only
+ * available on pipelines without filter; {@link #toBag()} can be used
+ * otherwise. The source list must not be modified while a terminal operation
+ * is in progress.
+ *
+ * @param <T> type of the elements produced by the pipeline
+ */
+public class LazyChunkedList<T> {
+
+	/** List whose chunks are processed */
+	private final ChunkedList<Object> source;
+	/**
+	 * Builds the action applied to the elements of the source from the action
+	 * applied to the elements produced by the pipeline
+	 */
+	private final Function<LongTBiConsumer<? super T>, LongTBiConsumer<Object>> fuse;
+	/** Indicates whether every element of the source is produced */
+	private final boolean dense;
+
+	@SuppressWarnings("unchecked")
+	LazyChunkedList(ChunkedList<T> source) {
+		this.source = (ChunkedList<Object>) source;
+		this.fuse = (LongTBiConsumer<? super T> action) -> (long i, Object o) -> action.accept(i, (T) o);
+		this.dense = true;
+	}
+
+	private LazyChunkedList(ChunkedList<Object> source,
+			Function<LongTBiConsumer<? super T>, LongTBiConsumer<Object>> fuse, boolean dense) {
+		this.source = source;
+		this.fuse = fuse;
+		this.dense = dense;
+	}
+
+	/**
+	 * Returns a pipeline applying the given function to the elements of this
+	 * pipeline.
+	 *
+	 * @param <S>  type of the elements produced by the function
+	 * @param func the function to apply
+	 * @return a new pipeline
+	 */
+	public <S> LazyChunkedList<S> map(Function<? super T, ? extends S> func) {
+		return new LazyChunkedList<>(source, (LongTBiConsumer<? super S> action) -> fuse.apply((long i, T t) -> {
+			action.accept(i, func.apply(t));
+		}), dense);
+	}
+
+	/**
+	 * Returns a pipeline retaining the elements of this pipeline which satisfy
+	 * the given predicate.
+	 *
+	 * @param predicate the predicate to test
+	 * @return a new pipeline
+	 */
+	public LazyChunkedList<T> filter(Predicate<? super T> predicate) {
+		return new LazyChunkedList<>(source, (LongTBiConsumer<? super T> action) -> fuse.apply((long i, T t) -> {
+			if (predicate.test(t)) {
+				action.accept(i, t);
+			}
+		}), false);
+	}
+
+	/**
+	 * Applies the given action to the elements produced by this pipeline.
+	 *
+	 * @param action the action to apply
+	 */
+	public void forEach(Consumer<? super T> action) {
+		forEach((long i, T t) -> action.accept(t));
+	}
+
+	/**
+	 * Applies the given action to the elements produced by this pipeline and
+	 * their index in the source list.
+	 *
+	 * @param action the action to apply
+	 */
+	public void forEach(LongTBiConsumer<? super T> action) {
+		final LongTBiConsumer<Object> fused = fuse.apply(action);
+		source.forEachChunk((RangedList<Object> c) -> c.forEach(c.getRange(), fused));
+	}
+
+	/**
+	 * Applies the given action to the elements produced by this pipeline with
+	 * one task per chunk. The action may be called concurrently by several
+	 * threads.
+	 *
+	 * @param pool   the executor running the tasks
+	 * @param action the action to apply
+	 */
+	public void forEach(ExecutorService pool, Consumer<? super T> action) {
+		forEach(pool, (long i, T t) -> action.accept(t));
+	}
+
+	/**
+	 * Applies the given action to the elements produced by this pipeline and
+	 * their index in the source list with one task per chunk. The action may be
+	 * called concurrently by several threads.
+	 *
+	 * @param pool   the executor running the tasks
+	 * @param action the action to apply
+	 */
+	public void forEach(ExecutorService pool, LongTBiConsumer<? super T> action) {
+		final LongTBiConsumer<Object> fused = fuse.apply(action);
+		eachChunk(pool, (RangedList<Object> c) -> {
+			c.forEach(c.getRange(), fused);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns the number of elements produced by this pipeline.
+	 *
+	 * @return the number of elements
+	 */
+	public long count() {
+		final long[] count = new long[1];
+		forEach((long i, T t) -> count[0]++);
+		return count[0];
+	}
+
+	/**
+	 * Reduces the elements produced by this pipeline with the given operator,
+	 * in the order of their index.
+	 *
+	 * @param identity the identity of the operator
+	 * @param op       an associative operator
+	 * @return the result of the reduction
+	 */
+	public T reduce(T identity, BinaryOperator<T> op) {
+		final List<T> result = new ArrayList<>(1);
+		result.add(identity);
+		forEach((long i, T t) -> result.set(0, op.apply(result.get(0), t)));
+		return result.get(0);
+	}
+
+	/**
+	 * Reduces the elements produced by this pipeline with the given operator,
+	 * with one task per chunk. The partial results of the chunks are combined
+	 * in the order of the chunks.
+	 *
+	 * @param pool     the executor running the tasks
+	 * @param identity the identity of the operator
+	 * @param op       an associative operator
+	 * @return the result of the reduction
+	 */
+	public T reduce(ExecutorService pool, T identity, BinaryOperator<T> op) {
+		final List<T> partials = eachChunk(pool, (RangedList<Object> c) -> {
+			final List<T> partial = new ArrayList<>(1);
+			partial.add(identity);
+			c.forEach(c.getRange(), fuse.apply((long i, T t) -> partial.set(0, op.apply(partial.get(0), t))));
+			return partial.get(0);
+		});
+		T result = identity;
+		for (final T partial : partials) {
+			result = op.apply(result, partial);
+		}
+		return result;
+	}
+
+	/**
+	 * Materializes the elements produced by this pipeline into a new
+	 * {@link ChunkedList} with the same ranges as the source list.
+	 *
+	 * @return a new {@link ChunkedList}
+	 * @throws UnsupportedOperationException if this pipeline contains a filter
+	 */
+	public ChunkedList<T> toChunkedList() {
+		final ChunkedList<T> result = new ChunkedList<>();
+		final Map<RangedList<Object>, RangedList<T>> targets = allocate(result);
+		source.forEachChunk((RangedList<Object> c) -> {
+			final RangedList<T> to = targets.get(c);
+			c.forEach(c.getRange(), fuse.apply((long i, T t) -> to.set(i, t)));
+		});
+		return result;
+	}
+
+	/**
+	 * Materializes the elements produced by this pipeline into a new
+	 * {@link ChunkedList} with the same ranges as the source list, with one
+	 * task per chunk.
+	 *
+	 * @param pool the executor running the tasks
+	 * @return a new {@link ChunkedList}
+	 * @throws UnsupportedOperationException if this pipeline contains a filter
+	 */
+	public ChunkedList<T> toChunkedList(ExecutorService pool) {
+		final ChunkedList<T> result = new ChunkedList<>();
+		final Map<RangedList<Object>, RangedList<T>> targets = allocate(result);
+		eachChunk(pool, (RangedList<Object> c) -> {
+			final RangedList<T> to = targets.get(c);
+			c.forEach(c.getRange(), fuse.apply((long i, T t) -> to.set(i, t)));
+			return null;
+		});
+		return result;
+	}
+
+	/**
+	 * Materializes the elements produced by this pipeline into a new
+	 * {@link Bag}, with one list per chunk of the source.
+	 *
+	 * @return a new {@link Bag}
+	 */
+	public Bag<T> toBag() {
+		final Bag<T> result = new Bag<>();
+		source.forEachChunk((RangedList<Object> c) -> {
+			final List<T> list = new ArrayList<>();
+			c.forEach(c.getRange(), fuse.apply((long i, T t) -> list.add(t)));
+			result.addBag(list);
+		});
+		return result;
+	}
+
+	/**
+	 * Materializes the elements produced by this pipeline into a new
+	 * {@link Bag}, with one list and one task per chunk of the source.
+	 *
+	 * @param pool the executor running the tasks
+	 * @return a new {@link Bag}
+	 */
+	public Bag<T> toBag(ExecutorService pool) {
+		final List<List<T>> lists = eachChunk(pool, (RangedList<Object> c) -> {
+			final List<T> list = new ArrayList<>();
+			c.forEach(c.getRange(), fuse.apply((long i, T t) -> list.add(t)));
+			return list;
+		});
+		final Bag<T> result = new Bag<>();
+		for (final List<T> list : lists) {
+			result.addBag(list);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds to the given list a chunk for each chunk of the source and returns
+	 * the chunk added for each chunk of the source.
+	 */
+	private Map<RangedList<Object>, RangedList<T>> allocate(ChunkedList<T> result) {
+		if (!dense) {
+			throw new UnsupportedOperationException(
+					"[LazyChunkedList] toChunkedList() is not available after filter(), use toBag() instead");
+		}
+		final Map<RangedList<Object>, RangedList<T>> targets = new IdentityHashMap<>();
+		source.forEachChunk((RangedList<Object> c) -> {
+			final Chunk<T> to = new Chunk<>(c.getRange());
+			result.addChunk(to);
+			targets.put(c, to);
+		});
+		return targets;
+	}
+
+	/**
+	 * Runs the given task on each chunk of the source with one task per chunk
+	 * and returns the results in the order of the chunks.
+	 */
+	private <R> List<R> eachChunk(ExecutorService pool, Function<RangedList<Object>, R> task) {
+		final List<Future<R>> futures = new ArrayList<>(source.numChunks());
+		source.forEachChunk((RangedList<Object> c) -> {
+			futures.add(pool.submit(() -> {
+				Tracer.begin("LazyChunkedList.chunk");
+				try {
+					return task.apply(c);
+				} finally {
+					Tracer.end("LazyChunkedList.chunk");
+				}
+			}));
+		});
+		final List<R> results = new ArrayList<>(futures.size());
+		for (final Future<R> f : futures) {
+			try {
+				results.add(f.get());
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+				throw new RuntimeException("[LazyChunkedList] exception raised by worker threads.");
+			}
+		}
+		return results;
+	}
+}
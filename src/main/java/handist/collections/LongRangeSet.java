@@ -0,0 +1,588 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable set of indices represented as sorted disjoint ranges. The ranges
+ * are kept in a single array of bounds, the range of rank k spanning from
+ * {@code bounds[2k]} included to {@code bounds[2k+1]} excluded. Ranges are
+ * never empty and never adjacent: adjacent or overlapping ranges given to the
+ * set are merged.
+ * <p>
+ * Membership tests are binary searches and the set operations are linear
+ * merges of the bounds of both sets, which avoids allocating a
+ * {@link LongRange} per range. The ranges can still be obtained as
+ * {@link LongRange} instances with {@link #ranges()} or by iterating over the
+ * set.
+ */
+public final class LongRangeSet implements Iterable<LongRange>, Serializable {
+
+	private static final long serialVersionUID = -3805125637733584262L;
+
+	/** The empty set */
+	public static final LongRangeSet EMPTY = new LongRangeSet(new long[0], 0);
+
+	/** Bounds of the ranges, only the first {@code 2 * count} are used */
+	private final long[] bounds;
+	private final int count;
+
+	private LongRangeSet(long[] bounds, int count) {
+		this.bounds = bounds;
+		this.count = count;
+	}
+
+	/**
+	 * Returns the set of the indices of the given range.
+	 *
+	 * @param range a range of indices
+	 * @return a set containing the indices of the range
+	 */
+	public static LongRangeSet of(LongRange range) {
+		return range.size() == 0 ? EMPTY : new LongRangeSet(new long[] { range.from, range.to }, 1);
+	}
+
+	/**
+	 * Returns the set of the indices of the given ranges, which may overlap
+	 * and be given in any order.
+	 *
+	 * @param ranges ranges of indices
+	 * @return a set containing the indices of every range
+	 */
+	public static LongRangeSet of(Collection<LongRange> ranges) {
+		final long[] b = new long[2 * ranges.size()];
+		int n = 0;
+		boolean sorted = true;
+		for (final LongRange r : ranges) {
+			if (r.size() == 0) {
+				continue;
+			}
+			if (n > 0 && r.from < b[2 * n - 2]) {
+				sorted = false;
+			}
+			b[2 * n] = r.from;
+			b[2 * n + 1] = r.to;
+			n++;
+		}
+		return fromBounds(b, n, sorted);
+	}
+
+	/**
+	 * Returns the set of the indices of the ranges whose bounds are given in
+	 * pairs, the ranges possibly overlapping and being in any order. The array
+	 * is not modified.
+	 *
+	 * @param bounds the start (included) and end (excluded) of each range
+	 * @return a set containing the indices of every range
+	 * @throws IllegalArgumentException if the array has an odd length or a
+	 *                                  range ends before it starts
+	 */
+	public static LongRangeSet ofBounds(long... bounds) {
+		if (bounds.length % 2 != 0) {
+			throw new IllegalArgumentException("[LongRangeSet] odd number of bounds");
+		}
+		final long[] b = new long[bounds.length];
+		int n = 0;
+		boolean sorted = true;
+		for (int i = 0; i < bounds.length; i += 2) {
+			if (bounds[i] > bounds[i + 1]) {
+				throw new IllegalArgumentException(
+						"[LongRangeSet] range from " + bounds[i] + " to " + bounds[i + 1]);
+			}
+			if (bounds[i] == bounds[i + 1]) {
+				continue;
+			}
+			if (n > 0 && bounds[i] < b[2 * n - 2]) {
+				sorted = false;
+			}
+			b[2 * n] = bounds[i];
+			b[2 * n + 1] = bounds[i + 1];
+			n++;
+		}
+		return fromBounds(b, n, sorted);
+	}
+
+	/**
+	 * Normalizes the first n ranges of the given array, which may be modified.
+	 */
+	private static LongRangeSet fromBounds(long[] b, int n, boolean sorted) {
+		if (!sorted) {
+			// Sort the ranges by their start
+			final Integer[] order = new Integer[n];
+			for (int k = 0; k < n; k++) {
+				order[k] = k;
+			}
+			Arrays.sort(order, (Integer x, Integer y) -> Long.compare(b[2 * x], b[2 * y]));
+			final long[] s = new long[2 * n];
+			for (int k = 0; k < n; k++) {
+				s[2 * k] = b[2 * order[k]];
+				s[2 * k + 1] = b[2 * order[k] + 1];
+			}
+			System.arraycopy(s, 0, b, 0, 2 * n);
+		}
+		// Merge the overlapping and adjacent ranges
+		int m = 0;
+		for (int k = 0; k < n; k++) {
+			final long from = b[2 * k];
+			final long to = b[2 * k + 1];
+			if (m > 0 && from <= b[2 * m - 1]) {
+				b[2 * m - 1] = Math.max(b[2 * m - 1], to);
+			} else {
+				b[2 * m] = from;
+				b[2 * m + 1] = to;
+				m++;
+			}
+		}
+		return m == 0 ? EMPTY : new LongRangeSet(b, m);
+	}
+
+	/**
+	 * Returns the number of disjoint ranges of this set.
+	 *
+	 * @return the number of ranges
+	 */
+	public int rangeCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the start of the range of the given rank.
+	 *
+	 * @param k the rank of a range, between 0 and {@link #rangeCount()}
+	 *          excluded
+	 * @return the first index of the range
+	 */
+	public long from(int k) {
+		checkRank(k);
+		return bounds[2 * k];
+	}
+
+	/**
+	 * Returns the end of the range of the given rank.
+	 *
+	 * @param k the rank of a range, between 0 and {@link #rangeCount()}
+	 *          excluded
+	 * @return the index following the last index of the range
+	 */
+	public long to(int k) {
+		checkRank(k);
+		return bounds[2 * k + 1];
+	}
+
+	/**
+	 * Returns the range of the given rank.
+	 *
+	 * @param k the rank of a range, between 0 and {@link #rangeCount()}
+	 *          excluded
+	 * @return the range
+	 */
+	public LongRange range(int k) {
+		checkRank(k);
+		return new LongRange(bounds[2 * k], bounds[2 * k + 1]);
+	}
+
+	private void checkRank(int k) {
+		if (k < 0 || k >= count) {
+			throw new IndexOutOfBoundsException("[LongRangeSet] range " + k + " of " + count);
+		}
+	}
+
+	/**
+	 * Returns the ranges of this set in increasing order.
+	 *
+	 * @return a view of the ranges of this set
+	 */
+	public List<LongRange> ranges() {
+		return new AbstractList<LongRange>() {
+			@Override
+			public LongRange get(int k) {
+				return range(k);
+			}
+
+			@Override
+			public int size() {
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of indices of this set.
+	 *
+	 * @return the sum of the sizes of the ranges
+	 */
+	public long size() {
+		long size = 0;
+		for (int k = 0; k < count; k++) {
+			size += bounds[2 * k + 1] - bounds[2 * k];
+		}
+		return size;
+	}
+
+	/**
+	 * Indicates whether this set contains no index.
+	 *
+	 * @return {@code true} if this set has no range
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Returns the rank of the last range starting at or before the given
+	 * index, -1 if there is none.
+	 */
+	private int floor(long index) {
+		int lo = 0;
+		int hi = count - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (bounds[2 * mid] <= index) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return hi;
+	}
+
+	/**
+	 * Indicates whether the given index belongs to this set.
+	 *
+	 * @param index the index
+	 * @return {@code true} if one of the ranges contains the index
+	 */
+	public boolean contains(long index) {
+		final int k = floor(index);
+		return k >= 0 && index < bounds[2 * k + 1];
+	}
+
+	/**
+	 * Indicates whether every index of the given range belongs to this set.
+	 *
+	 * @param range a range of indices
+	 * @return {@code true} if the range is included in this set
+	 */
+	public boolean contains(LongRange range) {
+		if (range.size() == 0) {
+			return true;
+		}
+		final int k = floor(range.from);
+		return k >= 0 && range.to <= bounds[2 * k + 1];
+	}
+
+	/**
+	 * Indicates whether every index of the given set belongs to this set.
+	 *
+	 * @param other a set of indices
+	 * @return {@code true} if the other set is included in this set
+	 */
+	public boolean containsAll(LongRangeSet other) {
+		return other.difference(this).isEmpty();
+	}
+
+	/**
+	 * Indicates whether some index of the given range belongs to this set.
+	 *
+	 * @param range a range of indices
+	 * @return {@code true} if the range and this set have an index in common
+	 */
+	public boolean intersects(LongRange range) {
+		if (range.size() == 0) {
+			return false;
+		}
+		// The last range starting before the end of the given range
+		final int k = floor(range.to - 1);
+		return k >= 0 && bounds[2 * k + 1] > range.from;
+	}
+
+	/** Operations of the merge of two sets */
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
+
+	/**
+	 * Sweeps over the bounds of both sets in increasing order, keeping track of
+	 * whether the current index belongs to each set, and emits a bound each
+	 * time the membership of the result changes.
+	 */
+	private LongRangeSet merge(LongRangeSet other, int op) {
+		final long[] a = bounds;
+		final long[] b = other.bounds;
+		final int na = 2 * count;
+		final int nb = 2 * other.count;
+		final long[] out = new long[na + nb];
+		int i = 0;
+		int j = 0;
+		int o = 0;
+		boolean in = false;
+		while (i < na || j < nb) {
+			final long x;
+			if (j >= nb || (i < na && a[i] <= b[j])) {
+				x = a[i];
+			} else {
+				x = b[j];
+			}
+			// Consume every bound at this index
+			while (i < na && a[i] == x) {
+				i++;
+			}
+			while (j < nb && b[j] == x) {
+				j++;
+			}
+			// Odd number of bounds consumed: inside a range
+			final boolean inA = (i & 1) == 1;
+			final boolean inB = (j & 1) == 1;
+			final boolean result;
+			switch (op) {
+			case UNION:
+				result = inA || inB;
+				break;
+			case INTERSECTION:
+				result = inA && inB;
+				break;
+			default:
+				result = inA && !inB;
+			}
+			if (result != in) {
+				out[o++] = x;
+				in = result;
+			}
+		}
+		return o == 0 ? EMPTY : new LongRangeSet(out, o / 2);
+	}
+
+	/**
+	 * Returns the indices belonging to this set or to the given set.
+	 *
+	 * @param other a set of indices
+	 * @return the union of both sets
+	 */
+	public LongRangeSet union(LongRangeSet other) {
+		return other.isEmpty() ? this : isEmpty() ? other : merge(other, UNION);
+	}
+
+	/**
+	 * Returns the indices belonging to both this set and the given set.
+	 *
+	 * @param other a set of indices
+	 * @return the intersection of both sets
+	 */
+	public LongRangeSet intersection(LongRangeSet other) {
+		return isEmpty() || other.isEmpty() ? EMPTY : merge(other, INTERSECTION);
+	}
+
+	/**
+	 * Returns the indices of this set belonging to the given range.
+	 *
+	 * @param range a range of indices
+	 * @return the intersection of this set with the range
+	 */
+	public LongRangeSet intersection(LongRange range) {
+		if (range.size() == 0 || isEmpty()) {
+			return EMPTY;
+		}
+		// Ranges overlapping the given range: from the one containing or
+		// following its start to the last one starting before its end
+		int first = floor(range.from);
+		if (first < 0 || bounds[2 * first + 1] <= range.from) {
+			first++;
+		}
+		final int last = floor(range.to - 1);
+		if (first > last) {
+			return EMPTY;
+		}
+		final int n = last - first + 1;
+		final long[] b = Arrays.copyOfRange(bounds, 2 * first, 2 * last + 2);
+		b[0] = Math.max(b[0], range.from);
+		b[2 * n - 1] = Math.min(b[2 * n - 1], range.to);
+		return new LongRangeSet(b, n);
+	}
+
+	/**
+	 * Returns the indices of this set which do not belong to the given set.
+	 *
+	 * @param other a set of indices
+	 * @return this set minus the other set
+	 */
+	public LongRangeSet difference(LongRangeSet other) {
+		return isEmpty() || other.isEmpty() ? this : merge(other, DIFFERENCE);
+	}
+
+	/**
+	 * Splits this set into consecutive parts of (nearly) equal numbers of
+	 * indices. The first {@code size() % n} parts hold one more index than the
+	 * others.
+	 *
+	 * @param n the number of parts
+	 * @return <em>n</em> sets whose union is this set, in increasing order
+	 */
+	public LongRangeSet[] split(int n) {
+		final long size = size();
+		final long[] weights = new long[n];
+		for (int p = 0; p < n; p++) {
+			weights[p] = size / n + (p < size % n ? 1 : 0);
+		}
+		return splitSizes(weights);
+	}
+
+	/**
+	 * Splits this set into consecutive parts whose numbers of indices are
+	 * proportional to the given weights. The parts are rounded so that their
+	 * sizes add up to the size of this set.
+	 *
+	 * @param weights the non-negative weight of each part, not all zero
+	 * @return as many sets as there are weights, whose union is this set, in
+	 *         increasing order
+	 * @throws IllegalArgumentException if a weight is negative or if they are
+	 *                                  all zero
+	 */
+	public LongRangeSet[] split(double[] weights) {
+		double total = 0;
+		for (final double w : weights) {
+			if (w < 0) {
+				throw new IllegalArgumentException("[LongRangeSet] negative weight " + w);
+			}
+			total += w;
+		}
+		if (total <= 0) {
+			throw new IllegalArgumentException("[LongRangeSet] weights are all zero");
+		}
+		final long size = size();
+		final long[] sizes = new long[weights.length];
+		double cumulative = 0;
+		long assigned = 0;
+		for (int p = 0; p < weights.length; p++) {
+			cumulative += weights[p];
+			final long end = p == weights.length - 1 ? size : Math.round(size * (cumulative / total));
+			sizes[p] = Math.max(0, end - assigned);
+			assigned += sizes[p];
+		}
+		return splitSizes(sizes);
+	}
+
+	/**
+	 * Splits this set into consecutive parts of the given numbers of indices.
+	 * If the sizes add up to more than the size of this set, the last parts
+	 * are smaller than requested or empty.
+	 *
+	 * @param sizes the number of indices of each part
+	 * @return as many sets as there are sizes, in increasing order
+	 * @throws IllegalArgumentException if a size is negative
+	 */
+	public LongRangeSet[] splitSizes(long... sizes) {
+		for (final long s : sizes) {
+			if (s < 0) {
+				throw new IllegalArgumentException("[LongRangeSet] negative size " + s);
+			}
+		}
+		final LongRangeSet[] parts = new LongRangeSet[sizes.length];
+		// Current range and position within it
+		int k = 0;
+		long pos = count > 0 ? bounds[0] : 0;
+		for (int p = 0; p < sizes.length; p++) {
+			long rest = sizes[p];
+			final int first = k;
+			final long[] b = new long[2 * (count - first)];
+			int n = 0;
+			while (rest > 0 && k < count) {
+				final long take = Math.min(rest, bounds[2 * k + 1] - pos);
+				b[2 * n] = pos;
+				b[2 * n + 1] = pos + take;
+				n++;
+				pos += take;
+				rest -= take;
+				if (pos == bounds[2 * k + 1] && ++k < count) {
+					pos = bounds[2 * k];
+				}
+			}
+			parts[p] = n == 0 ? EMPTY : new LongRangeSet(Arrays.copyOf(b, 2 * n), n);
+		}
+		return parts;
+	}
+
+	/**
+	 * Applies the given action to every index of this set in increasing
+	 * order.
+	 *
+	 * @param action the action to apply
+	 */
+	public void forEachIndex(LongConsumer action) {
+		for (int k = 0; k < count; k++) {
+			for (long i = bounds[2 * k]; i < bounds[2 * k + 1]; i++) {
+				action.accept(i);
+			}
+		}
+	}
+
+	@Override
+	public Iterator<LongRange> iterator() {
+		return new Iterator<LongRange>() {
+			int k = 0;
+
+			@Override
+			public boolean hasNext() {
+				return k < count;
+			}
+
+			@Override
+			public LongRange next() {
+				if (k >= count) {
+					throw new NoSuchElementException();
+				}
+				return range(k++);
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof LongRangeSet)) {
+			return false;
+		}
+		final LongRangeSet other = (LongRangeSet) o;
+		if (count != other.count) {
+			return false;
+		}
+		for (int i = 0; i < 2 * count; i++) {
+			if (bounds[i] != other.bounds[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = 0; i < 2 * count; i++) {
+			h = 31 * h + Long.hashCode(bounds[i]);
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder("{");
+		for (int k = 0; k < count; k++) {
+			b.append(k == 0 ? "" : ", ").append('[').append(bounds[2 * k]).append(',').append(bounds[2 * k + 1])
+					.append(')');
+		}
+		return b.append('}').toString();
+	}
+}
@@ -64,6 +64,19 @@ public interface RangedList<T> extends Iterable<T> {
     }
 
     public Iterator<T> iteratorFrom(long i);
+
+    /**
+     * Returns a lazy pipeline over the elements of this list, see
+     * {@link LazyChunkedList}.
+     *
+     * @return a lazy pipeline over the elements of this list
+     */
+    default public LazyChunkedList<T> lazy() {
+        ChunkedList<T> list = new ChunkedList<>();
+        list.addChunk(this);
+        return list.lazy();
+    }
+
     long longSize();
     default public <U> RangedList<U> map(Function<? super T, ? extends U> func) {
         Chunk<U> result = new Chunk<>(this.getRange());
@@ -200,13 +200,14 @@ public class RangedListView<T> extends AbstractCollection<T> implements RangedLi
 
     // TODO this implement generates redundant RangedListView at receiver node.
     private void writeObject(ObjectOutputStream out) throws IOException {
-        Chunk<T> chunk = this.toChunk(range);
+        // Columnar chunks keep their layout and send their columns in bulk
+        RangedList<T> chunk = base instanceof ColumnarChunk ? base.cloneRange(range) : this.toChunk(range);
         out.writeObject(chunk);
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         @SuppressWarnings("unchecked")
-        Chunk<T> chunk = (Chunk<T>) in.readObject();
+        RangedList<T> chunk = (RangedList<T>) in.readObject();
         this.base = chunk;
         this.range = chunk.getRange();
         // System.out.println("readChunk: " + this);
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Description of the primitive fields of a record class, used by
+ * {@link ColumnarChunk} to store each field of its elements in a separate
+ * primitive array, called a column.
+ * <p>
+ * The fields are accessed by reflection when records are materialized or
+ * decomposed. The record class needs a constructor without parameters, which
+ * may be private.
+ *
+ * @param <T> type of the records
+ */
+public final class RecordLayout<T> implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -1913440717420536377L;
+
+	/**
+	 * Returns the layout made of all the primitive instance fields of the given
+	 * class and of its super classes, except the transient ones.
+	 *
+	 * @param <T>  type of the records
+	 * @param type the class of the records
+	 * @return the layout of the class
+	 * @throws IllegalArgumentException if the class has a non-transient
+	 *                                  instance field which is not of a
+	 *                                  primitive type
+	 */
+	public static <T> RecordLayout<T> of(Class<T> type) {
+		List<String> names = new ArrayList<>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			List<String> declared = new ArrayList<>();
+			for (Field f : c.getDeclaredFields()) {
+				int modifiers = f.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || f.isSynthetic()) {
+					continue;
+				}
+				if (!f.getType().isPrimitive()) {
+					throw new IllegalArgumentException("[RecordLayout] field " + f.getName() + " of " + type.getName()
+							+ " is not of a primitive type");
+				}
+				declared.add(f.getName());
+			}
+			names.addAll(0, declared);
+		}
+		return new RecordLayout<>(type, names.toArray(new String[names.size()]));
+	}
+
+	/**
+	 * Returns the layout made of the given primitive fields of the given
+	 * class. The other fields of the records are not stored in the columns and
+	 * keep the value given by the constructor of the class when records are
+	 * materialized.
+	 *
+	 * @param <T>    type of the records
+	 * @param type   the class of the records
+	 * @param fields the names of the fields stored in columns
+	 * @return the layout of the class
+	 * @throws IllegalArgumentException if one of the fields does not exist or
+	 *                                  is not of a primitive type
+	 */
+	public static <T> RecordLayout<T> of(Class<T> type, String... fields) {
+		return new RecordLayout<>(type, fields.clone());
+	}
+
+	private final Class<T> type;
+	private final String[] names;
+
+	private transient Field[] fields;
+	private transient Constructor<T> constructor;
+
+	private RecordLayout(Class<T> type, String[] names) {
+		this.type = type;
+		this.names = names;
+		resolve();
+	}
+
+	/**
+	 * Looks up the fields and the constructor of the record class. Called on
+	 * creation and lazily after deserialization.
+	 */
+	private void resolve() {
+		Field[] f = new Field[names.length];
+		try {
+			for (int c = 0; c < names.length; c++) {
+				f[c] = findField(names[c]);
+				if (!f[c].getType().isPrimitive()) {
+					throw new IllegalArgumentException("[RecordLayout] field " + names[c] + " of " + type.getName()
+							+ " is not of a primitive type");
+				}
+				f[c].setAccessible(true);
+			}
+			constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(
+					"[RecordLayout] " + type.getName() + " has no constructor without parameters", e);
+		}
+		fields = f;
+	}
+
+	private Field findField(String name) {
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			try {
+				return c.getDeclaredField(name);
+			} catch (NoSuchFieldException e) {
+				// Look in the super class
+			}
+		}
+		throw new IllegalArgumentException("[RecordLayout] " + type.getName() + " has no field " + name);
+	}
+
+	private Field[] fields() {
+		if (fields == null) {
+			resolve();
+		}
+		return fields;
+	}
+
+	/**
+	 * Returns the index of the column holding the given field.
+	 *
+	 * @param field name of a field of the layout
+	 * @return the index of its column
+	 * @throws IllegalArgumentException if the field is not part of the layout
+	 */
+	public int column(String field) {
+		for (int c = 0; c < names.length; c++) {
+			if (names[c].equals(field)) {
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("[RecordLayout] no column for field " + field);
+	}
+
+	/**
+	 * Returns the number of columns of this layout.
+	 *
+	 * @return the number of fields stored in columns
+	 */
+	public int columns() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the primitive type of the given column.
+	 *
+	 * @param column index of the column
+	 * @return the type of the field held by the column
+	 */
+	public Class<?> columnType(int column) {
+		return fields()[column].getType();
+	}
+
+	/**
+	 * Returns the class of the records described by this layout.
+	 *
+	 * @return the class of the records
+	 */
+	public Class<T> recordType() {
+		return type;
+	}
+
+	Object[] newColumns(int size) {
+		Field[] f = fields();
+		Object[] columns = new Object[f.length];
+		for (int c = 0; c < f.length; c++) {
+			columns[c] = Array.newInstance(f[c].getType(), size);
+		}
+		return columns;
+	}
+
+	/** Creates a record from the values at the given offset of the columns */
+	T read(Object[] columns, int offset) {
+		Field[] f = fields();
+		try {
+			T record = constructor.newInstance();
+			for (int c = 0; c < f.length; c++) {
+				f[c].set(record, Array.get(columns[c], offset));
+			}
+			return record;
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("[RecordLayout] could not create an instance of " + type.getName(), e);
+		}
+	}
+
+	/** Stores the fields of the record at the given offset of the columns */
+	void write(T record, Object[] columns, int offset) {
+		if (record == null) {
+			throw new NullPointerException("[RecordLayout] null records cannot be stored in columns");
+		}
+		Field[] f = fields();
+		try {
+			for (int c = 0; c < f.length; c++) {
+				Array.set(columns[c], offset, f[c].get(record));
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("[RecordLayout] could not read the fields of " + type.getName(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return type.getSimpleName() + Arrays.toString(names);
+	}
+}
@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import handist.collections.function.LongTBiConsumer;
+
+/**
+ * {@link RangedList} managed by a {@link ChunkSpiller}. The elements are held
+ * by a {@link Chunk} while the instance is resident and written to a
+ * memory-mapped file when the instance is spilled. Every access to the
+ * elements loads the chunk back if necessary.
+ * <p>
+ * A chunk is "pinned" for the duration of each access so that it cannot be
+ * spilled while an element is read or written.
+ *
+ * @param <T> type of the elements contained in this chunk
+ */
+final class SpillableChunk<T> extends AbstractCollection<T> implements RangedList<T>, Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 6135869003183327563L;
+
+	/** {@link InputStream} reading the contents of a {@link ByteBuffer} */
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+	}
+
+	private final transient ChunkSpiller spiller;
+	private final LongRange range;
+
+	/* Fields below are guarded by this */
+	private transient Chunk<T> resident;
+	private transient Path file;
+	private transient boolean detached = false;
+
+	/* Written under the lock of this, read by the spiller without it */
+	private transient volatile int pins = 0;
+
+	private transient volatile long lastAccess;
+
+	SpillableChunk(ChunkSpiller spiller, Chunk<T> chunk) {
+		this.spiller = spiller;
+		this.range = chunk.getRange();
+		this.resident = chunk;
+		this.lastAccess = spiller.tick();
+	}
+
+	long lastAccess() {
+		return lastAccess;
+	}
+
+	boolean isPinned() {
+		return pins > 0;
+	}
+
+	synchronized boolean isSpilled() {
+		return resident == null;
+	}
+
+	/**
+	 * Obtains the chunk holding the elements, loading it back from disk if
+	 * necessary. Each call must be matched with a call to {@link #unpin()}.
+	 */
+	private Chunk<T> pin() {
+		Chunk<T> c;
+		boolean loaded = false;
+		synchronized (this) {
+			if (resident == null) {
+				resident = load();
+				loaded = true;
+			}
+			pins++;
+			c = resident;
+		}
+		lastAccess = spiller.tick();
+		if (loaded && !detached) {
+			spiller.noteLoaded(this, true);
+		}
+		return c;
+	}
+
+	private synchronized void unpin() {
+		pins--;
+	}
+
+	/**
+	 * Writes the elements to the spill file and releases them from the heap.
+	 * Returns {@code false} if the chunk could not be spilled because it is
+	 * currently in use or no longer managed by the spiller.
+	 */
+	synchronized boolean spill() {
+		if (pins > 0 || resident == null || detached) {
+			return false;
+		}
+		try {
+			if (file == null) {
+				file = spiller.newSpillFile();
+			}
+			// The elements are streamed to the file one by one so that spilling
+			// does not allocate a copy of the chunk
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+							StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)))) {
+				out.writeInt((int) range.size());
+				for (T t : resident) {
+					out.writeObject(t);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("[SpillableChunk] could not spill " + range + " to " + file, e);
+		}
+		resident = null;
+		spiller.noteSpilled(this);
+		return true;
+	}
+
+	private Chunk<T> load() {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(buffer));
+			Object[] elements = new Object[in.readInt()];
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = in.readObject();
+			}
+			return new Chunk<>(range, elements);
+		} catch (IOException | ClassNotFoundException e) {
+			throw new RuntimeException("[SpillableChunk] could not load " + range + " from " + file, e);
+		}
+	}
+
+	/**
+	 * Stops the management of this chunk by the spiller. The elements are
+	 * loaded back on the heap if necessary and the spill file is removed.
+	 *
+	 * @return the chunk holding the elements
+	 */
+	Chunk<T> detach() {
+		Chunk<T> c = pin();
+		synchronized (this) {
+			detached = true;
+			pins--;
+			if (file != null) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					// The file is in the spill directory and will be cleaned up
+					// when the spiller is closed
+				}
+				file = null;
+			}
+		}
+		spiller.forget(this);
+		return c;
+	}
+
+	@Override
+	public LongRange getRange() {
+		return range;
+	}
+
+	@Override
+	public long longSize() {
+		return range.size();
+	}
+
+	@Override
+	public int size() {
+		return (int) longSize();
+	}
+
+	@Override
+	public T get(long index) {
+		Chunk<T> c = pin();
+		try {
+			return c.get(index);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public T set(long index, T value) {
+		Chunk<T> c = pin();
+		try {
+			return c.set(index, value);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		Chunk<T> c = pin();
+		try {
+			return c.contains(o);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public RangedList<T> cloneRange(LongRange newRange) {
+		Chunk<T> c = pin();
+		try {
+			return c.cloneRange(newRange == range ? c.getRange() : newRange);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public Chunk<T> toChunk(LongRange newRange) {
+		Chunk<T> c = pin();
+		try {
+			return c.toChunk(newRange);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public Object[] toArray() {
+		Chunk<T> c = pin();
+		try {
+			return c.toArray();
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public Object[] toArray(LongRange newRange) {
+		Chunk<T> c = pin();
+		try {
+			return c.toArray(newRange);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public RangedList<T> subList(long begin, long end) {
+		if (begin > end) {
+			throw new IllegalArgumentException("Cannot obtain a sublist from " + begin + " to " + end);
+		}
+		if (begin < range.from || range.to < end) {
+			throw new IllegalArgumentException();
+		}
+		if (begin == range.from && end == range.to) {
+			return this;
+		}
+		return new RangedListView<T>(this, new LongRange(begin, end));
+	}
+
+	/**
+	 * Returns an iterator on the elements of the chunk as they are at the time
+	 * this method is called. The chunk may be spilled while the iterator is
+	 * in use, in which case the iterator keeps the elements it refers to alive.
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		Chunk<T> c = pin();
+		try {
+			return c.iterator();
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public Iterator<T> iteratorFrom(long i) {
+		Chunk<T> c = pin();
+		try {
+			return c.iteratorFrom(i);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public void forEach(LongRange range, Consumer<? super T> action) {
+		Chunk<T> c = pin();
+		try {
+			c.forEach(range, action);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public void forEach(LongRange range, LongTBiConsumer<? super T> action) {
+		Chunk<T> c = pin();
+		try {
+			c.forEach(range, action);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public <U> void forEach(LongRange range, BiConsumer<? super T, Consumer<? super U>> action,
+			Consumer<? super U> receiver) {
+		Chunk<T> c = pin();
+		try {
+			c.forEach(range, action, receiver);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		forEach(range, action);
+	}
+
+	@Override
+	public <S> void setupFrom(RangedList<S> from, Function<? super S, ? extends T> func) {
+		Chunk<T> c = pin();
+		try {
+			c.setupFrom(from, func);
+		} finally {
+			unpin();
+		}
+	}
+
+	@Override
+	public String toString() {
+		Chunk<T> c = pin();
+		try {
+			return c.toString();
+		} finally {
+			unpin();
+		}
+	}
+
+	/*
+	 * A spillable chunk is transferred to other hosts as a plain Chunk, the
+	 * receiver decides whether the chunk should be managed by a spiller.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		Chunk<T> c = pin();
+		try {
+			return c;
+		} finally {
+			unpin();
+		}
+	}
+}
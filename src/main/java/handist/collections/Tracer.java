@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Low-overhead recorder of the begin and end of the phases of the library's
+ * operations. Each thread records its events in its own ring buffer of
+ * fixed capacity: once the buffer is full, the oldest events are overwritten.
+ * <p>
+ * Tracing is disabled by default, in which case {@link #begin(String)} and
+ * {@link #end(String)} only check a static flag. It is enabled by setting the
+ * system property {@value #TRACE_PROPERTY}, whose value is the file to which
+ * the trace is written, or by calling {@link #enable()}. The capacity of the
+ * buffers can be set with property {@value #CAPACITY_PROPERTY}.
+ * <p>
+ * When several ranks run in the same JVM, each buffer is tagged with the rank
+ * of the thread which created it, as set by {@link #setRank(int)} and
+ * inherited by the threads it starts. {@link #events()} and {@link #clear()}
+ * then only handle the buffers of the rank of the calling thread.
+ * <p>
+ * The recorded events can be written in the Chrome trace event format, which
+ * can be opened with {@code chrome://tracing} or <a
+ * href="https://ui.perfetto.dev">Perfetto</a>.
+ */
+public final class Tracer {
+
+	/** System property enabling tracing, its value is the output file */
+	public static final String TRACE_PROPERTY = "handist.collections.trace";
+	/** System property setting the number of events kept by each thread */
+	public static final String CAPACITY_PROPERTY = "handist.collections.trace.capacity";
+	/** Output file used when property {@value #TRACE_PROPERTY} is "true" */
+	public static final String DEFAULT_OUTPUT = "handist-trace.json";
+
+	static final byte BEGIN = 'B';
+	static final byte END = 'E';
+
+	/** Flag checked before recording any event */
+	static volatile boolean enabled = System.getProperty(TRACE_PROPERTY) != null;
+
+	private static final int capacity = Integer.getInteger(CAPACITY_PROPERTY, 1 << 16);
+
+	/** Offset converting {@link System#nanoTime()} into nanoseconds since the epoch */
+	private static final long epochOffset = System.currentTimeMillis() * 1000000l - System.nanoTime();
+
+	private static final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+	/** Rank of the current thread, inherited by the threads it starts */
+	private static final InheritableThreadLocal<Integer> rank = new InheritableThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return -1;
+		}
+	};
+
+	private static final ThreadLocal<Buffer> local = ThreadLocal.withInitial(() -> {
+		Buffer b = new Buffer(Thread.currentThread(), rank.get());
+		buffers.add(b);
+		return b;
+	});
+
+	/**
+	 * Event recorded by the {@link Tracer}.
+	 */
+	public static final class Event implements Serializable {
+		private static final long serialVersionUID = 6911620237932712049L;
+
+		/** Name of the phase */
+		public final String name;
+		/** 'B' for the beginning of a phase, 'E' for its end */
+		public final char phase;
+		/** Time of the event in nanoseconds since the epoch */
+		public final long timestamp;
+		/** Identifier of the thread which recorded the event */
+		public final long threadId;
+		/** Name of the thread which recorded the event */
+		public final String threadName;
+
+		Event(String name, char phase, long timestamp, long threadId, String threadName) {
+			this.name = name;
+			this.phase = phase;
+			this.timestamp = timestamp;
+			this.threadId = threadId;
+			this.threadName = threadName;
+		}
+
+		@Override
+		public String toString() {
+			return phase + " " + name + " @" + timestamp + " [" + threadName + "]";
+		}
+	}
+
+	/** Ring buffer of the events recorded by one thread */
+	private static final class Buffer {
+		/** Rank of the thread, -1 if it was not set */
+		final int rank;
+		final long threadId;
+		final String threadName;
+		final String[] names = new String[capacity];
+		final long[] times = new long[capacity];
+		final byte[] phases = new byte[capacity];
+		/** Total number of events recorded, the next slot is count % capacity */
+		long count = 0;
+
+		Buffer(Thread t, int r) {
+			rank = r;
+			threadId = t.getId();
+			threadName = t.getName();
+		}
+
+		synchronized void record(String name, byte phase) {
+			int slot = (int) (count++ % capacity);
+			names[slot] = name;
+			phases[slot] = phase;
+			times[slot] = System.nanoTime();
+		}
+
+		synchronized void drainTo(List<Event> events) {
+			long first = Math.max(0, count - capacity);
+			for (long i = first; i < count; i++) {
+				int slot = (int) (i % capacity);
+				events.add(new Event(names[slot], (char) phases[slot], times[slot] + epochOffset, threadId,
+						threadName));
+			}
+		}
+
+		synchronized void clear() {
+			count = 0;
+		}
+	}
+
+	private Tracer() {
+	}
+
+	/**
+	 * Enables tracing in this JVM.
+	 */
+	public static void enable() {
+		enabled = true;
+	}
+
+	/**
+	 * Disables tracing in this JVM. Events already recorded are kept.
+	 */
+	public static void disable() {
+		enabled = false;
+	}
+
+	/**
+	 * Indicates whether events are currently recorded.
+	 *
+	 * @return {@code true} if tracing is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets the rank of the current thread and of the threads it will start.
+	 * This method should be called before the thread records any event.
+	 *
+	 * @param r rank of the current process
+	 */
+	public static void setRank(int r) {
+		rank.set(r);
+	}
+
+	/**
+	 * Returns the file to which the trace should be written, as specified by
+	 * property {@value #TRACE_PROPERTY}.
+	 *
+	 * @return the output file of the trace
+	 */
+	public static String outputFile() {
+		String f = System.getProperty(TRACE_PROPERTY);
+		return (f == null || f.isEmpty() || f.equals("true")) ? DEFAULT_OUTPUT : f;
+	}
+
+	/**
+	 * Records the beginning of the specified phase by the current thread.
+	 *
+	 * @param name name of the phase
+	 */
+	public static void begin(String name) {
+		if (enabled) {
+			local.get().record(name, BEGIN);
+		}
+	}
+
+	/**
+	 * Records the end of the specified phase by the current thread.
+	 *
+	 * @param name name of the phase, identical to that given to
+	 *             {@link #begin(String)}
+	 */
+	public static void end(String name) {
+		if (enabled) {
+			local.get().record(name, END);
+		}
+	}
+
+	/**
+	 * Returns the events currently held by the buffers of the threads of the
+	 * rank of the calling thread, sorted by time.
+	 *
+	 * @return the recorded events
+	 */
+	public static List<Event> events() {
+		int r = rank.get();
+		List<Event> result = new ArrayList<>();
+		for (Buffer b : buffers) {
+			if (b.rank == r) {
+				b.drainTo(result);
+			}
+		}
+		result.sort(Comparator.comparingLong((Event e) -> e.timestamp));
+		return result;
+	}
+
+	/**
+	 * Discards the events recorded by the threads of the rank of the calling
+	 * thread.
+	 */
+	public static void clear() {
+		int r = rank.get();
+		for (Buffer b : buffers) {
+			if (b.rank == r) {
+				b.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes the given events in the Chrome trace event format. Each entry of
+	 * the map corresponds to one process of the trace, typically one rank.
+	 *
+	 * @param out    the writer to which the trace is written
+	 * @param events events of each process, indexed by process identifier
+	 * @throws IOException if thrown by the writer
+	 */
+	public static void writeChromeTrace(Writer out, Map<Integer, List<Event>> events) throws IOException {
+		out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+		boolean first = true;
+		for (Map.Entry<Integer, List<Event>> entry : events.entrySet()) {
+			int pid = entry.getKey();
+			out.write(first ? "" : ",\n");
+			first = false;
+			out.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"args\":{\"name\":\"rank " + pid
+					+ "\"}}");
+			Set<Long> namedThreads = new HashSet<>();
+			for (Event e : entry.getValue()) {
+				if (namedThreads.add(e.threadId)) {
+					out.write(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + e.threadId
+							+ ",\"args\":{\"name\":\"" + escape(e.threadName) + "\"}}");
+				}
+				out.write(",\n{\"name\":\"" + escape(e.name) + "\",\"ph\":\"" + e.phase + "\",\"ts\":"
+						+ (e.timestamp / 1000) + "." + String.format("%03d", e.timestamp % 1000) + ",\"pid\":" + pid
+						+ ",\"tid\":" + e.threadId + "}");
+			}
+		}
+		out.write("\n]}\n");
+	}
+
+	private static String escape(String s) {
+		StringBuilder b = new StringBuilder(s.length());
+		for (char c : s.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				b.append('\\').append(c);
+			} else if (c < 0x20) {
+				b.append(String.format("\\u%04x", (int) c));
+			} else {
+				b.append(c);
+			}
+		}
+		return b.toString();
+	}
+}
@@ -16,6 +16,7 @@ import java.util.Arrays;
 
 import apgas.SerializableCallable;
 import apgas.util.GlobalID;
+import handist.collections.Tracer;
 
 
 public abstract class AbstractDistCollection implements Serializable {
@@ -131,133 +132,58 @@ public abstract class AbstractDistCollection implements Serializable {
     // as default methods.
     public void teamedBalance(MoveManagerLocal mm) {
         final int pgSize = placeGroup.size();
-        final IFPair[] listPlaceLocality = new IFPair[pgSize];
-        float localitySum = 0.0f;
-        long globalDataSize = 0;
         final long[] localDataSize = new long[pgSize];
-
-        for (int i = 0; i < pgSize; i++) {
-            localitySum += locality[i];
-        }
-        checkDistInfo(localDataSize);
-        
-        for (int i = 0; i < pgSize; i++) {
-            globalDataSize += localDataSize[i];
-            final float normalizeLocality = locality[i] / localitySum;
-            listPlaceLocality[i] = new IFPair(i, normalizeLocality);
-        }
-        Arrays.sort(listPlaceLocality, (IFPair a1, IFPair a2) -> {
-            return Float.compare(a1.second, a2.second);
-        });
-
-        if (_debug_level > 5) {
-            for (IFPair pair : listPlaceLocality) {
-                System.out.print("(" + pair.first + ", " + pair.second + ") ");
-            }
-            System.out.println();
-            placeGroup.barrier(); // for debug print
-        }
-
-        IFPair[] cumulativeLocality = new IFPair[pgSize];
-        float sumLocality = 0.0f;
-        for (int i = 0; i < pgSize; i++) {
-            sumLocality += listPlaceLocality[i].second;
-            cumulativeLocality[i] = new IFPair(listPlaceLocality[i].first, sumLocality);
+        final BalancePlan plan;
+        Tracer.begin("teamedBalance.plan");
+        try {
+            checkDistInfo(localDataSize);
+            // Places are paired within their node first, see BalancePlan
+            plan = BalancePlan.of(locality, localDataSize, placeGroup.hierarchy().nodeOf);
+        } finally {
+            Tracer.end("teamedBalance.plan");
         }
-        cumulativeLocality[pgSize - 1] = new IFPair(listPlaceLocality[pgSize - 1].first, 1.0f);
+        final ArrayList<ArrayList<ILPair>> moveList = plan.moves; // (index of dest Place, num data to export)
 
-        if (_debug_level > 5) {
+        if (RelocationMetrics.enabled) {
+            long globalDataSize = 0;
+            long maxDataSize = 0;
             for (int i = 0; i < pgSize; i++) {
-                IFPair pair = cumulativeLocality[i];
-                System.out.print("(" + pair.first + ", " + pair.second + ", " + localDataSize[pair.first] + "/"
-                        + globalDataSize + ") ");
+                globalDataSize += localDataSize[i];
+                maxDataSize = Math.max(maxDataSize, localDataSize[i]);
             }
-            System.out.println();
-            placeGroup.barrier(); // for debug print
-        }
-
-        final ArrayList<ArrayList<ILPair>> moveList = new ArrayList<>(pgSize); // ArrayList(index of dest Place, num
-                                                                               // data to export)
-        ArrayList<ILPair> stagedData = new ArrayList<>(); // ArrayList(index of src, num data to export)
-        long previousCumuNumData = 0;
-
-        for (int i = 0; i < pgSize; i++) {
-            moveList.add(new ArrayList<ILPair>());
-        }
-
-        for (int i = 0; i < pgSize; i++) {
-            int placeIdx = cumulativeLocality[i].first;
-            float placeLocality = cumulativeLocality[i].second;
-            long cumuNumData = (long) (((float) globalDataSize) * placeLocality);
-            long targetNumData = cumuNumData - previousCumuNumData;
-            if (localDataSize[placeIdx] > targetNumData) {
-                stagedData.add(new ILPair(placeIdx, localDataSize[placeIdx] - targetNumData));
-                if (_debug_level > 5) {
-                    System.out.print(
-                            "stage src: " + placeIdx + " num: " + (localDataSize[placeIdx] - targetNumData) + ", ");
-                }
-            }
-            previousCumuNumData = cumuNumData;
-        }
-        if (_debug_level > 5) {
-            System.out.println();
-            placeGroup.barrier(); // for debug print
-        }
-
-        previousCumuNumData = 0;
-        for (int i = 0; i < pgSize; i++) {
-            int placeIdx = cumulativeLocality[i].first;
-            float placeLocality = cumulativeLocality[i].second;
-            long cumuNumData = (long) (((float) globalDataSize) * placeLocality);
-            long targetNumData = cumuNumData - previousCumuNumData;
-            if (targetNumData > localDataSize[placeIdx]) {
-                long numToImport = targetNumData - localDataSize[placeIdx];
-                while (numToImport > 0) {
-                    ILPair pair = stagedData.remove(0);
-                    if (pair.second > numToImport) {
-                        moveList.get(pair.first).add(new ILPair(placeIdx, numToImport));
-                        stagedData.add(new ILPair(pair.first, pair.second - numToImport));
-                        numToImport = 0;
-                    } else {
-                        moveList.get(pair.first).add(new ILPair(placeIdx, pair.second));
-                        numToImport -= pair.second;
-                    }
-                }
+            if (globalDataSize > 0) {
+                placeGroup.metrics().setImbalanceRatio((double) maxDataSize * pgSize / globalDataSize);
             }
-            previousCumuNumData = cumuNumData;
+            placeGroup.metrics().setPlannedTransfers(plan.intraNodeElements, plan.crossNodeElements);
         }
 
         if (_debug_level > 5) {
             for (int i = 0; i < pgSize; i++) {
-                for (ILPair pair : moveList.get(i)) {
-                    System.out.print("src: " + i + " dest: " + pair.first + " size: " + pair.second + ", ");
-                }
+                System.out.print("(" + i + ", " + locality[i] + ", " + localDataSize[i] + " -> " + plan.targets[i]
+                        + ") ");
             }
             System.out.println();
             placeGroup.barrier(); // for debug print
         }
 
         if (_debug_level > 5) {
-            long[] diffNumData = new long[pgSize];
             for (int i = 0; i < pgSize; i++) {
                 for (ILPair pair : moveList.get(i)) {
-                    diffNumData[i] -= pair.second;
-                    diffNumData[pair.first] += pair.second;
+                    System.out.print("src: " + i + " dest: " + pair.first + " size: " + pair.second + ", ");
                 }
             }
-            for (IFPair pair : listPlaceLocality) {
-                System.out.print("(" + pair.first + ", " + pair.second + ", "
-
-                        + (localDataSize[pair.first] + diffNumData[pair.first]) + "/" + globalDataSize + ") ");
-            }
-            System.out.println();
+            System.out.println("intra-node: " + plan.intraNodeElements + " cross-node: " + plan.crossNodeElements);
+            placeGroup.barrier(); // for debug print
         }
 
+        Tracer.begin("teamedBalance.moveAtSyncCount");
         try {
             moveAtSyncCount(moveList.get(placeGroup.myrank), mm);
         } catch (Exception e) {
             e.printStackTrace();
             throw new Error("[AbstractDistCollection] data transfer error raised.");
+        } finally {
+            Tracer.end("teamedBalance.moveAtSyncCount");
         }
     }
 
@@ -298,7 +224,9 @@ public abstract class AbstractDistCollection implements Serializable {
     }
 
     /**
-     * Destroy an instance of AbstractDistCollection.
+     * Destroy an instance of AbstractDistCollection. The local branch is
+     * released at the current place only: this method must be called at every
+     * place of the group to release the whole collection.
      */
     public void destroy() {
         placeGroup.remove(id);
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import handist.collections.dist.AbstractDistCollection.IFPair;
+import handist.collections.dist.AbstractDistCollection.ILPair;
+
+/**
+ * Transfers of elements bringing every place of a group to its target number
+ * of elements, as computed by
+ * {@link AbstractDistCollection#teamedBalance(MoveManagerLocal)}.
+ * <p>
+ * The surplus of the places of each node is first used to fill the places of
+ * the same node which lack elements. Only the surplus remaining afterwards is
+ * sent to the places of other nodes. Within each of these two steps, the
+ * places exporting and importing elements are paired in the given order, the
+ * exporters whose surplus is not exhausted by an importer being queued again
+ * after the others. When all the places are on the same node, the plan is
+ * thus the same as if the nodes were ignored.
+ */
+final class BalancePlan {
+
+    /** Number of elements each rank should hold after the transfers */
+    final long[] targets;
+    /** Transfers of each place: rank of the destination, number of elements */
+    final ArrayList<ArrayList<ILPair>> moves;
+    /** Number of elements sent to places on the same node as their source */
+    long intraNodeElements;
+    /** Number of elements sent to places on another node than their source */
+    long crossNodeElements;
+
+    /**
+     * Computes the transfers giving each rank a share of the elements
+     * proportional to its locality. The ranks are paired in increasing order
+     * of locality.
+     *
+     * @param locality the relative share of the elements of each rank
+     * @param sizes    number of elements held by each rank
+     * @param nodeOf   node of each rank
+     * @return the transfers of each rank
+     */
+    static BalancePlan of(float[] locality, long[] sizes, int[] nodeOf) {
+        final int size = sizes.length;
+        float localitySum = 0.0f;
+        long globalDataSize = 0;
+        for (int i = 0; i < size; i++) {
+            localitySum += locality[i];
+            globalDataSize += sizes[i];
+        }
+        final IFPair[] listPlaceLocality = new IFPair[size];
+        for (int i = 0; i < size; i++) {
+            listPlaceLocality[i] = new IFPair(i, locality[i] / localitySum);
+        }
+        Arrays.sort(listPlaceLocality, (IFPair a1, IFPair a2) -> {
+            return Float.compare(a1.second, a2.second);
+        });
+
+        // The target of each rank is the difference of the cumulative shares
+        final long[] targets = new long[size];
+        final int[] order = new int[size];
+        float sumLocality = 0.0f;
+        long previousCumuNumData = 0;
+        for (int i = 0; i < size; i++) {
+            sumLocality += listPlaceLocality[i].second;
+            final float placeLocality = i == size - 1 ? 1.0f : sumLocality;
+            final long cumuNumData = (long) (((float) globalDataSize) * placeLocality);
+            targets[listPlaceLocality[i].first] = cumuNumData - previousCumuNumData;
+            order[i] = listPlaceLocality[i].first;
+            previousCumuNumData = cumuNumData;
+        }
+        return new BalancePlan(sizes, targets, nodeOf, order);
+    }
+
+    /**
+     * Computes the transfers balancing the given numbers of elements.
+     *
+     * @param sizes   number of elements held by each rank
+     * @param targets number of elements each rank should hold, whose sum is
+     *                that of {@code sizes}
+     * @param nodeOf  node of each rank
+     * @param order   ranks in the order in which they are paired
+     */
+    BalancePlan(long[] sizes, long[] targets, int[] nodeOf, int[] order) {
+        final int size = sizes.length;
+        this.targets = targets;
+        moves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            moves.add(new ArrayList<ILPair>());
+        }
+        int nodes = 0;
+        for (final int n : nodeOf) {
+            nodes = Math.max(nodes, n + 1);
+        }
+
+        // Surplus and lack of elements of each rank, updated as they are paired
+        final long[] balance = new long[size];
+        for (int i = 0; i < size; i++) {
+            balance[i] = sizes[i] - targets[i];
+        }
+        for (int node = 0; node < nodes; node++) {
+            intraNodeElements += pair(balance, nodeOf, node, order);
+        }
+        crossNodeElements = pair(balance, nodeOf, -1, order);
+    }
+
+    /**
+     * Pairs the ranks of the given node with a surplus with those lacking
+     * elements, or the ranks of every node if {@code node} is -1. Returns the
+     * number of elements transferred.
+     */
+    private long pair(long[] balance, int[] nodeOf, int node, int[] order) {
+        final LinkedList<ILPair> staged = new LinkedList<>();
+        for (final int rank : order) {
+            if ((node < 0 || nodeOf[rank] == node) && balance[rank] > 0) {
+                staged.add(new ILPair(rank, balance[rank]));
+            }
+        }
+        long moved = 0;
+        for (final int rank : order) {
+            if (node >= 0 && nodeOf[rank] != node) {
+                continue;
+            }
+            while (balance[rank] < 0 && !staged.isEmpty()) {
+                final ILPair src = staged.removeFirst();
+                final long n = Math.min(src.second, -balance[rank]);
+                moves.get(src.first).add(new ILPair(rank, n));
+                src.second -= n;
+                balance[src.first] -= n;
+                balance[rank] += n;
+                moved += n;
+                if (src.second > 0) {
+                    // A partially used exporter goes back to the end of the queue
+                    staged.addLast(src);
+                }
+            }
+        }
+        return moved;
+    }
+}
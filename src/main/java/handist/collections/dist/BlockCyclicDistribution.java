@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import apgas.Place;
+import handist.collections.LongRange;
+
+/**
+ * Distribution dealing blocks of consecutive indices to the places in a
+ * round-robin fashion: the block of indices [k*blockSize, (k+1)*blockSize) is
+ * assigned to the place at position k modulo the number of places in the
+ * given list of places. Negative indices follow the same pattern.
+ */
+public class BlockCyclicDistribution implements LongRangeDistribution, Serializable {
+
+    private static final long serialVersionUID = 2373845924408734185L;
+
+    private final Place[] places;
+    private final long blockSize;
+
+    /**
+     * Creates a block-cyclic distribution over the places of the given group,
+     * in rank order.
+     *
+     * @param blockSize number of consecutive indices in each block
+     * @param pg        the group among which the indices are distributed
+     */
+    public BlockCyclicDistribution(long blockSize, TeamedPlaceGroup pg) {
+        this(blockSize, pg.places());
+    }
+
+    /**
+     * Creates a block-cyclic distribution over the given places.
+     *
+     * @param blockSize number of consecutive indices in each block
+     * @param places    the places among which the indices are distributed
+     */
+    public BlockCyclicDistribution(long blockSize, List<Place> places) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("[BlockCyclicDistribution] block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.places = BlockDistribution.toArray(places);
+    }
+
+    /**
+     * Returns the number of consecutive indices in each block.
+     *
+     * @return the block size of this distribution
+     */
+    public long blockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public Place place(long index) {
+        return places[(int) Math.floorMod(Math.floorDiv(index, blockSize), (long) places.length)];
+    }
+
+    @Override
+    public Map<LongRange, Place> placeRanges(LongRange r) {
+        final Map<LongRange, Place> result = new LinkedHashMap<>();
+        if (r.size() <= 0) {
+            return result;
+        }
+        if (places.length == 1) {
+            result.put(r, places[0]);
+            return result;
+        }
+        long block = Math.floorDiv(r.from, blockSize);
+        int p = (int) Math.floorMod(block, (long) places.length);
+        long from = r.from;
+        while (from < r.to) {
+            final long to = Math.min(r.to, (block + 1) * blockSize);
+            result.put(new LongRange(from, to), places[p]);
+            from = to;
+            block++;
+            p = (p + 1 == places.length) ? 0 : p + 1;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[block " + blockSize + " over " + places.length + " places]";
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import apgas.Place;
+import handist.collections.LongRange;
+
+/**
+ * Distribution splitting a range of indices into contiguous blocks, one block
+ * per place in the order of the given list of places. The sizes of the blocks
+ * differ by at most one: with {@code n} indices and {@code p} places, the
+ * first {@code n % p} places receive {@code n / p + 1} indices and the others
+ * {@code n / p} indices. Indices lower than
+ * the range are assigned to the first place and indices greater than the
+ * range to the last place.
+ */
+public class BlockDistribution implements LongRangeDistribution, Serializable {
+
+    private static final long serialVersionUID = -4829573466061047739L;
+
+    /**
+     * Checks that the given list of places can be used by a distribution and
+     * returns it as an array.
+     */
+    static Place[] toArray(List<Place> places) {
+        if (places == null || places.isEmpty()) {
+            throw new IllegalArgumentException("[Distribution] at least one place is needed");
+        }
+        return places.toArray(new Place[places.size()]);
+    }
+
+    private final LongRange range;
+    private final Place[] places;
+    /** Size of the smaller blocks */
+    private final long blockSize;
+    /** Number of blocks holding {@code blockSize + 1} indices */
+    private final long largeBlocks;
+
+    /**
+     * Creates a block distribution of the given range over the places of the
+     * given group, in rank order.
+     *
+     * @param range  the range of indices to distribute
+     * @param pg the group among which the indices are distributed
+     */
+    public BlockDistribution(LongRange range, TeamedPlaceGroup pg) {
+        this(range, pg.places());
+    }
+
+    /**
+     * Creates a block distribution of the given range over the given places.
+     *
+     * @param range  the range of indices to distribute
+     * @param places the places among which the indices are distributed
+     */
+    public BlockDistribution(LongRange range, List<Place> places) {
+        this.range = range;
+        this.places = toArray(places);
+        final long n = Math.max(0, range.size());
+        blockSize = n / this.places.length;
+        largeBlocks = n % this.places.length;
+    }
+
+    /** First index of the given block */
+    private long start(int b) {
+        return range.from + b * blockSize + Math.min(b, largeBlocks);
+    }
+
+    /** Index in {@link #places} of the block containing the given index */
+    private int block(long index) {
+        if (index < range.from) {
+            return 0;
+        }
+        final long offset = index - range.from;
+        final long large = largeBlocks * (blockSize + 1);
+        if (offset < large) {
+            return (int) (offset / (blockSize + 1));
+        }
+        if (blockSize == 0) {
+            return places.length - 1;
+        }
+        return (int) Math.min(largeBlocks + (offset - large) / blockSize, places.length - 1);
+    }
+
+    @Override
+    public Place place(long index) {
+        return places[block(index)];
+    }
+
+    @Override
+    public Map<LongRange, Place> placeRanges(LongRange r) {
+        final Map<LongRange, Place> result = new LinkedHashMap<>();
+        if (r.size() <= 0) {
+            return result;
+        }
+        final int last = block(r.to - 1);
+        long from = r.from;
+        for (int b = block(r.from); b < last; b++) {
+            final long to = start(b + 1);
+            if (to > from) {
+                result.put(new LongRange(from, to), places[b]);
+                from = to;
+            }
+        }
+        result.put(new LongRange(from, r.to), places[last]);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockDistribution[" + range + " over " + places.length + " places]";
+    }
+}
@@ -9,14 +9,17 @@
  *******************************************************************************/
 package handist.collections.dist;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import apgas.Constructs;
 import apgas.Place;
+import handist.collections.Tracer;
+import mpi.Intracomm;
 import mpi.MPI;
 import mpi.MPIException;
 
@@ -27,174 +30,451 @@ public class CollectiveRelocator {
         int[] sendSize = new int[placeGroup.size()];
         int[] rcvOffset = new int[placeGroup.size()];
         int[] rcvSize = new int[placeGroup.size()];
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        mm.executeSerialization(placeGroup, out, sendOffset, sendSize);
-        byte[] buf = executeRelocation(placeGroup, out.toByteArray(), sendOffset, sendSize, rcvOffset, rcvSize);
-        mm.executeDeserialization(buf, rcvOffset, rcvSize);
+        boolean[] rcvFramed = new boolean[placeGroup.size()];
+        final PayloadCodec codec = PayloadCompression.getCodec();
+        final boolean record = RelocationMetrics.enabled;
+        long t0 = record ? System.nanoTime() : 0;
+        byte[] sendbuf;
+        Tracer.begin("all2allser.serialize");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            mm.executeSerialization(placeGroup, out, sendOffset, sendSize);
+            sendbuf = PayloadCompression.encode(codec, out.toByteArray(), sendOffset, sendSize);
+        } finally {
+            Tracer.end("all2allser.serialize");
+        }
+        long t1 = record ? System.nanoTime() : 0;
+        byte[] buf;
+        Tracer.begin("all2allser.exchange");
+        try {
+            buf = executeRelocation(placeGroup, sendbuf, sendOffset, sendSize, codec != null, rcvOffset, rcvSize,
+                    rcvFramed);
+        } finally {
+            Tracer.end("all2allser.exchange");
+        }
+        long t2 = record ? System.nanoTime() : 0;
+        Tracer.begin("all2allser.deserialize");
+        try {
+            int[] dataOffset = new int[placeGroup.size()];
+            int[] dataSize = new int[placeGroup.size()];
+            buf = PayloadCompression.decode(buf, rcvOffset, rcvSize, rcvFramed, dataOffset, dataSize);
+            mm.executeDeserialization(buf, dataOffset, dataSize);
+        } finally {
+            Tracer.end("all2allser.deserialize");
+        }
+        if (record) {
+            long t3 = System.nanoTime();
+            RelocationMetrics metrics = placeGroup.metrics();
+            metrics.addSerializationTime(t1 - t0);
+            metrics.addCollectiveWaitTime(t2 - t1);
+            metrics.addDeserializationTime(t3 - t2);
+            for (int i = 0; i < sendSize.length; i++) {
+                metrics.addSent(i, sendSize[i]);
+                metrics.addReceived(i, rcvSize[i]);
+            }
+            metrics.addElementsMoved(mm.requestedElements());
+            metrics.addRelocation();
+        }
         mm.clear();
     }
 
-    /*
-     * TODO int->long?? 本当は、、int, long 版なども欲しいところだったような
+    /**
+     * Serializes the requests of the given {@link MoveManagerLocal} on the
+     * calling thread, then exchanges and deserializes them on the
+     * communication thread of the group. The exchange uses a communicator
+     * dedicated to the asynchronous relocations, so that it does not
+     * interfere with the collective operations made by the calling thread in
+     * the meantime. The requests are removed from {@code mm} before this
+     * method returns.
+     *
+     * @param placeGroup the group of places taking part in the relocation
+     * @param mm         the requests of the current place
+     * @return a future completed once the elements received by the current
+     *         place have been deserialized
+     * @throws IOException if thrown by a serializer
+     * @see MoveManagerLocal#syncAsync()
      */
-    static byte[] executeRelocation(TeamedPlaceGroup placeGroup, byte[] byteArray, int[] sendOffset, int[] sendSize,
-            int[] rcvOffset, int[] rcvSize) throws MPIException {
-        placeGroup.comm.Alltoall(sendSize, 0, 1, MPI.INT, rcvSize, 0, 1, MPI.INT);
-        {
-            StringBuffer buf = new StringBuffer();
-            buf.append(Constructs.here() + "::");
-            for (int j = 0; j < rcvSize.length; j++) {
-                buf.append(":" + rcvSize[j]);
-            }
-            System.out.println(buf.toString());
+    static CompletableFuture<Void> all2allserAsync(TeamedPlaceGroup placeGroup, MoveManagerLocal mm)
+            throws IOException {
+        final int[] sendOffset = new int[placeGroup.size()];
+        final int[] sendSize = new int[placeGroup.size()];
+        final PayloadCodec codec = PayloadCompression.getCodec();
+        final boolean record = RelocationMetrics.enabled;
+        final long t0 = record ? System.nanoTime() : 0;
+        final byte[] sendbuf;
+        Tracer.begin("all2allser.serialize");
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            mm.executeSerialization(placeGroup, out, sendOffset, sendSize);
+            sendbuf = PayloadCompression.encode(codec, out.toByteArray(), sendOffset, sendSize);
+        } finally {
+            Tracer.end("all2allser.serialize");
         }
+        final long elements = mm.requestedElements();
+        mm.clear();
+        final long serializationTime = record ? System.nanoTime() - t0 : 0;
+        final Intracomm comm = placeGroup.asyncComm();
+
+        return CompletableFuture.runAsync(() -> {
+            final int[] rcvOffset = new int[placeGroup.size()];
+            final int[] rcvSize = new int[placeGroup.size()];
+            final boolean[] rcvFramed = new boolean[placeGroup.size()];
+            try {
+                final long t1 = record ? System.nanoTime() : 0;
+                final byte[] buf;
+                Tracer.begin("all2allser.exchange");
+                try {
+                    buf = executeRelocation(placeGroup, comm, sendbuf, sendOffset, sendSize, codec != null,
+                            rcvOffset, rcvSize, rcvFramed);
+                } finally {
+                    Tracer.end("all2allser.exchange");
+                }
+                final long t2 = record ? System.nanoTime() : 0;
+                Tracer.begin("all2allser.deserialize");
+                try {
+                    final int[] dataOffset = new int[placeGroup.size()];
+                    final int[] dataSize = new int[placeGroup.size()];
+                    mm.executeDeserialization(
+                            PayloadCompression.decode(buf, rcvOffset, rcvSize, rcvFramed, dataOffset, dataSize),
+                            dataOffset, dataSize);
+                } finally {
+                    Tracer.end("all2allser.deserialize");
+                }
+                if (record) {
+                    final long t3 = System.nanoTime();
+                    final RelocationMetrics metrics = placeGroup.metrics();
+                    metrics.addSerializationTime(serializationTime);
+                    metrics.addCollectiveWaitTime(t2 - t1);
+                    metrics.addDeserializationTime(t3 - t2);
+                    for (int i = 0; i < sendSize.length; i++) {
+                        metrics.addSent(i, sendSize[i]);
+                        metrics.addReceived(i, rcvSize[i]);
+                    }
+                    metrics.addElementsMoved(elements);
+                    metrics.addRelocation();
+                }
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        }, placeGroup.asyncExecutor());
+    }
 
+    static byte[] executeRelocation(TeamedPlaceGroup placeGroup, byte[] byteArray, int[] sendOffset, int[] sendSize,
+            boolean framed, int[] rcvOffset, int[] rcvSize, boolean[] rcvFramed) throws MPIException {
+        final NodeHierarchy hierarchy = hierarchy(placeGroup);
+        if (hierarchy == null) {
+            return executeRelocation(placeGroup, placeGroup.comm, byteArray, sendOffset, sendSize, framed, rcvOffset,
+                    rcvSize, rcvFramed);
+        }
+        exchangeSizes(placeGroup.comm, sendSize, framed, rcvSize, rcvFramed);
         int current = 0;
         for (int i = 0; i < rcvSize.length; i++) {
             rcvOffset[i] = current;
             current += rcvSize[i];
         }
         byte[] recvbuf = new byte[current];
-        placeGroup.Alltoallv(byteArray, 0, sendSize, sendOffset, MPI.BYTE, recvbuf, 0, rcvSize, rcvOffset, MPI.BYTE);
+        hierarchy.alltoallv(placeGroup, byteArray, sendSize, sendOffset, recvbuf, rcvSize);
         return recvbuf;
     }
 
-    public static void allgatherSer(TeamedPlaceGroup pg, Serializer ser, DeSerializerUsingPlace deser) {
-        int numPlaces = pg.size();
-        ByteArrayOutputStream out0 = new ByteArrayOutputStream();
-        try {
-            ObjectOutputStream out = new ObjectOutputStream(out0);
-            ser.accept(out);
-            out.close();
-        } catch (IOException exp) {
-            throw new Error("This should not occur!.");
-        }
-        byte[] buf = out0.toByteArray();
-        int size = buf.length;
-        int[] tmpCounts = new int[1];
-        tmpCounts[0] = size;
-        int[] recvCounts = new int[numPlaces];
-        int[] recvDispls = new int[numPlaces];
-        try {
-            pg.comm.Allgather(tmpCounts, 0, 1, MPI.INT, recvCounts, 0, 1, MPI.INT);
-        } catch (MPIException e) {
-            e.printStackTrace();
-            throw new Error("[CollectiveRelocator] MPIException");
+    /**
+     * Exchanges the number of bytes sent to each place, along with whether
+     * the buffers are framed by {@link PayloadCompression}.
+     */
+    private static void exchangeSizes(Intracomm comm, int[] sendSize, boolean framed, int[] rcvSize,
+            boolean[] rcvFramed) throws MPIException {
+        final int[] wireSize = new int[sendSize.length];
+        for (int i = 0; i < sendSize.length; i++) {
+            wireSize[i] = PayloadCompression.wireSize(sendSize[i], framed);
+        }
+        comm.Alltoall(wireSize, 0, 1, MPI.INT, rcvSize, 0, 1, MPI.INT);
+        for (int i = 0; i < rcvSize.length; i++) {
+            rcvFramed[i] = PayloadCompression.framed(rcvSize[i]);
+            rcvSize[i] = PayloadCompression.size(rcvSize[i]);
         }
+    }
 
-        int total = 0;
-        for (int i = 0; i < recvCounts.length; i++) {
-            recvDispls[i] = total;
-            total += recvCounts[i];
+    /**
+     * Returns the division into nodes of the given group if the hierarchical
+     * collective operations should be used for it, {@code null} otherwise.
+     * Must be called at every place of the group.
+     */
+    private static NodeHierarchy hierarchy(TeamedPlaceGroup pg) {
+        if (!NodeHierarchy.enabled) {
+            return null;
         }
-        byte[] rbuf = new byte[total];
-        try {
-            pg.comm.Allgatherv(buf, 0, size, MPI.BYTE, rbuf, 0, recvCounts, recvDispls, MPI.BYTE);
-        } catch (MPIException e) {
-            e.printStackTrace();
-            throw new Error("[CollectiveRelocator] MPIException");
+        final NodeHierarchy hierarchy = pg.hierarchy();
+        return hierarchy.useful() ? hierarchy : null;
+    }
+
+    /*
+     * TODO int->long?? 本当は、、int, long 版なども欲しいところだったような
+     */
+    static byte[] executeRelocation(TeamedPlaceGroup placeGroup, Intracomm comm, byte[] byteArray, int[] sendOffset,
+            int[] sendSize, boolean framed, int[] rcvOffset, int[] rcvSize, boolean[] rcvFramed) throws MPIException {
+        exchangeSizes(comm, sendSize, framed, rcvSize, rcvFramed);
+
+        int current = 0;
+        for (int i = 0; i < rcvSize.length; i++) {
+            rcvOffset[i] = current;
+            current += rcvSize[i];
         }
+        byte[] recvbuf = new byte[current];
+        placeGroup.Alltoallv(comm, byteArray, 0, sendSize, sendOffset, MPI.BYTE, recvbuf, 0, rcvSize, rcvOffset,
+                MPI.BYTE);
+        return recvbuf;
+    }
 
-        for (int i = 0; i < recvCounts.length; i++) {
-            if (Constructs.here().equals(pg.get(i)))
-                continue;
-            ByteArrayInputStream in0 = new ByteArrayInputStream(rbuf, recvDispls[i], recvCounts[i]);
+    public static void allgatherSer(TeamedPlaceGroup pg, Serializer ser, DeSerializerUsingPlace deser) {
+        Tracer.begin("allgatherSer");
+        try {
+            int numPlaces = pg.size();
+            final NodeHierarchy hierarchy = hierarchy(pg);
+            final boolean record = RelocationMetrics.enabled;
+            long t0 = record ? System.nanoTime() : 0;
+            ByteArrayOutputStream out0 = new ByteArrayOutputStream();
             try {
-                ObjectInputStream in = new ObjectInputStream(in0);
+                ObjectOutputStream out = new ObjectOutputStream(out0);
+                ser.accept(out);
+                out.close();
+            } catch (IOException exp) {
+                throw new Error("This should not occur!.");
+            }
+            final PayloadCodec codec = PayloadCompression.getCodec();
+            byte[] buf = PayloadCompression.encode(codec, out0.toByteArray());
+            long t1 = record ? System.nanoTime() : 0;
+            int size = buf.length;
+            int[] tmpCounts = new int[1];
+            tmpCounts[0] = PayloadCompression.wireSize(size, codec != null);
+            int[] recvCounts = new int[numPlaces];
+            int[] recvDispls = new int[numPlaces];
+            try {
+                pg.comm.Allgather(tmpCounts, 0, 1, MPI.INT, recvCounts, 0, 1, MPI.INT);
+            } catch (MPIException e) {
+                e.printStackTrace();
+                throw new Error("[CollectiveRelocator] MPIException");
+            }
+
+            final boolean[] recvFramed = new boolean[numPlaces];
+            int total = 0;
+            for (int i = 0; i < recvCounts.length; i++) {
+                recvFramed[i] = PayloadCompression.framed(recvCounts[i]);
+                recvCounts[i] = PayloadCompression.size(recvCounts[i]);
+                recvDispls[i] = total;
+                total += recvCounts[i];
+            }
+            byte[] rbuf = new byte[total];
+            try {
+                if (hierarchy == null) {
+                    pg.comm.Allgatherv(buf, 0, size, MPI.BYTE, rbuf, 0, recvCounts, recvDispls, MPI.BYTE);
+                } else {
+                    rbuf = hierarchy.allgatherv(buf, size, recvCounts);
+                }
+            } catch (MPIException e) {
+                e.printStackTrace();
+                throw new Error("[CollectiveRelocator] MPIException");
+            }
+            long t2 = record ? System.nanoTime() : 0;
+
+            for (int i = 0; i < recvCounts.length; i++) {
+                if (Constructs.here().equals(pg.get(i)))
+                    continue;
                 try {
-                    deser.accept(in, pg.get(i));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw new Error("[CollectiveRelocator] DeSerialize error handled.");
+                    ObjectInputStream in = new ObjectInputStream(
+                            PayloadCompression.decode(rbuf, recvDispls[i], recvCounts[i], recvFramed[i]));
+                    try {
+                        deser.accept(in, pg.get(i));
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        throw new Error("[CollectiveRelocator] DeSerialize error handled.");
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("This should not occur.");
                 }
-            } catch (IOException e) {
-                throw new RuntimeException("This should not occur.");
             }
+            if (record) {
+                recordGather(pg, t0, t1, t2, recvCounts, true);
+            }
+        } finally {
+            Tracer.end("allgatherSer");
         }
     }
 
     public static void gatherSer(TeamedPlaceGroup pg, Place root, Serializer ser, DeSerializerUsingPlace deser) {
-        int numPlaces = pg.size();
-        ByteArrayOutputStream out0 = new ByteArrayOutputStream();
+        Tracer.begin("gatherSer");
         try {
-            ObjectOutputStream out = new ObjectOutputStream(out0);
-            ser.accept(out);
-            out.close();
-        } catch (IOException exp) {
-            throw new Error("This should not occur!.");
-        }
-        byte[] buf = out0.toByteArray();
-        int size = buf.length;
-        int[] tmpCounts = new int[1];
-        tmpCounts[0] = size;
-        int[] recvCounts = new int[numPlaces];
-        int[] recvDispls = new int[numPlaces];
-        try {
-            pg.comm.Gather(tmpCounts, 0, 1, MPI.INT, recvCounts, 0, 1, MPI.INT, pg.rank(root));
-        } catch (MPIException e) {
-            e.printStackTrace();
-            throw new Error("[CollectiveRelocator] MPIException");
-        }
+            int numPlaces = pg.size();
+            final NodeHierarchy hierarchy = hierarchy(pg);
+            final boolean record = RelocationMetrics.enabled;
+            long t0 = record ? System.nanoTime() : 0;
+            ByteArrayOutputStream out0 = new ByteArrayOutputStream();
+            try {
+                ObjectOutputStream out = new ObjectOutputStream(out0);
+                ser.accept(out);
+                out.close();
+            } catch (IOException exp) {
+                throw new Error("This should not occur!.");
+            }
+            final PayloadCodec codec = PayloadCompression.getCodec();
+            byte[] buf = PayloadCompression.encode(codec, out0.toByteArray());
+            long t1 = record ? System.nanoTime() : 0;
+            int size = buf.length;
+            int[] tmpCounts = new int[1];
+            tmpCounts[0] = PayloadCompression.wireSize(size, codec != null);
+            int[] recvCounts = new int[numPlaces];
+            int[] recvDispls = new int[numPlaces];
+            try {
+                if (hierarchy == null) {
+                    pg.comm.Gather(tmpCounts, 0, 1, MPI.INT, recvCounts, 0, 1, MPI.INT, pg.rank(root));
+                } else {
+                    // Every leader needs the sizes of all the places
+                    pg.comm.Allgather(tmpCounts, 0, 1, MPI.INT, recvCounts, 0, 1, MPI.INT);
+                }
+            } catch (MPIException e) {
+                e.printStackTrace();
+                throw new Error("[CollectiveRelocator] MPIException");
+            }
 
-        int total = 0;
-        for (int i = 0; i < recvCounts.length; i++) {
-            recvDispls[i] = total;
-            total += recvCounts[i];
-        }
-        byte[] rbuf = Constructs.here().equals(root) ? new byte[total] : null;
-        try {
-            pg.comm.Gatherv(buf, 0, size, MPI.BYTE, rbuf, 0, recvCounts, recvDispls, MPI.BYTE, pg.rank(root));
-        } catch (MPIException e) {
-            e.printStackTrace();
-            throw new Error("[CollectiveRelocator] MPIException");
+            final boolean[] recvFramed = new boolean[numPlaces];
+            int total = 0;
+            for (int i = 0; i < recvCounts.length; i++) {
+                recvFramed[i] = PayloadCompression.framed(recvCounts[i]);
+                recvCounts[i] = PayloadCompression.size(recvCounts[i]);
+                recvDispls[i] = total;
+                total += recvCounts[i];
+            }
+            byte[] rbuf = Constructs.here().equals(root) ? new byte[total] : null;
+            try {
+                if (hierarchy == null) {
+                    pg.comm.Gatherv(buf, 0, size, MPI.BYTE, rbuf, 0, recvCounts, recvDispls, MPI.BYTE, pg.rank(root));
+                } else {
+                    rbuf = hierarchy.gatherv(buf, size, recvCounts, pg.rank(root));
+                }
+            } catch (MPIException e) {
+                e.printStackTrace();
+                throw new Error("[CollectiveRelocator] MPIException");
+            }
+            long t2 = record ? System.nanoTime() : 0;
+
+            if (!Constructs.here().equals(root)) {
+                if (record) {
+                    RelocationMetrics metrics = pg.metrics();
+                    metrics.addSerializationTime(t1 - t0);
+                    metrics.addCollectiveWaitTime(t2 - t1);
+                    metrics.addSent(pg.rank(root), size);
+                }
+                return;
+            }
+            for (int i = 0; i < recvCounts.length; i++) {
+                if (Constructs.here().equals(pg.get(i)))
+                    continue;
+                try {
+                    ObjectInputStream in = new ObjectInputStream(
+                            PayloadCompression.decode(rbuf, recvDispls[i], recvCounts[i], recvFramed[i]));
+                    try {
+                        deser.accept(in, pg.get(i));
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        throw new Error("[CollectiveRelocator] DeSerialize error raised.");
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("This should not occur.");
+                }
+            }
+            if (record) {
+                recordGather(pg, t0, t1, t2, recvCounts, false);
+            }
+        } finally {
+            Tracer.end("gatherSer");
         }
+    }
 
-        if (!Constructs.here().equals(root))
-            return;
-        for (int i = 0; i < recvCounts.length; i++) {
-            if (Constructs.here().equals(pg.get(i)))
-                continue;
-            ByteArrayInputStream in0 = new ByteArrayInputStream(rbuf, recvDispls[i], recvCounts[i]);
-            try {
-                ObjectInputStream in = new ObjectInputStream(in0);
+    public static void bcastSer(TeamedPlaceGroup pg, Place root, Serializer ser, DeSerializer des) throws MPIException {
+        final boolean record = RelocationMetrics.enabled;
+        Tracer.begin("bcastSer");
+        try {
+            final NodeHierarchy hierarchy = hierarchy(pg);
+            int[] tmpBuf = new int[1];
+            if (Constructs.here().equals(root)) {
+                try {
+                    long t0 = record ? System.nanoTime() : 0;
+                    ByteArrayOutputStream out0 = new ByteArrayOutputStream();
+                    ObjectOutputStream out = new ObjectOutputStream(out0);
+                    ser.accept(out);
+                    out.close();
+                    final PayloadCodec codec = PayloadCompression.getCodec();
+                    byte[] buf = PayloadCompression.encode(codec, out0.toByteArray());
+                    long t1 = record ? System.nanoTime() : 0;
+                    tmpBuf[0] = PayloadCompression.wireSize(buf.length, codec != null);
+                    pg.comm.Bcast(tmpBuf, 0, 1, MPI.INT, pg.rank(root));
+                    bcast(pg, hierarchy, buf, root);
+                    if (record) {
+                        RelocationMetrics metrics = pg.metrics();
+                        metrics.addSerializationTime(t1 - t0);
+                        metrics.addCollectiveWaitTime(System.nanoTime() - t1);
+                        for (int i = 0; i < pg.size(); i++) {
+                            if (i != pg.myrank()) {
+                                metrics.addSent(i, buf.length);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    throw new Error("[CollectiveRelocator] Serialize error raised.");
+                }
+            } else {
+                long t0 = record ? System.nanoTime() : 0;
+                pg.comm.Bcast(tmpBuf, 0, 1, MPI.INT, pg.rank(root));
+                byte[] buf = new byte[PayloadCompression.size(tmpBuf[0])];
+                bcast(pg, hierarchy, buf, root);
+                long t1 = record ? System.nanoTime() : 0;
                 try {
-                    deser.accept(in, pg.get(i));
+                    des.accept(new ObjectInputStream(
+                            PayloadCompression.decode(buf, 0, buf.length, PayloadCompression.framed(tmpBuf[0]))));
                 } catch (Exception e) {
                     e.printStackTrace();
                     throw new Error("[CollectiveRelocator] DeSerialize error raised.");
                 }
-            } catch (IOException e) {
-                throw new RuntimeException("This should not occur.");
+                if (record) {
+                    RelocationMetrics metrics = pg.metrics();
+                    metrics.addCollectiveWaitTime(t1 - t0);
+                    metrics.addDeserializationTime(System.nanoTime() - t1);
+                    metrics.addReceived(pg.rank(root), buf.length);
+                }
             }
+        } finally {
+            Tracer.end("bcastSer");
         }
     }
 
-    public static void bcastSer(TeamedPlaceGroup pg, Place root, Serializer ser, DeSerializer des) throws MPIException {
-        int[] tmpBuf = new int[1];
-        if (Constructs.here().equals(root)) {
-            try {
-                ByteArrayOutputStream out0 = new ByteArrayOutputStream();
-                ObjectOutputStream out = new ObjectOutputStream(out0);
-                ser.accept(out);
-                out.close();
-                tmpBuf[0] = out0.size();
-                pg.comm.Bcast(tmpBuf, 0, 1, MPI.INT, pg.rank(root));
-                pg.comm.Bcast(out0.toByteArray(), 0, out0.size(), MPI.BYTE, pg.rank(root));
-            } catch (IOException e) {
-                e.printStackTrace();
-                throw new Error("[CollectiveRelocator] Serialize error raised.");
-            }
-        } else {
-            pg.comm.Bcast(tmpBuf, 0, 1, MPI.INT, pg.rank(root));
-            byte[] buf = new byte[tmpBuf[0]];
+    private static void bcast(TeamedPlaceGroup pg, NodeHierarchy hierarchy, byte[] buf, Place root)
+            throws MPIException {
+        if (hierarchy == null) {
             pg.comm.Bcast(buf, 0, buf.length, MPI.BYTE, pg.rank(root));
-            try {
-                des.accept(new ObjectInputStream(new ByteArrayInputStream(buf)));
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new Error("[CollectiveRelocator] DeSerialize error raised.");
+        } else {
+            hierarchy.bcast(buf, buf.length, pg.rank(root));
+        }
+    }
+
+    /**
+     * Records the metrics of a gather operation at a place which received the
+     * contributions of the other places.
+     */
+    private static void recordGather(TeamedPlaceGroup pg, long t0, long t1, long t2, int[] recvCounts,
+            boolean sentToAll) {
+        RelocationMetrics metrics = pg.metrics();
+        metrics.addSerializationTime(t1 - t0);
+        metrics.addCollectiveWaitTime(t2 - t1);
+        metrics.addDeserializationTime(System.nanoTime() - t2);
+        int me = pg.myrank();
+        for (int i = 0; i < recvCounts.length; i++) {
+            if (i == me) {
+                continue;
+            }
+            metrics.addReceived(i, recvCounts[i]);
+            if (sentToAll) {
+                metrics.addSent(i, recvCounts[me]);
             }
         }
     }
 }
-
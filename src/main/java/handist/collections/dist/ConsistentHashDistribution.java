@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import apgas.Place;
+
+/**
+ * Distribution assigning indices to places by consistent hashing. Each place
+ * is given a number of virtual nodes on a hash ring, and an index is assigned
+ * to the place owning the first virtual node following the hash of the index
+ * on the ring. The position of the virtual nodes only depends on the
+ * identifier of their place, so that adding or removing a place only
+ * reassigns the indices of the neighboring virtual nodes.
+ * <p>
+ * As hashing does not preserve the contiguity of indices,
+ * {@link #placeRanges(handist.collections.LongRange)} computes the place of
+ * each index of the range and merges consecutive indices assigned to the same
+ * place.
+ */
+public class ConsistentHashDistribution implements LongRangeDistribution, Serializable {
+
+    private static final long serialVersionUID = 8146231509787463021L;
+
+    /** Number of virtual nodes per place used by default */
+    public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    /**
+     * Mixing function of SplitMix64, used to spread indices and virtual nodes
+     * uniformly over the ring.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Positions of the virtual nodes on the ring, sorted */
+    private final long[] ring;
+    /** Place owning the virtual node at the same position in {@link #ring} */
+    private final Place[] owners;
+
+    /**
+     * Creates a consistent hash distribution over the places of the given
+     * group with {@value #DEFAULT_VIRTUAL_NODES} virtual nodes per place.
+     *
+     * @param pg the group among which the indices are distributed
+     */
+    public ConsistentHashDistribution(TeamedPlaceGroup pg) {
+        this(pg.places(), DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a consistent hash distribution over the given places.
+     *
+     * @param places       the places among which the indices are distributed
+     * @param virtualNodes number of virtual nodes of each place on the ring
+     */
+    public ConsistentHashDistribution(List<Place> places, int virtualNodes) {
+        final Place[] p = BlockDistribution.toArray(places);
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException(
+                    "[ConsistentHashDistribution] number of virtual nodes must be positive: " + virtualNodes);
+        }
+        final int n = p.length * virtualNodes;
+        final long[][] nodes = new long[n][];
+        for (int i = 0; i < p.length; i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                final long position = mix(((long) p[i].id << 32) ^ mix(v));
+                nodes[i * virtualNodes + v] = new long[] { position, i };
+            }
+        }
+        // Ties are broken with the place identifier so that the ring does not
+        // depend on the order of the given places
+        Arrays.sort(nodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : Integer.compare(p[(int) a[1]].id, p[(int) b[1]].id));
+        ring = new long[n];
+        owners = new Place[n];
+        for (int i = 0; i < n; i++) {
+            ring[i] = nodes[i][0];
+            owners[i] = p[(int) nodes[i][1]];
+        }
+    }
+
+    @Override
+    public Place place(long index) {
+        int i = Arrays.binarySearch(ring, mix(index));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == ring.length ? 0 : i];
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashDistribution[" + ring.length + " virtual nodes]";
+    }
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.util.List;
+
+import apgas.Place;
+
+/**
+ * Distribution assigning index i to the place at position i modulo the
+ * number of places in the given list of places. This is a
+ * {@link BlockCyclicDistribution} whose blocks contain a single index.
+ */
+public class CyclicDistribution extends BlockCyclicDistribution {
+
+    private static final long serialVersionUID = -1260331993960254806L;
+
+    /**
+     * Creates a cyclic distribution over the places of the given group, in
+     * rank order.
+     *
+     * @param pg the group among which the indices are distributed
+     */
+    public CyclicDistribution(TeamedPlaceGroup pg) {
+        super(1, pg);
+    }
+
+    /**
+     * Creates a cyclic distribution over the given places.
+     *
+     * @param places the places among which the indices are distributed
+     */
+    public CyclicDistribution(List<Place> places) {
+        super(1, places);
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link PayloadCodec} relying on the {@link Deflater} of the JDK.
+ */
+final class DeflateCodec implements PayloadCodec {
+
+    private final int level;
+
+    DeflateCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte id() {
+        return 1;
+    }
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(src, offset, length);
+            deflater.finish();
+            byte[] dst = new byte[Math.max(64, length / 2)];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == dst.length) {
+                    dst = Arrays.copyOf(dst, dst.length * 2);
+                }
+                size += deflater.deflate(dst, size, dst.length - size);
+            }
+            return Arrays.copyOf(dst, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int offset, int length, int originalLength) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            // An extra byte is needed by the inflater in "nowrap" mode
+            final byte[] input = Arrays.copyOfRange(src, offset, offset + length + 1);
+            inflater.setInput(input);
+            final byte[] dst = new byte[originalLength];
+            int size = 0;
+            while (size < originalLength) {
+                final int n = inflater.inflate(dst, size, originalLength - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != originalLength) {
+                throw new IOException("[DeflateCodec] corrupted payload");
+            }
+            return dst;
+        } catch (final DataFormatException e) {
+            throw new IOException("[DeflateCodec] corrupted payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "deflate";
+    }
+}
@@ -19,7 +19,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import apgas.Constructs;
 import apgas.Place;
@@ -188,6 +190,49 @@ public class DistBag<T> extends AbstractDistCollection /* implements Container[T
     }
 
 
+    /**
+     * Groups the values computed from the elements of all places by key into a
+     * new {@link DistMapList}, exchanging them as described in
+     * {@link GroupBy}. This method is collective: it must be called at every
+     * place of the group.
+     *
+     * @param <K>   type of the keys
+     * @param <V>   type of the values
+     * @param key   function computing the key of an element
+     * @param value function computing the value of an element
+     * @param dist  the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMapList}
+     */
+    public <K, V> DistMapList<K, V> groupBy(Function<? super T, K> key, Function<? super T, V> value,
+            Distribution<K> dist) {
+        return GroupBy.groupBy(placeGroup, (BiConsumer<K, V> out) -> {
+            data.forEach((T t) -> out.accept(key.apply(t), value.apply(t)));
+        }, dist);
+    }
+
+    /**
+     * Aggregates the values computed from the elements of all places by key
+     * into a new {@link DistMap}, combining and exchanging them as described
+     * in {@link GroupBy}. This method is collective: it must be called at
+     * every place of the group.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values
+     * @param key      function computing the key of an element
+     * @param value    function computing the value of an element
+     * @param combiner associative function combining two values of a key
+     * @param dist     the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMap}
+     * @throws NullPointerException if a computed value or a result of
+     *                              {@code combiner} is {@code null}
+     */
+    public <K, V> DistMap<K, V> aggregateByKey(Function<? super T, K> key, Function<? super T, V> value,
+            BinaryOperator<V> combiner, Distribution<K> dist) {
+        return GroupBy.aggregateByKey(placeGroup, (BiConsumer<K, V> out) -> {
+            data.forEach((T t) -> out.accept(key.apply(t), value.apply(t)));
+        }, combiner, dist);
+    }
+
     /**
      * gather all place-local elements to the root Place.
      *
@@ -240,7 +285,7 @@ public class DistBag<T> extends AbstractDistCollection /* implements Container[T
             Collection<T> imported = (Collection<T>) ds.readObject();
             collection.addAll(imported);
         };
-        mm.request(pl, serialize, deserialize);
+        mm.request(pl, serialize, deserialize, count);
     }
 
     protected void moveAtSyncCount(final ArrayList<ILPair> moveList, final MoveManagerLocal mm) throws Exception {
@@ -18,23 +18,30 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 import apgas.Place;
 import apgas.util.GlobalID;
+import handist.collections.ChunkSpiller;
+import handist.collections.ChunkedFuture;
 import handist.collections.ChunkedList;
+import handist.collections.LazyChunkedList;
 import handist.collections.LongRange;
 import handist.collections.MultiReceiver;
 import handist.collections.RangedList;
+import handist.collections.RangedListView;
 import handist.collections.function.LongTBiConsumer;
 
 /**
@@ -55,6 +62,8 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
 
     transient DistManager.Range ldist;
     public transient ChunkedList<T> data;
+    /** Copies of the neighbouring elements, see {@link #setHaloWidth(long)} */
+    transient Halo<T> halo;
 
     public Object writeReplace() throws ObjectStreamException {
         final TeamedPlaceGroup pg1 = placeGroup;
@@ -175,6 +184,19 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
         data.addChunk(c);
     }
 
+    /**
+     * Lets the provided {@link ChunkSpiller} manage the local chunks of this
+     * collection. Chunks received from other places during a relocation are
+     * managed by the spiller as well. The spiller is local to this place: each
+     * place that needs to spill its chunks should call this method with its own
+     * instance.
+     *
+     * @param spiller the spiller managing the local chunks
+     */
+    public void spillWith(final ChunkSpiller spiller) {
+        data.spillWith(spiller);
+    }
+
     private void putForMove(final RangedList<T> c, final byte mType) throws Exception {
         final LongRange key = c.getRange();
         switch (mType) {
@@ -387,7 +409,11 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
                 toBranch.putForMove(c, keyType);
             }
         };
-        mm.request(dest, serialize, deserialize);
+        long numElements = 0;
+        for (final RangedList<T> c : cs) {
+            numElements += c.longSize();
+        }
+        mm.request(dest, serialize, deserialize, numElements);
     }
 
     static class Pair<F, S> {
@@ -401,14 +427,10 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
     }
 
     protected void moveAtSyncCount(final ArrayList<ILPair> moveList, final MoveManagerLocal mm) throws Exception {
-        // TODO ->LinkedList? sort??
-        final ArrayList<LongRange> localKeys = new ArrayList<>();
-        localKeys.addAll(ranges());
-        localKeys.sort((LongRange range1, LongRange range2) -> {
-            long len1 = range1.to - range1.from;
-            long len2 = range2.to - range2.from;
-            return (int) (len1 - len2);
-        });
+        // The ranges of adjacent chunks are merged so that each of them is
+        // handled by a single call to moveAtSync, shortest ranges first
+        final ArrayList<LongRange> localKeys = new ArrayList<>(data.rangeSet().ranges());
+        localKeys.sort((LongRange range1, LongRange range2) -> Long.compare(range1.size(), range2.size()));
         if (_debug_level > 5) {
             System.out.print("[" + here() + "] ");
             for (int i = 0; i < localKeys.size(); i++) {
@@ -416,6 +438,7 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
             }
             System.out.println();
         }
+        int next = 0;
         for (final ILPair moveinfo : moveList) {
             final long count = moveinfo.second;
             final Place dest = placeGroup.get(moveinfo.first);
@@ -426,15 +449,16 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
                 continue;
             long sizeToSend = count;
             while (sizeToSend > 0) {
-                final LongRange lk = localKeys.remove(0);
+                final LongRange lk = localKeys.get(next);
                 final long len = lk.to - lk.from;
                 if (len > sizeToSend) {
                     moveAtSync(new LongRange(lk.from, lk.from + sizeToSend), dest, mm);
-                    localKeys.add(0, new LongRange(lk.from + sizeToSend, lk.to));
+                    localKeys.set(next, new LongRange(lk.from + sizeToSend, lk.to));
                     break;
                 } else {
                     moveAtSync(lk, dest, mm);
                     sizeToSend -= len;
+                    next++;
                 }
             }
         }
@@ -480,20 +504,167 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
         return data.set(i, value);
     }
 
+    /**
+     * Consecutive ranges of indices of a chunk and their destination, in
+     * increasing order of indices. Adjacent ranges with the same destination
+     * are merged.
+     */
+    private static final class Runs {
+        long[] starts = new long[16];
+        final ArrayList<Place> places = new ArrayList<>();
+        int size = 0;
+
+        void add(long from, Place p) {
+            if (size > 0 && places.get(size - 1).equals(p)) {
+                return;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+            starts[size++] = from;
+            places.add(p);
+        }
+
+        void clear() {
+            size = 0;
+            places.clear();
+        }
+    }
+
+    /**
+     * Splits the given local chunk into the given runs and adds the pieces
+     * held by other places to {@code chunksToMove}. The chunk is only split
+     * if its elements have several destinations.
+     */
+    private void splitForMove(final RangedList<T> c, final Runs runs, final Place here,
+            final Map<Place, List<RangedList<T>>> chunksToMove) throws Exception {
+        if (runs.size == 0) {
+            // Empty chunk, kept at the current place
+            return;
+        }
+        if (runs.size == 1) {
+            final Place p = runs.places.get(0);
+            if (!p.equals(here)) {
+                chunksToMove.computeIfAbsent(p, k -> new ArrayList<>()).add(c);
+            }
+            return;
+        }
+        final long end = c.getRange().to;
+        removeChunk(c);
+        for (int run = 0; run < runs.size; run++) {
+            final long to = (run + 1 < runs.size) ? runs.starts[run + 1] : end;
+            final RangedList<T> piece = new RangedListView<>(c, new LongRange(runs.starts[run], to));
+            addChunk(piece);
+            final Place p = runs.places.get(run);
+            if (!p.equals(here)) {
+                chunksToMove.computeIfAbsent(p, k -> new ArrayList<>()).add(piece);
+            }
+        }
+    }
+
+    /**
+     * Relocates the local elements according to the given distribution when
+     * {@link MoveManagerLocal#sync()} is called. The ranges returned by the
+     * distribution for each local chunk are relocated as a whole, with one
+     * request per destination. Indices of a chunk not covered by the ranges
+     * returned by the distribution stay at the current place.
+     *
+     * @param dist the distribution giving the destination of ranges of indices
+     * @param mm   the move manager handling the relocation
+     * @throws Exception if raised while registering the relocation
+     */
     public void moveAtSync(final RangedDistribution<LongRange> dist, final MoveManagerLocal mm) throws Exception {
-        moveAtSync((LongRange range) -> {
-            return dist.placeRanges(range);
-        }, mm);
+        final Place here = here();
+        final HashMap<Place, List<RangedList<T>>> chunksToMove = new HashMap<>();
+        final ArrayList<RangedList<T>> localChunks = new ArrayList<>(data.numChunks());
+        data.forEachChunk(localChunks::add);
+
+        final Runs runs = new Runs();
+        final ArrayList<Map.Entry<LongRange, Place>> pieces = new ArrayList<>();
+        for (final RangedList<T> c : localChunks) {
+            final LongRange r = c.getRange();
+            pieces.clear();
+            pieces.addAll(dist.placeRanges(r).entrySet());
+            pieces.sort(Map.Entry.comparingByKey());
+            runs.clear();
+            long cursor = r.from;
+            for (final Map.Entry<LongRange, Place> piece : pieces) {
+                final long from = Math.max(r.from, piece.getKey().from);
+                final long to = Math.min(r.to, piece.getKey().to);
+                if (to <= from || to <= cursor) {
+                    continue;
+                }
+                if (cursor < from) {
+                    runs.add(cursor, here);
+                }
+                runs.add(Math.max(cursor, from), piece.getValue());
+                cursor = to;
+            }
+            if (cursor < r.to) {
+                runs.add(cursor, here);
+            }
+            splitForMove(c, runs, here, chunksToMove);
+        }
+        for (final Map.Entry<Place, List<RangedList<T>>> entry : chunksToMove.entrySet()) {
+            moveAtSync(entry.getValue(), entry.getKey(), mm);
+        }
     }
 
+    /**
+     * Relocates the local elements according to the given distribution when
+     * {@link MoveManagerLocal#sync()} is called. Consecutive indices of a
+     * chunk that share the same destination are relocated as a single range:
+     * each chunk is split at most at the indices where the destination changes
+     * and the pieces are sent with one request per destination.
+     * <p>
+     * If the distribution is also a {@link RangedDistribution} of
+     * {@link LongRange}s, as every {@link LongRangeDistribution} is, the
+     * destinations are obtained per range with
+     * {@link #moveAtSync(RangedDistribution, MoveManagerLocal)}. Otherwise,
+     * the destination of each index is computed with
+     * {@link Distribution#place(Object)}.
+     *
+     * @param dist the distribution giving the destination of each index
+     * @param mm   the move manager handling the relocation
+     * @throws Exception if raised while registering the relocation
+     */
+    @SuppressWarnings("unchecked")
     public void moveAtSync(final Distribution<Long> dist, final MoveManagerLocal mm) throws Exception {
-        moveAtSync((LongRange range) -> {
-            ArrayList<Pair<Place, LongRange>> listPlaceRange = new ArrayList<>();
-            for (final Long key : range) {
-                listPlaceRange.add(new Pair<Place, LongRange>(dist.place(key), new LongRange(key, key + 1)));
+        if (dist instanceof RangedDistribution) {
+            moveAtSync((RangedDistribution<LongRange>) dist, mm);
+            return;
+        }
+        final Place here = here();
+        final HashMap<Place, List<RangedList<T>>> chunksToMove = new HashMap<>();
+        final ArrayList<RangedList<T>> localChunks = new ArrayList<>(data.numChunks());
+        data.forEachChunk(localChunks::add);
+
+        final Runs runs = new Runs();
+        for (final RangedList<T> c : localChunks) {
+            final LongRange r = c.getRange();
+            runs.clear();
+            for (long i = r.from; i < r.to; i++) {
+                runs.add(i, dist.place(i));
             }
-            return listPlaceRange;
-        }, mm);
+            splitForMove(c, runs, here, chunksToMove);
+        }
+        for (final Map.Entry<Place, List<RangedList<T>>> entry : chunksToMove.entrySet()) {
+            moveAtSync(entry.getValue(), entry.getKey(), mm);
+        }
+    }
+
+    /**
+     * Relocates the local elements according to the given distribution when
+     * {@link MoveManagerLocal#sync()} is called. The ranges of indices of each
+     * chunk are obtained with {@link RangedDistribution#placeRanges(Object)},
+     * which avoids computing the destination of each index.
+     *
+     * @param dist the distribution giving the destination of the indices
+     * @param mm   the move manager handling the relocation
+     * @throws Exception if raised while registering the relocation
+     */
+    public void moveAtSync(final LongRangeDistribution dist, final MoveManagerLocal mm) throws Exception {
+        moveAtSync((RangedDistribution<LongRange>) dist, mm);
     }
 
     @Override
@@ -520,16 +691,150 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
     }
 
 
-    public Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, Consumer<? super T> action) {
+    /**
+     * Declares the width of the halo of this collection: the elements whose
+     * index lies within {@code width} of the ranges held by the current place
+     * but which are held by other places. Read-only copies of these elements
+     * are kept at the current place and updated by {@link #exchangeHalo()}.
+     * Any previous copies are discarded. The same width must be given at every
+     * place of the group.
+     *
+     * @param width the number of indices on each side of the local ranges
+     *              whose elements are copied, 0 to disable the halo
+     */
+    public void setHaloWidth(long width) {
+        halo = width == 0 ? null : new Halo<>(this, width);
+    }
+
+    /**
+     * Returns the width of the halo of this collection.
+     *
+     * @return the width given to {@link #setHaloWidth(long)}, 0 if none
+     */
+    public long getHaloWidth() {
+        return halo == null ? 0 : halo.width;
+    }
+
+    /**
+     * Updates the copies of the elements of the halo of every place in a
+     * single exchange. The places holding the elements of each halo are
+     * determined from the distribution of this collection, which must be up
+     * to date: call {@link #updateDist()} beforehand if chunks were added or
+     * relocated. This method is collective: it must be called at every place
+     * of the group.
+     *
+     * @throws Exception if raised during the exchange
+     */
+    public void exchangeHalo() throws Exception {
+        exchangeHalo(false);
+    }
+
+    /**
+     * Updates the copies of the elements of the halo of every place in a
+     * single exchange, optionally sending only the elements which changed.
+     * When {@code changedOnly} is true and the distribution did not change
+     * since the previous exchange, each place only sends the elements which
+     * are not {@link Object#equals(Object) equal} to those it sent the
+     * previous time. The elements sent are retained by reference and compared
+     * with {@link Object#equals(Object)}: an element modified in place is
+     * compared with itself and is thus never sent again. This option is meant
+     * for immutable elements replaced with {@link #set(long, Object)}. This
+     * method is collective: it must be called at every place of the group.
+     *
+     * @param changedOnly whether only the changed elements are sent
+     * @throws Exception if raised during the exchange
+     * @throws IllegalStateException if no halo was declared or if different
+     *                               widths were declared at the places of
+     *                               the group
+     * @see #exchangeHalo()
+     */
+    public void exchangeHalo(boolean changedOnly) throws Exception {
+        Halo.checkWidth(this);
+        if (halo == null) {
+            throw new IllegalStateException("[DistCol] no halo was declared with setHaloWidth");
+        }
+        halo.exchange(changedOnly);
+    }
+
+    /**
+     * Returns the read-only copies of the elements of the halo, as of the
+     * last call to {@link #exchangeHalo()}. The chunks must not be modified.
+     *
+     * @return the chunks of copies held by the current place
+     */
+    public Collection<RangedList<T>> haloChunks() {
+        if (halo == null) {
+            return Collections.emptyList();
+        }
+        final List<RangedList<T>> chunks = new ArrayList<>();
+        halo.ghosts.forEachChunk(chunks::add);
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * Returns the element at the given index, either held by the current
+     * place or copied in its halo.
+     *
+     * @param i the index of the element
+     * @return the element, or its copy as of the last exchange of the halo
+     * @throws IndexOutOfBoundsException if the index is neither held by the
+     *                                   current place nor in its halo
+     */
+    public T getWithHalo(long i) {
+        if (halo != null && !data.containsIndex(i)) {
+            return halo.ghosts.get(i);
+        }
+        return data.get(i);
+    }
+
+    /**
+     * Returns a lazy pipeline over the local elements, see
+     * {@link LazyChunkedList}.
+     *
+     * @return a lazy pipeline over the local elements
+     */
+    public LazyChunkedList<T> lazy() {
+        return data.lazy();
+    }
+
+    /**
+     * Applies the given action to the local elements with one task per chunk
+     * and returns without waiting for the tasks. Further stages can be chained
+     * on the returned future, see {@link ChunkedFuture}.
+     *
+     * @param pool   the executor running the tasks
+     * @param action the action to apply to the local elements
+     * @return a future completed once the action has been applied to every
+     *         local element
+     */
+    public ChunkedFuture<T> asyncForEach(ExecutorService pool, Consumer<? super T> action) {
+        return data.asyncForEach(pool, action);
+    }
+
+    /**
+     * Maps the local elements into a new {@link ChunkedList} with one task per
+     * chunk and returns without waiting for the tasks.
+     *
+     * @param <S>  type of the elements of the new list
+     * @param pool the executor running the tasks
+     * @param func the mapping function
+     * @return a future completed with the new list once every local element
+     *         has been mapped
+     */
+    public <S> ChunkedFuture<S> asyncMap(ExecutorService pool, Function<? super T, ? extends S> func) {
+        return data.asyncMap(pool, func);
+    }
+
+    public CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, Consumer<? super T> action) {
         return data.asyncForEach(pool, nthreads, action);
     }
 
-    public <U> Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads,
+    public <U> CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads,
             BiConsumer<? super T, Consumer<U>> action, MultiReceiver<U> toStore) {
         return data.asyncForEach(pool, nthreads, action, toStore);
     }
 
-    public Future<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, LongTBiConsumer<? super T> action) {
+    public CompletableFuture<ChunkedList<T>> asyncForEach(ExecutorService pool, int nthreads, LongTBiConsumer<? super T> action) {
         return data.asyncForEach(pool, nthreads, action);
     }
 
@@ -562,6 +867,178 @@ public class DistCol<T> extends AbstractDistCollection /* implements List[T], Ma
         data.forEach(action);
     }
 
+    /**
+     * Groups the values computed from the elements of all places by key into a
+     * new {@link DistMapList}, exchanging them as described in
+     * {@link GroupBy}. This method is collective: it must be called at every
+     * place of the group.
+     *
+     * @param <K>   type of the keys
+     * @param <V>   type of the values
+     * @param key   function computing the key of an element
+     * @param value function computing the value of an element
+     * @param dist  the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMapList}
+     */
+    public <K, V> DistMapList<K, V> groupBy(Function<? super T, K> key, Function<? super T, V> value,
+            Distribution<K> dist) {
+        return GroupBy.groupBy(placeGroup, (BiConsumer<K, V> out) -> {
+            forEach((T t) -> out.accept(key.apply(t), value.apply(t)));
+        }, dist);
+    }
+
+    /**
+     * Aggregates the values computed from the elements of all places by key
+     * into a new {@link DistMap}, combining and exchanging them as described
+     * in {@link GroupBy}. This method is collective: it must be called at
+     * every place of the group.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values
+     * @param key      function computing the key of an element
+     * @param value    function computing the value of an element
+     * @param combiner associative function combining two values of a key
+     * @param dist     the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMap}
+     * @throws NullPointerException if a computed value or a result of
+     *                              {@code combiner} is {@code null}
+     */
+    public <K, V> DistMap<K, V> aggregateByKey(Function<? super T, K> key, Function<? super T, V> value,
+            BinaryOperator<V> combiner, Distribution<K> dist) {
+        return GroupBy.aggregateByKey(placeGroup, (BiConsumer<K, V> out) -> {
+            forEach((T t) -> out.accept(key.apply(t), value.apply(t)));
+        }, combiner, dist);
+    }
+
+    /**
+     * Computes the inclusive prefix combination of the elements of all places
+     * in the order of their indices into a new {@link DistCol}: the element at
+     * index i of the result combines with {@code op} every element of this
+     * collection up to index i included. The result has chunks of the same
+     * ranges held by the same places as this collection. Only the totals of
+     * the chunks are exchanged between places. This method is collective: it
+     * must be called at every place of the group.
+     *
+     * @param op an associative operator
+     * @return the local handle of the new {@link DistCol}
+     */
+    public DistCol<T> scan(BinaryOperator<T> op) {
+        return DistScan.scan(this, null, op, false, null, 1);
+    }
+
+    /**
+     * Computes the inclusive prefix combination of the elements of all places
+     * as {@link #scan(BinaryOperator)}, the chunks of each place being split
+     * among {@code nthreads} tasks submitted to the given pool. This method is
+     * collective: it must be called at every place of the group.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the chunks are split
+     * @param op       an associative operator, called concurrently by several
+     *                 threads
+     * @return the local handle of the new {@link DistCol}
+     */
+    public DistCol<T> scan(ExecutorService pool, int nthreads, BinaryOperator<T> op) {
+        return DistScan.scan(this, null, op, false, pool, nthreads);
+    }
+
+    /**
+     * Computes the exclusive prefix combination of the elements of all places
+     * in the order of their indices into a new {@link DistCol}: the element at
+     * index i of the result combines every element of this collection at an
+     * index lower than i, and is {@code identity} for the lowest index. This
+     * method is collective: it must be called at every place of the group.
+     *
+     * @param identity the identity of {@code op}
+     * @param op       an associative operator
+     * @return the local handle of the new {@link DistCol}
+     * @see #scan(BinaryOperator)
+     */
+    public DistCol<T> exclusiveScan(T identity, BinaryOperator<T> op) {
+        return DistScan.scan(this, identity, op, true, null, 1);
+    }
+
+    /**
+     * Computes the exclusive prefix combination of the elements of all places
+     * as {@link #exclusiveScan(Object, BinaryOperator)}, the chunks of each
+     * place being split among {@code nthreads} tasks submitted to the given
+     * pool. This method is collective: it must be called at every place of
+     * the group.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the chunks are split
+     * @param identity the identity of {@code op}
+     * @param op       an associative operator, called concurrently by several
+     *                 threads
+     * @return the local handle of the new {@link DistCol}
+     */
+    public DistCol<T> exclusiveScan(ExecutorService pool, int nthreads, T identity, BinaryOperator<T> op) {
+        return DistScan.scan(this, identity, op, true, pool, nthreads);
+    }
+
+    /**
+     * Computes the inclusive prefix sums of the values of the elements of all
+     * places in the order of their indices. The local sums are computed on
+     * primitive arrays, and the totals of the chunks are exchanged without
+     * serialization. This method is collective: it must be called at every
+     * place of the group.
+     *
+     * @param value the function giving the value of an element
+     * @return the local handle of the new {@link DistCol} of sums
+     * @see #scan(BinaryOperator)
+     */
+    public DistCol<Long> scanLong(ToLongFunction<? super T> value) {
+        return DistScan.scanLong(this, value, false, null, 1);
+    }
+
+    /**
+     * Computes the inclusive prefix sums of the values of the elements of all
+     * places as {@link #scanLong(ToLongFunction)}, the chunks of each place
+     * being split among {@code nthreads} tasks submitted to the given pool.
+     * This method is collective: it must be called at every place of the
+     * group.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the chunks are split
+     * @param value    the function giving the value of an element, called
+     *                 concurrently by several threads
+     * @return the local handle of the new {@link DistCol} of sums
+     */
+    public DistCol<Long> scanLong(ExecutorService pool, int nthreads, ToLongFunction<? super T> value) {
+        return DistScan.scanLong(this, value, false, pool, nthreads);
+    }
+
+    /**
+     * Computes the exclusive prefix sums of the values of the elements of all
+     * places in the order of their indices, for instance the global offset of
+     * the data of each element. This method is collective: it must be called
+     * at every place of the group.
+     *
+     * @param value the function giving the value of an element
+     * @return the local handle of the new {@link DistCol} of sums
+     * @see #scanLong(ToLongFunction)
+     */
+    public DistCol<Long> exclusiveScanLong(ToLongFunction<? super T> value) {
+        return DistScan.scanLong(this, value, true, null, 1);
+    }
+
+    /**
+     * Computes the exclusive prefix sums of the values of the elements of all
+     * places as {@link #exclusiveScanLong(ToLongFunction)}, the chunks of each
+     * place being split among {@code nthreads} tasks submitted to the given
+     * pool. This method is collective: it must be called at every place of
+     * the group.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the chunks are split
+     * @param value    the function giving the value of an element, called
+     *                 concurrently by several threads
+     * @return the local handle of the new {@link DistCol} of sums
+     */
+    public DistCol<Long> exclusiveScanLong(ExecutorService pool, int nthreads, ToLongFunction<? super T> value) {
+        return DistScan.scanLong(this, value, true, pool, nthreads);
+    }
+
     public void forEachChunk(Consumer<RangedList<T>> op) {
         data.forEachChunk(op);
     }
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.Tracer;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Parallel loader populating the branches of a {@link DistCol} from a file.
+ * <p>
+ * The methods of this class are collective: they must be called at every
+ * place of the group of the collection, typically inside
+ * {@link TeamedPlaceGroup#broadcastFlat(apgas.SerializableJob)}, and every
+ * place must be able to open the file under the given name, for instance on
+ * a shared file system. The file is divided into as many contiguous byte
+ * ranges as there are places, and each place divides its range between
+ * {@code nthreads} tasks. Each task maps its portion of the file in memory,
+ * decodes the records with the given {@link RecordCodec} and builds chunks
+ * from them, which are added to the local handle of the collection. Record
+ * {@code i} of the file is put at index {@code i} of the collection, so that
+ * each place holds a contiguous range of indices. The distribution
+ * information of the collection is updated before the methods return.
+ * <p>
+ * Each portion of the file is mapped by windows of at most 256MB, each of
+ * which gives one chunk for the files made of records of fixed size.
+ */
+public final class DistColLoader {
+
+    /** Maximum number of bytes of the file mapped at once by each task */
+    static final int WINDOW_SIZE = 1 << 28;
+
+    private DistColLoader() {
+    }
+
+    /**
+     * Loads a file made of records of {@code recordSize} bytes each. A
+     * trailing partial record is ignored.
+     *
+     * @param <T>        type of the records
+     * @param col        the collection to populate
+     * @param file       the name of the file
+     * @param recordSize the number of bytes of each record
+     * @param codec      the codec decoding each record
+     * @param pool       the executor running the tasks
+     * @param nthreads   the number of tasks of each place
+     * @throws IOException if the file cannot be read
+     */
+    public static <T> void loadFixed(DistCol<T> col, String file, int recordSize, RecordCodec<T> codec,
+            ExecutorService pool, int nthreads) throws IOException {
+        if (recordSize <= 0 || recordSize > WINDOW_SIZE) {
+            throw new IllegalArgumentException("[DistColLoader] invalid record size: " + recordSize);
+        }
+        final TeamedPlaceGroup pg = col.placeGroup();
+        Tracer.begin("DistColLoader.load");
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            final long records = channel.size() / recordSize;
+            final long from = records * pg.myrank() / pg.size();
+            final long to = records * (pg.myrank() + 1) / pg.size();
+            final List<List<Chunk<T>>> chunks = runTasks(pool, nthreads, (int t) -> {
+                return decodeFixed(channel, from + (to - from) * t / nthreads,
+                        from + (to - from) * (t + 1) / nthreads, recordSize, codec, WINDOW_SIZE);
+            });
+            addChunks(col, chunks);
+        } finally {
+            Tracer.end("DistColLoader.load");
+        }
+        col.updateDist();
+    }
+
+    /**
+     * Loads a file made of records separated by the given delimiter, such as
+     * the lines of a text file. The delimiter of the last record may be
+     * omitted.
+     *
+     * @param <T>       type of the records
+     * @param col       the collection to populate
+     * @param file      the name of the file
+     * @param delimiter the byte terminating each record
+     * @param codec     the codec decoding each record
+     * @param pool      the executor running the tasks
+     * @param nthreads  the number of tasks of each place
+     * @throws IOException if the file cannot be read, or if a record is longer
+     *                     than 256MB
+     */
+    public static <T> void loadDelimited(DistCol<T> col, String file, byte delimiter, RecordCodec<T> codec,
+            ExecutorService pool, int nthreads) throws IOException {
+        final TeamedPlaceGroup pg = col.placeGroup();
+        Tracer.begin("DistColLoader.load");
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long from = size * pg.myrank() / pg.size();
+            final long to = size * (pg.myrank() + 1) / pg.size();
+            // Each task decodes the records whose first byte is in its portion
+            final List<List<Object>> records = runTasks(pool, nthreads, (int t) -> {
+                final long taskFrom = from + (to - from) * t / nthreads;
+                final long taskTo = from + (to - from) * (t + 1) / nthreads;
+                return decodeRecords(channel, size, recordStart(channel, size, taskFrom, delimiter), taskTo,
+                        delimiter, codec, WINDOW_SIZE);
+            });
+
+            // Index of the first record of this place
+            long count = 0;
+            for (final List<Object> r : records) {
+                count += r.size();
+            }
+            final long[] counts = new long[pg.size()];
+            try {
+                pg.comm.Allgather(new long[] { count }, 0, 1, MPI.LONG, counts, 0, 1, MPI.LONG);
+            } catch (final MPIException e) {
+                e.printStackTrace();
+                throw new Error("[DistColLoader] network error in loadDelimited()");
+            }
+            long index = 0;
+            for (int rank = 0; rank < pg.myrank(); rank++) {
+                index += counts[rank];
+            }
+            final List<List<Chunk<T>>> chunks = new ArrayList<>(records.size());
+            for (final List<Object> r : records) {
+                final List<Chunk<T>> c = new ArrayList<>(1);
+                if (!r.isEmpty()) {
+                    c.add(new Chunk<>(new LongRange(index, index + r.size()), r.toArray()));
+                    index += r.size();
+                }
+                chunks.add(c);
+            }
+            addChunks(col, chunks);
+        } finally {
+            Tracer.end("DistColLoader.load");
+        }
+        col.updateDist();
+    }
+
+    /**
+     * Returns the position of the first record starting at or after the given
+     * position, that is the position following the first delimiter found at
+     * or after {@code position - 1}.
+     */
+    static long recordStart(FileChannel channel, long size, long position, byte delimiter)
+            throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        long p = position - 1;
+        while (p < size) {
+            final int length = (int) Math.min(1 << 16, size - p);
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, p, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == delimiter) {
+                    return p + i + 1;
+                }
+            }
+            p += length;
+        }
+        return size;
+    }
+
+    /**
+     * Decodes the records of fixed size from index {@code from} to index
+     * {@code to}, mapping at most {@code windowSize} bytes at once. One chunk
+     * is returned per window.
+     */
+    static <T> List<Chunk<T>> decodeFixed(FileChannel channel, long from, long to, int recordSize,
+            RecordCodec<T> codec, int windowSize) throws IOException {
+        final List<Chunk<T>> result = new ArrayList<>();
+        final long recordsPerWindow = windowSize / recordSize;
+        for (long r = from; r < to; r += recordsPerWindow) {
+            final int n = (int) Math.min(recordsPerWindow, to - r);
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, r * recordSize,
+                    (long) n * recordSize);
+            final Object[] elements = new Object[n];
+            for (int i = 0; i < n; i++) {
+                elements[i] = codec.decode(buffer, i * recordSize, recordSize);
+            }
+            result.add(new Chunk<>(new LongRange(r, r + n), elements));
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the records starting between {@code start} and {@code end}, the
+     * last of which may extend beyond {@code end}, mapping at most
+     * {@code windowSize} bytes at once.
+     */
+    static <T> List<Object> decodeRecords(FileChannel channel, long size, long start, long end,
+            byte delimiter, RecordCodec<T> codec, int windowSize) throws IOException {
+        final List<Object> result = new ArrayList<>();
+        long position = start;
+        while (position < end && position < size) {
+            final int length = (int) Math.min(windowSize, size - position);
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int recordStart = 0;
+            int i = 0;
+            while (position + recordStart < end) {
+                while (i < length && buffer.get(i) != delimiter) {
+                    i++;
+                }
+                if (i == length && position + length < size) {
+                    // The record continues after the window
+                    break;
+                }
+                result.add(codec.decode(buffer, recordStart, i - recordStart));
+                recordStart = ++i;
+                if (recordStart >= length) {
+                    break;
+                }
+            }
+            if (recordStart == 0) {
+                throw new IOException("[DistColLoader] record longer than " + windowSize + " bytes at " + position);
+            }
+            position += recordStart;
+        }
+        return result;
+    }
+
+    /** Task of a loader */
+    @FunctionalInterface
+    private interface LoadTask<R> {
+        R run(int task) throws IOException;
+    }
+
+    private static <R> List<R> runTasks(ExecutorService pool, int nthreads, LoadTask<R> task) throws IOException {
+        final List<Future<R>> futures = new ArrayList<>(nthreads);
+        for (int t = 0; t < nthreads; t++) {
+            final int t0 = t;
+            futures.add(pool.submit(() -> {
+                Tracer.begin("DistColLoader.task");
+                try {
+                    return task.run(t0);
+                } finally {
+                    Tracer.end("DistColLoader.task");
+                }
+            }));
+        }
+        final List<R> results = new ArrayList<>(nthreads);
+        for (final Future<R> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                e.printStackTrace();
+                throw new RuntimeException("[DistColLoader] exception raised by worker threads.");
+            } catch (final InterruptedException e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistColLoader] exception raised by worker threads.");
+            }
+        }
+        return results;
+    }
+
+    private static <T> void addChunks(DistCol<T> col, List<List<Chunk<T>>> chunks) {
+        for (final List<Chunk<T>> list : chunks) {
+            for (final Chunk<T> c : list) {
+                try {
+                    col.addChunk(c);
+                } catch (final Exception e) {
+                    throw new RuntimeException("[DistColLoader] could not add chunk " + c.getRange(), e);
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -27,6 +28,12 @@ import apgas.util.GlobalID;
 
 /**
  * Distributed Map using {@link Long} as key and type <code>V</code> as value. 
+ * <p>
+ * When the map is {@linkplain #isConcurrent() concurrent}, each entry and the
+ * distribution information of its id are updated together while holding the
+ * lock of the {@link java.util.concurrent.ConcurrentHashMap} on that id, so
+ * that the distribution stays consistent with the local entries when several
+ * threads put and remove ids at the same time.
  * 
  *  @param <V> the type of the value mappings of this instance 
  */
@@ -46,8 +53,9 @@ public class DistIdMap<V> extends DistMap<Long, V>
     public Object writeReplace() throws ObjectStreamException {
         final TeamedPlaceGroup pg1 = placeGroup;
         final GlobalID id1 = id;
+            final boolean concurrent1 = isConcurrent();
             return new AbstractDistCollection.LazyObjectReference<DistIdMap<V>>(pg1, id1, ()-> {
-                return new DistIdMap<V>(pg1, id1);
+                return new DistIdMap<V>(pg1, id1, concurrent1);
         });
     }
 
@@ -66,19 +74,35 @@ public class DistIdMap<V> extends DistMap<Long, V>
      * @param placeGroup the PlaceGroup.
      */
     public DistIdMap(TeamedPlaceGroup placeGroup) {
-        super(placeGroup);
+        this(placeGroup, false);
+    }
+
+    /**
+     * Construct a DistIdMap whose local entries can be accessed concurrently
+     * by several threads if {@code concurrent} is {@code true}.
+     *
+     * @param placeGroup the PlaceGroup.
+     * @param concurrent whether the local entries are held by a
+     *                   {@link java.util.concurrent.ConcurrentHashMap}
+     */
+    public DistIdMap(TeamedPlaceGroup placeGroup, boolean concurrent) {
+        super(placeGroup, concurrent);
         //TODO
         this.ldist = new DistManager.Index();
-        ldist.setup(data.keySet());
+        ldist.setup(entries().keySet());
         locality = new float[placeGroup.size()];
         Arrays.fill(locality, 1.0f);
     }
 
     protected DistIdMap(TeamedPlaceGroup placeGroup, GlobalID id) {
-        super(placeGroup, id);
+        this(placeGroup, id, false);
+    }
+
+    protected DistIdMap(TeamedPlaceGroup placeGroup, GlobalID id, boolean concurrent) {
+        super(placeGroup, id, concurrent);
         //TODO
         this.ldist = new DistManager.Index();
-        ldist.setup(data.keySet());
+        ldist.setup(entries().keySet());
         locality = new float[placeGroup.size()];
         Arrays.fill(locality, 1.0f);
     }
@@ -100,7 +124,7 @@ public class DistIdMap<V> extends DistMap<Long, V>
      * @return the corresponding value of the specified id.
      */
     public V get(long id) {
-        return data.get(id);
+        return entries().get(id);
     }
 
     /*
@@ -109,12 +133,35 @@ public class DistIdMap<V> extends DistMap<Long, V>
      * @param id a Long type value.
      * @param value a value.
      */
+    @SuppressWarnings("unchecked")
     public V put(long id, V value) throws Exception {
-        if (data.containsKey(id)) {
-            return data.put(id, value);
+        if (isConcurrent()) {
+            Objects.requireNonNull(value);
+            final Object[] previous = new Object[1];
+            entries().compute(id, (Long key, V old) -> {
+                if (old == null) {
+                    addToDist(key);
+                }
+                previous[0] = old;
+                return value;
+            });
+            return (V) previous[0];
+        }
+        if (entries().containsKey(id)) {
+            return entries().put(id, value);
         }
         ldist.add(id);
-        return data.put(id, value);
+        return entries().put(id, value);
+    }
+
+    private void addToDist(long id) {
+        try {
+            ldist.add(id);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new RuntimeException("[DistIdMap] " + e.getMessage(), e);
+        }
     }
 
     private V putForMove(long key, byte mType, V value) throws Exception {
@@ -128,12 +175,11 @@ public class DistIdMap<V> extends DistMap<Long, V>
         default:
             throw new Exception("SystemError when calling putForMove " + key);
         }
-        return data.put(key, value);
+        return entries().put(key, value);
     }
 
     public boolean delete(long id) {
-        ldist.remove(id);
-        return super.delete(id);
+        return remove(id) != null;
     }
 
     /*
@@ -141,13 +187,23 @@ public class DistIdMap<V> extends DistMap<Long, V>
      *
      * @param id a Long type value.
      */
+    @SuppressWarnings("unchecked")
     public V remove(long id) {
+        if (isConcurrent()) {
+            final Object[] previous = new Object[1];
+            entries().compute(id, (Long key, V old) -> {
+                ldist.remove(key);
+                previous[0] = old;
+                return null;
+            });
+            return (V) previous[0];
+        }
         ldist.remove(id);
         return super.remove(id);
     }
 
     private V removeForMove(long id) {
-        return data.remove(id);
+        return entries().remove(id);
     }
 
     /*
@@ -190,11 +246,11 @@ public class DistIdMap<V> extends DistMap<Long, V>
     public void execAt(long id, SerializableConsumer<V> op) {
         Place place = getPlace(id);
         if (place.equals(here())) {
-            op.accept(data.get(id));
+            op.accept(entries().get(id));
             return;
         }
         asyncAt(place, ()->  {
-            op.accept(data.get(id));
+            op.accept(entries().get(id));
         });
     }
     @Override
@@ -224,7 +280,7 @@ public class DistIdMap<V> extends DistMap<Long, V>
             }
             toBranch.putForMove(k, mType, v);
         };
-        mm.request(dest, serialize, deserialize);
+        mm.request(dest, serialize, deserialize, 1);
     }
     
     @Override 
@@ -252,7 +308,7 @@ public class DistIdMap<V> extends DistMap<Long, V>
                 collection.putForMove(key, mType, value);
             }
         };
-        mm.request(dest, serialize, deserialize);
+        mm.request(dest, serialize, deserialize, keys.size());
     }
 
     @SuppressWarnings("unchecked")
@@ -266,7 +322,7 @@ public class DistIdMap<V> extends DistMap<Long, V>
             Object[] values = new Object[size];
 
             int i = 0;
-            for (Map.Entry<Long, V> entry: data.entrySet()) {
+            for (Map.Entry<Long, V> entry: entries().entrySet()) {
                 if (i == size) break;
                 keys[i] = entry.getKey();
                 values[i] = entry.getValue();
@@ -301,7 +357,7 @@ public class DistIdMap<V> extends DistMap<Long, V>
                 collection.putForMove(keys[j], mType, (V)values[j]);
             }
         };
-        mm.request(dest, serialize, deserialize);
+        mm.request(dest, serialize, deserialize, count);
     }
     @Override
     public void moveAtSync(Function<Long, Place> rule, MoveManagerLocal mm) {
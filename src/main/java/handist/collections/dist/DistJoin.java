@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import apgas.Place;
+import handist.collections.Tracer;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Distributed hash join of the entries of two {@link DistMap}s by key.
+ * <p>
+ * The methods of this class are collective: they must be called at every
+ * place of the group of the joined maps, typically inside
+ * {@link TeamedPlaceGroup#broadcastFlat(apgas.SerializableJob)}, and return at
+ * each place the local handle of the same new map.
+ * <p>
+ * The join proceeds in two steps. First, both maps are relocated according
+ * to the given {@link Distribution} so that the entries with the same key are
+ * held by the same place. The entries of both maps are moved in a single
+ * exchange, which is skipped altogether if every entry of both maps is
+ * already at the place given by the distribution. Note that the joined maps
+ * are relocated in place: a subsequent join of the same maps with the same
+ * distribution does not move any entry. Second, each place probes the keys of
+ * its larger local map against the hash table of its smaller local map with
+ * {@code nthreads} tasks and puts the results in the new map.
+ * <p>
+ * When the call is made in a closure sent to other places, the distribution
+ * and the join function are serialized along with the closure.
+ */
+public final class DistJoin {
+
+    private DistJoin() {
+    }
+
+    /**
+     * Returns the distribution assigning each key to a place of the group
+     * based on its hash code, used by the methods which do not take a
+     * distribution.
+     *
+     * @param <K> type of the keys
+     * @param pg  the group of places among which the keys are distributed
+     * @return a hash-based distribution of the keys
+     */
+    public static <K> Distribution<K> hashDistribution(TeamedPlaceGroup pg) {
+        return (K key) -> pg.get(Math.floorMod(key.hashCode(), pg.size()));
+    }
+
+    /**
+     * Joins two maps by key with a hash-based partitioning of the keys. See
+     * {@link #join(DistMap, DistMap, Distribution, BiFunction, ExecutorService, int)}.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values of the left map
+     * @param <W>      type of the values of the right map
+     * @param <R>      type of the values of the result
+     * @param left     the left map
+     * @param right    the right map
+     * @param func     function computing the value of the result from the
+     *                 values of a key present in both maps
+     * @param pool     the executor service running the probe tasks
+     * @param nthreads the number of probe tasks
+     * @return the local handle of the joined map
+     */
+    public static <K, V, W, R> DistMap<K, R> join(DistMap<K, V> left, DistMap<K, W> right, BiFunction<V, W, R> func,
+            ExecutorService pool, int nthreads) {
+        return join(left, right, hashDistribution(left.placeGroup()), func, pool, nthreads);
+    }
+
+    /**
+     * Joins two maps by key. The result contains an entry for each key present
+     * in both maps, whose value is computed by {@code func} from the values of
+     * the key in the left and right maps. Must be called at every place of the
+     * group of the maps.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values of the left map
+     * @param <W>      type of the values of the right map
+     * @param <R>      type of the values of the result
+     * @param left     the left map
+     * @param right    the right map, which must have the same group as
+     *                 {@code left}
+     * @param dist     the distribution according to which both maps are
+     *                 partitioned, and which the result follows
+     * @param func     function computing the value of the result from the
+     *                 values of a key present in both maps, called
+     *                 concurrently by several threads
+     * @param pool     the executor service running the probe tasks
+     * @param nthreads the number of probe tasks
+     * @return the local handle of the joined map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V, W, R> DistMap<K, R> join(DistMap<K, V> left, DistMap<K, W> right, Distribution<K> dist,
+            BiFunction<V, W, R> func, ExecutorService pool, int nthreads) {
+        final TeamedPlaceGroup pg = checkGroups(left, right);
+        final DistMap<K, R> result = new DistMap<>(pg, pg.shareNewId());
+        copartition(left, right, dist, pool, nthreads);
+        Tracer.begin("DistJoin.probe");
+        try {
+            final List<List<Object>> outputs = probe(left.entries(), right.entries(), pool, nthreads,
+                    (K key, V v, W w, List<Object> out) -> {
+                        out.add(key);
+                        out.add(func.apply(v, w));
+                    });
+            for (final List<Object> out : outputs) {
+                putPairs(out, (K key, Object value) -> result.data.put(key, (R) value));
+            }
+        } finally {
+            Tracer.end("DistJoin.probe");
+        }
+        return result;
+    }
+
+    /**
+     * Joins two multimaps by key. For each key present in both maps, the
+     * result maps the key to the results of {@code func} applied to every
+     * pair made of one value of the key in the left map and one value of the
+     * key in the right map. Must be called at every place of the group of the
+     * maps.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values of the left map
+     * @param <W>      type of the values of the right map
+     * @param <R>      type of the values of the result
+     * @param left     the left map
+     * @param right    the right map, which must have the same group as
+     *                 {@code left}
+     * @param dist     the distribution according to which both maps are
+     *                 partitioned, and which the result follows
+     * @param func     function computing a value of the result from a value of
+     *                 each map, called concurrently by several threads
+     * @param pool     the executor service running the probe tasks
+     * @param nthreads the number of probe tasks
+     * @return the local handle of the joined multimap
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V, W, R> DistMapList<K, R> joinLists(DistMapList<K, V> left, DistMapList<K, W> right,
+            Distribution<K> dist, BiFunction<V, W, R> func, ExecutorService pool, int nthreads) {
+        final TeamedPlaceGroup pg = checkGroups(left, right);
+        final DistMapList<K, R> result = new DistMapList<>(pg, pg.shareNewId());
+        copartition(left, right, dist, pool, nthreads);
+        Tracer.begin("DistJoin.probe");
+        try {
+            final List<List<Object>> outputs = probe(left.data, right.data, pool, nthreads,
+                    (K key, List<V> vs, List<W> ws, List<Object> out) -> {
+                        final List<R> values = new ArrayList<>(vs.size() * ws.size());
+                        for (final V v : vs) {
+                            for (final W w : ws) {
+                                values.add(func.apply(v, w));
+                            }
+                        }
+                        out.add(key);
+                        out.add(values);
+                    });
+            for (final List<Object> out : outputs) {
+                putPairs(out, (K key, Object values) -> result.data.put(key, (List<R>) values));
+            }
+        } finally {
+            Tracer.end("DistJoin.probe");
+        }
+        return result;
+    }
+
+    private static TeamedPlaceGroup checkGroups(DistMap<?, ?> left, DistMap<?, ?> right) {
+        if (left.placeGroup() != right.placeGroup()) {
+            throw new IllegalArgumentException("[DistJoin] the joined maps must belong to the same place group");
+        }
+        return left.placeGroup();
+    }
+
+    /**
+     * Relocates the entries of both maps according to the given distribution
+     * in a single exchange, unless every place already holds the entries the
+     * distribution assigns to it.
+     */
+    private static <K> void copartition(DistMap<K, ?> left, DistMap<K, ?> right, Distribution<K> dist,
+            ExecutorService pool, int nthreads) {
+        final TeamedPlaceGroup pg = left.placeGroup();
+        final Map<Place, List<K>> leftMoves;
+        final Map<Place, List<K>> rightMoves;
+        final int[] allPartitioned = new int[1];
+        Tracer.begin("DistJoin.partition");
+        try {
+            final Function<K, Place> rule = (K key) -> dist.place(key);
+            leftMoves = left.partitionKeys(pool, nthreads, rule);
+            rightMoves = right.partitionKeys(pool, nthreads, rule);
+            final int[] partitioned = { leftMoves.isEmpty() && rightMoves.isEmpty() ? 1 : 0 };
+            try {
+                pg.comm.Allreduce(partitioned, 0, allPartitioned, 0, 1, MPI.INT, MPI.MIN);
+            } catch (final MPIException e) {
+                e.printStackTrace();
+                throw new Error("[DistJoin] network error in join()");
+            }
+        } finally {
+            Tracer.end("DistJoin.partition");
+        }
+        if (allPartitioned[0] == 1) {
+            return;
+        }
+        Tracer.begin("DistJoin.shuffle");
+        try {
+            final MoveManagerLocal mm = new MoveManagerLocal(pg);
+            for (final Map.Entry<Place, List<K>> entry : leftMoves.entrySet()) {
+                left.moveAtSync(entry.getValue(), entry.getKey(), mm);
+            }
+            for (final Map.Entry<Place, List<K>> entry : rightMoves.entrySet()) {
+                right.moveAtSync(entry.getValue(), entry.getKey(), mm);
+            }
+            try {
+                mm.sync();
+            } catch (final Exception e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistJoin] exception raised during the shuffle.");
+            }
+        } finally {
+            Tracer.end("DistJoin.shuffle");
+        }
+    }
+
+    /** Action producing the result of the join of one key */
+    @FunctionalInterface
+    private interface Joiner<K, V, W> {
+        void join(K key, V v, W w, List<Object> out);
+    }
+
+    /**
+     * Probes the keys of the larger map against the smaller one in parallel.
+     * Each task returns the keys and results it produced, alternately.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V, W> List<List<Object>> probe(Map<K, V> left, Map<K, W> right,
+            ExecutorService pool, int nthreads, Joiner<K, V, W> joiner) {
+        final boolean probeLeft = left.size() >= right.size();
+        final Object[] keys = (probeLeft ? left : right).keySet().toArray();
+        final List<Future<List<Object>>> futures = new ArrayList<>(nthreads);
+        for (int t = 0; t < nthreads; t++) {
+            final int from = (int) ((long) keys.length * t / nthreads);
+            final int to = (int) ((long) keys.length * (t + 1) / nthreads);
+            futures.add(pool.submit(() -> {
+                final List<Object> out = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    final K key = (K) keys[i];
+                    if (probeLeft ? right.containsKey(key) : left.containsKey(key)) {
+                        joiner.join(key, left.get(key), right.get(key), out);
+                    }
+                }
+                return out;
+            }));
+        }
+        final List<List<Object>> outputs = new ArrayList<>(nthreads);
+        for (final Future<List<Object>> f : futures) {
+            try {
+                outputs.add(f.get());
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistJoin] exception raised by worker threads.");
+            }
+        }
+        return outputs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> void putPairs(List<Object> pairs, BiConsumer<K, Object> put) {
+        for (int i = 0; i < pairs.size(); i += 2) {
+            put.accept((K) pairs.get(i), pairs.get(i + 1));
+        }
+    }
+}
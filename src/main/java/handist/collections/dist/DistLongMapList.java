@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+
+import apgas.Place;
+import apgas.util.GlobalID;
+import handist.collections.CompactLongMultiMap;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Map from keys to lists of long values spread over multiple places. This
+ * class provides the same operations as a {@link DistMapList} whose values are
+ * {@link Long}s, but stores the local entries in a
+ * {@link CompactLongMultiMap}: values are appended to primitive arrays while
+ * the map is built, and {@link #freeze()} converts them into a compressed
+ * sparse row layout. No list and no boxed value is allocated for the local
+ * entries, which considerably reduces the memory used by large graphs.
+ *
+ * @param <K> type of the keys
+ */
+public class DistLongMapList<K> extends AbstractDistCollection {
+
+    private static int _debug_level = 0;
+
+    /** Local entries */
+    final CompactLongMultiMap<K> data = new CompactLongMultiMap<>();
+
+    @Override
+    public Object writeReplace() throws ObjectStreamException {
+        final TeamedPlaceGroup pg1 = placeGroup;
+        final GlobalID id1 = id;
+        return new AbstractDistCollection.LazyObjectReference<DistLongMapList<K>>(pg1, id1, () -> {
+            return new DistLongMapList<>(pg1, id1);
+        });
+    }
+
+    /**
+     * Construct a DistLongMapList.
+     */
+    public DistLongMapList() {
+        this(TeamedPlaceGroup.getWorld());
+    }
+
+    /**
+     * Construct a DistLongMapList with given argument.
+     *
+     * @param placeGroup PlaceGroup.
+     */
+    public DistLongMapList(TeamedPlaceGroup placeGroup) {
+        super(placeGroup);
+    }
+
+    /**
+     * Construct a DistLongMapList with given arguments.
+     *
+     * @param placeGroup PlaceGroup
+     * @param id         the global ID used to identify this instance
+     */
+    public DistLongMapList(TeamedPlaceGroup placeGroup, GlobalID id) {
+        super(placeGroup, id);
+    }
+
+    /**
+     * Remove the all local entries.
+     */
+    @Override
+    public void clear() {
+        data.clear();
+    }
+
+    /**
+     * Return the number of the local keys.
+     *
+     * @return the number of the local keys.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Return the number of the local values, all keys included.
+     *
+     * @return the number of the local values.
+     */
+    public long longSize() {
+        return data.longSize();
+    }
+
+    /**
+     * Puts a new value to the list of specified entry.
+     *
+     * @param key   the key of the entry
+     * @param value the new value to be added to the mappings of {@code key}.
+     */
+    public void put1(K key, long value) {
+        data.put1(key, value);
+    }
+
+    /**
+     * Returns a copy of the values of the specified key.
+     *
+     * @param key the key of the entry
+     * @return the values of the key, or {@code null} if the key is not
+     *         contained in the local entries
+     */
+    public long[] get(K key) {
+        return data.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return data.containsKey(key);
+    }
+
+    public Set<K> keySet() {
+        return data.keySet();
+    }
+
+    /**
+     * Converts the local entries into the compressed sparse row layout. This
+     * should be called once the entries are built, and after relocations to
+     * reclaim the space of the entries sent to other places.
+     */
+    public void freeze() {
+        data.freeze();
+    }
+
+    /**
+     * Apply the same operation onto the all local pairs of key and value.
+     *
+     * @param op the operation.
+     */
+    public void forEach1(ObjLongConsumer<? super K> op) {
+        data.forEach1(op);
+    }
+
+    /**
+     * Request that the specified entry is relocated when #sync is called.
+     *
+     * @param key the key of the relocated entry.
+     * @param pl  the destination place.
+     * @param mm  MoveManagerLocal
+     */
+    @SuppressWarnings("unchecked")
+    public void moveAtSync(K key, Place pl, MoveManagerLocal mm) {
+        if (pl.equals(here()))
+            return;
+        if (!containsKey(key))
+            throw new RuntimeException("DistLongMapList cannot move uncontained entry: " + key);
+        final DistLongMapList<K> toBranch = this;
+        Serializer serialize = (ObjectOutputStream s) -> {
+            s.writeObject(key);
+            s.writeObject(data.remove(key));
+        };
+        DeSerializer deserialize = (ObjectInputStream ds) -> {
+            K k = (K) ds.readObject();
+            long[] values = (long[]) ds.readObject();
+            if (values != null) {
+                toBranch.data.putAll(k, values);
+            }
+        };
+        mm.request(pl, serialize, deserialize, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void moveAtSync(Collection<K> keys, Place pl, MoveManagerLocal mm) {
+        if (pl.equals(here()))
+            return;
+        final DistLongMapList<K> toBranch = this;
+        Serializer serialize = (ObjectOutputStream s) -> {
+            final List<long[]> values = data.removeAll(keys);
+            // Keys absent or given twice have no values, they are not sent
+            int count = 0;
+            for (long[] v : values) {
+                if (v != null) {
+                    count++;
+                }
+            }
+            s.writeInt(count);
+            int i = 0;
+            for (K key : keys) {
+                final long[] v = values.get(i++);
+                if (v != null) {
+                    s.writeObject(key);
+                    s.writeObject(v);
+                }
+            }
+        };
+        DeSerializer deserialize = (ObjectInputStream ds) -> {
+            int size = ds.readInt();
+            for (int i = 0; i < size; i++) {
+                K key = (K) ds.readObject();
+                long[] values = (long[]) ds.readObject();
+                toBranch.data.putAll(key, values);
+            }
+        };
+        mm.request(pl, serialize, deserialize, keys.size());
+    }
+
+    public void moveAtSync(Function<K, Place> rule, MoveManagerLocal mm) {
+        HashMap<Place, List<K>> keysToMove = new HashMap<>();
+        for (K key : data.keySet()) {
+            keysToMove.computeIfAbsent(rule.apply(key), p -> new ArrayList<>()).add(key);
+        }
+        for (Map.Entry<Place, List<K>> entry : keysToMove.entrySet()) {
+            moveAtSync(entry.getValue(), entry.getKey(), mm);
+        }
+    }
+
+    public void moveAtSync(Distribution<K> dist, MoveManagerLocal mm) {
+        Function<K, Place> rule = (K key) -> dist.place(key);
+        moveAtSync(rule, mm);
+    }
+
+    public void relocate(Function<K, Place> rule, MoveManagerLocal mm) throws Exception {
+        moveAtSync(rule, mm);
+        mm.sync();
+    }
+
+    public void relocate(Function<K, Place> rule) throws Exception {
+        relocate(rule, new MoveManagerLocal(placeGroup));
+    }
+
+    public void moveAtSyncCount(int count, Place dest, MoveManagerLocal mm) {
+        if (count == 0)
+            return;
+        ArrayList<K> keys = new ArrayList<>(count);
+        for (K key : data.keySet()) {
+            if (keys.size() == count)
+                break;
+            keys.add(key);
+        }
+        moveAtSync(keys, dest, mm);
+    }
+
+    @Override
+    public void checkDistInfo(long[] result) {
+        TeamedPlaceGroup pg = this.placeGroup;
+        long[] sendbuf = new long[] { data.size() };
+        try {
+            pg.comm.Allgather(sendbuf, 0, 1, MPI.LONG, result, 0, 1, MPI.LONG);
+        } catch (MPIException e) {
+            e.printStackTrace();
+            throw new Error("[DistLongMapList] network error in balance()");
+        }
+    }
+
+    @Override
+    protected void moveAtSyncCount(final ArrayList<ILPair> moveList, final MoveManagerLocal mm) throws Exception {
+        for (ILPair pair : moveList) {
+            if (_debug_level > 5) {
+                System.out.println("MOVE src: " + here() + " dest: " + pair.first + " size: " + pair.second);
+            }
+            if (pair.second > Integer.MAX_VALUE)
+                throw new Error("One place cannot receive so much elements: " + pair.second);
+            moveAtSyncCount((int) pair.second, placeGroup.get(pair.first), mm);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[DistLongMapList " + id + " at " + here() + ": " + data + "]";
+    }
+}
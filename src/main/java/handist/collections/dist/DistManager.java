@@ -20,7 +20,17 @@ import java.util.Map;
 
 import apgas.Place;
 import handist.collections.LongRange;
+import handist.collections.Tracer;
 
+/**
+ * Distribution information of the keys of a distributed collection, along with
+ * the changes made locally since the last call to
+ * {@link #updateDist(TeamedPlaceGroup)}. The methods recording local changes
+ * are synchronized so that several threads can add, remove and relocate keys
+ * of a concurrent {@link DistIdMap} at the same time.
+ *
+ * @param <T> type of the keys
+ */
 public class DistManager<T> {
 
     public HashMap<T, Place> dist = new HashMap<>();
@@ -50,7 +60,7 @@ public class DistManager<T> {
         return (diff.get(key) & operation) != 0;
     }
 
-    public void clear() {
+    public synchronized void clear() {
         dist.clear();
         diff.clear();
     }
@@ -75,7 +85,7 @@ public class DistManager<T> {
         throw new SystemError(reason, msg);
     }
 
-    public void add(T key) throws Exception {
+    public synchronized void add(T key) throws Exception {
         if (distHasKey(key)) {
             if (distIsLocal(key)) {
                 if (diffHasKey(key)) {
@@ -106,7 +116,7 @@ public class DistManager<T> {
         }
     }
 
-    public void remove(T key) {
+    public synchronized void remove(T key) {
         if (distHasKey(key)) {
             if (distIsLocal(key)) {
                 if (diffHasKey(key)) {
@@ -134,7 +144,7 @@ public class DistManager<T> {
         }
     }
 
-    public byte moveOut(T key, Place dest) {
+    public synchronized byte moveOut(T key, Place dest) {
         if (distHasKey(key)) {
             // System.out.println(">>> distHasKey");
             if (distIsLocal(key)) {
@@ -177,7 +187,7 @@ public class DistManager<T> {
         return MOVE_NONE;
     }
 
-    public void moveInNew(T key) throws Exception {
+    public synchronized void moveInNew(T key) throws Exception {
         // System.out.println(">>> moveInNew " + key + " distHasKey: " + distHasKey(key)
         // + " diffHasKey: " + diffHasKey(key));
 
@@ -210,7 +220,7 @@ public class DistManager<T> {
         }
     }
 
-    public void moveInOld(T key) throws Exception {
+    public synchronized void moveInOld(T key) throws Exception {
         if (distHasKey(key)) {
             if (distIsLocal(key)) {
                 systemError("moveInOld", 406, key);
@@ -229,7 +239,7 @@ public class DistManager<T> {
         }
     }
 
-    void applyDiff(T key, int operation, Place from) throws Exception {
+    synchronized void applyDiff(T key, int operation, Place from) throws Exception {
         // System.out.println("[" + here.id + "] applyDiff " + key + " op: " + operation
         // + " from: " + from.id);
         if (importedDiffKeys.contains(key) || diff.containsKey(key)) {
@@ -258,20 +268,25 @@ public class DistManager<T> {
     
     @SuppressWarnings("unchecked")
     void updateDist(TeamedPlaceGroup pg) {
-        Serializer serProcess = (ObjectOutputStream ser) -> {
-            ser.writeObject(diff);
-        };
-        DeSerializerUsingPlace desProcess = (ObjectInputStream des, Place from) -> {
-            Map<T, Integer> importedDiff = (Map<T, Integer>) des.readObject();
-            for (Map.Entry<T, Integer> entry : importedDiff.entrySet()) {
-                T k = entry.getKey();
-                Integer v = entry.getValue();
-                applyDiff(k, v, from);
-            }
-        };
-        CollectiveRelocator.allgatherSer(pg, serProcess, desProcess);
-        importedDiffKeys.clear();
-        diff.clear();
+        Tracer.begin("updateDist");
+        try {
+            Serializer serProcess = (ObjectOutputStream ser) -> {
+                ser.writeObject(diff);
+            };
+            DeSerializerUsingPlace desProcess = (ObjectInputStream des, Place from) -> {
+                Map<T, Integer> importedDiff = (Map<T, Integer>) des.readObject();
+                for (Map.Entry<T, Integer> entry : importedDiff.entrySet()) {
+                    T k = entry.getKey();
+                    Integer v = entry.getValue();
+                    applyDiff(k, v, from);
+                }
+            };
+            CollectiveRelocator.allgatherSer(pg, serProcess, desProcess);
+            importedDiffKeys.clear();
+            diff.clear();
+        } finally {
+            Tracer.end("updateDist");
+        }
     }
 
     public static class Index extends DistManager<Long> {
@@ -24,18 +24,33 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
 import apgas.Constructs;
 import apgas.Place;
 import apgas.util.GlobalID;
+import handist.collections.Tracer;
 import mpi.MPI;
 import mpi.MPIException;
 
 /**
  * A Map data structure spread over the multiple places.
+ * <p>
+ * By default, the local entries are held by a {@link HashMap} and the branch
+ * of each place must only be modified by one thread at a time. A
+ * {@link DistMap} created with {@link #DistMap(TeamedPlaceGroup, boolean)}
+ * holds its entries in a {@link ConcurrentHashMap} instead, so that several
+ * threads can put, remove and get entries at the same time. As with
+ * {@link ConcurrentHashMap}, such a map does not accept {@code null} keys or
+ * values. The {@link #data} field of such a map is null.
  *
  * @param <K> type of the key used in the {@link DistMap}
  * @param <V> type of the value mapped to each key in the {@link DistMap}
@@ -47,13 +62,24 @@ public class DistMap<K, V> extends AbstractDistCollection {
     // TODO implements Relocatable
 
     // TODO not public
+    /**
+     * The local entries, null if this map is {@linkplain #isConcurrent()
+     * concurrent}
+     */
     public HashMap<K, V> data;
 
+    /**
+     * The local entries if this map is {@linkplain #isConcurrent()
+     * concurrent}, null otherwise
+     */
+    private final ConcurrentHashMap<K, V> concurrentData;
+
     public Object writeReplace() throws ObjectStreamException {
         final TeamedPlaceGroup pg1 = placeGroup;
         final GlobalID id1 = id;
+        final boolean concurrent1 = isConcurrent();
         return new AbstractDistCollection.LazyObjectReference<DistMap<K, V>>(pg1, id1, () -> {
-            return new DistMap<K, V>(pg1, id1);
+            return new DistMap<K, V>(pg1, id1, concurrent1);
         });
     }
 
@@ -71,13 +97,53 @@ public class DistMap<K, V> extends AbstractDistCollection {
      *  {@link DistMap}
      */
     public DistMap(TeamedPlaceGroup pg) {
+        this(pg, false);
+    }
+
+    /**
+     * Construct a DistMap whose local entries can be accessed concurrently by
+     * several threads if {@code concurrent} is {@code true}.
+     *
+     * @param pg         the group of hosts that are susceptible to manipulate
+     *                   this {@link DistMap}
+     * @param concurrent whether the local entries are held by a
+     *                   {@link ConcurrentHashMap}
+     */
+    public DistMap(TeamedPlaceGroup pg, boolean concurrent) {
         super(pg);
-        this.data = new HashMap<>();
+        this.data = concurrent ? null : new HashMap<>();
+        this.concurrentData = concurrent ? new ConcurrentHashMap<>() : null;
     }
 
     public DistMap(TeamedPlaceGroup pg, GlobalID id) {
+        this(pg, id, false);
+    }
+
+    protected DistMap(TeamedPlaceGroup pg, GlobalID id, boolean concurrent) {
         super(pg, id);
-        this.data = new HashMap<>();
+        this.data = concurrent ? null : new HashMap<>();
+        this.concurrentData = concurrent ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Indicates whether the local entries of this map can be accessed by
+     * several threads at the same time.
+     *
+     * @return {@code true} if the local entries are held by a
+     *         {@link ConcurrentHashMap}
+     */
+    public boolean isConcurrent() {
+        return concurrentData != null;
+    }
+
+    /**
+     * Returns the map holding the local entries, {@link #data} or the
+     * {@link ConcurrentHashMap} of a concurrent map.
+     *
+     * @return the local entries
+     */
+    Map<K, V> entries() {
+        return concurrentData != null ? concurrentData : data;
     }
 
     public static interface Generator<K, V> extends BiConsumer<Place, DistMap<K, V>>, Serializable {
@@ -93,7 +159,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * Remove the all local entries.
      */
     public void clear() {
-        this.data.clear();
+        entries().clear();
     }
 
     /**
@@ -102,7 +168,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @return the number of the local entries.
      */
     public int size() {
-        return data.size();
+        return entries().size();
     }
 
     /**
@@ -113,7 +179,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @return the value corresponding to the specified key.
      */
     public V get(K key) {
-        return data.get(key);
+        return entries().get(key);
     }
 
     /**
@@ -127,18 +193,25 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * with {@code key}.)
      */
     public V put(K key, V value) {
-        return data.put(key, value);
+        return entries().put(key, value);
     }
 
     private V putForMove(K key, V value) {
-        if (data.containsKey(key)) {
+        if (isConcurrent()) {
+            // Check and insert atomically, entries may be put concurrently
+            if (entries().putIfAbsent(key, value) != null) {
+                throw new RuntimeException("DistMap cannot override existing entry: " + key);
+            }
+            return null;
+        }
+        if (entries().containsKey(key)) {
             throw new RuntimeException("DistMap cannot override existing entry: " + key);
         }
-        return data.put(key, value);
+        return entries().put(key, value);
     }
 
     public boolean delete(K key) {
-        V result = data.remove(key);
+        V result = entries().remove(key);
         return (result != null);
     }
 
@@ -150,7 +223,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * 	there was no existing mapping (or the key was mapped to {@code null})
      */
     public V remove(K key) {
-        return data.remove(key);
+        return entries().remove(key);
     }
 
     /**
@@ -159,8 +232,110 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @param op the operation.
      */
     public void forEach(BiConsumer<K, V> op) {
-        if (!data.isEmpty())
-            data.forEach(op);
+        if (!entries().isEmpty())
+            entries().forEach(op);
+    }
+
+    /**
+     * Apply the same operation onto the all local entries in parallel. The
+     * buckets of the local map are divided into {@code nthreads} groups
+     * handled by as many tasks submitted to the given pool. The operation may
+     * modify the values of the entries it is given; it may only put or remove
+     * entries if this map is {@linkplain #isConcurrent() concurrent}.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the entries are split
+     * @param op       the operation, called concurrently by several threads
+     */
+    public void forEach(ExecutorService pool, int nthreads, BiConsumer<K, V> op) {
+        final List<Future<?>> futures = new ArrayList<>(nthreads);
+        for (final Spliterator<Map.Entry<K, V>> part : splitEntries(nthreads)) {
+            futures.add(pool.submit(() -> {
+                Tracer.begin("DistMap.forEach");
+                try {
+                    part.forEachRemaining((Map.Entry<K, V> e) -> op.accept(e.getKey(), e.getValue()));
+                } finally {
+                    Tracer.end("DistMap.forEach");
+                }
+            }));
+        }
+        for (final Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistMap] exception raised by worker threads.");
+            }
+        }
+    }
+
+    /**
+     * Divides the local entries into at most {@code n} parts. The
+     * spliterators of {@link HashMap} and {@link ConcurrentHashMap} split the
+     * table of buckets in halves, so the largest remaining part is split until
+     * there are {@code n} parts or no part can be split further.
+     */
+    private List<Spliterator<Map.Entry<K, V>>> splitEntries(int n) {
+        final List<Spliterator<Map.Entry<K, V>>> parts = new ArrayList<>(n);
+        parts.add(entries().entrySet().spliterator());
+        while (parts.size() < n) {
+            int largest = 0;
+            for (int i = 1; i < parts.size(); i++) {
+                if (parts.get(i).estimateSize() > parts.get(largest).estimateSize()) {
+                    largest = i;
+                }
+            }
+            final Spliterator<Map.Entry<K, V>> half = parts.get(largest).trySplit();
+            if (half == null) {
+                break;
+            }
+            parts.add(half);
+        }
+        return parts;
+    }
+
+    /**
+     * Groups the values computed from the entries of all places by key into a
+     * new {@link DistMapList}, exchanging them as described in
+     * {@link GroupBy}. This method is collective: it must be called at every
+     * place of the group.
+     *
+     * @param <K2>  type of the keys of the result
+     * @param <W>   type of the values of the result
+     * @param key   function computing the key of the result from an entry
+     * @param value function computing the value of the result from an entry
+     * @param dist  the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMapList}
+     */
+    public <K2, W> DistMapList<K2, W> groupBy(BiFunction<? super K, ? super V, K2> key,
+            BiFunction<? super K, ? super V, W> value, Distribution<K2> dist) {
+        return GroupBy.groupBy(placeGroup, (BiConsumer<K2, W> out) -> {
+            entries().forEach((K k, V v) -> out.accept(key.apply(k, v), value.apply(k, v)));
+        }, dist);
+    }
+
+    /**
+     * Aggregates the values computed from the entries of all places by key
+     * into a new {@link DistMap}, combining and exchanging them as described
+     * in {@link GroupBy}. This method is collective: it must be called at
+     * every place of the group.
+     *
+     * @param <K2>     type of the keys of the result
+     * @param <W>      type of the values of the result
+     * @param key      function computing the key of the result from an entry
+     * @param value    function computing the value of the result from an
+     *                 entry
+     * @param combiner associative function combining two values of a key
+     * @param dist     the distribution of the keys of the result
+     * @return the local handle of the new {@link DistMap}
+     * @throws NullPointerException if a computed value or a result of
+     *                              {@code combiner} is {@code null}
+     */
+    public <K2, W> DistMap<K2, W> aggregateByKey(BiFunction<? super K, ? super V, K2> key,
+            BiFunction<? super K, ? super V, W> value, BinaryOperator<W> combiner, Distribution<K2> dist) {
+        return GroupBy.aggregateByKey(placeGroup, (BiConsumer<K2, W> out) -> {
+            entries().forEach((K k, V v) -> out.accept(key.apply(k, v), value.apply(k, v)));
+        }, combiner, dist);
     }
 
     /**
@@ -226,7 +401,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
     public <S> S reduceLocal(BiFunction<S, V, S> op, S unit) {
         // TODO may be build-in method for Map
         S accum = unit;
-        for (Map.Entry<K, V> entry : data.entrySet()) {
+        for (Map.Entry<K, V> entry : entries().entrySet()) {
             accum = op.apply(accum, entry.getValue());
         }
         return accum;
@@ -240,7 +415,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @return true or false.
      */
     public boolean containsKey(K key) {
-        return data.containsKey(key);
+        return entries().containsKey(key);
     }
 
     /**
@@ -249,7 +424,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @return the Set of local keys.
      */
     public Set<K> keySet() {
-        return data.keySet();
+        return entries().keySet();
     }
 
     /**
@@ -258,7 +433,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
      * @return the Set of local entries.
      */
     public Set<Map.Entry<K, V>> entrySet() {
-        return data.entrySet();
+        return entries().entrySet();
     }
 
     /**
@@ -283,7 +458,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
             V v = (V) ds.readObject();
             toBranch.putForMove(k, v);
         };
-        mm.request(pl, serialize, deserialize);
+        mm.request(pl, serialize, deserialize, 1);
     }
 
     @SuppressWarnings("unchecked")
@@ -308,7 +483,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
                 collection.putForMove(key, value);
             }
         };
-        mm.request(pl, serialize, deserialize);
+        mm.request(pl, serialize, deserialize, keys.size());
     }
 
     public void moveAtSync(Function<K, Place> rule, MoveManagerLocal mm) {
@@ -326,17 +501,88 @@ public class DistMap<K, V> extends AbstractDistCollection {
         }
     }
 
+    /**
+     * Request that the local entries are relocated according to the given
+     * rule when {@link MoveManagerLocal#sync()} is called. The destination of
+     * the entries is computed in parallel by {@code nthreads} tasks submitted
+     * to the given pool, each task handling a slice of the local keys. The
+     * keys are then grouped by destination and a single request is registered
+     * for each destination, whose entries are sent as one batch.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the keys are split
+     * @param rule     the function giving the destination of each key, called
+     *                 concurrently by several threads
+     * @param mm       MoveManagerLocal
+     */
+    public void moveAtSync(ExecutorService pool, int nthreads, Function<K, Place> rule, MoveManagerLocal mm) {
+        for (Map.Entry<Place, List<K>> entry : partitionKeys(pool, nthreads, rule).entrySet()) {
+            moveAtSync(entry.getValue(), entry.getKey(), mm);
+        }
+    }
+
+    /**
+     * Computes the destination of every local key in parallel and returns the
+     * keys whose destination is not the current place, grouped by
+     * destination.
+     */
+    @SuppressWarnings("unchecked")
+    Map<Place, List<K>> partitionKeys(ExecutorService pool, int nthreads, Function<K, Place> rule) {
+        final Place here = here();
+        final Object[] keys = entries().keySet().toArray();
+        final List<Future<HashMap<Place, ArrayList<K>>>> futures = new ArrayList<>(nthreads);
+        for (int t = 0; t < nthreads; t++) {
+            final int from = (int) ((long) keys.length * t / nthreads);
+            final int to = (int) ((long) keys.length * (t + 1) / nthreads);
+            futures.add(pool.submit(() -> {
+                Tracer.begin("DistMap.partitionKeys");
+                try {
+                    final HashMap<Place, ArrayList<K>> partition = new HashMap<>();
+                    for (int i = from; i < to; i++) {
+                        final K key = (K) keys[i];
+                        final Place destination = rule.apply(key);
+                        if (!destination.equals(here)) {
+                            partition.computeIfAbsent(destination, p -> new ArrayList<>()).add(key);
+                        }
+                    }
+                    return partition;
+                } finally {
+                    Tracer.end("DistMap.partitionKeys");
+                }
+            }));
+        }
+        final HashMap<Place, List<K>> result = new HashMap<>();
+        for (final Future<HashMap<Place, ArrayList<K>>> f : futures) {
+            final HashMap<Place, ArrayList<K>> partition;
+            try {
+                partition = f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistMap] exception raised by worker threads.");
+            }
+            for (final Map.Entry<Place, ArrayList<K>> entry : partition.entrySet()) {
+                final List<K> keysToMove = result.get(entry.getKey());
+                if (keysToMove == null) {
+                    result.put(entry.getKey(), entry.getValue());
+                } else {
+                    keysToMove.addAll(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
     private Collection<K> getNKeys(int count) {
         if (count == 0)
             return Collections.emptySet();
         ArrayList<K> keys = new ArrayList<>();
-        for (K key : data.keySet()) {
+        for (K key : entries().keySet()) {
             keys.add(key);
             --count;
             if (count == 0)
                 return keys;
         }
-        return data.keySet();
+        return entries().keySet();
     }
     public void moveAtSyncCount(int count, Place dest, MoveManagerLocal mm) {
         if (count == 0)
@@ -354,7 +600,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
 
     public void checkDistInfo(long[] result) {
         TeamedPlaceGroup pg = this.placeGroup;
-        long localSize = data.size(); // int->long
+        long localSize = entries().size(); // int->long
         long[] sendbuf = new long[] { localSize };
         // team.alltoall(tmpOverCounts, 0, overCounts, 0, 1);
         try {
@@ -377,10 +623,26 @@ public class DistMap<K, V> extends AbstractDistCollection {
     }
 
     public void relocate(Function<K, Place> rule, MoveManagerLocal mm) throws Exception {
-        for (K key: data.keySet()) {
-            Place place = rule.apply(key);
-            moveAtSync(key, place, mm);
-        }
+        moveAtSync(rule, mm);
+        mm.sync();
+    }
+
+    /**
+     * Relocates the entries according to the given rule, computing the
+     * destination of the local entries in parallel. Must be called at every
+     * place of the group.
+     *
+     * @param pool     the executor service running the tasks
+     * @param nthreads the number of tasks among which the keys are split
+     * @param rule     the function giving the destination of each key, called
+     *                 concurrently by several threads
+     * @param mm       MoveManagerLocal
+     * @throws Exception if raised during the relocation
+     * @see #moveAtSync(ExecutorService, int, Function, MoveManagerLocal)
+     */
+    public void relocate(ExecutorService pool, int nthreads, Function<K, Place> rule, MoveManagerLocal mm)
+            throws Exception {
+        moveAtSync(pool, nthreads, rule, mm);
         mm.sync();
     }
 
@@ -389,10 +651,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
     }
 
     public void relocate(Distribution<K> rule, MoveManagerLocal mm) throws Exception {
-        for (K key: data.keySet()) {
-            Place place = rule.place(key);
-            moveAtSync(key, place, mm);
-        }
+        moveAtSync(rule, mm);
         mm.sync();
     }
     public void relocate(Distribution<K> rule) throws Exception {
@@ -403,13 +662,13 @@ public class DistMap<K, V> extends AbstractDistCollection {
 
     /*
     void teamedBalance() {
-        LoadBalancer.MapBalancer<T, U> balance = new LoadBalancer.MapBalancer<>(this.data, placeGroup);
+        LoadBalancer.MapBalancer<T, U> balance = new LoadBalancer.MapBalancer<>(entries(), placeGroup);
         balance.execute();
         if(debugPrint()) System.out.println(here() + " balance.check1");
         clear();
         if(debugPrint()) {
             System.out.println(here() + " balance.check2");
-            System.out.println(here() + " balance.ArrayList.size() : " + data.size());
+            System.out.println(here() + " balance.ArrayList.size() : " + entries().size());
         }
         long time = - System.nanoTime();
         time += System.nanoTime();
@@ -446,7 +705,7 @@ public class DistMap<K, V> extends AbstractDistCollection {
         StringWriter out0 = new StringWriter();
         PrintWriter out = new PrintWriter(out0);
         out.println("at "+ here());
-        for(Map.Entry<K,V> e : data.entrySet()) {
+        for(Map.Entry<K,V> e : entries().entrySet()) {
             out.println("key : "+e.getKey() + ", value : " + e.getValue());
         }
         out.close();
@@ -132,7 +132,7 @@ public class DistMapList<K,V> extends DistMap<K, List<V>> {
             V v = (V)ds.readObject();
             toBranch.put1(k, v);
         };
-        mm.request(pl, serialize, deserialize);
+        mm.request(pl, serialize, deserialize, 1);
     }
 
     @SuppressWarnings("unchecked")
@@ -154,7 +154,41 @@ public class DistMapList<K,V> extends DistMap<K, List<V>> {
             List<V> v = (List<V>) ds.readObject();
             toBranch.putForMove(k, v);
         };
-        mm.request(pl, serialize, deserialize);
+        mm.request(pl, serialize, deserialize, 1);
+    }
+
+    /**
+     * Request that the entries of the given keys are relocated to the given
+     * place when {@link MoveManagerLocal#sync()} is called. The values
+     * received for a key already present at the destination are appended to
+     * its list.
+     *
+     * @param keys the keys of the relocated entries
+     * @param pl   the destination place
+     * @param mm   MoveManagerLocal handling the data transfers
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void moveAtSync(Collection<K> keys, Place pl, MoveManagerLocal mm) {
+        if (pl.equals(here()))
+            return;
+        final DistMapList<K, V> toBranch = this;
+        Serializer serialize = (ObjectOutputStream s) -> {
+            s.writeInt(keys.size());
+            for (K key : keys) {
+                s.writeObject(key);
+                s.writeObject(this.removeForMove(key));
+            }
+        };
+        DeSerializer deserialize = (ObjectInputStream ds) -> {
+            int size = ds.readInt();
+            for (int i = 0; i < size; i++) {
+                K k = (K) ds.readObject();
+                List<V> v = (List<V>) ds.readObject();
+                toBranch.putForMove(k, v);
+            }
+        };
+        mm.request(pl, serialize, deserialize, keys.size());
     }
 
     /**
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+
+import apgas.Place;
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.RangedList;
+import handist.collections.RangedListView;
+import handist.collections.Tracer;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Prefix sums of the elements of a {@link DistCol} in the order of their
+ * indices, see {@link DistCol#scan(BinaryOperator)}.
+ * <p>
+ * The scan proceeds in three steps:
+ * <ol>
+ * <li>each place scans each of its chunks independently, the chunks being
+ * split among the tasks submitted to a pool if one is given,
+ * <li>the totals of the chunks of every place are exchanged, so that every
+ * place can combine the totals of the chunks preceding each of its chunks in
+ * the order of their ranges, as an exclusive scan over the chunks of all
+ * places,
+ * <li>each place combines the result of the previous step with the local
+ * scan of each of its chunks, split among the tasks in the same way.
+ * </ol>
+ * As the chunks of a place need not be contiguous, the totals of all chunks
+ * are exchanged rather than one total per place. The result is a new
+ * {@link DistCol} whose chunks have the same ranges and are held by the same
+ * places as those of the scanned collection, empty chunks included.
+ */
+final class DistScan {
+
+    private DistScan() {
+    }
+
+    private static <T> List<RangedList<T>> chunks(DistCol<T> col) {
+        final List<RangedList<T>> chunks = new ArrayList<>();
+        col.forEachChunk(chunks::add);
+        return chunks;
+    }
+
+    /**
+     * Creates the result of a scan, with an empty chunk for each empty chunk
+     * of the scanned collection, whose result is null.
+     */
+    private static <T> DistCol<T> result(TeamedPlaceGroup pg, List<? extends RangedList<?>> chunks,
+            List<Chunk<T>> results) {
+        final DistCol<T> result = new DistCol<>(pg, pg.shareNewId());
+        try {
+            for (int k = 0; k < chunks.size(); k++) {
+                final Chunk<T> c = results.get(k);
+                result.addChunk(c != null ? c : new RangedListView<>(null, chunks.get(k).getRange()));
+            }
+        } catch (final Exception e) {
+            throw new RuntimeException("[DistScan] " + e.getMessage(), e);
+        }
+        result.updateDist();
+        return result;
+    }
+
+    /**
+     * Calls {@code body} with the indices 0 to {@code n} excluded, split into
+     * {@code nthreads} tasks submitted to {@code pool}, or in the calling
+     * thread if {@code pool} is null.
+     */
+    private static void forEachIndex(ExecutorService pool, int nthreads, int n, IntConsumer body) {
+        if (pool == null) {
+            for (int k = 0; k < n; k++) {
+                body.accept(k);
+            }
+            return;
+        }
+        final List<Future<?>> futures = new ArrayList<>(nthreads);
+        for (int t = 0; t < nthreads; t++) {
+            final int from = (int) ((long) n * t / nthreads);
+            final int to = (int) ((long) n * (t + 1) / nthreads);
+            futures.add(pool.submit(() -> {
+                for (int k = from; k < to; k++) {
+                    body.accept(k);
+                }
+            }));
+        }
+        for (final Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+                throw new RuntimeException("[DistScan] exception raised by worker threads.");
+            }
+        }
+    }
+
+    /**
+     * Computes the scan of the given collection. Must be called at every place
+     * of its group.
+     *
+     * @param col       the collection to scan
+     * @param identity  the identity of {@code op}, required if
+     *                  {@code exclusive}, may be null otherwise
+     * @param op        an associative operator
+     * @param exclusive whether the element at each index is excluded from the
+     *                  result at that index
+     * @param pool      the executor service running the tasks, null to scan
+     *                  the chunks in the calling thread
+     * @param nthreads  the number of tasks among which the chunks are split
+     * @return the local handle of the new collection
+     */
+    static <T> DistCol<T> scan(DistCol<T> col, T identity, BinaryOperator<T> op, boolean exclusive,
+            ExecutorService pool, int nthreads) {
+        final TeamedPlaceGroup pg = col.placeGroup();
+        final List<RangedList<T>> chunks = chunks(col);
+        final int n = chunks.size();
+
+        // Null for the empty chunks, which take no part in the exchange
+        final List<Chunk<T>> results = new ArrayList<>(n);
+        final List<T> chunkTotals = new ArrayList<>(n);
+        final ArrayList<LongRange> ranges = new ArrayList<>(n);
+        final ArrayList<T> totals = new ArrayList<>(n);
+        Tracer.begin("DistScan.localScan");
+        try {
+            for (final RangedList<T> c : chunks) {
+                results.add(c.longSize() > 0 ? new Chunk<>(c.getRange()) : null);
+                chunkTotals.add(null);
+            }
+            forEachIndex(pool, nthreads, n, (int k) -> {
+                final RangedList<T> c = chunks.get(k);
+                final Chunk<T> r = results.get(k);
+                if (r == null) {
+                    return;
+                }
+                final LongRange range = c.getRange();
+                T acc = c.get(range.from);
+                r.set(range.from, acc);
+                for (long i = range.from + 1; i < range.to; i++) {
+                    acc = op.apply(acc, c.get(i));
+                    r.set(i, acc);
+                }
+                chunkTotals.set(k, acc);
+            });
+            for (int k = 0; k < n; k++) {
+                if (results.get(k) != null) {
+                    ranges.add(chunks.get(k).getRange());
+                    totals.add(chunkTotals.get(k));
+                }
+            }
+        } finally {
+            Tracer.end("DistScan.localScan");
+        }
+
+        // Combination of the totals of the chunks preceding each local chunk
+        final Map<LongRange, T> offsets = new HashMap<>();
+        Tracer.begin("DistScan.exchange");
+        try {
+            final Map<LongRange, T> allTotals = new HashMap<>();
+            for (int k = 0; k < ranges.size(); k++) {
+                allTotals.put(ranges.get(k), totals.get(k));
+            }
+            CollectiveRelocator.allgatherSer(pg, (ObjectOutputStream out) -> {
+                out.writeObject(ranges);
+                out.writeObject(totals);
+            }, (ObjectInputStream in, Place p) -> {
+                @SuppressWarnings("unchecked")
+                final List<LongRange> r = (List<LongRange>) in.readObject();
+                @SuppressWarnings("unchecked")
+                final List<T> t = (List<T>) in.readObject();
+                for (int k = 0; k < r.size(); k++) {
+                    allTotals.put(r.get(k), t.get(k));
+                }
+            });
+            final LongRange[] sorted = allTotals.keySet().toArray(new LongRange[allTotals.size()]);
+            Arrays.sort(sorted, Comparator.comparingLong((LongRange r) -> r.from));
+            T running = identity;
+            boolean first = true;
+            for (final LongRange r : sorted) {
+                offsets.put(r, first ? identity : running);
+                running = first ? allTotals.get(r) : op.apply(running, allTotals.get(r));
+                first = false;
+            }
+        } finally {
+            Tracer.end("DistScan.exchange");
+        }
+
+        Tracer.begin("DistScan.fixUp");
+        try {
+            forEachIndex(pool, nthreads, n, (int k) -> {
+                final Chunk<T> r = results.get(k);
+                if (r == null) {
+                    return;
+                }
+                final LongRange range = r.getRange();
+                // Null if the chunk is the first one of an inclusive scan
+                final T offset = offsets.get(range);
+                if (exclusive) {
+                    for (long i = range.to - 1; i > range.from; i--) {
+                        r.set(i, op.apply(offset, r.get(i - 1)));
+                    }
+                    r.set(range.from, offset);
+                } else if (offset != null) {
+                    for (long i = range.from; i < range.to; i++) {
+                        r.set(i, op.apply(offset, r.get(i)));
+                    }
+                }
+            });
+        } finally {
+            Tracer.end("DistScan.fixUp");
+        }
+        return result(pg, chunks, results);
+    }
+
+    /**
+     * Computes the sums of the values of the elements of the given collection.
+     * Must be called at every place of its group.
+     *
+     * @param col       the collection to scan
+     * @param value     the function giving the value of each element
+     * @param exclusive whether the value at each index is excluded from the
+     *                  sum at that index
+     * @param pool      the executor service running the tasks, null to scan
+     *                  the chunks in the calling thread
+     * @param nthreads  the number of tasks among which the chunks are split
+     * @return the local handle of the new collection
+     */
+    static <T> DistCol<Long> scanLong(DistCol<T> col, ToLongFunction<? super T> value, boolean exclusive,
+            ExecutorService pool, int nthreads) {
+        final TeamedPlaceGroup pg = col.placeGroup();
+        final List<RangedList<T>> chunks = chunks(col);
+        final int n = chunks.size();
+
+        final long[][] sums = new long[n][];
+        // Start of the range and total of each local chunk
+        final long[] chunkTotals = new long[2 * n];
+        long[] myTotals;
+        Tracer.begin("DistScan.localScan");
+        try {
+            forEachIndex(pool, nthreads, n, (int k) -> {
+                final RangedList<T> c = chunks.get(k);
+                final LongRange range = c.getRange();
+                final long[] s = new long[(int) range.size()];
+                long acc = 0;
+                for (int j = 0; j < s.length; j++) {
+                    acc += value.applyAsLong(c.get(range.from + j));
+                    s[j] = acc;
+                }
+                sums[k] = s;
+                chunkTotals[2 * k] = range.from;
+                chunkTotals[2 * k + 1] = acc;
+            });
+            // Empty chunks take no part in the exchange: their start may be
+            // that of another chunk
+            int m = 0;
+            for (int k = 0; k < n; k++) {
+                if (sums[k].length > 0) {
+                    chunkTotals[2 * m] = chunkTotals[2 * k];
+                    chunkTotals[2 * m + 1] = chunkTotals[2 * k + 1];
+                    m++;
+                }
+            }
+            myTotals = Arrays.copyOf(chunkTotals, 2 * m);
+        } finally {
+            Tracer.end("DistScan.localScan");
+        }
+
+        final Map<Long, Long> offsets = new HashMap<>();
+        Tracer.begin("DistScan.exchange");
+        try {
+            final int[] counts = new int[pg.size()];
+            final int[] displs = new int[pg.size()];
+            long[] allTotals;
+            try {
+                pg.comm.Allgather(new int[] { myTotals.length }, 0, 1, MPI.INT, counts, 0, 1, MPI.INT);
+                int total = 0;
+                for (int q = 0; q < counts.length; q++) {
+                    displs[q] = total;
+                    total += counts[q];
+                }
+                allTotals = new long[total];
+                pg.comm.Allgatherv(myTotals, 0, myTotals.length, MPI.LONG, allTotals, 0, counts, displs, MPI.LONG);
+            } catch (final MPIException e) {
+                e.printStackTrace();
+                throw new Error("[DistScan] network error in scanLong()");
+            }
+            // Sort the chunks of all places by the start of their range
+            final int m = allTotals.length / 2;
+            final long[][] pairs = new long[m][];
+            for (int j = 0; j < m; j++) {
+                pairs[j] = new long[] { allTotals[2 * j], allTotals[2 * j + 1] };
+            }
+            Arrays.sort(pairs, (long[] a, long[] b) -> Long.compare(a[0], b[0]));
+            long running = 0;
+            for (final long[] pair : pairs) {
+                offsets.put(pair[0], running);
+                running += pair[1];
+            }
+        } finally {
+            Tracer.end("DistScan.exchange");
+        }
+
+        final List<Chunk<Long>> results = new ArrayList<>(n);
+        for (final RangedList<T> c : chunks) {
+            results.add(c.longSize() > 0 ? new Chunk<>(c.getRange()) : null);
+        }
+        Tracer.begin("DistScan.fixUp");
+        try {
+            forEachIndex(pool, nthreads, n, (int k) -> {
+                final Chunk<Long> r = results.get(k);
+                if (r == null) {
+                    return;
+                }
+                final long from = r.getRange().from;
+                final long offset = offsets.get(from);
+                final long[] s = sums[k];
+                for (int j = 0; j < s.length; j++) {
+                    r.set(from + j, offset + (exclusive ? (j == 0 ? 0 : s[j - 1]) : s[j]));
+                }
+            });
+        } finally {
+            Tracer.end("DistScan.fixUp");
+        }
+        return result(pg, chunks, results);
+    }
+}
@@ -0,0 +1,444 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import apgas.Place;
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.RangedList;
+import handist.collections.Tracer;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Distributed sort of the elements of the distributed collections.
+ * <p>
+ * The methods of this class are collective: they must be called at every
+ * place of the group of the sorted collection, typically inside
+ * {@link TeamedPlaceGroup#broadcastFlat(apgas.SerializableJob)}, and they
+ * return at each place the local handle of the same new {@link DistCol}. The
+ * sorted collection contains the elements in increasing order at indices
+ * 0 to N-1, N being the total number of elements. Each place owns a single
+ * contiguous range of indices and the places hold the same number of
+ * elements give or take one, in rank order.
+ * <p>
+ * The sort proceeds as follows:
+ * <ol>
+ * <li>each place sorts its elements in parallel with
+ * {@link Arrays#parallelSort(Object[], Comparator)},
+ * <li>the places find together, for each boundary between the balanced
+ * ranges of indices, the position of the boundary in the sorted elements of
+ * every place, by narrowing it down with pivots chosen among the elements,
+ * <li>the elements are sent to the place owning their index in a single
+ * all-to-all exchange, and the sorted runs received by each place are merged.
+ * </ol>
+ * <p>
+ * The comparator is used at every place: when the call is made in a closure
+ * sent to other places, it should be a {@link SerializableComparator}. The
+ * sort is not stable.
+ */
+public final class DistSort {
+
+    private DistSort() {
+    }
+
+    /**
+     * Sorts the elements of the given collection into a new {@link DistCol}.
+     * Must be called at every place of the group of {@code col}.
+     *
+     * @param <T> type of the elements
+     * @param col the collection whose elements are sorted
+     * @param cmp the comparator defining the order of the elements
+     * @return the local handle of the sorted collection
+     */
+    public static <T> DistCol<T> sort(DistCol<T> col, Comparator<? super T> cmp) {
+        final List<T> local = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, col.longSize()));
+        col.forEach((T t) -> local.add(t));
+        return sort(col.placeGroup(), local, cmp);
+    }
+
+    /**
+     * Sorts the elements of the given bag into a new {@link DistCol}. Must be
+     * called at every place of the group of {@code bag}.
+     *
+     * @param <T> type of the elements
+     * @param bag the bag whose elements are sorted
+     * @param cmp the comparator defining the order of the elements
+     * @return the local handle of the sorted collection
+     */
+    public static <T> DistCol<T> sort(DistBag<T> bag, Comparator<? super T> cmp) {
+        return sort(bag.placeGroup(), bag.data, cmp);
+    }
+
+    /**
+     * Sorts the keys of the given map into a new {@link DistCol}. Must be
+     * called at every place of the group of {@code map}.
+     *
+     * @param <K> type of the keys
+     * @param map the map whose keys are sorted
+     * @param cmp the comparator defining the order of the keys
+     * @return the local handle of the sorted collection of keys
+     */
+    public static <K> DistCol<K> sortKeys(DistMap<K, ?> map, Comparator<? super K> cmp) {
+        return sort(map.placeGroup(), map.entries().keySet(), cmp);
+    }
+
+    /**
+     * Sorts the elements held by the places of the given group into a new
+     * {@link DistCol}. Must be called at every place of the group.
+     *
+     * @param <T>   type of the elements
+     * @param pg    the group of places taking part in the sort
+     * @param local the elements contributed by the current place
+     * @param cmp   the comparator defining the order of the elements
+     * @return the local handle of the sorted collection
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DistCol<T> sort(TeamedPlaceGroup pg, Collection<T> local, Comparator<? super T> cmp) {
+        final DistCol<T> result = new DistCol<>(pg, pg.shareNewId());
+        final Comparator<Object> c = (Comparator<Object>) cmp;
+        final int size = pg.size();
+        final int rank = pg.myrank();
+
+        final Object[] sorted = local.toArray();
+        Tracer.begin("DistSort.localSort");
+        try {
+            Arrays.parallelSort(sorted, c);
+        } finally {
+            Tracer.end("DistSort.localSort");
+        }
+
+        // The place of rank q owns indices regionStart[q] to regionStart[q+1]
+        final long[] total = new long[1];
+        try {
+            pg.comm.Allreduce(new long[] { sorted.length }, 0, total, 0, 1, MPI.LONG, MPI.SUM);
+        } catch (final MPIException e) {
+            e.printStackTrace();
+            throw new Error("[DistSort] network error in sort()");
+        }
+        final long[] regionStart = new long[size + 1];
+        for (int q = 0; q <= size; q++) {
+            regionStart[q] = total[0] * q / size;
+        }
+
+        // Elements of bucket q, to be sent to the place of rank q, are
+        // between bounds[q] and bounds[q+1] in the sorted array
+        final int[] bounds;
+        Tracer.begin("DistSort.split");
+        try {
+            bounds = split(pg, sorted, regionStart, c);
+        } finally {
+            Tracer.end("DistSort.split");
+        }
+
+        // counts[r * size + q]: number of elements sent by rank r to rank q
+        final long[] myCounts = new long[size];
+        for (int q = 0; q < size; q++) {
+            myCounts[q] = bounds[q + 1] - bounds[q];
+        }
+        final long[] counts = new long[size * size];
+        try {
+            pg.comm.Allgather(myCounts, 0, size, MPI.LONG, counts, 0, size, MPI.LONG);
+        } catch (final MPIException e) {
+            e.printStackTrace();
+            throw new Error("[DistSort] network error in sort()");
+        }
+
+        final MoveManagerLocal mm = new MoveManagerLocal(pg);
+        Tracer.begin("DistSort.exchange");
+        try {
+            for (int q = 0; q < size; q++) {
+                final int length = bounds[q + 1] - bounds[q];
+                if (length == 0) {
+                    continue;
+                }
+                long from = regionStart[q];
+                for (int r = 0; r < rank; r++) {
+                    from += counts[r * size + q];
+                }
+                final Object[] bucket = Arrays.copyOfRange(sorted, bounds[q], bounds[q + 1]);
+                final Chunk<T> chunk = new Chunk<>(new LongRange(from, from + length), bucket);
+                result.addChunk(chunk);
+                if (q != rank) {
+                    final List<RangedList<T>> toMove = new ArrayList<>(1);
+                    toMove.add(chunk);
+                    result.moveAtSync(toMove, pg.get(q), mm);
+                }
+            }
+            mm.sync();
+        } catch (final Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("[DistSort] exception raised during the exchange.");
+        } finally {
+            Tracer.end("DistSort.exchange");
+        }
+
+        Tracer.begin("DistSort.merge");
+        try {
+            merge(result, new LongRange(regionStart[rank], regionStart[rank + 1]), c);
+        } finally {
+            Tracer.end("DistSort.merge");
+        }
+        result.updateDist();
+        return result;
+    }
+
+    /**
+     * Returns the positions in the sorted local array of the boundaries
+     * between the given balanced ranges of indices: the elements whose index
+     * in the sorted collection is in the range of rank q are between the
+     * positions q and q+1 of the returned array.
+     * <p>
+     * Equal elements are ordered by the rank of their place and then by their
+     * position, so that every element has a distinct index. The positions of
+     * the boundaries at every place are narrowed down in rounds. In each
+     * round, every place proposes the element in the middle of its current
+     * interval of positions. The median of the proposals weighted by the size
+     * of their interval is used as pivot, and the number of elements
+     * preceding the pivot, summed over all places, tells on which side of the
+     * pivot the boundary lies. At least a quarter of the remaining positions
+     * are discarded in each round.
+     */
+    private static int[] split(TeamedPlaceGroup pg, Object[] sorted, long[] regionStart, Comparator<Object> c) {
+        final int size = pg.size();
+        final int rank = pg.myrank();
+        // The boundary q lies between positions lo[q] and hi[q]
+        final int[] lo = new int[size + 1];
+        final int[] hi = new int[size + 1];
+        Arrays.fill(hi, 1, size + 1, sorted.length);
+        lo[size] = sorted.length;
+        // Proposal of each rank for each boundary: position, weight and element
+        final int[][] position = new int[size][size + 1];
+        final int[][] weight = new int[size][size + 1];
+        final Object[][] element = new Object[size][size + 1];
+        final long[] myPreceding = new long[size + 1];
+        final long[] preceding = new long[size + 1];
+        final int[] pivotRank = new int[size + 1];
+        final Integer[] proposers = new Integer[size];
+        while (true) {
+            for (int q = 1; q < size; q++) {
+                weight[rank][q] = hi[q] - lo[q];
+                position[rank][q] = (lo[q] + hi[q]) >>> 1;
+                element[rank][q] = weight[rank][q] > 0 ? sorted[position[rank][q]] : null;
+            }
+            CollectiveRelocator.allgatherSer(pg, (ObjectOutputStream out) -> {
+                for (int q = 1; q < size; q++) {
+                    out.writeInt(weight[rank][q]);
+                    if (weight[rank][q] > 0) {
+                        out.writeInt(position[rank][q]);
+                        out.writeObject(element[rank][q]);
+                    }
+                }
+            }, (ObjectInputStream in, Place p) -> {
+                final int r = pg.rank(p);
+                for (int q = 1; q < size; q++) {
+                    weight[r][q] = in.readInt();
+                    if (weight[r][q] > 0) {
+                        position[r][q] = in.readInt();
+                        element[r][q] = in.readObject();
+                    }
+                }
+            });
+
+            boolean active = false;
+            for (int q = 1; q < size; q++) {
+                long totalWeight = 0;
+                int n = 0;
+                for (int r = 0; r < size; r++) {
+                    if (weight[r][q] > 0) {
+                        totalWeight += weight[r][q];
+                        proposers[n++] = r;
+                    }
+                }
+                pivotRank[q] = -1;
+                myPreceding[q] = 0;
+                if (n == 0) {
+                    // The boundary is found at every place
+                    continue;
+                }
+                active = true;
+                final int b = q;
+                Arrays.sort(proposers, 0, n, (Integer r1, Integer r2) -> compare(element[r1][b], r1,
+                        position[r1][b], element[r2][b], r2, position[r2][b], c));
+                long cumulated = 0;
+                int pr = proposers[n - 1];
+                for (int i = 0; i < n; i++) {
+                    cumulated += weight[proposers[i]][q];
+                    if (2 * cumulated >= totalWeight) {
+                        pr = proposers[i];
+                        break;
+                    }
+                }
+                pivotRank[q] = pr;
+                final Object pivot = element[pr][q];
+                if (rank < pr) {
+                    myPreceding[q] = upperBound(sorted, pivot, c);
+                } else if (rank > pr) {
+                    myPreceding[q] = lowerBound(sorted, pivot, c);
+                } else {
+                    myPreceding[q] = position[pr][q];
+                }
+            }
+            if (!active) {
+                return lo;
+            }
+            try {
+                pg.comm.Allreduce(myPreceding, 0, preceding, 0, size + 1, MPI.LONG, MPI.SUM);
+            } catch (final MPIException e) {
+                e.printStackTrace();
+                throw new Error("[DistSort] network error in sort()");
+            }
+            for (int q = 1; q < size; q++) {
+                if (pivotRank[q] < 0) {
+                    continue;
+                }
+                final int mine = (int) myPreceding[q];
+                if (preceding[q] == regionStart[q]) {
+                    // The pivot is the first element of range q
+                    lo[q] = mine;
+                    hi[q] = mine;
+                } else if (preceding[q] < regionStart[q]) {
+                    // The pivot belongs to a range before q
+                    lo[q] = Math.max(lo[q], rank == pivotRank[q] ? mine + 1 : mine);
+                } else {
+                    hi[q] = Math.min(hi[q], mine);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares two elements identified by their value, the rank of their
+     * place and their position in the sorted array of that place.
+     */
+    private static int compare(Object v1, int r1, int p1, Object v2, int r2, int p2, Comparator<Object> c) {
+        final int result = c.compare(v1, v2);
+        if (result != 0) {
+            return result;
+        }
+        return r1 != r2 ? Integer.compare(r1, r2) : Integer.compare(p1, p2);
+    }
+
+    /**
+     * Returns the number of elements of {@code sorted} smaller than
+     * {@code key}.
+     */
+    private static int lowerBound(Object[] sorted, Object key, Comparator<Object> c) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (c.compare(sorted[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of elements of {@code sorted} smaller than or equal
+     * to {@code key}.
+     */
+    private static int upperBound(Object[] sorted, Object key, Comparator<Object> c) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (c.compare(sorted[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces the sorted runs received by the current place, which together
+     * cover the given range, by a single sorted chunk. The runs are merged
+     * with a binary heap holding the first remaining element of each run.
+     */
+    private static <T> void merge(DistCol<T> result, LongRange region, Comparator<Object> c) {
+        final List<RangedList<T>> runs = new ArrayList<>();
+        result.forEachChunk(runs::add);
+        if (runs.size() <= 1) {
+            return;
+        }
+        if (region.size() > Integer.MAX_VALUE) {
+            throw new RuntimeException("[DistSort] number of elements of a place cannot exceed Integer.MAX_VALUE.");
+        }
+        final int k = runs.size();
+        final List<Iterator<T>> iterators = new ArrayList<>(k);
+        final Object[] heads = new Object[k];
+        // Runs ordered by their first remaining element
+        final int[] heap = new int[k];
+        int n = 0;
+        for (int run = 0; run < k; run++) {
+            final Iterator<T> it = runs.get(run).iterator();
+            iterators.add(it);
+            if (it.hasNext()) {
+                heads[run] = it.next();
+                heap[n++] = run;
+            }
+        }
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(heap, n, i, heads, c);
+        }
+        final Object[] merged = new Object[(int) region.size()];
+        int pos = 0;
+        while (n > 0) {
+            final int run = heap[0];
+            merged[pos++] = heads[run];
+            final Iterator<T> it = iterators.get(run);
+            if (it.hasNext()) {
+                heads[run] = it.next();
+            } else {
+                heap[0] = heap[--n];
+            }
+            siftDown(heap, n, 0, heads, c);
+        }
+        try {
+            for (final RangedList<T> run : runs) {
+                result.removeChunk(run);
+            }
+            result.addChunk(new Chunk<>(region, merged));
+        } catch (final Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("[DistSort] exception raised while merging.");
+        }
+    }
+
+    private static void siftDown(int[] heap, int n, int i, Object[] heads, Comparator<Object> c) {
+        final int run = heap[i];
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && c.compare(heads[heap[child + 1]], heads[heap[child]]) < 0) {
+                child++;
+            }
+            if (c.compare(heads[heap[child]], heads[run]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = run;
+    }
+}
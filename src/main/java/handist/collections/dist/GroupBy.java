@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import apgas.Place;
+import handist.collections.Tracer;
+
+/**
+ * Implementation of the {@code groupBy} and {@code aggregateByKey} operations
+ * of {@link DistBag}, {@link DistCol} and {@link DistMap}.
+ * <p>
+ * The pairs of key and value produced by the local elements are first
+ * combined per key at the place where they are produced: {@code groupBy}
+ * gathers the values of each key in a list, while {@code aggregateByKey}
+ * combines them with the given function so that a single value per key and
+ * per place is sent. The combined values are then grouped by destination, as
+ * given by the distribution of the keys, and sent with one request per
+ * destination in a single exchange. Each place finally merges the partial
+ * results it received into the resulting collection, combining them again
+ * in the case of {@code aggregateByKey}.
+ * <p>
+ * Both operations are collective: they must be called at every place of the
+ * group. {@code aggregateByKey} does not accept {@code null} values, nor
+ * {@code null} results of the combining function, and throws a
+ * {@link NullPointerException} when one is found.
+ */
+final class GroupBy {
+
+    private GroupBy() {
+    }
+
+    /**
+     * Groups the values produced by the local elements into a new
+     * {@link DistMapList}. Must be called at every place of the group.
+     *
+     * @param pg     the group of places taking part in the operation
+     * @param source action feeding every local pair of key and value to the
+     *               given consumer
+     * @param dist   the distribution of the keys of the result
+     */
+    static <K, V> DistMapList<K, V> groupBy(TeamedPlaceGroup pg, Consumer<BiConsumer<K, V>> source,
+            Distribution<K> dist) {
+        final DistMapList<K, V> result = new DistMapList<>(pg, pg.shareNewId());
+        final Function<V, List<V>> init = (V v) -> {
+            final List<V> list = new ArrayList<>();
+            list.add(v);
+            return list;
+        };
+        final BiFunction<List<V>, V, List<V>> add = (List<V> list, V v) -> {
+            list.add(v);
+            return list;
+        };
+        shuffle(pg, source, dist, init, add, (K key, List<V> values) -> result.putForMove(key, values));
+        return result;
+    }
+
+    /**
+     * Aggregates the values produced by the local elements into a new
+     * {@link DistMap}. Must be called at every place of the group.
+     *
+     * @param pg       the group of places taking part in the operation
+     * @param source   action feeding every local pair of key and value to the
+     *                 given consumer
+     * @param combiner associative function combining two values of the same
+     *                 key
+     * @param dist     the distribution of the keys of the result
+     * @throws NullPointerException if a value or a result of {@code combiner}
+     *                              is {@code null}
+     */
+    static <K, V> DistMap<K, V> aggregateByKey(TeamedPlaceGroup pg, Consumer<BiConsumer<K, V>> source,
+            BinaryOperator<V> combiner, Distribution<K> dist) {
+        final DistMap<K, V> result = new DistMap<>(pg, pg.shareNewId());
+        final Consumer<BiConsumer<K, V>> checkedSource = (BiConsumer<K, V> out) -> {
+            source.accept((K key, V value) -> out.accept(key, nonNull(key, value)));
+        };
+        final BinaryOperator<V> checkedCombiner = (V a, V b) -> {
+            final V combined = combiner.apply(a, b);
+            if (combined == null) {
+                throw new NullPointerException("[GroupBy] aggregateByKey combiner returned null");
+            }
+            return combined;
+        };
+        shuffle(pg, checkedSource, dist, Function.identity(), checkedCombiner,
+                (K key, V value) -> result.data.merge(key, value, checkedCombiner));
+        return result;
+    }
+
+    private static <K, V> V nonNull(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("[GroupBy] aggregateByKey does not accept null values (key " + key + ")");
+        }
+        return value;
+    }
+
+    /**
+     * Combines the local pairs per key, sends the combined values to the
+     * place of their key and hands the partial results held by the current
+     * place to {@code merge}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V, A> void shuffle(TeamedPlaceGroup pg, Consumer<BiConsumer<K, V>> source,
+            Distribution<K> dist, Function<V, A> init, BiFunction<A, V, A> add, BiConsumer<K, A> merge) {
+        final HashMap<Place, HashMap<K, A>> partitions = new HashMap<>();
+        Tracer.begin("GroupBy.combine");
+        try {
+            final HashMap<K, A> combined = new HashMap<>();
+            source.accept((K key, V value) -> {
+                final A previous = combined.get(key);
+                combined.put(key, previous == null ? init.apply(value) : add.apply(previous, value));
+            });
+            for (final Map.Entry<K, A> entry : combined.entrySet()) {
+                partitions.computeIfAbsent(dist.place(entry.getKey()), p -> new HashMap<>()).put(entry.getKey(),
+                        entry.getValue());
+            }
+            combined.clear();
+        } finally {
+            Tracer.end("GroupBy.combine");
+        }
+
+        // Partial results received from the other places are staged in a bag
+        // so that they can be merged with the function of the current place
+        final DistBag<HashMap<K, A>> staging = new DistBag<>(pg, pg.shareNewId());
+        final MoveManagerLocal mm = new MoveManagerLocal(pg);
+        final Place here = apgas.Constructs.here();
+        for (final Map.Entry<Place, HashMap<K, A>> entry : partitions.entrySet()) {
+            final HashMap<K, A> partition = entry.getValue();
+            if (entry.getKey().equals(here)) {
+                staging.add(partition);
+                continue;
+            }
+            final Serializer serialize = (ObjectOutputStream s) -> {
+                s.writeObject(partition);
+            };
+            final DeSerializer deserialize = (ObjectInputStream ds) -> {
+                staging.add((HashMap<K, A>) ds.readObject());
+            };
+            mm.request(entry.getKey(), serialize, deserialize, partition.size());
+        }
+        try {
+            mm.sync();
+        } catch (final Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException("[GroupBy] exception raised during the exchange.");
+        }
+
+        Tracer.begin("GroupBy.merge");
+        try {
+            for (final HashMap<K, A> partial : staging.data) {
+                for (final Map.Entry<K, A> entry : partial.entrySet()) {
+                    merge.accept(entry.getKey(), entry.getValue());
+                }
+            }
+            staging.clear();
+            staging.destroy();
+        } finally {
+            Tracer.end("GroupBy.merge");
+        }
+    }
+}
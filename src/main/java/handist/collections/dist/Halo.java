@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import apgas.Place;
+import handist.collections.Chunk;
+import handist.collections.ChunkedList;
+import handist.collections.LongRange;
+import handist.collections.LongRangeSet;
+import handist.collections.RangedList;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Read-only copies of the elements of a {@link DistCol} lying within a given
+ * distance of the ranges of the current place, see
+ * {@link DistCol#setHaloWidth(long)}.
+ * <p>
+ * The halo of each place is derived from the distribution of the collection
+ * known to every place, so that each place determines by itself which of its
+ * elements the other places need: the copies are sent in a single exchange
+ * without prior requests. When only the changed values are requested and the
+ * distribution did not change since the previous exchange, each place only
+ * sends the elements which are not equal to the values it sent the previous
+ * time. The values sent are retained by reference, so that an element
+ * modified in place compares equal to its retained self and is not sent
+ * again.
+ *
+ * @param <T> type of the elements of the collection
+ */
+final class Halo<T> {
+
+    private final DistCol<T> col;
+    final long width;
+    /** Copies of the elements of the other places */
+    ChunkedList<T> ghosts = new ChunkedList<>();
+    /** Distribution of the collection at the time of the previous exchange */
+    private HashMap<LongRange, Place> layout;
+    /**
+     * Values sent during the previous exchanges, for each destination and each
+     * range sent
+     */
+    private final HashMap<Place, HashMap<LongRange, Object[]>> sent = new HashMap<>();
+
+    Halo(DistCol<T> col, long width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("[Halo] negative width: " + width);
+        }
+        this.col = col;
+        this.width = width;
+    }
+
+    /**
+     * Returns the indices lying within {@code width} of the given ranges
+     * without belonging to them, as sorted disjoint ranges.
+     *
+     * @param owned the ranges held by a place
+     * @param width the width of the halo
+     * @return the halo of the given ranges
+     */
+    static List<LongRange> haloOf(Collection<LongRange> owned, long width) {
+        return haloSet(LongRangeSet.of(owned), width).ranges();
+    }
+
+    /**
+     * Returns the indices lying within {@code width} of the given set without
+     * belonging to it.
+     */
+    private static LongRangeSet haloSet(LongRangeSet owned, long width) {
+        final long[] expanded = new long[2 * owned.rangeCount()];
+        for (int k = 0; k < owned.rangeCount(); k++) {
+            expanded[2 * k] = owned.from(k) - width;
+            expanded[2 * k + 1] = owned.to(k) + width;
+        }
+        return LongRangeSet.ofBounds(expanded).difference(owned);
+    }
+
+    /**
+     * Checks that the same halo width was declared at every place of the group
+     * of the given collection. Must be called at every place of the group.
+     *
+     * @param col the collection whose halo is about to be exchanged
+     * @throws IllegalStateException if the widths differ between places
+     */
+    static void checkWidth(DistCol<?> col) {
+        final long width = col.getHaloWidth();
+        // The maximum of the negated widths gives the opposite of the minimum
+        final long[] bounds = new long[2];
+        try {
+            col.placeGroup().comm.Allreduce(new long[] { width, -width }, 0, bounds, 0, 2, MPI.LONG, MPI.MAX);
+        } catch (final MPIException e) {
+            e.printStackTrace();
+            throw new Error("[Halo] network error in exchangeHalo()");
+        }
+        if (bounds[0] != -bounds[1]) {
+            throw new IllegalStateException(
+                    "[Halo] halo widths differ between places, from " + -bounds[1] + " to " + bounds[0]);
+        }
+    }
+
+    /**
+     * Updates the copies of the elements of the other places. Must be called
+     * at every place of the group.
+     *
+     * @param changedOnly whether only the values changed since the previous
+     *                    exchange are sent
+     * @throws Exception if raised during the exchange
+     */
+    void exchange(boolean changedOnly) throws Exception {
+        final TeamedPlaceGroup pg = col.placeGroup();
+        final HashMap<LongRange, Place> dist = col.getDist();
+        // Every place reaches the same conclusion, the distribution being
+        // the same everywhere
+        final boolean delta = changedOnly && dist.equals(layout);
+        layout = new HashMap<>(dist);
+        if (!delta) {
+            ghosts = new ChunkedList<>();
+            sent.clear();
+        }
+
+        final Map<Place, List<LongRange>> owned = new HashMap<>();
+        for (final Map.Entry<LongRange, Place> e : dist.entrySet()) {
+            owned.computeIfAbsent(e.getValue(), p -> new ArrayList<>()).add(e.getKey());
+        }
+        final MoveManagerLocal mm = new MoveManagerLocal(pg);
+        final DistCol<T> toBranch = col; // resolved to the local branch at the destination
+        for (final Place dest : pg.places()) {
+            if (dest.equals(here()) || !owned.containsKey(dest)) {
+                continue;
+            }
+            final LongRangeSet halo = haloSet(LongRangeSet.of(owned.get(dest)), width);
+            final ArrayList<RangedList<T>> full = new ArrayList<>();
+            final ArrayList<Long> changedIndices = new ArrayList<>();
+            final ArrayList<T> changedValues = new ArrayList<>();
+            final HashMap<LongRange, Object[]> previous = changedOnly
+                    ? sent.computeIfAbsent(dest, p -> new HashMap<>())
+                    : null;
+            col.forEachChunk((RangedList<T> c) -> {
+                final LongRange cRange = c.getRange();
+                for (final LongRange piece : halo.intersection(cRange)) {
+                    final long from = piece.from;
+                    final long to = piece.to;
+                    final Object[] values = previous == null ? null : previous.get(piece);
+                    if (values == null) {
+                        final Chunk<T> copy = new Chunk<>(piece);
+                        for (long i = from; i < to; i++) {
+                            copy.set(i, c.get(i));
+                        }
+                        full.add(copy);
+                        if (previous != null) {
+                            previous.put(piece, copy.toArray());
+                        }
+                    } else {
+                        for (long i = from; i < to; i++) {
+                            final T v = c.get(i);
+                            if (!Objects.equals(values[(int) (i - from)], v)) {
+                                values[(int) (i - from)] = v;
+                                changedIndices.add(i);
+                                changedValues.add(v);
+                            }
+                        }
+                    }
+                }
+            });
+            if (full.isEmpty() && changedIndices.isEmpty()) {
+                continue;
+            }
+            final Serializer serialize = (ObjectOutputStream s) -> {
+                s.writeObject(full);
+                s.writeInt(changedIndices.size());
+                for (int k = 0; k < changedIndices.size(); k++) {
+                    s.writeLong(changedIndices.get(k));
+                    s.writeObject(changedValues.get(k));
+                }
+            };
+            final DeSerializer deserialize = (ObjectInputStream ds) -> {
+                @SuppressWarnings("unchecked")
+                final List<RangedList<T>> chunks = (List<RangedList<T>>) ds.readObject();
+                final ChunkedList<T> ghosts = toBranch.halo.ghosts;
+                for (final RangedList<T> c : chunks) {
+                    ghosts.removeChunk(c);
+                    ghosts.addChunk(c);
+                }
+                final int n = ds.readInt();
+                for (int k = 0; k < n; k++) {
+                    final long i = ds.readLong();
+                    @SuppressWarnings("unchecked")
+                    final T v = (T) ds.readObject();
+                    ghosts.set(i, v);
+                }
+            };
+            long numElements = changedIndices.size();
+            for (final RangedList<T> c : full) {
+                numElements += c.longSize();
+            }
+            mm.request(dest, serialize, deserialize, numElements);
+        }
+        mm.sync();
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import apgas.Place;
+import handist.collections.LongRange;
+
+/**
+ * Distribution of long indices which can give the destination of individual
+ * indices as well as that of ranges of indices. Implementations compute the
+ * destinations analytically: {@link #placeRanges(LongRange)} runs in time
+ * proportional to the number of pieces it returns and no map of the indices
+ * is materialized.
+ * <p>
+ * The implementations provided by the library are {@link BlockDistribution},
+ * {@link CyclicDistribution}, {@link BlockCyclicDistribution} and
+ * {@link ConsistentHashDistribution}. They can be used with
+ * {@link DistCol#moveAtSync(LongRangeDistribution, MoveManagerLocal)} and
+ * {@link DistIdMap#moveAtSync(Distribution, MoveManagerLocal)}.
+ */
+public interface LongRangeDistribution extends RangedDistribution<LongRange>, Distribution<Long> {
+
+    /**
+     * Returns the place to which the given index is assigned.
+     *
+     * @param index the index
+     * @return the place of the index
+     */
+    Place place(long index);
+
+    @Override
+    default Place place(Long key) {
+        return place(key.longValue());
+    }
+
+    /**
+     * Default implementation computing the destination of each index of the
+     * range and merging consecutive indices with the same destination.
+     */
+    @Override
+    default Map<LongRange, Place> placeRanges(LongRange range) {
+        final Map<LongRange, Place> result = new LinkedHashMap<>();
+        long start = range.from;
+        Place current = null;
+        for (long i = range.from; i < range.to; i++) {
+            final Place p = place(i);
+            if (!p.equals(current)) {
+                if (current != null) {
+                    result.put(new LongRange(start, i), current);
+                }
+                start = i;
+                current = p;
+            }
+        }
+        if (current != null) {
+            result.put(new LongRange(start, range.to), current);
+        }
+        return result;
+    }
+}
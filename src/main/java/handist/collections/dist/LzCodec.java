@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fast {@link PayloadCodec} of the LZ77 family, which trades compression ratio
+ * for speed. The compressed bytes follow the block format of LZ4: a sequence
+ * of tokens, each made of a run of literals followed by a match of at least
+ * {@value #MIN_MATCH} bytes within the previous 64KB. Matches are found with a
+ * single-entry hash table, and the search skips ahead faster and faster on
+ * data which does not compress.
+ */
+final class LzCodec implements PayloadCodec {
+
+    private static final int MIN_MATCH = 4;
+    /** Number of bytes at the end of the input which are always literals */
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 0xffff;
+    private static final int HASH_LOG = 14;
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    /** Writes the extra bytes of a length which does not fit in a token */
+    private static int writeLength(byte[] dst, int dp, int length) {
+        while (length >= 255) {
+            dst[dp++] = (byte) 255;
+            length -= 255;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    @Override
+    public byte id() {
+        return 2;
+    }
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        final byte[] dst = new byte[length + length / 255 + 16];
+        final int[] table = new int[1 << HASH_LOG];
+        Arrays.fill(table, -1);
+        final int end = offset + length;
+        final int matchLimit = end - LAST_LITERALS;
+        int anchor = offset;
+        int p = offset;
+        int dp = 0;
+        int misses = 0;
+        while (p + MIN_MATCH <= matchLimit) {
+            final int sequence = readInt(src, p);
+            final int h = hash(sequence);
+            final int ref = table[h];
+            table[h] = p;
+            if (ref < 0 || p - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                p += 1 + (misses++ >>> 6);
+                continue;
+            }
+            misses = 0;
+            int matchLength = MIN_MATCH;
+            while (p + matchLength < matchLimit && src[ref + matchLength] == src[p + matchLength]) {
+                matchLength++;
+            }
+
+            final int literals = p - anchor;
+            final int tokenPos = dp++;
+            int token = 0;
+            if (literals >= 15) {
+                token = 15 << 4;
+                dp = writeLength(dst, dp, literals - 15);
+            } else {
+                token = literals << 4;
+            }
+            System.arraycopy(src, anchor, dst, dp, literals);
+            dp += literals;
+            final int distance = p - ref;
+            dst[dp++] = (byte) distance;
+            dst[dp++] = (byte) (distance >>> 8);
+            final int extra = matchLength - MIN_MATCH;
+            if (extra >= 15) {
+                token |= 15;
+                dp = writeLength(dst, dp, extra - 15);
+            } else {
+                token |= extra;
+            }
+            dst[tokenPos] = (byte) token;
+
+            p += matchLength;
+            anchor = p;
+        }
+
+        // The last token only holds literals
+        final int literals = end - anchor;
+        if (literals >= 15) {
+            dst[dp++] = (byte) (15 << 4);
+            dp = writeLength(dst, dp, literals - 15);
+        } else {
+            dst[dp++] = (byte) (literals << 4);
+        }
+        System.arraycopy(src, anchor, dst, dp, literals);
+        dp += literals;
+        return Arrays.copyOf(dst, dp);
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int offset, int length, int originalLength) throws IOException {
+        final byte[] dst = new byte[originalLength];
+        final int end = offset + length;
+        int sp = offset;
+        int dp = 0;
+        try {
+            while (sp < end) {
+                final int token = src[sp++] & 0xff;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xff;
+                        literals += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(src, sp, dst, dp, literals);
+                sp += literals;
+                dp += literals;
+                if (sp >= end) {
+                    break;
+                }
+                final int distance = (src[sp++] & 0xff) | (src[sp++] & 0xff) << 8;
+                int matchLength = token & 15;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xff;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                final int ref = dp - distance;
+                if (distance == 0 || ref < 0) {
+                    throw new IOException("[LzCodec] corrupted payload");
+                }
+                // The match may overlap the bytes it produces
+                for (int i = 0; i < matchLength; i++) {
+                    dst[dp + i] = dst[ref + i];
+                }
+                dp += matchLength;
+            }
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IOException("[LzCodec] corrupted payload", e);
+        }
+        if (dp != originalLength) {
+            throw new IOException("[LzCodec] corrupted payload");
+        }
+        return dst;
+    }
+
+    @Override
+    public String toString() {
+        return "lz";
+    }
+}
@@ -20,9 +20,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import apgas.Place;
+import handist.collections.Tracer;
 
 /**
  * This class is used for relocating elements of DistCollections.
@@ -32,6 +34,8 @@ public final class MoveManagerLocal {
     final TeamedPlaceGroup placeGroup;
     final Map<Place, List<Serializer>> serializeListMap;
     final Map<Place, List<DeSerializer>> builders;
+    /** Number of elements covered by the requests registered since the last sync */
+    private long requestedElements = 0;
 
 
     /**
@@ -57,6 +61,25 @@ public final class MoveManagerLocal {
         builders.get(pl).add(deserializer);
     }
 
+    /**
+     * Registers a relocation request covering the specified number of
+     * elements. The number of elements is only used for metrics.
+     *
+     * @param pl the destination place
+     * @param serializer serializer executed at the current place
+     * @param deserializer deserializer executed at the destination
+     * @param numElements number of elements sent by this request
+     * @see RelocationMetrics#getElementsMoved()
+     */
+    void request(Place pl, Serializer serializer, DeSerializer deserializer, long numElements) {
+        request(pl, serializer, deserializer);
+        requestedElements += numElements;
+    }
+
+    long requestedElements() {
+        return requestedElements;
+    }
+
     public void clear() {
         for (List<Serializer> list: serializeListMap.values()) {
             list.clear();
@@ -64,6 +87,7 @@ public final class MoveManagerLocal {
         for (List<DeSerializer> list: builders.values()) {
             list.clear();
         }
+        requestedElements = 0;
     }
 
     /**
@@ -113,14 +137,12 @@ public final class MoveManagerLocal {
                 continue;
             offsets[i] = out.size();
             // TODO should reopen ByteArray...
-            System.out.println("execSeri: " + here() + "->" + place + ":start:" + out.size());
             ObjectOutputStream s = new ObjectOutputStream(out);
             s.writeObject(builders.get(place));
             for (Serializer serializer : serializeListMap.get(place)) {
                 serializer.accept(s);
             }
             s.close();
-            System.out.println("execSeri: " + here() + "->" + place + ":finish:" + out.size());
             sizes[i] = out.size() - offsets[i];
         }
     }
@@ -155,7 +177,52 @@ public final class MoveManagerLocal {
      *  the relocation
      */
     public void sync() throws Exception {
-        CollectiveRelocator.all2allser(placeGroup, this);
+        Tracer.begin("MoveManagerLocal.sync");
+        try {
+            CollectiveRelocator.all2allser(placeGroup, this);
+        } finally {
+            Tracer.end("MoveManagerLocal.sync");
+        }
+    }
+
+    /**
+     * Execute the all requests asynchronously. Like {@link #sync()}, this
+     * method must be called at every place of the group. The requests are
+     * serialized before this method returns; the exchange of the serialized
+     * requests and their deserialization are then carried out by the
+     * communication thread of the group while the calling thread continues.
+     * <p>
+     * The following rules apply while the returned future is not completed:
+     * <ul>
+     * <li>the elements sent by the current place have already been removed
+     * from their collection, and this instance holds no request: both can be
+     * used, and new requests can be registered right away;
+     * <li>the collections which receive elements, that is the collections
+     * whose {@code moveAtSync} methods were called at any place, must not be
+     * read nor modified at the current place, as elements are added to them
+     * by the communication thread;
+     * <li>the other collections can be used freely, including with blocking
+     * collective operations such as {@link #sync()}, since the asynchronous
+     * exchanges use a communicator of their own. This requires an MPI
+     * implementation supporting calls from several threads.
+     * </ul>
+     * Several asynchronous relocations of the same group may be in flight at
+     * the same time: they are exchanged one after the other, in the order in
+     * which they were started, which must be the same at every place.
+     *
+     * @return a future completed once the elements sent to the current place
+     *         have been added to their collection, or completed exceptionally
+     *         if an exception was thrown during the exchange
+     * @throws Exception if a runtime exception is thrown during the
+     *                   serialization of the requests
+     */
+    public CompletableFuture<Void> syncAsync() throws Exception {
+        Tracer.begin("MoveManagerLocal.syncAsync");
+        try {
+            return CollectiveRelocator.all2allserAsync(placeGroup, this);
+        } finally {
+            Tracer.end("MoveManagerLocal.syncAsync");
+        }
     }
 
 
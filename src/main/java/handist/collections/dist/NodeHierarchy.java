@@ -0,0 +1,409 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mpi.Intracomm;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * Two-level implementations of the collective operations of
+ * {@link CollectiveRelocator}, for groups whose places run on several nodes
+ * with several places each.
+ * <p>
+ * The places of a group are divided into nodes according to the name of
+ * their host, or into blocks of consecutive ranks if the system property
+ * {@value #RANKS_PER_NODE_PROPERTY} is set, which allows the hierarchical
+ * operations to be tried on a single host. The place of lowest rank of each
+ * node is its leader. Each operation first combines the contributions of the
+ * places of each node at their leader, then exchanges them between the
+ * leaders only, and finally distributes the result within each node. The
+ * data crossing the network is thus sent once per node rather than once per
+ * place.
+ * <p>
+ * The hierarchical operations are used automatically when a group spans
+ * several nodes and at least one node holds several places of the group. They
+ * can be disabled for every group of this JVM with {@link #disable()} or by
+ * setting the system property {@value #ENABLE_PROPERTY} to {@code false};
+ * this setting must be the same at every place. The asynchronous relocations
+ * of {@link MoveManagerLocal#syncAsync()} always use the flat operations.
+ */
+public final class NodeHierarchy {
+
+    /** System property enabling the hierarchical operations (default true) */
+    public static final String ENABLE_PROPERTY = "handist.collections.hierarchy";
+
+    /** System property giving a number of consecutive ranks per node */
+    public static final String RANKS_PER_NODE_PROPERTY = "handist.collections.hierarchy.ranksPerNode";
+
+    static volatile boolean enabled = Boolean.parseBoolean(System.getProperty(ENABLE_PROPERTY, "true"));
+
+    /**
+     * Enables the hierarchical operations for every group of this JVM.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Disables the hierarchical operations for every group of this JVM.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Indicates whether the hierarchical operations are enabled.
+     *
+     * @return {@code true} if groups spanning several nodes use them
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Rank of the current place in the group */
+    private final int myrank;
+    /** Node of each rank */
+    final int[] nodeOf;
+    /** Position of each rank within its node */
+    final int[] localRankOf;
+    /** Ranks of each node, in increasing order */
+    final int[][] members;
+    /** Places of the node of the current place, ranked in increasing order */
+    final Intracomm local;
+    /** Leaders of the nodes, ranked by node; {@code null} at other places */
+    final Intracomm leaders;
+
+    /**
+     * Divides the places of the given group into nodes. Must be called at every
+     * place of the group.
+     */
+    NodeHierarchy(TeamedPlaceGroup pg) throws MPIException {
+        myrank = pg.myrank();
+        final int size = pg.size();
+        final long[] keys = new long[size];
+        pg.comm.Allgather(new long[] { nodeKey(myrank) }, 0, 1, MPI.LONG, keys, 0, 1, MPI.LONG);
+
+        // Nodes are numbered in the order of their lowest rank
+        final Map<Long, List<Integer>> nodes = new LinkedHashMap<>();
+        for (int rank = 0; rank < size; rank++) {
+            nodes.computeIfAbsent(keys[rank], k -> new ArrayList<>()).add(rank);
+        }
+        nodeOf = new int[size];
+        localRankOf = new int[size];
+        members = new int[nodes.size()][];
+        int node = 0;
+        for (final List<Integer> ranks : nodes.values()) {
+            members[node] = new int[ranks.size()];
+            for (int i = 0; i < ranks.size(); i++) {
+                final int rank = ranks.get(i);
+                members[node][i] = rank;
+                nodeOf[rank] = node;
+                localRankOf[rank] = i;
+            }
+            node++;
+        }
+        local = pg.comm.Split(nodeOf[myrank], myrank);
+        final Intracomm l = pg.comm.Split(isLeader() ? 0 : 1, myrank);
+        leaders = isLeader() ? l : null;
+    }
+
+    private static long nodeKey(int rank) {
+        final String perNode = System.getProperty(RANKS_PER_NODE_PROPERTY);
+        if (perNode != null) {
+            return rank / Integer.parseInt(perNode);
+        }
+        try {
+            final String host = InetAddress.getLocalHost().getHostName();
+            long h = 1125899906842597L;
+            for (int i = 0; i < host.length(); i++) {
+                h = 31 * h + host.charAt(i);
+            }
+            return h;
+        } catch (final UnknownHostException e) {
+            // Every place is considered to be on a node of its own
+            return -1 - rank;
+        }
+    }
+
+    /**
+     * Indicates whether the hierarchical operations should be used, that is
+     * if they are enabled, if there are several nodes and if at least one of
+     * them holds several places.
+     */
+    boolean useful() {
+        return enabled && members.length > 1 && members.length < nodeOf.length;
+    }
+
+    int nodes() {
+        return members.length;
+    }
+
+    private boolean isLeader() {
+        return localRankOf[myrank] == 0;
+    }
+
+    private int[] myMembers() {
+        return members[nodeOf[myrank]];
+    }
+
+    /** Returns the displacements of the given counts */
+    private static int[] displacements(int[] counts) {
+        final int[] displs = new int[counts.length];
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            displs[i] = total;
+            total += counts[i];
+        }
+        return displs;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (final int c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Gathers the bytes of every place of the node at its leader, in the order
+     * of their ranks. Returns {@code null} at the other places.
+     */
+    private byte[] gatherAtLeader(byte[] buf, int size, int[] counts) throws MPIException {
+        final int[] mine = myMembers();
+        final int[] localCounts = new int[mine.length];
+        for (int i = 0; i < mine.length; i++) {
+            localCounts[i] = counts[mine[i]];
+        }
+        final byte[] block = isLeader() ? new byte[sum(localCounts)] : null;
+        local.Gatherv(buf, 0, size, MPI.BYTE, block, 0, localCounts, displacements(localCounts), MPI.BYTE, 0);
+        return block;
+    }
+
+    /**
+     * Two-level equivalent of an {@code Allgatherv} of bytes. Every place
+     * gives the number of bytes of each place in {@code counts}; the bytes of
+     * rank {@code i} are placed in the result at the sum of the counts of
+     * the lower ranks.
+     */
+    byte[] allgatherv(byte[] buf, int size, int[] counts) throws MPIException {
+        final int[] displs = displacements(counts);
+        final byte[] result = new byte[sum(counts)];
+        final byte[] block = gatherAtLeader(buf, size, counts);
+        if (isLeader()) {
+            final int[] nodeCounts = new int[members.length];
+            for (int rank = 0; rank < counts.length; rank++) {
+                nodeCounts[nodeOf[rank]] += counts[rank];
+            }
+            final int[] nodeDispls = displacements(nodeCounts);
+            final byte[] all = new byte[result.length];
+            leaders.Allgatherv(block, 0, block.length, MPI.BYTE, all, 0, nodeCounts, nodeDispls, MPI.BYTE);
+            // Put the blocks of the nodes in the order of the ranks
+            for (int node = 0; node < members.length; node++) {
+                int p = nodeDispls[node];
+                for (final int rank : members[node]) {
+                    System.arraycopy(all, p, result, displs[rank], counts[rank]);
+                    p += counts[rank];
+                }
+            }
+        }
+        local.Bcast(result, 0, result.length, MPI.BYTE, 0);
+        return result;
+    }
+
+    /**
+     * Two-level equivalent of a {@code Gatherv} of bytes to the given root.
+     * The result is only returned at the root, in the same layout as
+     * {@link #allgatherv(byte[], int, int[])}.
+     */
+    byte[] gatherv(byte[] buf, int size, int[] counts, int root) throws MPIException {
+        final int[] displs = displacements(counts);
+        final int rootNode = nodeOf[root];
+        final byte[] block = gatherAtLeader(buf, size, counts);
+        byte[] result = null;
+        if (isLeader()) {
+            final int[] nodeCounts = new int[members.length];
+            for (int rank = 0; rank < counts.length; rank++) {
+                nodeCounts[nodeOf[rank]] += counts[rank];
+            }
+            final int[] nodeDispls = displacements(nodeCounts);
+            final boolean rootLeader = nodeOf[myrank] == rootNode;
+            final byte[] all = rootLeader ? new byte[sum(counts)] : null;
+            leaders.Gatherv(block, 0, block.length, MPI.BYTE, all, 0, nodeCounts, nodeDispls, MPI.BYTE, rootNode);
+            if (rootLeader) {
+                result = new byte[all.length];
+                for (int node = 0; node < members.length; node++) {
+                    int p = nodeDispls[node];
+                    for (final int rank : members[node]) {
+                        System.arraycopy(all, p, result, displs[rank], counts[rank]);
+                        p += counts[rank];
+                    }
+                }
+            }
+        }
+        if (nodeOf[myrank] == rootNode && members[rootNode][0] != root) {
+            // The leader of the node of the root hands the result over to it
+            final int[] scatterCounts = new int[members[rootNode].length];
+            scatterCounts[localRankOf[root]] = sum(counts);
+            final byte[] received = new byte[myrank == root ? sum(counts) : 0];
+            local.Scatterv(result, 0, scatterCounts, new int[scatterCounts.length], MPI.BYTE, received, 0,
+                    received.length, MPI.BYTE, 0);
+            result = received;
+        }
+        return myrank == root ? result : null;
+    }
+
+    /**
+     * Two-level equivalent of a {@code Bcast} of bytes from the given root.
+     */
+    void bcast(byte[] buf, int size, int root) throws MPIException {
+        final int rootNode = nodeOf[root];
+        if (nodeOf[myrank] == rootNode) {
+            local.Bcast(buf, 0, size, MPI.BYTE, localRankOf[root]);
+        }
+        if (isLeader()) {
+            leaders.Bcast(buf, 0, size, MPI.BYTE, rootNode);
+        }
+        if (nodeOf[myrank] != rootNode) {
+            local.Bcast(buf, 0, size, MPI.BYTE, 0);
+        }
+    }
+
+    /**
+     * Two-level equivalent of an {@code Alltoallv} of bytes. The bytes sent
+     * to each rank are routed through the leader of the node of the sender
+     * and through the leader of the node of the receiver. Every place gives
+     * the number of bytes it sends to and receives from each rank; the
+     * received bytes are placed one after the other in {@code recvbuf}, in
+     * the order of the senders.
+     */
+    void alltoallv(TeamedPlaceGroup pg, byte[] sendbuf, int[] sendSize, int[] sendOffset, byte[] recvbuf,
+            int[] rcvSize) throws MPIException {
+        final int size = nodeOf.length;
+        final int[] mine = myMembers();
+        final int n = mine.length;
+
+        // The leader collects the sizes and the bytes sent and received by
+        // the places of its node
+        final int[] sizes = new int[2 * size];
+        System.arraycopy(sendSize, 0, sizes, 0, size);
+        System.arraycopy(rcvSize, 0, sizes, size, size);
+        final int[] allSizes = isLeader() ? new int[2 * size * n] : null;
+        local.Gather(sizes, 0, 2 * size, MPI.INT, allSizes, 0, 2 * size, MPI.INT, 0);
+        // Bytes sent by each place, packed in the order of the destinations
+        final int total = sum(sendSize);
+        final byte[] packed = new byte[total];
+        int p = 0;
+        for (int dest = 0; dest < size; dest++) {
+            System.arraycopy(sendbuf, sendOffset[dest], packed, p, sendSize[dest]);
+            p += sendSize[dest];
+        }
+        final int[] localTotals = new int[n];
+        local.Gather(new int[] { total }, 0, 1, MPI.INT, localTotals, 0, 1, MPI.INT, 0);
+        final byte[] gathered = isLeader() ? new byte[sum(localTotals)] : null;
+        local.Gatherv(packed, 0, total, MPI.BYTE, gathered, 0, localTotals, displacements(localTotals), MPI.BYTE,
+                0);
+
+        byte[] scattered = null;
+        int[] scatterCounts = null;
+        if (isLeader()) {
+            final int[] localDispls = displacements(localTotals);
+            // Position of the bytes sent by local place s to rank d
+            final int[][] from = new int[n][size];
+            for (int s = 0; s < n; s++) {
+                int q = localDispls[s];
+                for (int d = 0; d < size; d++) {
+                    from[s][d] = q;
+                    q += allSizes[2 * size * s + d];
+                }
+            }
+
+            // Exchange between leaders: for each pair of nodes, the bytes sent
+            // by the places of the first to those of the second, by sender
+            // then receiver
+            final int nodes = members.length;
+            final int[] leaderSendCounts = new int[nodes];
+            for (int s = 0; s < n; s++) {
+                for (int d = 0; d < size; d++) {
+                    leaderSendCounts[nodeOf[d]] += allSizes[2 * size * s + d];
+                }
+            }
+            final byte[] leaderSend = new byte[sum(leaderSendCounts)];
+            final int[] leaderSendDispls = displacements(leaderSendCounts);
+            for (int node = 0; node < nodes; node++) {
+                int q = leaderSendDispls[node];
+                for (int s = 0; s < n; s++) {
+                    for (final int d : members[node]) {
+                        final int c = allSizes[2 * size * s + d];
+                        System.arraycopy(gathered, from[s][d], leaderSend, q, c);
+                        q += c;
+                    }
+                }
+            }
+            // Bytes received by local place r from rank s
+            final int[] leaderRecvCounts = new int[nodes];
+            for (int r = 0; r < n; r++) {
+                for (int s = 0; s < size; s++) {
+                    leaderRecvCounts[nodeOf[s]] += allSizes[2 * size * r + size + s];
+                }
+            }
+            final byte[] leaderRecv = new byte[sum(leaderRecvCounts)];
+            final int[] leaderRecvDispls = displacements(leaderRecvCounts);
+            pg.Alltoallv(leaders, leaderSend, 0, leaderSendCounts, leaderSendDispls, MPI.BYTE, leaderRecv, 0,
+                    leaderRecvCounts, leaderRecvDispls, MPI.BYTE);
+
+            // Bytes for each local place, in the order of the senders
+            scatterCounts = new int[n];
+            for (int r = 0; r < n; r++) {
+                for (int s = 0; s < size; s++) {
+                    scatterCounts[r] += allSizes[2 * size * r + size + s];
+                }
+            }
+            final int[] scatterDispls = displacements(scatterCounts);
+            scattered = new byte[sum(scatterCounts)];
+            // Position of the bytes received from rank s by local place r
+            final int[] q = new int[nodes];
+            for (int node = 0; node < nodes; node++) {
+                q[node] = leaderRecvDispls[node];
+            }
+            final int[][] to = new int[n][size];
+            for (int r = 0; r < n; r++) {
+                int t = scatterDispls[r];
+                for (int s = 0; s < size; s++) {
+                    to[r][s] = t;
+                    t += allSizes[2 * size * r + size + s];
+                }
+            }
+            // The block received from each node is ordered by sender then
+            // receiver
+            for (int node = 0; node < nodes; node++) {
+                for (final int s : members[node]) {
+                    for (int r = 0; r < n; r++) {
+                        final int c = allSizes[2 * size * r + size + s];
+                        System.arraycopy(leaderRecv, q[node], scattered, to[r][s], c);
+                        q[node] += c;
+                    }
+                }
+            }
+            local.Scatterv(scattered, 0, scatterCounts, scatterDispls, MPI.BYTE, recvbuf, 0, sum(rcvSize),
+                    MPI.BYTE, 0);
+        } else {
+            local.Scatterv(null, 0, null, null, MPI.BYTE, recvbuf, 0, sum(rcvSize), MPI.BYTE, 0);
+        }
+    }
+}
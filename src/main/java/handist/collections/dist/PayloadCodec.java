@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.IOException;
+
+/**
+ * Compression algorithm applied by {@link PayloadCompression} to the buffers
+ * exchanged by the collective operations of {@link CollectiveRelocator}.
+ * <p>
+ * Each compressed buffer carries the identifier of the codec which produced
+ * it. A codec must therefore be registered with
+ * {@link PayloadCompression#register(PayloadCodec)} at every place before
+ * buffers it compressed can be received. Codecs are called concurrently by
+ * the threads performing collective operations and must be thread-safe.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Returns the identifier of this codec, written in front of the buffers
+     * it compresses. Identifiers {@code 0} to {@code 15} are reserved for
+     * the codecs of the library.
+     *
+     * @return the identifier of this codec
+     */
+    byte id();
+
+    /**
+     * Compresses the given bytes.
+     *
+     * @param src    the array holding the bytes to compress
+     * @param offset the position of the first byte to compress
+     * @param length the number of bytes to compress
+     * @return the compressed bytes
+     */
+    byte[] compress(byte[] src, int offset, int length);
+
+    /**
+     * Restores bytes compressed by {@link #compress(byte[], int, int)}.
+     *
+     * @param src            the array holding the compressed bytes
+     * @param offset         the position of the first compressed byte
+     * @param length         the number of compressed bytes
+     * @param originalLength the number of bytes before compression
+     * @return the decompressed bytes
+     * @throws IOException if the compressed bytes are corrupted
+     */
+    byte[] decompress(byte[] src, int offset, int length, int originalLength) throws IOException;
+}
@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Compression of the buffers exchanged by the collective operations of
+ * {@link CollectiveRelocator}: the relocations of {@link MoveManagerLocal}
+ * and the {@code allgatherSer}, {@code gatherSer} and {@code bcastSer}
+ * operations.
+ * <p>
+ * Compression is disabled by default. It is enabled for every group of this
+ * JVM by selecting a codec, either with {@link #setCodec(PayloadCodec)} or
+ * with the system property {@value #CODEC_PROPERTY}, whose value is
+ * {@code deflate} or {@code lz}. Each buffer sent to a given place is
+ * compressed separately, and sent as is if it is smaller than 1KB or if
+ * compression does not make it smaller. The
+ * receiver finds out from the buffer whether and how it was compressed, so
+ * that places with different settings can communicate.
+ * <p>
+ * When no codec is selected, the buffers are sent without any header and
+ * are not copied. The sender flags the buffers that carry a header in the
+ * sizes exchanged before the buffers, see {@link #wireSize(int, boolean)}.
+ * <p>
+ * In adaptive mode, enabled with {@link #setAdaptive(boolean)} or with the
+ * system property {@value #ADAPTIVE_PROPERTY}, a buffer is only compressed
+ * if the time needed to transfer the bytes saved, estimated from the
+ * bandwidth of the network, exceeds the time needed to compress and
+ * decompress it. The compression ratio and the throughput of the codec are
+ * measured on the buffers compressed so far; one buffer in
+ * {@value #PROBE_INTERVAL} is compressed regardless to keep these
+ * measurements up to date.
+ */
+public final class PayloadCompression {
+
+    /** System property selecting the codec at startup */
+    public static final String CODEC_PROPERTY = "handist.collections.compression";
+
+    /** System property enabling the adaptive mode at startup */
+    public static final String ADAPTIVE_PROPERTY = "handist.collections.compression.adaptive";
+
+    /** System property giving the bandwidth of the network in bytes per second */
+    public static final String BANDWIDTH_PROPERTY = "handist.collections.compression.bandwidth";
+
+    /** Codec based on {@link Deflater}, with a good ratio but a low throughput */
+    public static final PayloadCodec DEFLATE = new DeflateCodec(Deflater.BEST_SPEED);
+
+    /** Codec of the LZ77 family, with a high throughput but a lower ratio */
+    public static final PayloadCodec LZ = new LzCodec();
+
+    /** Buffers smaller than this number of bytes are never compressed */
+    static int MIN_SIZE = 1024;
+
+    /** Interval between the buffers compressed in adaptive mode regardless of the estimates */
+    static final int PROBE_INTERVAL = 32;
+
+    /** Identifier of the buffers which are not compressed */
+    private static final byte RAW = 0;
+
+    /** Weight of the last measurement in the running estimates */
+    private static final double SMOOTHING = 0.2;
+
+    private static final PayloadCodec[] codecs = new PayloadCodec[128];
+
+    private static volatile PayloadCodec codec;
+    private static volatile boolean adaptive = Boolean.getBoolean(ADAPTIVE_PROPERTY);
+    private static volatile double bandwidth = Double
+            .parseDouble(System.getProperty(BANDWIDTH_PROPERTY, String.valueOf(1e9)));
+
+    /* Running estimates, guarded by the class */
+    private static double ratio;
+    private static double throughput;
+    private static long compressed;
+    private static long decisions;
+
+    static {
+        register(DEFLATE);
+        register(LZ);
+        final String name = System.getProperty(CODEC_PROPERTY, "none");
+        switch (name) {
+        case "deflate":
+            codec = DEFLATE;
+            break;
+        case "lz":
+            codec = LZ;
+            break;
+        case "none":
+            break;
+        default:
+            throw new IllegalArgumentException("[PayloadCompression] unknown codec: " + name);
+        }
+    }
+
+    private PayloadCompression() {
+    }
+
+    /**
+     * Registers a codec so that the buffers it compressed can be decompressed
+     * at the current place. The codecs of the library are always registered.
+     *
+     * @param c the codec to register
+     * @throws IllegalArgumentException if another codec was registered with
+     *                                  the same identifier
+     */
+    public static synchronized void register(PayloadCodec c) {
+        final int id = c.id();
+        if (id <= RAW) {
+            throw new IllegalArgumentException("[PayloadCompression] invalid codec identifier: " + id);
+        }
+        if (codecs[id] != null && codecs[id] != c) {
+            throw new IllegalArgumentException("[PayloadCompression] identifier " + id + " already used by "
+                    + codecs[id]);
+        }
+        codecs[id] = c;
+    }
+
+    /**
+     * Selects the codec used to compress the buffers sent by the current
+     * place, registering it if necessary. The measurements of the adaptive
+     * mode are reset.
+     *
+     * @param c the codec to use, or {@code null} to disable compression
+     */
+    public static void setCodec(PayloadCodec c) {
+        if (c != null) {
+            register(c);
+        }
+        synchronized (PayloadCompression.class) {
+            codec = c;
+            resetStatistics();
+        }
+    }
+
+    /**
+     * Returns the codec used to compress the buffers sent by the current
+     * place.
+     *
+     * @return the current codec, or {@code null} if compression is disabled
+     */
+    public static PayloadCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Enables or disables the adaptive mode.
+     *
+     * @param enabled {@code true} to only compress the buffers for which
+     *                compression is estimated to pay off
+     */
+    public static void setAdaptive(boolean enabled) {
+        adaptive = enabled;
+    }
+
+    /**
+     * Sets the bandwidth of the network assumed by the adaptive mode.
+     *
+     * @param bytesPerSecond the bandwidth available to each place
+     */
+    public static void setBandwidth(double bytesPerSecond) {
+        bandwidth = bytesPerSecond;
+    }
+
+    /**
+     * Returns the ratio between the compressed and the original size of the
+     * buffers compressed so far, as a running average.
+     *
+     * @return the measured compression ratio, or {@code 1} if no buffer was
+     *         compressed
+     */
+    public static synchronized double compressionRatio() {
+        return compressed == 0 ? 1.0 : ratio;
+    }
+
+    /**
+     * Returns the number of bytes compressed per second by the current codec,
+     * as a running average.
+     *
+     * @return the measured throughput, or {@code 0} if no buffer was
+     *         compressed
+     */
+    public static synchronized double throughput() {
+        return throughput;
+    }
+
+    /**
+     * Discards the measurements of the adaptive mode.
+     */
+    public static synchronized void resetStatistics() {
+        ratio = 0;
+        throughput = 0;
+        compressed = 0;
+        decisions = 0;
+    }
+
+    private static synchronized boolean shouldCompress(int length) {
+        if (!adaptive || compressed == 0 || ++decisions % PROBE_INTERVAL == 0) {
+            return true;
+        }
+        final double saved = length * (1 - ratio) / bandwidth;
+        final double cost = 2 * length / throughput;
+        return saved > cost;
+    }
+
+    private static synchronized void record(int length, int compressedLength, long time) {
+        final double r = (double) compressedLength / length;
+        final double t = length * 1e9 / Math.max(time, 1);
+        if (compressed++ == 0) {
+            ratio = r;
+            throughput = t;
+        } else {
+            ratio += SMOOTHING * (r - ratio);
+            throughput += SMOOTHING * (t - throughput);
+        }
+    }
+
+    /**
+     * Bytes sent to one place. A frame starts with the identifier of the
+     * codec which compressed it, followed for compressed frames by the
+     * original number of bytes on 4 bytes.
+     */
+    private static final class Frame {
+        final byte id;
+        final byte[] data;
+        final int offset;
+        final int length;
+        final int originalLength;
+
+        Frame(byte id, byte[] data, int offset, int length, int originalLength) {
+            this.id = id;
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.originalLength = originalLength;
+        }
+
+        int size() {
+            return id == RAW ? length + 1 : length + 5;
+        }
+
+        int write(byte[] dst, int dp) {
+            dst[dp] = id;
+            int header = 1;
+            if (id != RAW) {
+                dst[dp + 1] = (byte) (originalLength >>> 24);
+                dst[dp + 2] = (byte) (originalLength >>> 16);
+                dst[dp + 3] = (byte) (originalLength >>> 8);
+                dst[dp + 4] = (byte) originalLength;
+                header = 5;
+            }
+            System.arraycopy(data, offset, dst, dp + header, length);
+            return size();
+        }
+    }
+
+    private static Frame frame(PayloadCodec c, byte[] src, int offset, int length) {
+        if (c != null && length >= MIN_SIZE && shouldCompress(length)) {
+            final long t0 = System.nanoTime();
+            final byte[] out = c.compress(src, offset, length);
+            record(length, out.length, System.nanoTime() - t0);
+            if (out.length + 4 < length) {
+                return new Frame(c.id(), out, 0, out.length, length);
+            }
+        }
+        return new Frame(RAW, src, offset, length, length);
+    }
+
+    private static synchronized PayloadCodec registered(byte id) throws IOException {
+        final PayloadCodec c = id > RAW ? codecs[id] : null;
+        if (c == null) {
+            throw new IOException("[PayloadCompression] received a payload of unknown codec " + id);
+        }
+        return c;
+    }
+
+    private static byte[] decompress(byte[] buf, int offset, int length) throws IOException {
+        final PayloadCodec c = registered(buf[offset]);
+        final int originalLength = (buf[offset + 1] & 0xff) << 24 | (buf[offset + 2] & 0xff) << 16
+                | (buf[offset + 3] & 0xff) << 8 | (buf[offset + 4] & 0xff);
+        return c.decompress(buf, offset + 5, length - 5, originalLength);
+    }
+
+    /**
+     * Returns the size of a buffer as exchanged before the buffer itself: the
+     * bitwise complement of the size, which is negative, if the buffer is
+     * framed.
+     *
+     * @param size   number of bytes of the buffer
+     * @param framed whether the buffer was encoded with a codec
+     * @return the size to send
+     */
+    static int wireSize(int size, boolean framed) {
+        return framed ? ~size : size;
+    }
+
+    /**
+     * Returns the number of bytes of a buffer whose size was received.
+     */
+    static int size(int wireSize) {
+        return wireSize < 0 ? ~wireSize : wireSize;
+    }
+
+    /**
+     * Indicates whether a buffer whose size was received is framed.
+     */
+    static boolean framed(int wireSize) {
+        return wireSize < 0;
+    }
+
+    /**
+     * Frames the bytes sent to each place by an all-to-all exchange. The
+     * offsets and sizes are updated to describe the frames in the returned
+     * array. Empty buffers remain empty. The buffer is returned as is if
+     * {@code c} is {@code null}.
+     *
+     * @param c the codec compressing the bytes, as returned by
+     *          {@link #getCodec()}
+     */
+    static byte[] encode(PayloadCodec c, byte[] buf, int[] offsets, int[] sizes) {
+        if (c == null) {
+            return buf;
+        }
+        final Frame[] frames = new Frame[sizes.length];
+        int total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] > 0) {
+                frames[i] = frame(c, buf, offsets[i], sizes[i]);
+                total += frames[i].size();
+            }
+        }
+        final byte[] dst = new byte[total];
+        int dp = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            offsets[i] = dp;
+            if (frames[i] != null) {
+                sizes[i] = frames[i].write(dst, dp);
+                dp += sizes[i];
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Frames the bytes sent to every place by a gather or broadcast
+     * operation. The buffer is returned as is if {@code c} is {@code null}.
+     *
+     * @param c the codec compressing the bytes, as returned by
+     *          {@link #getCodec()}
+     */
+    static byte[] encode(PayloadCodec c, byte[] buf) {
+        if (c == null) {
+            return buf;
+        }
+        final Frame f = frame(c, buf, 0, buf.length);
+        final byte[] dst = new byte[f.size()];
+        f.write(dst, 0);
+        return dst;
+    }
+
+    /**
+     * Returns a stream on the original bytes of the buffer held by the given
+     * bytes.
+     *
+     * @param framed whether the buffer was framed by its sender
+     */
+    static ByteArrayInputStream decode(byte[] buf, int offset, int length, boolean framed) throws IOException {
+        if (!framed) {
+            return new ByteArrayInputStream(buf, offset, length);
+        }
+        if (buf[offset] == RAW) {
+            return new ByteArrayInputStream(buf, offset + 1, length - 1);
+        }
+        return new ByteArrayInputStream(decompress(buf, offset, length));
+    }
+
+    /**
+     * Restores the bytes received from each place by an all-to-all exchange.
+     * The positions of the original bytes in the returned array are written
+     * in {@code outOffsets} and {@code outSizes}. The received array is
+     * returned as is if none of the frames is compressed.
+     *
+     * @param framed whether the buffer received from each place was framed
+     *               by its sender
+     */
+    static byte[] decode(byte[] buf, int[] offsets, int[] sizes, boolean[] framed, int[] outOffsets,
+            int[] outSizes) throws IOException {
+        final byte[][] parts = new byte[sizes.length][];
+        boolean compressed = false;
+        for (int i = 0; i < sizes.length; i++) {
+            if (framed[i] && sizes[i] > 0 && buf[offsets[i]] != RAW) {
+                parts[i] = decompress(buf, offsets[i], sizes[i]);
+                compressed = true;
+            }
+        }
+        if (!compressed) {
+            for (int i = 0; i < sizes.length; i++) {
+                final int header = framed[i] && sizes[i] > 0 ? 1 : 0;
+                outOffsets[i] = offsets[i] + header;
+                outSizes[i] = sizes[i] - header;
+            }
+            return buf;
+        }
+        int total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            outOffsets[i] = total;
+            if (parts[i] != null) {
+                outSizes[i] = parts[i].length;
+            } else {
+                outSizes[i] = framed[i] && sizes[i] > 0 ? sizes[i] - 1 : sizes[i];
+            }
+            total += outSizes[i];
+        }
+        final byte[] dst = new byte[total];
+        for (int i = 0; i < sizes.length; i++) {
+            if (parts[i] != null) {
+                System.arraycopy(parts[i], 0, dst, outOffsets[i], outSizes[i]);
+            } else {
+                System.arraycopy(buf, offsets[i] + sizes[i] - outSizes[i], dst, outOffsets[i], outSizes[i]);
+            }
+        }
+        return dst;
+    }
+}
@@ -15,6 +15,18 @@ import java.util.Map;
 
 import apgas.Place;
 
-interface RangedDistribution<R> {
+/**
+ * Distribution which assigns ranges of keys to places.
+ *
+ * @param <R> type of the ranges of keys
+ */
+public interface RangedDistribution<R> {
+    /**
+     * Splits the given range into pieces and returns the place to which each
+     * piece is assigned. The returned pieces are included in the given range.
+     *
+     * @param range the range of keys to split
+     * @return the pieces of the range and their assigned place
+     */
     public Map<R, Place> placeRanges(R range);
 }
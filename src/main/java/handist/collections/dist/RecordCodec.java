@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the records of a file loaded by {@link DistColLoader}.
+ * <p>
+ * The codec is called concurrently by several threads of each place, on
+ * different records. It should not retain the buffer it is given, which is a
+ * read-only mapping of a portion of the file.
+ *
+ * @param <T> type of the decoded records
+ */
+@FunctionalInterface
+public interface RecordCodec<T> extends Serializable {
+
+    /**
+     * Returns a codec decoding each record as a UTF-8 string, without its
+     * delimiter. A carriage return at the end of a record is removed.
+     *
+     * @return a codec of UTF-8 text records
+     */
+    static RecordCodec<String> utf8() {
+        return (ByteBuffer buffer, int offset, int length) -> {
+            if (length > 0 && buffer.get(offset + length - 1) == '\r') {
+                length--;
+            }
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        };
+    }
+
+    /**
+     * Decodes the record held by the given bytes of the buffer.
+     *
+     * @param buffer the buffer holding the record
+     * @param offset the position of the first byte of the record in the
+     *               buffer
+     * @param length the number of bytes of the record, delimiter excluded
+     * @return the decoded record
+     */
+    T decode(ByteBuffer buffer, int offset, int length);
+}
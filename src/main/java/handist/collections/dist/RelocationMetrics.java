@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters describing the data transfers performed by the distributed
+ * collections of a {@link TeamedPlaceGroup} at the local place. An instance
+ * is obtained with {@link TeamedPlaceGroup#metrics()}.
+ * <p>
+ * Recording is disabled by default. It can be enabled by setting the system
+ * property {@value #ENABLE_PROPERTY} to {@code true}, by calling
+ * {@link #enable()} or through JMX. When disabled, the instrumented
+ * operations only check a static flag.
+ */
+public final class RelocationMetrics implements RelocationMetricsMXBean {
+
+    /** System property enabling the recording of metrics at startup */
+    public static final String ENABLE_PROPERTY = "handist.collections.metrics";
+
+    /** Flag checked by the instrumented operations before recording anything */
+    static volatile boolean enabled = Boolean.getBoolean(ENABLE_PROPERTY);
+
+    /**
+     * Enables the recording of metrics for every group of this JVM.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Disables the recording of metrics for every group of this JVM.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Indicates whether metrics are currently recorded.
+     *
+     * @return {@code true} if metrics are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Immutable copy of the counters of a {@link RelocationMetrics} instance.
+     */
+    public static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = -3184637461250542618L;
+
+        private final int rank;
+        private final long[] bytesSentPerPeer;
+        private final long[] bytesReceivedPerPeer;
+        private final long serializationTime;
+        private final long deserializationTime;
+        private final long collectiveWaitTime;
+        private final long elementsMoved;
+        private final long relocationCount;
+        private final double imbalanceRatio;
+        private final long plannedIntraNodeElements;
+        private final long plannedCrossNodeElements;
+        private final long plannedCrossNodeBytes;
+
+        Snapshot(RelocationMetrics m) {
+            rank = m.rank;
+            bytesSentPerPeer = m.getBytesSentPerPeer();
+            bytesReceivedPerPeer = m.getBytesReceivedPerPeer();
+            serializationTime = m.getSerializationTime();
+            deserializationTime = m.getDeserializationTime();
+            collectiveWaitTime = m.getCollectiveWaitTime();
+            elementsMoved = m.getElementsMoved();
+            relocationCount = m.getRelocationCount();
+            imbalanceRatio = m.getImbalanceRatio();
+            plannedIntraNodeElements = m.getPlannedIntraNodeElements();
+            plannedCrossNodeElements = m.getPlannedCrossNodeElements();
+            plannedCrossNodeBytes = m.getPlannedCrossNodeBytes();
+        }
+
+        /** @return rank of the place at which this snapshot was taken */
+        public int rank() {
+            return rank;
+        }
+
+        /** @return bytes sent to each peer, indexed by rank */
+        public long[] bytesSentPerPeer() {
+            return bytesSentPerPeer.clone();
+        }
+
+        /** @return bytes received from each peer, indexed by rank */
+        public long[] bytesReceivedPerPeer() {
+            return bytesReceivedPerPeer.clone();
+        }
+
+        /** @return total number of bytes sent */
+        public long bytesSent() {
+            return Arrays.stream(bytesSentPerPeer).sum();
+        }
+
+        /** @return total number of bytes received */
+        public long bytesReceived() {
+            return Arrays.stream(bytesReceivedPerPeer).sum();
+        }
+
+        /** @return time spent serializing, in nanoseconds */
+        public long serializationTime() {
+            return serializationTime;
+        }
+
+        /** @return time spent deserializing, in nanoseconds */
+        public long deserializationTime() {
+            return deserializationTime;
+        }
+
+        /** @return time spent in collective communications, in nanoseconds */
+        public long collectiveWaitTime() {
+            return collectiveWaitTime;
+        }
+
+        /** @return number of elements sent to other places */
+        public long elementsMoved() {
+            return elementsMoved;
+        }
+
+        /** @return number of relocations performed */
+        public long relocationCount() {
+            return relocationCount;
+        }
+
+        /** @return imbalance ratio observed during the last balance operation */
+        public double imbalanceRatio() {
+            return imbalanceRatio;
+        }
+
+        /**
+         * @return number of elements the last balance operation planned to
+         *         move within nodes
+         */
+        public long plannedIntraNodeElements() {
+            return plannedIntraNodeElements;
+        }
+
+        /**
+         * @return number of elements the last balance operation planned to
+         *         move between nodes
+         */
+        public long plannedCrossNodeElements() {
+            return plannedCrossNodeElements;
+        }
+
+        /**
+         * @return estimated number of bytes the last balance operation planned
+         *         to move between nodes
+         */
+        public long plannedCrossNodeBytes() {
+            return plannedCrossNodeBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "[RelocationMetrics rank:" + rank + " sent:" + bytesSent() + "B received:" + bytesReceived()
+                    + "B ser:" + serializationTime / 1000 + "us deser:" + deserializationTime / 1000 + "us wait:"
+                    + collectiveWaitTime / 1000 + "us elements:" + elementsMoved + " relocations:" + relocationCount
+                    + " imbalance:" + imbalanceRatio + " plannedCrossNode:" + plannedCrossNodeElements + "/"
+                    + (plannedIntraNodeElements + plannedCrossNodeElements) + " (" + plannedCrossNodeBytes + "B)]";
+        }
+    }
+
+    private final int rank;
+    private final AtomicLongArray bytesSent;
+    private final AtomicLongArray bytesReceived;
+    private final LongAdder serializationTime = new LongAdder();
+    private final LongAdder deserializationTime = new LongAdder();
+    private final LongAdder collectiveWaitTime = new LongAdder();
+    private final LongAdder elementsMoved = new LongAdder();
+    private final LongAdder relocationCount = new LongAdder();
+    private volatile double imbalanceRatio = 0.0;
+    private volatile long plannedIntraNodeElements = 0;
+    private volatile long plannedCrossNodeElements = 0;
+    private volatile long plannedCrossNodeBytes = 0;
+
+    RelocationMetrics(int rank, int size) {
+        this.rank = rank;
+        bytesSent = new AtomicLongArray(size);
+        bytesReceived = new AtomicLongArray(size);
+    }
+
+    /**
+     * Registers this instance with the platform MBean server. Failures are
+     * ignored: the metrics remain available through {@link #snapshot()}.
+     */
+    void register(String group) {
+        try {
+            final ObjectName name = new ObjectName("handist.collections:type=RelocationMetrics,rank=" + rank + ",group="
+                    + ObjectName.quote(group));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (final InstanceAlreadyExistsException e) {
+            // Another instance for the same group is already registered
+        } catch (final JMException e) {
+            System.err.println("[RelocationMetrics] could not register MXBean: " + e);
+        }
+    }
+
+    void addSent(int peer, long bytes) {
+        bytesSent.addAndGet(peer, bytes);
+    }
+
+    void addReceived(int peer, long bytes) {
+        bytesReceived.addAndGet(peer, bytes);
+    }
+
+    void addSerializationTime(long nanos) {
+        serializationTime.add(nanos);
+    }
+
+    void addDeserializationTime(long nanos) {
+        deserializationTime.add(nanos);
+    }
+
+    void addCollectiveWaitTime(long nanos) {
+        collectiveWaitTime.add(nanos);
+    }
+
+    void addElementsMoved(long n) {
+        elementsMoved.add(n);
+    }
+
+    void addRelocation() {
+        relocationCount.increment();
+    }
+
+    void setImbalanceRatio(double ratio) {
+        imbalanceRatio = ratio;
+    }
+
+    /**
+     * Records the transfers planned by a balance operation. The bytes moved
+     * between nodes are estimated from the average size of the elements
+     * relocated so far by the current place.
+     */
+    void setPlannedTransfers(long intraNode, long crossNode) {
+        final long elements = getElementsMoved();
+        plannedIntraNodeElements = intraNode;
+        plannedCrossNodeElements = crossNode;
+        plannedCrossNodeBytes = elements == 0 ? 0 : (long) ((double) getBytesSent() / elements * crossNode);
+    }
+
+    /**
+     * Returns an immutable copy of the current counters.
+     *
+     * @return a snapshot of this instance
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    @Override
+    public boolean isRecording() {
+        return enabled;
+    }
+
+    @Override
+    public void setRecording(boolean recording) {
+        enabled = recording;
+    }
+
+    @Override
+    public long getBytesSent() {
+        long sum = 0;
+        for (int i = 0; i < bytesSent.length(); i++) {
+            sum += bytesSent.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        long sum = 0;
+        for (int i = 0; i < bytesReceived.length(); i++) {
+            sum += bytesReceived.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public long[] getBytesSentPerPeer() {
+        final long[] result = new long[bytesSent.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bytesSent.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getBytesReceivedPerPeer() {
+        final long[] result = new long[bytesReceived.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bytesReceived.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public long getSerializationTime() {
+        return serializationTime.sum();
+    }
+
+    @Override
+    public long getDeserializationTime() {
+        return deserializationTime.sum();
+    }
+
+    @Override
+    public long getCollectiveWaitTime() {
+        return collectiveWaitTime.sum();
+    }
+
+    @Override
+    public long getElementsMoved() {
+        return elementsMoved.sum();
+    }
+
+    @Override
+    public long getRelocationCount() {
+        return relocationCount.sum();
+    }
+
+    @Override
+    public double getImbalanceRatio() {
+        return imbalanceRatio;
+    }
+
+    @Override
+    public long getPlannedIntraNodeElements() {
+        return plannedIntraNodeElements;
+    }
+
+    @Override
+    public long getPlannedCrossNodeElements() {
+        return plannedCrossNodeElements;
+    }
+
+    @Override
+    public long getPlannedCrossNodeBytes() {
+        return plannedCrossNodeBytes;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < bytesSent.length(); i++) {
+            bytesSent.set(i, 0);
+            bytesReceived.set(i, 0);
+        }
+        serializationTime.reset();
+        deserializationTime.reset();
+        collectiveWaitTime.reset();
+        elementsMoved.reset();
+        relocationCount.reset();
+        imbalanceRatio = 0.0;
+        plannedIntraNodeElements = 0;
+        plannedCrossNodeElements = 0;
+        plannedCrossNodeBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+/**
+ * Management interface of {@link RelocationMetrics}. One such bean is
+ * registered with the platform MBean server for each {@link TeamedPlaceGroup}
+ * whose metrics were accessed, under the name
+ * {@code handist.collections:type=RelocationMetrics,rank=<rank>,group=<id>}.
+ * <p>
+ * All the durations are in nanoseconds. The per-peer arrays are indexed by
+ * rank in the group.
+ */
+public interface RelocationMetricsMXBean {
+
+    /**
+     * Indicates whether metrics are currently being recorded. This setting is
+     * shared by every group of the JVM.
+     *
+     * @return {@code true} if metrics are recorded
+     */
+    boolean isRecording();
+
+    /**
+     * Enables or disables the recording of metrics for every group of the
+     * JVM.
+     *
+     * @param recording {@code true} to record metrics
+     */
+    void setRecording(boolean recording);
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    long[] getBytesSentPerPeer();
+
+    long[] getBytesReceivedPerPeer();
+
+    long getSerializationTime();
+
+    long getDeserializationTime();
+
+    long getCollectiveWaitTime();
+
+    long getElementsMoved();
+
+    long getRelocationCount();
+
+    /**
+     * Returns the imbalance ratio observed the last time a balance operation
+     * was performed, i.e. the largest number of elements held by a place
+     * divided by the average number of elements per place.
+     *
+     * @return the last imbalance ratio, or 0 if no balance was performed
+     */
+    double getImbalanceRatio();
+
+    /**
+     * Returns the number of elements the last balance operation planned to
+     * move between places of the same node, over the whole group.
+     *
+     * @return the elements planned to move within nodes
+     */
+    long getPlannedIntraNodeElements();
+
+    /**
+     * Returns the number of elements the last balance operation planned to
+     * move between places of different nodes, over the whole group. The
+     * places of each node are balanced among themselves first, so that only
+     * the residual imbalance crosses nodes.
+     *
+     * @return the elements planned to move between nodes
+     */
+    long getPlannedCrossNodeElements();
+
+    /**
+     * Returns an estimate of the bytes corresponding to
+     * {@link #getPlannedCrossNodeElements()}, based on the average number of
+     * bytes per element sent by the current place so far.
+     *
+     * @return the estimated bytes planned to move between nodes, or 0 if no
+     *         element was relocated before the balance operation
+     */
+    long getPlannedCrossNodeBytes();
+
+    /**
+     * Sets every counter back to 0.
+     */
+    void reset();
+}
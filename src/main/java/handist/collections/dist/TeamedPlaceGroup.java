@@ -24,6 +24,8 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import apgas.Place;
 import apgas.SerializableJob;
@@ -80,6 +82,9 @@ public class TeamedPlaceGroup implements Serializable {
                 readyToClose(rank == 0);
             }
         });
+        // Registered after the plugin above so that the trace is gathered
+        // once every rank is done with the APGAS runtime
+        MPILauncher.registerPlugins(new TraceCollector());
         isRegistered = true;
     }
 
@@ -92,6 +97,13 @@ public class TeamedPlaceGroup implements Serializable {
     // TODO
     Intracomm comm;
     private TeamedPlaceGroup parent;
+    private volatile RelocationMetrics metrics;
+    /** Communicator of the asynchronous relocations, created on first use */
+    private Intracomm asyncComm;
+    /** Communication thread of the asynchronous relocations */
+    private ExecutorService asyncExecutor;
+    /** Division of the places of this group into nodes, created on first use */
+    private NodeHierarchy hierarchy;
 
     static TeamedPlaceGroup world;
     static volatile CountDownLatch readyToCloseWorld;
@@ -240,15 +252,44 @@ public class TeamedPlaceGroup implements Serializable {
         return result;
     }
 
+    /**
+     * Returns the metrics describing the data transfers performed by the
+     * collections of this group at the local place. The instance is created
+     * and registered with the platform MBean server on the first call.
+     *
+     * @return the metrics of this group at the local place
+     * @see RelocationMetrics
+     */
+    public RelocationMetrics metrics() {
+        RelocationMetrics m = metrics;
+        if (m == null) {
+            synchronized (this) {
+                m = metrics;
+                if (m == null) {
+                    m = new RelocationMetrics(myrank, size);
+                    m.register(id.toString());
+                    metrics = m;
+                }
+            }
+        }
+        return m;
+    }
+
     public String toString() {
         return "TeamedPlaceGroup[" + id + ", myrank" + myrank + ", places" + places();
     }
 
     // TODO
     // split, relocate feature
+    /**
+     * Removes the local branch of the distributed collection identified by
+     * the given id from the current place, so that it can be garbage
+     * collected.
+     *
+     * @param id the global id of the distributed collection
+     */
     public void remove(GlobalID id) {
-        // TODO
-
+        id.removeHere();
     }
 
     public void broadcastFlat(SerializableJob run) {
@@ -264,17 +305,104 @@ public class TeamedPlaceGroup implements Serializable {
 
     public void Alltoallv(Object byteArray, int soffset, int[] sendSize, int[] sendOffset, Datatype stype,
             Object recvbuf, int roffset, int[] rcvSize, int[] rcvOffset, Datatype rtype) throws MPIException {
+        Alltoallv(this.comm, byteArray, soffset, sendSize, sendOffset, stype, recvbuf, roffset, rcvSize, rcvOffset,
+                rtype);
+    }
+
+    void Alltoallv(Intracomm comm, Object byteArray, int soffset, int[] sendSize, int[] sendOffset, Datatype stype,
+            Object recvbuf, int roffset, int[] rcvSize, int[] rcvOffset, Datatype rtype) throws MPIException {
         if (false) {
-            this.comm.Alltoallv(byteArray, soffset, sendSize, sendOffset, stype, recvbuf, roffset, rcvSize, rcvOffset,
+            comm.Alltoallv(byteArray, soffset, sendSize, sendOffset, stype, recvbuf, roffset, rcvSize, rcvOffset,
                     rtype);
         } else {
             for (int rank = 0; rank < rcvSize.length; rank++) {
-                this.comm.Gatherv(byteArray, soffset + sendOffset[rank], sendSize[rank], stype,
+                comm.Gatherv(byteArray, soffset + sendOffset[rank], sendSize[rank], stype,
                         recvbuf, roffset, rcvSize, rcvOffset, rtype, rank);
             }
         }
     }
 
+    /**
+     * Returns the communicator used by the asynchronous relocations of this
+     * group, creating it on first use. As the creation is collective, the
+     * first call must be made at every place of the group.
+     *
+     * @return a communicator spanning the same places as this group
+     */
+    synchronized Intracomm asyncComm() {
+        if (asyncComm == null) {
+            try {
+                asyncComm = comm.Split(0, myrank);
+            } catch (MPIException e) {
+                throw new RuntimeException("[TeamedPlaceGroup] MPIException caught.");
+            }
+        }
+        return asyncComm;
+    }
+
+    /**
+     * Returns the single thread on which the asynchronous relocations of this
+     * group are exchanged, one after the other in the order they were
+     * started.
+     *
+     * @return the executor of the communication thread of this group
+     */
+    synchronized ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Executors.newSingleThreadExecutor((Runnable r) -> {
+                final Thread t = new Thread(r, "handist-comm-" + id);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Returns the division of the places of this group into nodes used by the
+     * hierarchical collective operations, see {@link NodeHierarchy}. As the
+     * division is made collectively on the first call, the first call must be
+     * made at every place of the group.
+     *
+     * @return the nodes of the places of this group
+     */
+    synchronized NodeHierarchy hierarchy() {
+        if (hierarchy == null) {
+            try {
+                hierarchy = new NodeHierarchy(this);
+            } catch (MPIException e) {
+                e.printStackTrace();
+                throw new Error("[TeamedPlaceGroup] network error in hierarchy()");
+            }
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Creates a new {@link GlobalID} at the place of rank 0 and shares it with
+     * every place of this group, so that a distributed collection can be
+     * created collectively. Must be called at every place of the group.
+     *
+     * @return the identifier created at the place of rank 0
+     */
+    GlobalID shareNewId() {
+        final GlobalID[] shared = new GlobalID[1];
+        if (myrank == 0) {
+            shared[0] = new GlobalID();
+        }
+        try {
+            CollectiveRelocator.bcastSer(this, get(0), (ObjectOutputStream out) -> {
+                out.writeObject(shared[0]);
+            }, (ObjectInputStream in) -> {
+                shared[0] = (GlobalID) in.readObject();
+            });
+        } catch (MPIException e) {
+            e.printStackTrace();
+            throw new Error("[TeamedPlaceGroup] MPI Exception raised.");
+        }
+        return shared[0];
+    }
+
     public void barrier() {
         try {
             this.comm.Barrier();
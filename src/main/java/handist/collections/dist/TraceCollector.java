@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import handist.collections.Tracer;
+import handist.collections.mpi.MPILauncher;
+import mpi.Comm;
+import mpi.Intracomm;
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * {@link MPILauncher.Plugin} gathering the events recorded by the
+ * {@link Tracer} of every rank before MPI is finalized. Rank 0 writes the
+ * merged events to the file given by {@link Tracer#outputFile()} in the
+ * Chrome trace event format, each rank appearing as a separate process.
+ * <p>
+ * Tracing is enabled on every rank when the system property
+ * {@value Tracer#TRACE_PROPERTY} is set at any of them.
+ */
+class TraceCollector implements MPILauncher.Plugin {
+
+    @Override
+    public String getName() {
+        return TraceCollector.class.toString();
+    }
+
+    @Override
+    public void init(int rank, Comm comm) throws MPIException {
+        Tracer.setRank(rank);
+        // The property may have been set after the Tracer class was loaded
+        if (System.getProperty(Tracer.TRACE_PROPERTY) != null) {
+            Tracer.enable();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void beforeFinalize(int rank, Comm comm) throws MPIException {
+        final int[] flag = new int[] { Tracer.isEnabled() ? 1 : 0 };
+        final int[] anyEnabled = new int[1];
+        final Intracomm world = (Intracomm) comm;
+        world.Allreduce(flag, 0, anyEnabled, 0, 1, MPI.INT, MPI.MAX);
+        if (anyEnabled[0] == 0) {
+            return;
+        }
+        final int size = comm.Size();
+        final byte[] buf;
+        try {
+            final ByteArrayOutputStream out0 = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream(out0);
+            out.writeObject(new ArrayList<>(Tracer.events()));
+            out.close();
+            buf = out0.toByteArray();
+        } catch (final IOException e) {
+            throw new Error("[TraceCollector] could not serialize the trace of rank " + rank, e);
+        }
+        final int[] counts = new int[size];
+        final int[] displs = new int[size];
+        world.Gather(new int[] { buf.length }, 0, 1, MPI.INT, counts, 0, 1, MPI.INT, 0);
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            displs[i] = total;
+            total += counts[i];
+        }
+        final byte[] rbuf = rank == 0 ? new byte[total] : null;
+        world.Gatherv(buf, 0, buf.length, MPI.BYTE, rbuf, 0, counts, displs, MPI.BYTE, 0);
+        if (rank != 0) {
+            return;
+        }
+
+        final Map<Integer, List<Tracer.Event>> events = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(rbuf, displs[i], counts[i]))) {
+                events.put(i, (List<Tracer.Event>) in.readObject());
+            } catch (IOException | ClassNotFoundException e) {
+                System.err.println("[TraceCollector] could not read the trace of rank " + i + ": " + e);
+            }
+        }
+        final String file = Tracer.outputFile();
+        try (Writer w = new FileWriter(file)) {
+            Tracer.writeChromeTrace(w, events);
+        } catch (final IOException e) {
+            System.err.println("[TraceCollector] could not write trace to " + file + ": " + e);
+        }
+    }
+}
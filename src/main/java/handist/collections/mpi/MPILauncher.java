@@ -23,6 +23,7 @@ import apgas.Configuration;
 import apgas.GlobalRuntime;
 import apgas.impl.Config;
 import apgas.impl.Launcher;
+import handist.collections.Tracer;
 import mpi.Comm;
 import mpi.MPI;
 import mpi.MPIException;
@@ -302,6 +303,8 @@ final public class MPILauncher implements Launcher {
    
     MPI.Init(args);
     commRank = MPI.COMM_WORLD.Rank();
+    // Inherited by the threads of the runtime to tag their trace buffers
+    Tracer.setRank(commRank);
     commSize = MPI.COMM_WORLD.Size();
 
     verboseLauncher = Boolean.parseBoolean(
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestChunkSpiller {
+
+	/** Number of chunks placed in the list */
+	static final int NB_CHUNKS = 10;
+	/** Number of elements in each chunk */
+	static final int CHUNK_SIZE = 100;
+
+	ChunkSpiller spiller;
+	ChunkedList<Long> list;
+
+	@Before
+	public void setUp() throws IOException {
+		spiller = new ChunkSpiller(3 * CHUNK_SIZE);
+		list = new ChunkedList<>(spiller);
+		for (int c = 0; c < NB_CHUNKS; c++) {
+			Chunk<Long> chunk = new Chunk<>(new LongRange(c * CHUNK_SIZE, (c + 1) * CHUNK_SIZE));
+			for (long i = chunk.getRange().from; i < chunk.getRange().to; i++) {
+				chunk.set(i, i);
+			}
+			list.addChunk(chunk);
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		spiller.close();
+	}
+
+	@Test
+	public void testBudgetIsRespected() {
+		assertTrue(spiller.residentElements() <= spiller.maxResidentElements());
+		assertEquals(NB_CHUNKS - 3, spiller.spillCount());
+		assertEquals(NB_CHUNKS * CHUNK_SIZE, list.longSize());
+	}
+
+	@Test
+	public void testGetSetAfterSpill() {
+		for (long i = 0; i < NB_CHUNKS * CHUNK_SIZE; i++) {
+			assertEquals(i, (long) list.get(i));
+		}
+		assertTrue(spiller.loadCount() > 0);
+		assertTrue(spiller.residentElements() <= spiller.maxResidentElements());
+
+		list.set(5l, -5l);
+		// Touch every other chunk so that the first one is spilled again
+		for (long i = CHUNK_SIZE; i < NB_CHUNKS * CHUNK_SIZE; i++) {
+			list.get(i);
+		}
+		assertEquals(-5l, (long) list.get(5l));
+	}
+
+	@Test
+	public void testForEach() {
+		AtomicLong sum = new AtomicLong();
+		list.forEach((Long l) -> sum.addAndGet(l));
+		long n = NB_CHUNKS * CHUNK_SIZE;
+		assertEquals(n * (n - 1) / 2, sum.get());
+	}
+
+	@Test(timeout = 10000)
+	public void testParallelForEach() throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		AtomicLong sum = new AtomicLong();
+		list.forEach(pool, 4, (Long l) -> sum.addAndGet(l));
+		long n = NB_CHUNKS * CHUNK_SIZE;
+		assertEquals(n * (n - 1) / 2, sum.get());
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.SECONDS);
+		assertTrue(spiller.residentElements() <= spiller.maxResidentElements() + 4 * CHUNK_SIZE);
+	}
+
+	@Test
+	public void testRemoveChunk() {
+		Chunk<Long> removed = (Chunk<Long>) list.removeChunk(new Chunk<Long>(new LongRange(0, CHUNK_SIZE)));
+		assertNotNull(removed);
+		for (long i = 0; i < CHUNK_SIZE; i++) {
+			assertEquals(i, (long) removed.get(i));
+		}
+		assertFalse(list.containsIndex(0));
+		assertEquals((NB_CHUNKS - 1) * CHUNK_SIZE, list.longSize());
+	}
+
+	@Test
+	public void testSpillWith() throws IOException {
+		ChunkedList<Long> plain = new ChunkedList<>();
+		for (int c = 0; c < NB_CHUNKS; c++) {
+			Chunk<Long> chunk = new Chunk<>(new LongRange(c * CHUNK_SIZE, (c + 1) * CHUNK_SIZE), 1l);
+			plain.addChunk(chunk);
+		}
+		try (ChunkSpiller other = new ChunkSpiller(CHUNK_SIZE)) {
+			plain.spillWith(other);
+			assertEquals(NB_CHUNKS - 1, other.spillCount());
+			AtomicLong sum = new AtomicLong();
+			plain.forEach((Long l) -> sum.addAndGet(l));
+			assertEquals(NB_CHUNKS * CHUNK_SIZE, sum.get());
+		}
+	}
+}
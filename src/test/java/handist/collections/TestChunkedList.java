@@ -15,10 +15,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.junit.Before;
@@ -272,6 +275,79 @@ public class TestChunkedList {
 		}
 	}
 
+	@Test
+	public void testAsyncMapChaining() throws InterruptedException, ExecutionException {
+		chunkedList.set(4, new Element(42));
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		ChunkedFuture<Integer> future = chunkedList.asyncMap(pool, e -> e.n)
+				.thenMap(n -> n * 2)
+				.thenForEach((long i, Integer n) -> assertEquals(i == 4 ? 84 : 2 * i, (long) n));
+		ChunkedList<Integer> result = future.get();
+		pool.shutdown();
+
+		assertEquals(3, future.chunkFutures().size());
+		assertEquals(chunkedList.ranges(), result.ranges());
+		assertEquals(84, (int) result.get(4));
+		assertEquals(10, (int) result.get(5));
+	}
+
+	@Test
+	public void testAsyncPerChunkDependencies() throws Exception {
+		chunkedList.set(4, new Element(42));
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		CountDownLatch latch = new CountDownLatch(1);
+		boolean[] released = new boolean[1];
+		// The first stage on chunk [0,3) can only finish once the second stage
+		// on chunk [5,6) has started, which requires no barrier between stages
+		ChunkedFuture<Element> future = chunkedList.asyncForEach(pool, (long i, Element e) -> {
+			if (i == 0) {
+				try {
+					released[0] = latch.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		}).thenForEach((long i, Element e) -> {
+			if (i == 5) {
+				latch.countDown();
+			}
+		});
+		assertSame(chunkedList, future.get());
+		pool.shutdown();
+		assertTrue(released[0]);
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void testAsyncForEachException() throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			// Index 4 holds null
+			chunkedList.asyncForEach(pool, (Element e) -> e.increase(1)).thenForEach((Element e) -> e.increase(1))
+					.get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testAsyncMapIsNotBlocking() throws Exception {
+		chunkedList.set(4, new Element(42));
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		CountDownLatch latch = new CountDownLatch(1);
+		CompletableFuture<ChunkedList<Integer>> future = chunkedList.asyncMap(pool, 2, e -> {
+			try {
+				latch.await();
+			} catch (InterruptedException ex) {
+				throw new RuntimeException(ex);
+			}
+			return e.n;
+		});
+		assertFalse(future.isDone());
+		latch.countDown();
+		assertEquals(6, future.get().longSize());
+		pool.shutdown();
+	}
+
 	@Test(expected = UnsupportedOperationException.class)
 	public void testClear() {
 		chunkedList.clear();
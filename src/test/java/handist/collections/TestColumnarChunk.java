@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestColumnarChunk {
+
+	static class Particle implements Serializable {
+		private static final long serialVersionUID = -5014585346011512312L;
+		long id;
+		double x;
+		double v;
+
+		Particle() {
+		}
+
+		Particle(long id, double x, double v) {
+			this.id = id;
+			this.x = x;
+			this.v = v;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Particle)) {
+				return false;
+			}
+			Particle p = (Particle) o;
+			return id == p.id && x == p.x && v == p.v;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(id);
+		}
+	}
+
+	static class Named {
+		int value;
+		String name;
+	}
+
+	RecordLayout<Particle> layout;
+	ColumnarChunk<Particle> chunk;
+
+	@Before
+	public void setUp() {
+		layout = RecordLayout.of(Particle.class);
+		chunk = new ColumnarChunk<>(new LongRange(10, 110), layout);
+		for (long i = 10; i < 110; i++) {
+			chunk.set(i, new Particle(i, i * 0.5, 1.0));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T object) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (T) in.readObject();
+		}
+	}
+
+	private static int serializedSize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.size();
+	}
+
+	@Test
+	public void testLayout() {
+		assertEquals(3, layout.columns());
+		assertEquals(long.class, layout.columnType(layout.column("id")));
+		assertEquals(double.class, layout.columnType(layout.column("x")));
+		assertEquals(1, RecordLayout.of(Named.class, "value").columns());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLayoutRejectsReferenceFields() {
+		RecordLayout.of(Named.class);
+	}
+
+	@Test
+	public void testGetSet() {
+		assertEquals(100, chunk.size());
+		assertEquals(new Particle(42, 21.0, 1.0), chunk.get(42));
+		Particle previous = chunk.set(42, new Particle(0, 0, 0));
+		assertEquals(new Particle(42, 21.0, 1.0), previous);
+		assertEquals(new Particle(0, 0, 0), chunk.get(42));
+		assertTrue(chunk.contains(new Particle(43, 21.5, 1.0)));
+		assertFalse(chunk.contains(new Particle(43, 0, 1.0)));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfRange() {
+		chunk.get(110);
+	}
+
+	@Test
+	public void testForEachRecord() {
+		int x = layout.column("x");
+		int v = layout.column("v");
+		chunk.forEachRecord(c -> c.setDouble(x, c.getDouble(x) + c.getDouble(v)));
+		assertEquals(new Particle(10, 6.0, 1.0), chunk.get(10));
+		double[] xs = (double[]) chunk.column(x);
+		assertEquals(54.5 + 1.0, xs[109 - 10], 0.0);
+
+		long[] sum = new long[1];
+		int id = layout.column("id");
+		chunk.forEachRecord(new LongRange(20, 30), c -> {
+			assertEquals(c.index(), c.getLong(id));
+			sum[0] += c.getLong(id);
+		});
+		assertEquals(245, sum[0]);
+	}
+
+	@Test
+	public void testCloneRangeAndConversion() {
+		ColumnarChunk<Particle> part = chunk.cloneRange(new LongRange(50, 60));
+		assertEquals(new LongRange(50, 60), part.getRange());
+		part.set(50, new Particle(-1, 0, 0));
+		assertEquals(new Particle(50, 25.0, 1.0), chunk.get(50));
+
+		Chunk<Particle> c = chunk.toChunk(new LongRange(10, 20));
+		assertEquals(new Particle(15, 7.5, 1.0), c.get(15));
+		ColumnarChunk<Particle> back = new ColumnarChunk<>(c, layout);
+		assertEquals(new Particle(19, 9.5, 1.0), back.get(19));
+
+		int count = 0;
+		for (Particle p : chunk) {
+			assertEquals(10 + count++, p.id);
+		}
+		assertEquals(100, count);
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		ColumnarChunk<Particle> received = copy(chunk);
+		assertEquals(chunk.getRange(), received.getRange());
+		assertEquals(new Particle(77, 38.5, 1.0), received.get(77));
+		assertTrue(serializedSize(chunk) < serializedSize(chunk.toChunk(chunk.getRange())));
+
+		// Views of a columnar chunk are sent as columns
+		RangedList<Particle> view = chunk.subList(20, 100);
+		RangedList<Particle> receivedView = copy(view);
+		assertEquals(new LongRange(20, 100), receivedView.getRange());
+		assertEquals(new Particle(35, 17.5, 1.0), receivedView.get(35));
+		assertTrue(serializedSize(view) < serializedSize(chunk.toChunk(new LongRange(20, 100))));
+	}
+}
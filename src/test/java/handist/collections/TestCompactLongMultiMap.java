@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCompactLongMultiMap {
+
+	/** Number of keys placed in the map */
+	static final int NB_KEYS = 50;
+
+	CompactLongMultiMap<String> map;
+
+	@Before
+	public void setUp() {
+		map = new CompactLongMultiMap<>();
+		// Key "k<i>" receives values i*1000, i*1000+1, ... i*1000+i, interleaved
+		for (int round = 0; round < NB_KEYS; round++) {
+			for (int k = round; k < NB_KEYS; k++) {
+				map.put1("k" + k, k * 1000l + round);
+			}
+		}
+	}
+
+	@Test
+	public void testBuild() {
+		assertFalse(map.isFrozen());
+		assertEquals(NB_KEYS, map.size());
+		assertEquals(NB_KEYS * (NB_KEYS + 1) / 2, map.longSize());
+		assertTrue(map.containsKey("k3"));
+		assertFalse(map.containsKey("k" + NB_KEYS));
+	}
+
+	@Test
+	public void testFreezeAndGet() {
+		map.freeze();
+		assertTrue(map.isFrozen());
+		for (int k = 0; k < NB_KEYS; k++) {
+			long[] values = map.get("k" + k);
+			assertEquals(k + 1, values.length);
+			for (int i = 0; i <= k; i++) {
+				assertEquals(k * 1000l + i, values[i]);
+			}
+		}
+		assertNull(map.get("absent"));
+	}
+
+	@Test
+	public void testForEach1() {
+		for (int pass = 0; pass < 2; pass++) {
+			AtomicLong count = new AtomicLong();
+			map.forEach1((String key, long value) -> {
+				assertEquals(Long.parseLong(key.substring(1)), value / 1000);
+				count.incrementAndGet();
+			});
+			assertEquals(map.longSize(), count.get());
+			map.freeze();
+		}
+	}
+
+	@Test
+	public void testRemoveAndAppend() {
+		long[] removed = map.remove("k10");
+		assertEquals(11, removed.length);
+		assertFalse(map.containsKey("k10"));
+		assertEquals(NB_KEYS - 1, map.size());
+		assertEquals(NB_KEYS * (NB_KEYS + 1) / 2 - 11, map.longSize());
+
+		// Appending to a frozen map with removed keys
+		map.put1("k3", 42l);
+		map.putAll("k10", new long[] { 1, 2 });
+		assertFalse(map.isFrozen());
+		assertArrayEquals(new long[] { 1, 2 }, map.get("k10"));
+		long[] k3 = map.get("k3");
+		assertEquals(5, k3.length);
+		assertEquals(42l, k3[4]);
+		assertEquals(NB_KEYS * (NB_KEYS + 1) / 2 - 11 + 3, map.longSize());
+
+		AtomicLong count = new AtomicLong();
+		map.forEach1((String key, long value) -> count.incrementAndGet());
+		assertEquals(map.longSize(), count.get());
+	}
+
+	@Test
+	public void testRemoveKeepsFrozen() {
+		map.freeze();
+		for (int k = 0; k < NB_KEYS; k += 2) {
+			assertEquals(k + 1, map.remove("k" + k).length);
+			assertTrue(map.isFrozen());
+		}
+		assertEquals(NB_KEYS / 2, map.size());
+		for (int k = 1; k < NB_KEYS; k += 2) {
+			assertEquals(k + 1, map.get("k" + k).length);
+		}
+		assertTrue(map.isFrozen());
+		AtomicLong count = new AtomicLong();
+		map.forEach1((String key, long value) -> count.incrementAndGet());
+		assertEquals(map.longSize(), count.get());
+
+		// The removed values are reclaimed once the map is frozen again
+		map.put1("k1", 7l);
+		map.freeze();
+		assertEquals(NB_KEYS / 2, map.size());
+		assertEquals(3, map.get("k1").length);
+	}
+
+	@Test
+	public void testRemoveAll() {
+		List<long[]> removed = map.removeAll(Arrays.asList("k2", "absent", "k5"));
+		assertEquals(3, removed.size());
+		assertEquals(3, removed.get(0).length);
+		assertNull(removed.get(1));
+		assertEquals(6, removed.get(2).length);
+		assertFalse(map.containsKey("k2"));
+		assertFalse(map.containsKey("k5"));
+		assertEquals(NB_KEYS - 2, map.size());
+		assertEquals(NB_KEYS * (NB_KEYS + 1) / 2 - 9, map.longSize());
+	}
+
+	@Test
+	public void testClear() {
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(0, map.longSize());
+		map.put1("a", 1);
+		assertArrayEquals(new long[] { 1 }, map.get("a"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSerialization() throws Exception {
+		map.freeze();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(map);
+		}
+		CompactLongMultiMap<String> copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (CompactLongMultiMap<String>) in.readObject();
+		}
+		assertEquals(map.longSize(), copy.longSize());
+		assertArrayEquals(map.get("k7"), copy.get("k7"));
+	}
+}
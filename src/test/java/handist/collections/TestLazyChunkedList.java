@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLazyChunkedList {
+
+	/** List holding the integers 0 to 99 in chunks of 10 elements */
+	ChunkedList<Integer> list;
+	ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		list = new ChunkedList<>();
+		for (long from = 0; from < 100; from += 10) {
+			Chunk<Integer> c = new Chunk<>(new LongRange(from, from + 10));
+			for (long i = from; i < from + 10; i++) {
+				c.set(i, (int) i);
+			}
+			list.addChunk(c);
+		}
+		pool = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testStagesAreLazy() {
+		AtomicInteger calls = new AtomicInteger();
+		LazyChunkedList<Integer> pipeline = list.lazy().map(i -> {
+			calls.incrementAndGet();
+			return i * 2;
+		});
+		assertEquals(0, calls.get());
+		assertEquals(100, pipeline.count());
+		assertEquals(100, calls.get());
+	}
+
+	@Test
+	public void testMapFilterForEach() {
+		List<Integer> result = new ArrayList<>();
+		list.lazy().map(i -> i * 3).filter(i -> i % 2 == 0).forEach((Integer i) -> result.add(i));
+		assertEquals(50, result.size());
+		for (int n = 0; n < 50; n++) {
+			assertEquals(6 * n, (int) result.get(n));
+		}
+	}
+
+	@Test
+	public void testForEachKeepsIndices() {
+		list.lazy().filter(i -> i > 50).map(i -> "v" + i).forEach((long index, String s) -> {
+			assertEquals("v" + index, s);
+		});
+	}
+
+	@Test
+	public void testParallelForEach() {
+		List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+		list.lazy().filter(i -> i < 25).forEach(pool, (Integer i) -> result.add(i));
+		Collections.sort(result);
+		assertEquals(25, result.size());
+		assertEquals(24, (int) result.get(24));
+	}
+
+	@Test
+	public void testReduce() {
+		assertEquals(4950, (int) list.lazy().reduce(0, Integer::sum));
+		assertEquals(9900, (int) list.lazy().map(i -> 2 * i).reduce(pool, 0, Integer::sum));
+		assertEquals(0, (int) list.lazy().filter(i -> i < 0).reduce(pool, 0, Integer::sum));
+	}
+
+	@Test
+	public void testToChunkedList() {
+		ChunkedList<String> result = list.lazy().map(i -> i + 1).map(i -> "v" + i).toChunkedList();
+		assertEquals(list.ranges(), result.ranges());
+		assertEquals("v1", result.get(0));
+		assertEquals("v100", result.get(99));
+
+		ChunkedList<Long> parallel = list.lazy().map(i -> (long) i * i).toChunkedList(pool);
+		assertEquals(list.ranges(), parallel.ranges());
+		assertEquals(81l, (long) parallel.get(9));
+		assertEquals(9801l, (long) parallel.get(99));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testToChunkedListAfterFilter() {
+		list.lazy().filter(i -> i > 10).toChunkedList();
+	}
+
+	@Test
+	public void testToBag() {
+		Bag<Integer> bag = list.lazy().filter(i -> i % 10 == 0).toBag(pool);
+		assertEquals(10, bag.size());
+		assertTrue(bag.contains(90));
+		assertEquals(10, list.lazy().filter(i -> i >= 90).toBag().size());
+	}
+
+	@Test
+	public void testRangedListLazy() {
+		Chunk<Integer> c = new Chunk<>(new LongRange(5, 10), 1);
+		assertEquals(10, (int) c.lazy().map(i -> i * 2).reduce(0, Integer::sum));
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class TestLongRangeSet {
+
+	/** Returns the indices of the given set, to compare with a naive model */
+	static TreeSet<Long> indices(LongRangeSet set) {
+		TreeSet<Long> result = new TreeSet<>();
+		set.forEachIndex(result::add);
+		return result;
+	}
+
+	@Test
+	public void testNormalization() {
+		LongRangeSet set = LongRangeSet.ofBounds(20, 30, 0, 5, 5, 8, 25, 35, 40, 40);
+		assertEquals(LongRangeSet.ofBounds(0, 8, 20, 35), set);
+		assertEquals(2, set.rangeCount());
+		assertEquals(23, set.size());
+		assertEquals(Arrays.asList(new LongRange(0, 8), new LongRange(20, 35)), set.ranges());
+		assertEquals("{[0,8), [20,35)}", set.toString());
+		assertTrue(LongRangeSet.of(Arrays.asList(new LongRange(3, 3))).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOddBounds() {
+		LongRangeSet.ofBounds(0, 5, 6);
+	}
+
+	@Test
+	public void testContains() {
+		LongRangeSet set = LongRangeSet.ofBounds(0, 10, 20, 30);
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(29));
+		assertFalse(set.contains(10));
+		assertFalse(set.contains(-1));
+		assertFalse(set.contains(30));
+		assertTrue(set.contains(new LongRange(20, 30)));
+		assertFalse(set.contains(new LongRange(5, 25)));
+		assertTrue(set.intersects(new LongRange(5, 25)));
+		assertTrue(set.intersects(new LongRange(-5, 1)));
+		assertFalse(set.intersects(new LongRange(10, 20)));
+		assertFalse(set.intersects(new LongRange(30, 40)));
+		assertTrue(set.containsAll(LongRangeSet.ofBounds(2, 4, 25, 27)));
+		assertFalse(set.containsAll(LongRangeSet.ofBounds(2, 4, 25, 31)));
+	}
+
+	@Test
+	public void testSetOperations() {
+		LongRangeSet a = LongRangeSet.ofBounds(0, 10, 20, 30);
+		LongRangeSet b = LongRangeSet.ofBounds(5, 20, 25, 26);
+		assertEquals(LongRangeSet.ofBounds(0, 30), a.union(b));
+		assertEquals(LongRangeSet.ofBounds(5, 10, 25, 26), a.intersection(b));
+		assertEquals(LongRangeSet.ofBounds(0, 5, 20, 25, 26, 30), a.difference(b));
+		assertEquals(LongRangeSet.ofBounds(10, 20), b.difference(a));
+		assertEquals(LongRangeSet.ofBounds(8, 10, 20, 22), a.intersection(new LongRange(8, 22)));
+		assertTrue(a.intersection(new LongRange(10, 20)).isEmpty());
+		assertSame(a, a.union(LongRangeSet.EMPTY));
+	}
+
+	@Test
+	public void testSetOperationsRandom() {
+		Random random = new Random(42);
+		for (int iter = 0; iter < 100; iter++) {
+			LongRangeSet a = randomSet(random);
+			LongRangeSet b = randomSet(random);
+			TreeSet<Long> union = indices(a);
+			union.addAll(indices(b));
+			TreeSet<Long> intersection = indices(a);
+			intersection.retainAll(indices(b));
+			TreeSet<Long> difference = indices(a);
+			difference.removeAll(indices(b));
+			assertEquals(union, indices(a.union(b)));
+			assertEquals(intersection, indices(a.intersection(b)));
+			assertEquals(difference, indices(a.difference(b)));
+			for (long i = -1; i < 101; i++) {
+				assertEquals(union.contains(i), a.union(b).contains(i));
+			}
+		}
+	}
+
+	static LongRangeSet randomSet(Random random) {
+		long[] bounds = new long[2 * random.nextInt(6)];
+		for (int i = 0; i < bounds.length; i += 2) {
+			bounds[i] = random.nextInt(100);
+			bounds[i + 1] = bounds[i] + random.nextInt(15);
+		}
+		return LongRangeSet.ofBounds(bounds);
+	}
+
+	@Test
+	public void testSplit() {
+		LongRangeSet set = LongRangeSet.ofBounds(0, 3, 10, 14);
+		LongRangeSet[] parts = set.split(3);
+		assertEquals(LongRangeSet.ofBounds(0, 3), parts[0]);
+		assertEquals(LongRangeSet.ofBounds(10, 12), parts[1]);
+		assertEquals(LongRangeSet.ofBounds(12, 14), parts[2]);
+
+		parts = set.split(2);
+		assertEquals(LongRangeSet.ofBounds(0, 3, 10, 11), parts[0]);
+		assertEquals(LongRangeSet.ofBounds(11, 14), parts[1]);
+
+		// More parts than indices
+		parts = LongRangeSet.ofBounds(0, 2).split(3);
+		assertEquals(LongRangeSet.ofBounds(0, 1), parts[0]);
+		assertEquals(LongRangeSet.ofBounds(1, 2), parts[1]);
+		assertTrue(parts[2].isEmpty());
+		assertTrue(LongRangeSet.EMPTY.split(2)[1].isEmpty());
+	}
+
+	@Test
+	public void testSplitByWeight() {
+		LongRangeSet set = LongRangeSet.ofBounds(0, 50, 100, 150);
+		LongRangeSet[] parts = set.split(new double[] { 1, 0, 3 });
+		assertEquals(LongRangeSet.ofBounds(0, 25), parts[0]);
+		assertTrue(parts[1].isEmpty());
+		assertEquals(LongRangeSet.ofBounds(25, 50, 100, 150), parts[2]);
+
+		parts = set.splitSizes(60, 10, 100);
+		assertEquals(LongRangeSet.ofBounds(0, 50, 100, 110), parts[0]);
+		assertEquals(LongRangeSet.ofBounds(110, 120), parts[1]);
+		assertEquals(LongRangeSet.ofBounds(120, 150), parts[2]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSplitZeroWeights() {
+		LongRangeSet.ofBounds(0, 10).split(new double[] { 0, 0 });
+	}
+
+	@Test
+	public void testChunkedListSeparate() {
+		ChunkedList<Long> list = new ChunkedList<>();
+		for (LongRange r : Arrays.asList(new LongRange(0, 4), new LongRange(4, 7), new LongRange(20, 23))) {
+			Chunk<Long> c = new Chunk<>(r);
+			for (long i = r.from; i < r.to; i++) {
+				c.set(i, i);
+			}
+			list.addChunk(c);
+		}
+		assertEquals(LongRangeSet.ofBounds(0, 7, 20, 23), list.rangeSet());
+
+		List<ChunkedList<Long>> parts = list.separate(3);
+		assertEquals(LongRangeSet.ofBounds(0, 4), parts.get(0).rangeSet());
+		assertEquals(LongRangeSet.ofBounds(4, 7), parts.get(1).rangeSet());
+		assertEquals(LongRangeSet.ofBounds(20, 23), parts.get(2).rangeSet());
+		assertEquals(Long.valueOf(5), parts.get(1).get(5));
+
+		// A part spanning several chunks
+		parts = list.separate(2);
+		assertEquals(LongRangeSet.ofBounds(0, 5), parts.get(0).rangeSet());
+		assertEquals(2, parts.get(0).numChunks());
+		assertEquals(LongRangeSet.ofBounds(5, 7, 20, 23), parts.get(1).rangeSet());
+
+		assertEquals(2, new ChunkedList<Long>().separate(2).size());
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTracer {
+
+	boolean initial;
+
+	@Before
+	public void setUp() {
+		initial = Tracer.isEnabled();
+		Tracer.clear();
+	}
+
+	@After
+	public void tearDown() {
+		Tracer.enabled = initial;
+		Tracer.clear();
+	}
+
+	@Test
+	public void testDisabledRecordsNothing() {
+		Tracer.disable();
+		Tracer.begin("phase");
+		Tracer.end("phase");
+		assertTrue(Tracer.events().isEmpty());
+	}
+
+	@Test
+	public void testBeginEnd() {
+		Tracer.enable();
+		Tracer.begin("phase");
+		Tracer.end("phase");
+		List<Tracer.Event> events = Tracer.events();
+		assertEquals(2, events.size());
+		assertEquals('B', events.get(0).phase);
+		assertEquals('E', events.get(1).phase);
+		assertEquals("phase", events.get(0).name);
+		assertTrue(events.get(0).timestamp <= events.get(1).timestamp);
+	}
+
+	@Test
+	public void testParallelForEachIsTraced() {
+		Tracer.enable();
+		ChunkedList<Integer> list = new ChunkedList<>();
+		list.addChunk(new Chunk<>(new LongRange(0, 100), 1));
+		list.addChunk(new Chunk<>(new LongRange(100, 200), 2));
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		list.forEach(pool, 2, (Integer i) -> {
+		});
+		pool.shutdown();
+		long begins = Tracer.events().stream().filter(e -> e.name.equals("ChunkedList.forEach") && e.phase == 'B')
+				.count();
+		assertEquals(2, begins);
+	}
+
+	@Test
+	public void testEndRecordedOnException() {
+		Tracer.enable();
+		ChunkedList<Integer> list = new ChunkedList<>();
+		list.addChunk(new Chunk<>(new LongRange(0, 10), 1));
+		ExecutorService pool = Executors.newFixedThreadPool(1);
+		try {
+			list.forEach(pool, 1, (Integer i) -> {
+				throw new IllegalStateException();
+			});
+			fail();
+		} catch (RuntimeException e) {
+			// expected
+		} finally {
+			pool.shutdown();
+		}
+		long ends = Tracer.events().stream().filter(e -> e.name.equals("ChunkedList.forEach") && e.phase == 'E')
+				.count();
+		assertEquals(1, ends);
+	}
+
+	@Test
+	public void testEventsOfRank() throws Exception {
+		Tracer.enable();
+		Tracer.begin("unranked");
+		Tracer.end("unranked");
+		@SuppressWarnings("unchecked")
+		List<Tracer.Event>[] ranked = new List[2];
+		Thread t = new Thread(() -> {
+			Tracer.setRank(1);
+			Tracer.begin("rank1");
+			// Threads started from here belong to rank 1 as well
+			Thread child = new Thread(() -> Tracer.end("rank1"));
+			child.start();
+			try {
+				child.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			ranked[0] = Tracer.events();
+			Tracer.clear();
+			ranked[1] = Tracer.events();
+		});
+		t.start();
+		t.join();
+		assertEquals(2, ranked[0].size());
+		assertEquals("rank1", ranked[0].get(0).name);
+		assertTrue(ranked[1].isEmpty());
+		List<Tracer.Event> events = Tracer.events();
+		assertEquals(2, events.size());
+		assertEquals("unranked", events.get(0).name);
+	}
+
+	@Test
+	public void testChromeTrace() throws Exception {
+		Tracer.enable();
+		Tracer.begin("a\"b");
+		Tracer.end("a\"b");
+		StringWriter w = new StringWriter();
+		Tracer.writeChromeTrace(w, Collections.singletonMap(3, Tracer.events()));
+		String json = w.toString();
+		assertTrue(json.startsWith("{\"displayTimeUnit\""));
+		assertTrue(json.contains("\"name\":\"a\\\"b\",\"ph\":\"B\""));
+		assertTrue(json.contains("\"pid\":3"));
+		assertTrue(json.trim().endsWith("]}"));
+	}
+}
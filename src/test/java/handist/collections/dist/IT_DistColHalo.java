@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.RangedList;
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks = 3, launcher = TestLauncher.class)
+public class IT_DistColHalo implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 6519087455810542335L;
+
+	/** Number of elements held by each place, in 2 chunks */
+	static final long ELEMENTS_PER_PLACE = 100;
+
+	static final long WIDTH = 3;
+
+	TeamedPlaceGroup placeGroup;
+	DistCol<Long> distCol;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		distCol = new DistCol<>(placeGroup);
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final long from = pg.myrank() * ELEMENTS_PER_PLACE;
+			final long middle = from + ELEMENTS_PER_PLACE / 2;
+			for (final LongRange r : new LongRange[] { new LongRange(from, middle),
+					new LongRange(middle, from + ELEMENTS_PER_PLACE) }) {
+				final Chunk<Long> c = new Chunk<>(r);
+				for (long i = r.from; i < r.to; i++) {
+					c.set(i, i);
+				}
+				col.addChunk(c);
+			}
+			col.updateDist();
+			col.setHaloWidth(WIDTH);
+		});
+	}
+
+	/**
+	 * Checks the elements within the halo of the current place, whose values
+	 * are their index plus the given offset
+	 */
+	static void checkHalo(DistCol<Long> col, TeamedPlaceGroup pg, long offset) {
+		final long from = pg.myrank() * ELEMENTS_PER_PLACE;
+		final long to = from + ELEMENTS_PER_PLACE;
+		long copies = 0;
+		for (final RangedList<Long> c : col.haloChunks()) {
+			copies += c.longSize();
+		}
+		final boolean first = pg.myrank() == 0;
+		final boolean last = pg.myrank() == pg.size() - 1;
+		assertEquals((first ? 0 : WIDTH) + (last ? 0 : WIDTH), copies);
+		for (long i = from - WIDTH; i < to + WIDTH; i++) {
+			if (i < 0 || i >= pg.size() * ELEMENTS_PER_PLACE) {
+				continue;
+			}
+			assertEquals(Long.valueOf(i + offset), col.getWithHalo(i));
+		}
+	}
+
+	@Test
+	public void testExchangeHalo() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			col.exchangeHalo();
+			checkHalo(col, pg, 0);
+		});
+	}
+
+	@Test
+	public void testExchangeChangedOnly() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			col.exchangeHalo(true);
+			checkHalo(col, pg, 0);
+
+			// Nothing changed: no element is sent
+			RelocationMetrics.enable();
+			final long before = pg.metrics().getElementsMoved();
+			col.exchangeHalo(true);
+			assertEquals(before, pg.metrics().getElementsMoved());
+			checkHalo(col, pg, 0);
+
+			// Only the elements at the borders are sent
+			col.forEachChunk((RangedList<Long> c) -> {
+				for (long i = c.getRange().from; i < c.getRange().to; i++) {
+					c.set(i, i + 1000);
+				}
+			});
+			col.exchangeHalo(true);
+			checkHalo(col, pg, 1000);
+			RelocationMetrics.disable();
+		});
+	}
+
+	@Test
+	public void testDifferentWidths() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			// The place of rank 0 declares no halo at all
+			col.setHaloWidth(pg.myrank());
+			try {
+				col.exchangeHalo();
+				fail("exchangeHalo should fail when the widths differ");
+			} catch (final IllegalStateException e) {
+				assertTrue(e.getMessage().startsWith("[Halo]"));
+			}
+		});
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks=2, launcher=TestLauncher.class)
+public class IT_DistColLoader implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 3404186151717240593L;
+
+	/** Number of records of the loaded files */
+	static final int RECORDS = 10000;
+
+	TeamedPlaceGroup placeGroup;
+	File file;
+
+	@Before
+	public void setup() throws IOException {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		file = File.createTempFile("handist-loader", ".dat");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testLoadFixed() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(RECORDS * 8);
+		for (long i = 0; i < RECORDS; i++) {
+			buffer.putLong(i * i);
+		}
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(buffer.array());
+		}
+		final TeamedPlaceGroup pg = placeGroup;
+		final String name = file.getPath();
+		final DistCol<Long> col = new DistCol<>(pg);
+		pg.broadcastFlat(() -> {
+			final ExecutorService pool = Executors.newFixedThreadPool(3);
+			try {
+				DistColLoader.loadFixed(col, name, 8,
+						(ByteBuffer b, int offset, int length) -> b.getLong(offset), pool, 3);
+			} finally {
+				pool.shutdown();
+			}
+			col.forEach((long i, Long v) -> assertEquals(i * i, (long) v));
+			final long[] sizes = new long[pg.size()];
+			col.checkDistInfo(sizes);
+			assertEquals(RECORDS, Arrays.stream(sizes).sum());
+		});
+	}
+
+	@Test
+	public void testLoadDelimited() throws IOException {
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			for (int i = 0; i < RECORDS; i++) {
+				// Records of various lengths
+				out.print("line" + i + "-" + (i % 7 == 0 ? "" : Integer.toBinaryString(i)) + "\n");
+			}
+		}
+		final TeamedPlaceGroup pg = placeGroup;
+		final String name = file.getPath();
+		final DistCol<String> col = new DistCol<>(pg);
+		pg.broadcastFlat(() -> {
+			final ExecutorService pool = Executors.newFixedThreadPool(3);
+			try {
+				DistColLoader.loadDelimited(col, name, (byte) '\n', RecordCodec.utf8(), pool, 3);
+			} finally {
+				pool.shutdown();
+			}
+			col.forEach((long i, String line) -> {
+				assertEquals("line" + i + "-" + (i % 7 == 0 ? "" : Long.toBinaryString(i)), line);
+			});
+			final long[] sizes = new long[pg.size()];
+			col.checkDistInfo(sizes);
+			assertEquals(RECORDS, Arrays.stream(sizes).sum());
+		});
+	}
+}
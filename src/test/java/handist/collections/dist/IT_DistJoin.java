@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks=2, launcher=TestLauncher.class)
+public class IT_DistJoin implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -2538000574713580410L;
+
+	TeamedPlaceGroup placeGroup;
+	DistMap<Long, String> left;
+	DistMap<Long, Long> right;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		left = new DistMap<>(placeGroup);
+		right = new DistMap<>(placeGroup);
+		// Keys 0 to 99 on the left, 50 to 149 on the right, all at place 0
+		for (long k = 0; k < 100; k++) {
+			left.put(k, "v" + k);
+			right.put(k + 50, 2 * (k + 50));
+		}
+	}
+
+	@Test
+	public void testJoin() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistMap<Long, String> l = left;
+		final DistMap<Long, Long> r = right;
+		pg.broadcastFlat(() -> {
+			final ExecutorService pool = Executors.newFixedThreadPool(2);
+			final Distribution<Long> dist = (Long key) -> pg.get((int) (key % pg.size()));
+			try {
+				for (int pass = 0; pass < 2; pass++) {
+					// The second pass finds the maps already co-partitioned
+					final DistMap<Long, String> joined = DistJoin.join(l, r, dist,
+							(String s, Long v) -> s + ":" + v, pool, 2);
+					joined.forEach((Long key, String value) -> {
+						assertEquals(dist.place(key), here());
+						assertEquals("v" + key + ":" + (2 * key), value);
+					});
+					final long[] sizes = new long[pg.size()];
+					joined.checkDistInfo(sizes);
+					assertEquals(50, Arrays.stream(sizes).sum());
+				}
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+
+	@Test
+	public void testJoinLists() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistMapList<Long, Long> l = new DistMapList<>(pg);
+		final DistMapList<Long, Long> r = new DistMapList<>(pg);
+		for (long k = 0; k < 10; k++) {
+			l.put1(k, k);
+			l.put1(k, k + 100);
+			r.put1(k, 1000l);
+		}
+		pg.broadcastFlat(() -> {
+			final ExecutorService pool = Executors.newFixedThreadPool(2);
+			try {
+				final DistMapList<Long, Long> joined = DistJoin.joinLists(l, r, DistJoin.hashDistribution(pg),
+						(Long a, Long b) -> a + b, pool, 2);
+				joined.forEach((Long key, List<Long> values) -> {
+					assertEquals(2, values.size());
+					assertTrue(values.contains(key + 1000));
+					assertTrue(values.contains(key + 1100));
+				});
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+
+	@Test
+	public void testJoinListsSpread() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistMapList<Long, Long> l = new DistMapList<>(pg);
+		final DistMapList<Long, Long> r = new DistMapList<>(pg);
+		pg.broadcastFlat(() -> {
+			// Every place holds values for the same keys, which are merged
+			// with the values already held by the destination
+			final int rank = pg.myrank();
+			for (long k = 0; k < 10; k++) {
+				l.put1(k, 100l * rank);
+				r.put1(k, 1000l * rank);
+			}
+			final ExecutorService pool = Executors.newFixedThreadPool(2);
+			try {
+				final DistMapList<Long, Long> joined = DistJoin.joinLists(l, r, DistJoin.hashDistribution(pg),
+						(Long a, Long b) -> a + b, pool, 2);
+				joined.forEach((Long key, List<Long> values) -> {
+					assertEquals(pg.size() * pg.size(), values.size());
+					for (int i = 0; i < pg.size(); i++) {
+						for (int j = 0; j < pg.size(); j++) {
+							assertTrue(values.contains(100l * i + 1000l * j));
+						}
+					}
+				});
+				final long[] sizes = new long[pg.size()];
+				joined.checkDistInfo(sizes);
+				assertEquals(10, Arrays.stream(sizes).sum());
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+}
@@ -10,9 +10,14 @@
 package handist.collections.dist;
 
 import static apgas.Constructs.*;
+import static org.junit.Assert.*;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -239,5 +244,60 @@ public class IT_DistMap implements Serializable {
 		//
 		System.out.println("----finish");
 	}
-}
 
+	@Test
+	public void testParallelRelocate() {
+		final TeamedPlaceGroup pg = this.placeGroup;
+		final DistMap<String,String> distMap2 = this.distMap;
+		for (int i=0; i<numData; i++) {
+			distMap2.put("k" + i, "v" + i);
+		}
+		pg.broadcastFlat(() -> {
+			ExecutorService pool = Executors.newFixedThreadPool(4);
+			try {
+				distMap2.relocate(pool, 4, (String key) -> pg.get(Math.abs(key.hashCode()) % pg.size()),
+						new MoveManagerLocal(pg));
+			} finally {
+				pool.shutdown();
+			}
+			distMap2.forEach((String key, String value) -> {
+				assertEquals(pg.get(Math.abs(key.hashCode()) % pg.size()), here());
+				assertEquals("v" + key.substring(1), value);
+			});
+			long[] sizes = new long[pg.size()];
+			distMap2.checkDistInfo(sizes);
+			assertEquals(numData, Arrays.stream(sizes).sum());
+		});
+	}
+
+	@Test
+	public void testSyncAsync() {
+		final TeamedPlaceGroup pg = this.placeGroup;
+		final DistMap<String,String> distMap2 = this.distMap;
+		final DistMap<String,String> other = new DistMap<>(pg);
+		for (int i=0; i<numData; i++) {
+			distMap2.put("k" + i, "v" + i);
+			other.put("k" + i, "v" + i);
+		}
+		pg.broadcastFlat(() -> {
+			Distribution<String> dist = (String key) -> pg.get(Math.abs(key.hashCode()) % pg.size());
+			Distribution<String> shifted = (String key) -> pg.get((Math.abs(key.hashCode()) + 1) % pg.size());
+			MoveManagerLocal mm = new MoveManagerLocal(pg);
+			distMap2.moveAtSync(dist, mm);
+			CompletableFuture<Void> future = mm.syncAsync();
+			// Relocate another map with a blocking sync while the first one is in flight
+			other.relocate(shifted, mm);
+			future.get();
+			distMap2.forEach((String key, String value) -> {
+				assertEquals(dist.place(key), here());
+				assertEquals("v" + key.substring(1), value);
+			});
+			other.forEach((String key, String value) -> {
+				assertEquals(shifted.place(key), here());
+			});
+			long[] sizes = new long[pg.size()];
+			distMap2.checkDistInfo(sizes);
+			assertEquals(numData, Arrays.stream(sizes).sum());
+		});
+	}
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+/**
+ * Checks the concurrent storage of {@link DistMap} and {@link DistIdMap}:
+ * entries put and removed by several threads, parallel iteration and
+ * relocation of the entries.
+ */
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks = 2, launcher = TestLauncher.class)
+public class IT_DistMapConcurrent implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 7164015302736285547L;
+
+	/** Number of entries put at each place */
+	static final int ENTRIES = 10000;
+	static final int THREADS = 4;
+
+	/**
+	 * Puts the ids of the current place from {@link #THREADS} threads, each
+	 * thread also removing the odd ids it put.
+	 */
+	static void putConcurrently(DistIdMap<Long> map, long offset) throws Exception {
+		final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				final int thread = t;
+				futures.add(pool.submit(() -> {
+					for (long i = offset + thread; i < offset + ENTRIES; i += THREADS) {
+						map.put(i, Long.valueOf(i));
+					}
+					for (long i = offset + thread; i < offset + ENTRIES; i += THREADS) {
+						if (i % 2 == 1) {
+							assertEquals(Long.valueOf(i), map.remove(i));
+						}
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testDistIdMap() {
+		final TeamedPlaceGroup pg = TeamedPlaceGroup.getWorld();
+		final DistIdMap<Long> map = new DistIdMap<>(pg, true);
+		pg.broadcastFlat(() -> {
+			final long offset = (long) pg.myrank() * ENTRIES;
+			putConcurrently(map, offset);
+			assertEquals(ENTRIES / 2, map.size());
+			map.updateDist();
+			assertEquals(ENTRIES / 2 * pg.size(), map.getDist().size());
+
+			final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+			try {
+				final AtomicLong sum = new AtomicLong();
+				final AtomicLong count = new AtomicLong();
+				map.forEach(pool, THREADS, (Long key, Long value) -> {
+					assertEquals(key, value);
+					sum.addAndGet(value);
+					count.incrementAndGet();
+				});
+				assertEquals(ENTRIES / 2, count.get());
+				long expected = 0;
+				for (long i = offset; i < offset + ENTRIES; i += 2) {
+					expected += i;
+				}
+				assertEquals(expected, sum.get());
+			} finally {
+				pool.shutdown();
+			}
+
+			// Send every entry to the next place; the branches created there
+			// hold their entries in a ConcurrentHashMap as well
+			final MoveManagerLocal mm = new MoveManagerLocal(pg);
+			map.moveAtSync(new ArrayList<>(map.idSet()), pg.get((pg.myrank() + 1) % pg.size()), mm);
+			mm.sync();
+			map.updateDist();
+			assertTrue(map.isConcurrent());
+			final long from = (long) ((pg.myrank() + pg.size() - 1) % pg.size()) * ENTRIES;
+			assertEquals(ENTRIES / 2, map.size());
+			for (long i = from; i < from + ENTRIES; i += 2) {
+				assertEquals(Long.valueOf(i), map.get(i));
+				assertEquals(pg.get(pg.myrank()), map.getPlace(i));
+			}
+		});
+	}
+
+	@Test
+	public void testDistMap() {
+		final TeamedPlaceGroup pg = TeamedPlaceGroup.getWorld();
+		final DistMap<String, Long> map = new DistMap<>(pg, true);
+		pg.broadcastFlat(() -> {
+			final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+			try {
+				final List<Future<?>> futures = new ArrayList<>();
+				for (int t = 0; t < THREADS; t++) {
+					final int thread = t;
+					futures.add(pool.submit(() -> {
+						for (long i = thread; i < ENTRIES; i += THREADS) {
+							map.put("k" + i, i);
+						}
+					}));
+				}
+				for (final Future<?> f : futures) {
+					f.get();
+				}
+				assertEquals(ENTRIES, map.size());
+
+				// The operation may remove entries of a concurrent map
+				map.forEach(pool, THREADS, (String key, Long value) -> {
+					if (value % 2 == 1) {
+						map.remove(key);
+					}
+				});
+				assertEquals(ENTRIES / 2, map.size());
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.collections.RangedList;
+import handist.collections.RangedListView;
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks = 3, launcher = TestLauncher.class)
+public class IT_DistScan implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -7437062417214364518L;
+
+	/** Size of the chunks, dealt to the places in turn */
+	static final long CHUNK = 50;
+	static final int CHUNKS_PER_PLACE = 4;
+
+	TeamedPlaceGroup placeGroup;
+	DistCol<Long> distCol;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		distCol = new DistCol<>(placeGroup);
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			// The chunks of each place are not contiguous
+			for (int k = 0; k < CHUNKS_PER_PLACE; k++) {
+				final long from = (k * pg.size() + pg.myrank()) * CHUNK;
+				final Chunk<Long> c = new Chunk<>(new LongRange(from, from + CHUNK));
+				for (long i = from; i < from + CHUNK; i++) {
+					c.set(i, i);
+				}
+				col.addChunk(c);
+			}
+			col.updateDist();
+		});
+	}
+
+	/** Sum of the integers from 0 to n excluded */
+	static long sumBelow(long n) {
+		return n * (n - 1) / 2;
+	}
+
+	/** Checks that the result has the same ranges as the scanned collection */
+	static void checkRanges(DistCol<Long> col, DistCol<?> result) {
+		assertEquals(col.ranges().size(), result.ranges().size());
+		for (final LongRange r : col.ranges()) {
+			assertTrue(result.ranges().contains(r));
+		}
+		assertEquals(col.getDist(), result.getDist());
+	}
+
+	@Test
+	public void testScan() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final DistCol<Long> inclusive = col.scan(Long::sum);
+			final DistCol<Long> exclusive = col.exclusiveScan(0l, Long::sum);
+			checkRanges(col, inclusive);
+			checkRanges(col, exclusive);
+			col.forEachChunk((RangedList<Long> c) -> {
+				for (long i = c.getRange().from; i < c.getRange().to; i++) {
+					assertEquals(Long.valueOf(sumBelow(i + 1)), inclusive.get(i));
+					assertEquals(Long.valueOf(sumBelow(i)), exclusive.get(i));
+				}
+			});
+		});
+	}
+
+	@Test
+	public void testScanNonCommutative() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			// Keeps the last element: checks the order of the combinations
+			final DistCol<Long> last = col.scan((Long a, Long b) -> b);
+			final DistCol<Long> previous = col.exclusiveScan(-1l, (Long a, Long b) -> b == -1l ? a : b);
+			col.forEachChunk((RangedList<Long> c) -> {
+				for (long i = c.getRange().from; i < c.getRange().to; i++) {
+					assertEquals(Long.valueOf(i), last.get(i));
+					assertEquals(Long.valueOf(i - 1), previous.get(i));
+				}
+			});
+		});
+	}
+
+	@Test
+	public void testScanLong() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final DistCol<Long> inclusive = col.scanLong((Long v) -> 2 * v);
+			final DistCol<Long> exclusive = col.exclusiveScanLong((Long v) -> 2 * v);
+			checkRanges(col, exclusive);
+			col.forEachChunk((RangedList<Long> c) -> {
+				for (long i = c.getRange().from; i < c.getRange().to; i++) {
+					assertEquals(Long.valueOf(2 * sumBelow(i + 1)), inclusive.get(i));
+					assertEquals(Long.valueOf(2 * sumBelow(i)), exclusive.get(i));
+				}
+			});
+		});
+	}
+
+	@Test
+	public void testScanPoolWithEmptyChunk() {
+		final DistCol<Long> col = distCol;
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			// An empty chunk starting where a chunk of the next place starts
+			final long from = (pg.myrank() + 1) * CHUNK;
+			final LongRange empty = new LongRange(from, from);
+			col.addChunk(new RangedListView<>(null, empty));
+			final ExecutorService pool = Executors.newFixedThreadPool(3);
+			try {
+				final DistCol<Long> inclusive = col.scan(pool, 3, Long::sum);
+				final DistCol<Long> exclusive = col.exclusiveScan(pool, 3, 0l, Long::sum);
+				final DistCol<Long> inclusiveLong = col.scanLong(pool, 3, (Long v) -> v);
+				final DistCol<Long> exclusiveLong = col.exclusiveScanLong(pool, 3, (Long v) -> v);
+				for (final DistCol<Long> result : new DistCol[] { inclusive, exclusive, inclusiveLong,
+						exclusiveLong }) {
+					assertEquals(CHUNKS_PER_PLACE + 1, result.ranges().size());
+					assertTrue(result.ranges().contains(empty));
+				}
+				col.forEachChunk((RangedList<Long> c) -> {
+					for (long i = c.getRange().from; i < c.getRange().to; i++) {
+						assertEquals(Long.valueOf(sumBelow(i + 1)), inclusive.get(i));
+						assertEquals(Long.valueOf(sumBelow(i)), exclusive.get(i));
+						assertEquals(Long.valueOf(sumBelow(i + 1)), inclusiveLong.get(i));
+						assertEquals(Long.valueOf(sumBelow(i)), exclusiveLong.get(i));
+					}
+				});
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks=2, launcher=TestLauncher.class)
+public class IT_DistSort implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 3300174853373262812L;
+
+	/** Number of elements initially held by each place */
+	static final int ELEMENTS_PER_PLACE = 1000;
+
+	TeamedPlaceGroup placeGroup;
+	DistCol<Long> distCol;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		distCol = new DistCol<>(placeGroup);
+	}
+
+	@Test
+	public void testSort() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistCol<Long> col = distCol;
+		pg.broadcastFlat(() -> {
+			// Skewed input: place of rank r holds r+1 times more elements
+			final int rank = pg.myrank();
+			final int n = ELEMENTS_PER_PLACE * (rank + 1);
+			final Random random = new Random(rank);
+			final Chunk<Long> c = new Chunk<>(new LongRange(rank * 100000l, rank * 100000l + n));
+			for (long i = c.getRange().from; i < c.getRange().to; i++) {
+				c.set(i, (long) random.nextInt(500));
+			}
+			col.addChunk(c);
+
+			final DistCol<Long> sorted = DistSort.sort(col, (SerializableComparator<Long>) Long::compare);
+
+			// Local elements are sorted and held in a single contiguous range
+			final List<Long> local = new ArrayList<>();
+			final List<LongRange> ranges = new ArrayList<>(sorted.ranges());
+			ranges.sort(null);
+			for (int i = 1; i < ranges.size(); i++) {
+				assertEquals(ranges.get(i - 1).to, ranges.get(i).from);
+			}
+			for (final LongRange r : ranges) {
+				for (long i = r.from; i < r.to; i++) {
+					local.add(sorted.get(i));
+				}
+			}
+			for (int i = 1; i < local.size(); i++) {
+				assertTrue(local.get(i - 1) <= local.get(i));
+			}
+
+			// Balanced ownership and total number of elements
+			long total = 0;
+			for (int r = 0; r < pg.size(); r++) {
+				total += ELEMENTS_PER_PLACE * (r + 1);
+			}
+			assertEquals(total / pg.size(), sorted.longSize(), 1);
+			final long[] sizes = new long[pg.size()];
+			sorted.checkDistInfo(sizes);
+			long sum = 0;
+			for (final long s : sizes) {
+				sum += s;
+			}
+			assertEquals(total, sum);
+
+			// The last element of each place is not greater than the first
+			// element of the next place
+			final long first = local.isEmpty() ? Long.MAX_VALUE : local.get(0);
+			final long last = local.isEmpty() ? Long.MIN_VALUE : local.get(local.size() - 1);
+			final long[] bounds = new long[2 * pg.size()];
+			bounds[2 * rank] = first;
+			bounds[2 * rank + 1] = last;
+			CollectiveRelocator.allgatherSer(pg, (out) -> {
+				out.writeLong(first);
+				out.writeLong(last);
+			}, (in, p) -> {
+				final int r = pg.rank(p);
+				bounds[2 * r] = in.readLong();
+				bounds[2 * r + 1] = in.readLong();
+			});
+			for (int r = 1; r < pg.size(); r++) {
+				assertTrue(bounds[2 * r - 1] <= bounds[2 * r]);
+			}
+		});
+	}
+}
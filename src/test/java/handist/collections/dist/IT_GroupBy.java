@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks=2, launcher=TestLauncher.class)
+public class IT_GroupBy implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = 7393011837617095215L;
+
+	/** Number of elements held by each place */
+	static final int ELEMENTS_PER_PLACE = 1000;
+
+	/** Number of distinct keys */
+	static final int KEYS = 10;
+
+	TeamedPlaceGroup placeGroup;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+	}
+
+	@Test
+	public void testBagGroupBy() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistBag<Long> bag = new DistBag<>(pg);
+		pg.broadcastFlat(() -> {
+			for (long i = 0; i < ELEMENTS_PER_PLACE; i++) {
+				bag.add(i);
+			}
+			final Distribution<Long> dist = (Long key) -> pg.get((int) (key % pg.size()));
+			final DistMapList<Long, Long> groups = bag.groupBy((Long v) -> v % KEYS, (Long v) -> v, dist);
+			groups.forEach((Long key, List<Long> values) -> {
+				assertEquals(dist.place(key), here());
+				assertEquals(pg.size() * ELEMENTS_PER_PLACE / KEYS, values.size());
+				for (final Long v : values) {
+					assertEquals((long) key, v % KEYS);
+				}
+			});
+			final long[] sizes = new long[pg.size()];
+			groups.checkDistInfo(sizes);
+			assertEquals(KEYS, Arrays.stream(sizes).sum());
+			// The source collection is left untouched
+			assertEquals(ELEMENTS_PER_PLACE, bag.size());
+		});
+	}
+
+	@Test
+	public void testColAggregateByKey() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistCol<Long> col = new DistCol<>(pg);
+		pg.broadcastFlat(() -> {
+			final int rank = pg.myrank();
+			final Chunk<Long> c = new Chunk<>(
+					new LongRange(rank * ELEMENTS_PER_PLACE, (rank + 1) * ELEMENTS_PER_PLACE));
+			for (long i = c.getRange().from; i < c.getRange().to; i++) {
+				c.set(i, i);
+			}
+			col.addChunk(c);
+			final DistMap<Long, Long> sums = col.aggregateByKey((Long v) -> v % KEYS, (Long v) -> v,
+					(Long a, Long b) -> a + b, DistJoin.hashDistribution(pg));
+			final long n = (long) pg.size() * ELEMENTS_PER_PLACE;
+			sums.forEach((Long key, Long sum) -> {
+				// Sum of the integers below n congruent to key modulo KEYS
+				final long count = n / KEYS;
+				assertEquals(key * count + KEYS * count * (count - 1) / 2, (long) sum);
+			});
+			final long[] sizes = new long[pg.size()];
+			sums.checkDistInfo(sizes);
+			assertEquals(KEYS, Arrays.stream(sizes).sum());
+		});
+	}
+
+	@Test
+	public void testMapAggregateByKey() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistMap<Long, String> map = new DistMap<>(pg);
+		pg.broadcastFlat(() -> {
+			final int rank = pg.myrank();
+			for (long k = 0; k < ELEMENTS_PER_PLACE; k++) {
+				map.put(rank * ELEMENTS_PER_PLACE + k, "x");
+			}
+			final DistMap<Integer, Integer> counts = map.aggregateByKey((Long k, String v) -> (int) (k % KEYS),
+					(Long k, String v) -> 1, (Integer a, Integer b) -> a + b, DistJoin.hashDistribution(pg));
+			counts.forEach((Integer key, Integer count) -> {
+				assertEquals(pg.size() * ELEMENTS_PER_PLACE / KEYS, (int) count);
+			});
+		});
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static apgas.Constructs.*;
+import static org.junit.Assert.*;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import apgas.Place;
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+import handist.mpijunit.MpiConfig;
+import handist.mpijunit.MpiRunner;
+import handist.mpijunit.launcher.TestLauncher;
+
+/**
+ * Checks the hierarchical collective operations on 4 places divided into 2
+ * simulated nodes of 2 places each.
+ */
+@RunWith(MpiRunner.class)
+@MpiConfig(ranks = 4, launcher = TestLauncher.class)
+public class IT_NodeHierarchy implements Serializable {
+
+	/** Serial Version UID */
+	private static final long serialVersionUID = -2846270358467209961L;
+
+	/** Number of elements initially held by each place */
+	static final int ELEMENTS_PER_PLACE = 100;
+
+	TeamedPlaceGroup placeGroup;
+
+	@Before
+	public void setup() {
+		placeGroup = TeamedPlaceGroup.getWorld();
+		placeGroup.broadcastFlat(() -> {
+			System.setProperty(NodeHierarchy.RANKS_PER_NODE_PROPERTY, "2");
+		});
+	}
+
+	@Test
+	public void testDivision() {
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final NodeHierarchy hierarchy = pg.hierarchy();
+			assertTrue(hierarchy.useful());
+			assertEquals(2, hierarchy.nodes());
+			assertEquals(pg.myrank() / 2, hierarchy.nodeOf[pg.myrank()]);
+			assertEquals(pg.myrank() % 2, hierarchy.localRankOf[pg.myrank()]);
+			assertEquals(pg.myrank() % 2 == 0, hierarchy.leaders != null);
+		});
+	}
+
+	@Test
+	public void testAllgatherSer() {
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final int[] received = new int[pg.size()];
+			CollectiveRelocator.allgatherSer(pg, (ObjectOutputStream out) -> {
+				// Contributions of different sizes
+				out.writeObject(new int[pg.myrank() * 1000]);
+				out.writeInt(pg.myrank());
+			}, (ObjectInputStream in, Place from) -> {
+				final int[] array = (int[]) in.readObject();
+				assertEquals(pg.rank(from) * 1000, array.length);
+				received[pg.rank(from)] = in.readInt() + 1;
+			});
+			for (int rank = 0; rank < pg.size(); rank++) {
+				assertEquals(rank == pg.myrank() ? 0 : rank + 1, received[rank]);
+			}
+		});
+	}
+
+	@Test
+	public void testGatherSer() {
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			// The root is not the leader of its node
+			final Place root = pg.get(3);
+			final int[] received = new int[pg.size()];
+			CollectiveRelocator.gatherSer(pg, root, (ObjectOutputStream out) -> {
+				out.writeObject(new int[pg.myrank() * 1000]);
+				out.writeInt(pg.myrank());
+			}, (ObjectInputStream in, Place from) -> {
+				final int[] array = (int[]) in.readObject();
+				assertEquals(pg.rank(from) * 1000, array.length);
+				received[pg.rank(from)] = in.readInt() + 1;
+			});
+			for (int rank = 0; rank < pg.size(); rank++) {
+				final boolean expected = here().equals(root) && rank != pg.myrank();
+				assertEquals(expected ? rank + 1 : 0, received[rank]);
+			}
+		});
+	}
+
+	@Test
+	public void testBcastSer() {
+		final TeamedPlaceGroup pg = placeGroup;
+		pg.broadcastFlat(() -> {
+			final Place root = pg.get(1);
+			final String[] received = new String[1];
+			CollectiveRelocator.bcastSer(pg, root, (ObjectOutputStream out) -> {
+				out.writeObject("from " + pg.myrank());
+			}, (ObjectInputStream in) -> {
+				received[0] = (String) in.readObject();
+			});
+			assertEquals(here().equals(root) ? null : "from 1", received[0]);
+		});
+	}
+
+	@Test
+	public void testRelocation() {
+		final TeamedPlaceGroup pg = placeGroup;
+		final DistCol<Long> col = new DistCol<>(pg);
+		pg.broadcastFlat(() -> {
+			final int rank = pg.myrank();
+			final long from = rank * ELEMENTS_PER_PLACE;
+			final Chunk<Long> c = new Chunk<>(new LongRange(from, from + ELEMENTS_PER_PLACE));
+			for (long i = c.getRange().from; i < c.getRange().to; i++) {
+				c.set(i, i);
+			}
+			col.addChunk(c);
+
+			// Each place sends a quarter of its elements to every place
+			final MoveManagerLocal mm = new MoveManagerLocal(pg);
+			final int quarter = ELEMENTS_PER_PLACE / pg.size();
+			for (int dest = 0; dest < pg.size(); dest++) {
+				if (dest != rank) {
+					final long start = from + dest * quarter;
+					col.moveAtSync(new LongRange(start, start + quarter), pg.get(dest), mm);
+				}
+			}
+			mm.sync();
+
+			assertEquals(ELEMENTS_PER_PLACE, col.size());
+			for (int src = 0; src < pg.size(); src++) {
+				final long start = src * ELEMENTS_PER_PLACE + rank * quarter;
+				for (long i = start; i < start + quarter; i++) {
+					assertEquals(Long.valueOf(i), col.get(i));
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import handist.collections.dist.AbstractDistCollection.ILPair;
+
+public class TestBalancePlan {
+
+	static final int[] ORDER = { 0, 1, 2, 3 };
+	static final long[] TARGETS = { 4, 4, 4, 4 };
+
+	/** Checks the transfers of a place: pairs of destination and count */
+	private static void assertMoves(List<ILPair> moves, long... expected) {
+		assertEquals(expected.length / 2, moves.size());
+		for (int i = 0; i < moves.size(); i++) {
+			assertEquals(expected[2 * i], moves.get(i).first);
+			assertEquals(expected[2 * i + 1], moves.get(i).second);
+		}
+	}
+
+	@Test
+	public void testSingleNode() {
+		BalancePlan plan = new BalancePlan(new long[] { 10, 0, 5, 1 }, TARGETS, new int[4], ORDER);
+		// The first exporter is queued again after the second one once it
+		// has filled the first importer
+		assertMoves(plan.moves.get(0), 1, 4, 3, 2);
+		assertMoves(plan.moves.get(1));
+		assertMoves(plan.moves.get(2), 3, 1);
+		assertMoves(plan.moves.get(3));
+		assertEquals(7, plan.intraNodeElements);
+		assertEquals(0, plan.crossNodeElements);
+	}
+
+	@Test
+	public void testWithinNodes() {
+		// Ignoring the nodes, place 0 would fill place 1 and 2
+		BalancePlan plan = new BalancePlan(new long[] { 6, 2, 0, 8 }, TARGETS, new int[] { 0, 0, 1, 1 }, ORDER);
+		assertMoves(plan.moves.get(0), 1, 2);
+		assertMoves(plan.moves.get(3), 2, 4);
+		assertEquals(6, plan.intraNodeElements);
+		assertEquals(0, plan.crossNodeElements);
+	}
+
+	@Test
+	public void testResidualAcrossNodes() {
+		BalancePlan plan = new BalancePlan(new long[] { 10, 2, 2, 2 }, TARGETS, new int[] { 0, 0, 1, 1 }, ORDER);
+		assertMoves(plan.moves.get(0), 1, 2, 2, 2, 3, 2);
+		assertEquals(2, plan.intraNodeElements);
+		assertEquals(4, plan.crossNodeElements);
+	}
+
+	@Test
+	public void testOrder() {
+		// Places are paired in the given order rather than by rank
+		BalancePlan plan = new BalancePlan(new long[] { 0, 8, 0, 8 }, TARGETS, new int[] { 0, 1, 0, 1 },
+				new int[] { 3, 2, 1, 0 });
+		assertMoves(plan.moves.get(3), 2, 4);
+		assertMoves(plan.moves.get(1), 0, 4);
+		assertEquals(0, plan.intraNodeElements);
+		assertEquals(8, plan.crossNodeElements);
+	}
+
+	@Test
+	public void testLocality() {
+		BalancePlan plan = BalancePlan.of(new float[] { 1, 1, 1, 1 }, new long[] { 10, 0, 5, 1 }, new int[4]);
+		assertArrayEquals(TARGETS, plan.targets);
+		assertMoves(plan.moves.get(0), 1, 4, 3, 2);
+
+		// Shares proportional to the locality, the last place of the order
+		// receiving the remainder
+		plan = BalancePlan.of(new float[] { 1, 3, 1 }, new long[] { 0, 10, 0 }, new int[3]);
+		assertArrayEquals(new long[] { 2, 6, 2 }, plan.targets);
+		assertMoves(plan.moves.get(1), 0, 2, 2, 2);
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import handist.collections.Chunk;
+import handist.collections.LongRange;
+
+/**
+ * Checks the decoding of the portions of a file by {@link DistColLoader} with
+ * windows smaller than the records and the file.
+ */
+public class TestDistColLoader {
+
+	Path file;
+
+	@Before
+	public void setup() throws IOException {
+		file = Files.createTempFile("TestDistColLoader", ".txt");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	FileChannel open(String contents) throws IOException {
+		Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+		return FileChannel.open(file, StandardOpenOption.READ);
+	}
+
+	List<Object> decode(FileChannel channel, long start, long end, int windowSize) throws IOException {
+		long size = channel.size();
+		return DistColLoader.decodeRecords(channel, size,
+				DistColLoader.recordStart(channel, size, start, (byte) '\n'), end, (byte) '\n',
+				RecordCodec.utf8(), windowSize);
+	}
+
+	@Test
+	public void testDelimitedWindowRollover() throws IOException {
+		List<String> lines = Arrays.asList("a", "bb", "ccc", "dddd", "", "eeeee", "f");
+		String contents = String.join("\n", lines) + "\n";
+		try (FileChannel channel = open(contents)) {
+			// Windows of 6 bytes cut most records, which are decoded from the
+			// next window
+			for (int window = 6; window <= 10; window++) {
+				assertEquals(lines, decode(channel, 0, channel.size(), window));
+			}
+			// Portions decoded separately give every record exactly once
+			for (long cut = 0; cut <= channel.size(); cut++) {
+				List<Object> all = new ArrayList<>(decode(channel, 0, cut, 6));
+				all.addAll(decode(channel, cut, channel.size(), 6));
+				assertEquals("cut at " + cut, lines, all);
+			}
+		}
+	}
+
+	@Test
+	public void testDelimitedLastRecordWithoutDelimiter() throws IOException {
+		try (FileChannel channel = open("abc\ndefgh")) {
+			assertEquals(Arrays.asList("abc", "defgh"), decode(channel, 0, channel.size(), 5));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDelimitedRecordLongerThanWindow() throws IOException {
+		try (FileChannel channel = open("a\nbcdefghij\nk\n")) {
+			decode(channel, 0, channel.size(), 4);
+		}
+	}
+
+	@Test
+	public void testFixedWindows() throws IOException {
+		// 10 records of 3 bytes and a trailing partial record
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			b.append(String.format("%03d", i));
+		}
+		b.append("99");
+		RecordCodec<String> codec = (ByteBuffer buffer, int offset, int length) -> {
+			byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++) {
+				bytes[i] = buffer.get(offset + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		};
+		try (FileChannel channel = open(b.toString())) {
+			// Windows of 7 bytes hold 2 records
+			List<Chunk<String>> chunks = DistColLoader.decodeFixed(channel, 1, 8, 3, codec, 7);
+			assertEquals(4, chunks.size());
+			assertEquals(new LongRange(1, 3), chunks.get(0).getRange());
+			assertEquals(new LongRange(7, 8), chunks.get(3).getRange());
+			for (Chunk<String> c : chunks) {
+				for (long i = c.getRange().from; i < c.getRange().to; i++) {
+					assertEquals(String.format("%03d", i), c.get(i));
+				}
+			}
+			assertTrue(DistColLoader.decodeFixed(channel, 5, 5, 3, codec, 7).isEmpty());
+		}
+	}
+}
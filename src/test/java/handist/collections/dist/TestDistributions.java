@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import apgas.Place;
+import handist.collections.LongRange;
+
+public class TestDistributions {
+
+	static List<Place> places(int n) {
+		List<Place> places = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			places.add(new Place(i));
+		}
+		return places;
+	}
+
+	/**
+	 * Checks that the pieces returned by placeRanges cover the given range
+	 * without overlap and agree with the place of each index.
+	 */
+	static void checkConsistency(LongRangeDistribution dist, LongRange range) {
+		Map<LongRange, Place> pieces = dist.placeRanges(range);
+		List<LongRange> sorted = new ArrayList<>(pieces.keySet());
+		sorted.sort(null);
+		long expectedFrom = range.from;
+		for (LongRange r : sorted) {
+			assertEquals(expectedFrom, r.from);
+			assertTrue(r.from < r.to);
+			for (long i = r.from; i < r.to; i++) {
+				assertSame(dist.place(i), pieces.get(r));
+			}
+			expectedFrom = r.to;
+		}
+		assertEquals(range.to, expectedFrom);
+	}
+
+	@Test
+	public void testBlock() {
+		List<Place> places = places(4);
+		BlockDistribution dist = new BlockDistribution(new LongRange(0, 100), places);
+		assertSame(places.get(0), dist.place(0l));
+		assertSame(places.get(0), dist.place(24));
+		assertSame(places.get(1), dist.place(25));
+		assertSame(places.get(3), dist.place(99));
+		assertSame(places.get(0), dist.place(-10));
+		assertSame(places.get(3), dist.place(1000));
+		assertEquals(4, dist.placeRanges(new LongRange(0, 100)).size());
+		assertEquals(2, dist.placeRanges(new LongRange(20, 30)).size());
+		assertEquals(1, dist.placeRanges(new LongRange(26, 30)).size());
+		checkConsistency(dist, new LongRange(-20, 130));
+		checkConsistency(dist, new LongRange(13, 77));
+		assertTrue(dist.placeRanges(new LongRange(5, 5)).isEmpty());
+	}
+
+	@Test
+	public void testBlockUneven() {
+		List<Place> places = places(3);
+		BlockDistribution dist = new BlockDistribution(new LongRange(10, 20), places);
+		// Blocks of 4, 3 and 3 indices
+		assertSame(places.get(0), dist.place(13));
+		assertSame(places.get(1), dist.place(14));
+		assertSame(places.get(1), dist.place(16));
+		assertSame(places.get(2), dist.place(17));
+		assertSame(places.get(2), dist.place(19));
+		checkConsistency(dist, new LongRange(0, 30));
+
+		// 9 indices over 4 places: the last place is not left with 0 index
+		dist = new BlockDistribution(new LongRange(0, 9), places(4));
+		Map<LongRange, Place> ranges = dist.placeRanges(new LongRange(0, 9));
+		assertEquals(4, ranges.size());
+		assertTrue(ranges.containsKey(new LongRange(0, 3)));
+		assertTrue(ranges.containsKey(new LongRange(7, 9)));
+		checkConsistency(dist, new LongRange(-3, 12));
+
+		// More places than indices
+		dist = new BlockDistribution(new LongRange(0, 2), places(4));
+		assertEquals(2, dist.placeRanges(new LongRange(0, 2)).size());
+		checkConsistency(dist, new LongRange(-3, 6));
+	}
+
+	@Test
+	public void testCyclic() {
+		List<Place> places = places(3);
+		CyclicDistribution dist = new CyclicDistribution(places);
+		assertSame(places.get(0), dist.place(0l));
+		assertSame(places.get(2), dist.place(5));
+		assertSame(places.get(2), dist.place(-1));
+		assertEquals(10, dist.placeRanges(new LongRange(0, 10)).size());
+		checkConsistency(dist, new LongRange(-7, 20));
+	}
+
+	@Test
+	public void testBlockCyclic() {
+		List<Place> places = places(3);
+		BlockCyclicDistribution dist = new BlockCyclicDistribution(4, places);
+		assertSame(places.get(0), dist.place(3));
+		assertSame(places.get(1), dist.place(4));
+		assertSame(places.get(0), dist.place(12));
+		assertSame(places.get(2), dist.place(-1));
+		assertEquals(3, dist.placeRanges(new LongRange(2, 10)).size());
+		checkConsistency(dist, new LongRange(-9, 50));
+
+		BlockCyclicDistribution single = new BlockCyclicDistribution(4, places(1));
+		assertEquals(1, single.placeRanges(new LongRange(0, 100)).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBlockCyclicInvalidBlockSize() {
+		new BlockCyclicDistribution(0, places(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoPlaces() {
+		new BlockDistribution(new LongRange(0, 10), new ArrayList<>());
+	}
+
+	@Test
+	public void testConsistentHash() {
+		List<Place> places = places(4);
+		ConsistentHashDistribution dist = new ConsistentHashDistribution(places, 64);
+		checkConsistency(dist, new LongRange(0, 1000));
+
+		Map<Place, Integer> counts = new HashMap<>();
+		for (long i = 0; i < 10000; i++) {
+			counts.merge(dist.place(i), 1, Integer::sum);
+		}
+		assertEquals(4, counts.size());
+		for (int c : counts.values()) {
+			assertTrue("unbalanced: " + counts, c > 1000);
+		}
+
+		// Adding a place only moves indices to the new place
+		List<Place> more = new ArrayList<>(places);
+		more.add(new Place(4));
+		ConsistentHashDistribution bigger = new ConsistentHashDistribution(more, 64);
+		for (long i = 0; i < 10000; i++) {
+			Place before = dist.place(i);
+			Place after = bigger.place(i);
+			if (after != more.get(4)) {
+				assertSame(before, after);
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import handist.collections.LongRange;
+
+public class TestHalo {
+
+	@Test
+	public void testSingleRange() {
+		assertEquals(Arrays.asList(new LongRange(7, 10), new LongRange(20, 23)),
+				Halo.haloOf(Collections.singletonList(new LongRange(10, 20)), 3));
+		assertTrue(Halo.haloOf(Collections.singletonList(new LongRange(10, 20)), 0).isEmpty());
+		assertTrue(Halo.haloOf(Collections.<LongRange>emptyList(), 3).isEmpty());
+	}
+
+	@Test
+	public void testAdjacentRangesAreMerged() {
+		// Unsorted, adjacent ranges form a single run
+		assertEquals(Arrays.asList(new LongRange(8, 10), new LongRange(30, 32)),
+				Halo.haloOf(Arrays.asList(new LongRange(20, 30), new LongRange(10, 20)), 2));
+	}
+
+	@Test
+	public void testGaps() {
+		// Wide gap: separate halos on each side
+		assertEquals(
+				Arrays.asList(new LongRange(8, 10), new LongRange(20, 22), new LongRange(28, 30),
+						new LongRange(40, 42)),
+				Halo.haloOf(Arrays.asList(new LongRange(10, 20), new LongRange(30, 40)), 2));
+		// Narrow gap: the halos of both runs cover it once
+		assertEquals(Arrays.asList(new LongRange(5, 10), new LongRange(20, 23), new LongRange(26, 31)),
+				Halo.haloOf(Arrays.asList(new LongRange(10, 20), new LongRange(23, 26)), 5));
+		assertEquals(Arrays.asList(new LongRange(6, 10), new LongRange(20, 26), new LongRange(30, 34)),
+				Halo.haloOf(Arrays.asList(new LongRange(10, 20), new LongRange(26, 30)), 4));
+	}
+}
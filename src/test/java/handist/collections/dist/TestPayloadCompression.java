@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TestPayloadCompression {
+
+	/** Bytes of an array of sorted longs, which compress well */
+	static byte[] sortedIds(int n) {
+		byte[] b = new byte[n * 8];
+		for (int i = 0; i < n; i++) {
+			long v = 1000000l + i * 3;
+			for (int k = 0; k < 8; k++) {
+				b[i * 8 + k] = (byte) (v >>> (56 - 8 * k));
+			}
+		}
+		return b;
+	}
+
+	static byte[] random(int n) {
+		byte[] b = new byte[n];
+		new Random(42).nextBytes(b);
+		return b;
+	}
+
+	static byte[] readAll(ByteArrayInputStream in) {
+		byte[] b = new byte[in.available()];
+		in.read(b, 0, b.length);
+		return b;
+	}
+
+	@After
+	public void tearDown() {
+		PayloadCompression.setCodec(null);
+		PayloadCompression.setAdaptive(false);
+		PayloadCompression.setBandwidth(1e9);
+	}
+
+	private static void checkRoundTrip(PayloadCodec codec, byte[] data) throws IOException {
+		byte[] padded = new byte[data.length + 7];
+		System.arraycopy(data, 0, padded, 3, data.length);
+		byte[] compressed = codec.compress(padded, 3, data.length);
+		assertArrayEquals(data, codec.decompress(compressed, 0, compressed.length, data.length));
+	}
+
+	@Test
+	public void testCodecs() throws IOException {
+		for (PayloadCodec codec : new PayloadCodec[] { PayloadCompression.LZ, PayloadCompression.DEFLATE }) {
+			for (int n = 0; n < 40; n++) {
+				checkRoundTrip(codec, sortedIds(n));
+				checkRoundTrip(codec, random(n));
+			}
+			byte[] zeros = new byte[100000];
+			checkRoundTrip(codec, zeros);
+			checkRoundTrip(codec, random(100000));
+			byte[] ids = sortedIds(20000);
+			checkRoundTrip(codec, ids);
+			int compressed = codec.compress(ids, 0, ids.length).length;
+			assertTrue(codec + " does not compress", compressed < ids.length * 3 / 4);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptedPayload() throws IOException {
+		byte[] ids = sortedIds(1000);
+		byte[] compressed = PayloadCompression.LZ.compress(ids, 0, ids.length);
+		PayloadCompression.LZ.decompress(compressed, 0, compressed.length / 2, ids.length);
+	}
+
+	@Test
+	public void testFrames() throws IOException {
+		PayloadCompression.setCodec(PayloadCompression.LZ);
+		byte[] a = sortedIds(1000);
+		byte[] b = random(5000);
+		byte[] c = new byte[] { 1, 2, 3 };
+		byte[] buf = new byte[a.length + b.length + c.length];
+		System.arraycopy(a, 0, buf, 0, a.length);
+		System.arraycopy(b, 0, buf, a.length, b.length);
+		System.arraycopy(c, 0, buf, a.length + b.length, c.length);
+		int[] offsets = { 0, a.length, a.length, a.length + b.length };
+		int[] sizes = { a.length, 0, b.length, c.length };
+
+		byte[] encoded = PayloadCompression.encode(PayloadCompression.getCodec(), buf, offsets, sizes);
+		assertTrue(sizes[0] < a.length);
+		assertEquals(0, sizes[1]);
+		assertEquals(b.length + 1, sizes[2]);
+		assertEquals(c.length + 1, sizes[3]);
+
+		int[] dataOffsets = new int[4];
+		int[] dataSizes = new int[4];
+		boolean[] framed = { true, true, true, true };
+		byte[] decoded = PayloadCompression.decode(encoded, offsets, sizes, framed, dataOffsets, dataSizes);
+		assertArrayEquals(a, Arrays.copyOfRange(decoded, dataOffsets[0], dataOffsets[0] + dataSizes[0]));
+		assertEquals(0, dataSizes[1]);
+		assertArrayEquals(b, Arrays.copyOfRange(decoded, dataOffsets[2], dataOffsets[2] + dataSizes[2]));
+		assertArrayEquals(c, Arrays.copyOfRange(decoded, dataOffsets[3], dataOffsets[3] + dataSizes[3]));
+
+		byte[] single = PayloadCompression.encode(PayloadCompression.getCodec(), a);
+		assertArrayEquals(a, readAll(PayloadCompression.decode(single, 0, single.length, true)));
+	}
+
+	@Test
+	public void testWithoutCodec() throws IOException {
+		byte[] buf = random(100);
+		int[] offsets = { 0, 40 };
+		int[] sizes = { 40, 60 };
+		assertSame(buf, PayloadCompression.encode(null, buf, offsets, sizes));
+		assertArrayEquals(new int[] { 0, 40 }, offsets);
+		assertArrayEquals(new int[] { 40, 60 }, sizes);
+		assertSame(buf, PayloadCompression.encode(null, buf));
+
+		int[] dataOffsets = new int[2];
+		int[] dataSizes = new int[2];
+		assertSame(buf, PayloadCompression.decode(buf, offsets, sizes, new boolean[2], dataOffsets, dataSizes));
+		assertArrayEquals(offsets, dataOffsets);
+		assertArrayEquals(sizes, dataSizes);
+		assertArrayEquals(buf, readAll(PayloadCompression.decode(buf, 0, buf.length, false)));
+	}
+
+	@Test
+	public void testWireSize() {
+		for (int size : new int[] { 0, 1, 1000, Integer.MAX_VALUE }) {
+			assertEquals(size, PayloadCompression.wireSize(size, false));
+			assertEquals(size, PayloadCompression.size(PayloadCompression.wireSize(size, true)));
+			assertTrue(PayloadCompression.framed(PayloadCompression.wireSize(size, true)));
+			assertFalse(PayloadCompression.framed(PayloadCompression.wireSize(size, false)));
+		}
+	}
+
+	@Test
+	public void testMixedSenders() throws IOException {
+		PayloadCompression.setCodec(PayloadCompression.LZ);
+		byte[] a = sortedIds(1000);
+		byte[] b = sortedIds(2000);
+		byte[] framedA = PayloadCompression.encode(PayloadCompression.getCodec(), a);
+		byte[] buf = new byte[framedA.length + b.length];
+		System.arraycopy(framedA, 0, buf, 0, framedA.length);
+		System.arraycopy(b, 0, buf, framedA.length, b.length);
+		int[] offsets = { 0, framedA.length };
+		int[] sizes = { framedA.length, b.length };
+		boolean[] framed = { true, false };
+
+		int[] dataOffsets = new int[2];
+		int[] dataSizes = new int[2];
+		byte[] decoded = PayloadCompression.decode(buf, offsets, sizes, framed, dataOffsets, dataSizes);
+		assertArrayEquals(a, Arrays.copyOfRange(decoded, dataOffsets[0], dataOffsets[0] + dataSizes[0]));
+		assertArrayEquals(b, Arrays.copyOfRange(decoded, dataOffsets[1], dataOffsets[1] + dataSizes[1]));
+	}
+
+	@Test
+	public void testReceiverWithoutCodec() throws IOException {
+		byte[] a = sortedIds(1000);
+		PayloadCompression.setCodec(PayloadCompression.DEFLATE);
+		byte[] frame = PayloadCompression.encode(PayloadCompression.getCodec(), a);
+		PayloadCompression.setCodec(null);
+		assertArrayEquals(a, readAll(PayloadCompression.decode(frame, 0, frame.length, true)));
+		assertSame(a, PayloadCompression.encode(PayloadCompression.getCodec(), a));
+	}
+
+	@Test
+	public void testAdaptive() {
+		PayloadCompression.setCodec(PayloadCompression.DEFLATE);
+		PayloadCompression.setAdaptive(true);
+		byte[] a = sortedIds(10000);
+
+		// On a very slow network, compression always pays off
+		PayloadCompression.setBandwidth(1);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(PayloadCompression.encode(PayloadCompression.DEFLATE, a).length < a.length);
+		}
+		assertTrue(PayloadCompression.compressionRatio() < 0.5);
+		assertTrue(PayloadCompression.throughput() > 0);
+
+		// On a very fast network, only the probes are compressed
+		PayloadCompression.setBandwidth(1e30);
+		int compressed = 0;
+		for (int i = 0; i < 2 * PayloadCompression.PROBE_INTERVAL; i++) {
+			if (PayloadCompression.encode(PayloadCompression.DEFLATE, a).length < a.length) {
+				compressed++;
+			}
+		}
+		assertEquals(2, compressed);
+	}
+}
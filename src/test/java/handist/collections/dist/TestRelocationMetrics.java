@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Handy Tools for Distributed Computing (HanDist) project.
+ *
+ * This program and the accompanying materials are made available to you under
+ * the terms of the Eclipse Public License 1.0 which accompanies this
+ * distribution, and is available at https://www.eclipse.org/legal/epl-v10.html
+ *
+ * SPDX-License-Identifier: EPL-1.0
+ *******************************************************************************/
+package handist.collections.dist;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TestRelocationMetrics {
+
+	@Test
+	public void testCountersAndSnapshot() {
+		RelocationMetrics m = new RelocationMetrics(1, 3);
+		m.addSent(0, 100);
+		m.addSent(2, 50);
+		m.addReceived(0, 10);
+		m.addSerializationTime(1000);
+		m.addDeserializationTime(2000);
+		m.addCollectiveWaitTime(3000);
+		m.addElementsMoved(7);
+		m.addRelocation();
+		m.setImbalanceRatio(1.5);
+		m.setPlannedTransfers(10, 4);
+
+		RelocationMetrics.Snapshot s = m.snapshot();
+		m.addSent(0, 1);
+		assertEquals(1, s.rank());
+		assertEquals(150, s.bytesSent());
+		assertEquals(10, s.bytesReceived());
+		assertArrayEquals(new long[] { 100, 0, 50 }, s.bytesSentPerPeer());
+		assertEquals(1000, s.serializationTime());
+		assertEquals(2000, s.deserializationTime());
+		assertEquals(3000, s.collectiveWaitTime());
+		assertEquals(7, s.elementsMoved());
+		assertEquals(1, s.relocationCount());
+		assertEquals(1.5, s.imbalanceRatio(), 0.0);
+		assertEquals(10, s.plannedIntraNodeElements());
+		assertEquals(4, s.plannedCrossNodeElements());
+		// 150 bytes for 7 elements
+		assertEquals(85, s.plannedCrossNodeBytes());
+		assertEquals(151, m.getBytesSent());
+
+		m.reset();
+		assertEquals(0, m.getBytesSent());
+		assertEquals(0, m.getElementsMoved());
+		assertEquals(0.0, m.getImbalanceRatio(), 0.0);
+		assertEquals(0, m.getPlannedCrossNodeElements());
+	}
+
+	@Test
+	public void testMXBeanRegistration() throws Exception {
+		RelocationMetrics m = new RelocationMetrics(0, 2);
+		m.register("test-group");
+		m.addSent(1, 42);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("handist.collections:type=RelocationMetrics,rank=0,group="
+				+ ObjectName.quote("test-group"));
+		assertEquals(42l, server.getAttribute(name, "BytesSent"));
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testToggle() {
+		boolean initial = RelocationMetrics.isEnabled();
+		try {
+			RelocationMetrics.enable();
+			assertTrue(new RelocationMetrics(0, 1).isRecording());
+			RelocationMetrics.disable();
+			assertFalse(RelocationMetrics.isEnabled());
+		} finally {
+			RelocationMetrics.enabled = initial;
+		}
+	}
+}